@@ -0,0 +1,293 @@
+package datawave.ingest.protobuf;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import com.google.protobuf.InvalidProtocolBufferException;
+
+/**
+ * Reads and writes the values of the global indexes, which may be stored either as a serialized {@link Uid.List} protocol buffer or in the compact format
+ * defined here. Both formats can be read side by side, so existing tables can be migrated as they are compacted.
+ * <p>
+ * The compact format front codes (prefix compresses) the sorted UIDs, which typically share a long common hash prefix:
+ * <ul>
+ * <li>a {@link #FORMAT_MARKER} byte, which is never the first byte of a serialized Uid.List</li>
+ * <li>a byte holding the format version in the high nibble and the IGNORE, has REMOVEDUID and has QUARANTINEUID flags in the low nibble</li>
+ * <li>the COUNT as a zig-zag encoded varint</li>
+ * <li>the UID list, followed by the REMOVEDUID and QUARANTINEUID lists if flagged</li>
+ * </ul>
+ * Each list is a varint number of UIDs, the first UID as a varint length followed by its bytes, and each subsequent UID as the varint length of the prefix it
+ * shares with the previous UID, the varint length of its remaining suffix, and the suffix bytes.
+ */
+public final class UidListCodec {
+    
+    public enum Format {
+        PROTOBUF, COMPACT
+    }
+    
+    public static final byte FORMAT_MARKER = 0;
+    public static final int COMPACT_VERSION = 1;
+    
+    private static final int IGNORE_FLAG = 0x1;
+    private static final int REMOVED_FLAG = 0x2;
+    private static final int QUARANTINED_FLAG = 0x4;
+    
+    /**
+     * Receives the UIDs read from a compact value. The buffer is reused between calls.
+     */
+    public interface UidConsumer {
+        void accept(int fieldNumber, byte[] buffer, int offset, int length);
+    }
+    
+    private UidListCodec() {}
+    
+    public static boolean isCompact(byte[] value) {
+        return value.length > 0 && value[0] == FORMAT_MARKER;
+    }
+    
+    public static Format getFormat(byte[] value) {
+        return isCompact(value) ? Format.COMPACT : Format.PROTOBUF;
+    }
+    
+    /**
+     * Decode a value in either format.
+     *
+     * @param value
+     *            the serialized value
+     * @return the Uid.List
+     * @throws InvalidProtocolBufferException
+     *             if the value is in neither format
+     */
+    public static Uid.List decode(byte[] value) throws InvalidProtocolBufferException {
+        if (!isCompact(value)) {
+            return Uid.List.parseFrom(value);
+        }
+        
+        CompactReader reader = new CompactReader(value);
+        final Uid.List.Builder builder = Uid.List.newBuilder();
+        builder.setIGNORE(reader.isIgnore());
+        builder.setCOUNT(reader.getCount());
+        reader.readUids((fieldNumber, buffer, offset, length) -> {
+            String uid = new String(buffer, offset, length, StandardCharsets.UTF_8);
+            if (fieldNumber == Uid.List.UID_FIELD_NUMBER) {
+                builder.addUID(uid);
+            } else if (fieldNumber == Uid.List.REMOVEDUID_FIELD_NUMBER) {
+                builder.addREMOVEDUID(uid);
+            } else {
+                builder.addQUARANTINEUID(uid);
+            }
+        });
+        return builder.build();
+    }
+    
+    public static byte[] encode(Uid.List list, Format format) {
+        return (format == Format.COMPACT ? encodeCompact(list) : list.toByteArray());
+    }
+    
+    public static byte[] encodeCompact(Uid.List list) {
+        CompactWriter writer = new CompactWriter();
+        writer.start(list.getIGNORE(), list.getCOUNT(), list.getREMOVEDUIDCount() > 0, list.getQUARANTINEUIDCount() > 0);
+        writeSorted(writer, list.getUIDList());
+        if (list.getREMOVEDUIDCount() > 0) {
+            writeSorted(writer, list.getREMOVEDUIDList());
+        }
+        if (list.getQUARANTINEUIDCount() > 0) {
+            writeSorted(writer, list.getQUARANTINEUIDList());
+        }
+        return writer.toByteArray();
+    }
+    
+    private static void writeSorted(CompactWriter writer, List<String> uids) {
+        List<String> sorted = uids;
+        if (uids.size() > 1) {
+            sorted = new ArrayList<>(uids);
+            Collections.sort(sorted);
+        }
+        writer.startList(sorted.size());
+        for (String uid : sorted) {
+            byte[] bytes = uid.getBytes(StandardCharsets.UTF_8);
+            writer.addUid(bytes, 0, bytes.length);
+        }
+    }
+    
+    /**
+     * Get the number of bytes saved by an encoding of a Uid.List, relative to its protocol buffer serialization.
+     *
+     * @param list
+     *            the Uid.List
+     * @param encodedLength
+     *            the length of the encoded value
+     * @return the bytes saved, negative if the encoding is larger
+     */
+    public static long getBytesSaved(Uid.List list, int encodedLength) {
+        return list.getSerializedSize() - encodedLength;
+    }
+    
+    /**
+     * Reads a compact value. The header is read on construction, after which {@link #readUids(UidConsumer)} reads and validates the remainder of the value.
+     */
+    public static class CompactReader {
+        private final byte[] data;
+        private final int flags;
+        private final long count;
+        private int pos;
+        private byte[] uid = new byte[64];
+        
+        public CompactReader(byte[] data) throws InvalidProtocolBufferException {
+            this.data = data;
+            if (data.length < 3 || data[0] != FORMAT_MARKER) {
+                throw new InvalidProtocolBufferException("Value is not a compact Uid.List");
+            }
+            int version = (data[1] & 0xff) >>> 4;
+            if (version != COMPACT_VERSION) {
+                throw new InvalidProtocolBufferException("Unsupported compact Uid.List version " + version);
+            }
+            flags = data[1] & 0x0f;
+            pos = 2;
+            long zigZag = readVarint64();
+            count = (zigZag >>> 1) ^ -(zigZag & 1);
+        }
+        
+        public boolean isIgnore() {
+            return (flags & IGNORE_FLAG) != 0;
+        }
+        
+        public long getCount() {
+            return count;
+        }
+        
+        public void readUids(UidConsumer consumer) throws InvalidProtocolBufferException {
+            readList(Uid.List.UID_FIELD_NUMBER, consumer);
+            if ((flags & REMOVED_FLAG) != 0) {
+                readList(Uid.List.REMOVEDUID_FIELD_NUMBER, consumer);
+            }
+            if ((flags & QUARANTINED_FLAG) != 0) {
+                readList(Uid.List.QUARANTINEUID_FIELD_NUMBER, consumer);
+            }
+            if (pos != data.length) {
+                throw new InvalidProtocolBufferException("Unexpected trailing bytes in compact Uid.List");
+            }
+        }
+        
+        private void readList(int fieldNumber, UidConsumer consumer) throws InvalidProtocolBufferException {
+            int size = readVarint32();
+            int length = 0;
+            for (int i = 0; i < size; i++) {
+                int shared = (i == 0 ? 0 : readVarint32());
+                int suffix = readVarint32();
+                if (shared > length || suffix > data.length - pos) {
+                    throw new InvalidProtocolBufferException("Corrupt compact Uid.List");
+                }
+                length = shared + suffix;
+                if (length > uid.length) {
+                    uid = Arrays.copyOf(uid, Math.max(length, uid.length * 2));
+                }
+                System.arraycopy(data, pos, uid, shared, suffix);
+                pos += suffix;
+                consumer.accept(fieldNumber, uid, 0, length);
+            }
+        }
+        
+        private int readVarint32() throws InvalidProtocolBufferException {
+            long value = readVarint64();
+            if (value < 0 || value > Integer.MAX_VALUE) {
+                throw new InvalidProtocolBufferException("Corrupt compact Uid.List");
+            }
+            return (int) value;
+        }
+        
+        private long readVarint64() throws InvalidProtocolBufferException {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                if (pos >= data.length) {
+                    throw new InvalidProtocolBufferException("Truncated compact Uid.List");
+                }
+                byte b = data[pos++];
+                value |= (long) (b & 0x7f) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new InvalidProtocolBufferException("Malformed varint in compact Uid.List");
+        }
+    }
+    
+    /**
+     * Writes a compact value. The UIDs of each list should be added in sorted order, otherwise they will be stored but compress poorly.
+     */
+    public static class CompactWriter {
+        private byte[] buffer = new byte[64];
+        private int pos = 0;
+        private byte[] previous = new byte[64];
+        private int previousLength = 0;
+        private boolean first = true;
+        
+        public void start(boolean ignore, long count, boolean hasRemoved, boolean hasQuarantined) {
+            pos = 0;
+            int flags = (ignore ? IGNORE_FLAG : 0) | (hasRemoved ? REMOVED_FLAG : 0) | (hasQuarantined ? QUARANTINED_FLAG : 0);
+            writeByte(FORMAT_MARKER);
+            writeByte((COMPACT_VERSION << 4) | flags);
+            writeVarint64((count << 1) ^ (count >> 63));
+        }
+        
+        public void startList(int size) {
+            writeVarint64(size);
+            previousLength = 0;
+            first = true;
+        }
+        
+        public void addUid(byte[] bytes, int offset, int length) {
+            int shared = 0;
+            int max = Math.min(length, previousLength);
+            while (shared < max && previous[shared] == bytes[offset + shared]) {
+                shared++;
+            }
+            // the first UID of a list never shares a prefix, so its prefix length is omitted
+            if (!first) {
+                writeVarint64(shared);
+            }
+            first = false;
+            writeVarint64(length - shared);
+            ensureCapacity(length - shared);
+            System.arraycopy(bytes, offset + shared, buffer, pos, length - shared);
+            pos += length - shared;
+            
+            if (length > previous.length) {
+                previous = Arrays.copyOf(previous, Math.max(length, previous.length * 2));
+            }
+            System.arraycopy(bytes, offset, previous, 0, length);
+            previousLength = length;
+        }
+        
+        public int size() {
+            return pos;
+        }
+        
+        public byte[] toByteArray() {
+            return Arrays.copyOf(buffer, pos);
+        }
+        
+        private void writeByte(int b) {
+            ensureCapacity(1);
+            buffer[pos++] = (byte) b;
+        }
+        
+        private void writeVarint64(long value) {
+            ensureCapacity(10);
+            while ((value & ~0x7fL) != 0) {
+                buffer[pos++] = (byte) ((value & 0x7f) | 0x80);
+                value >>>= 7;
+            }
+            buffer[pos++] = (byte) value;
+        }
+        
+        private void ensureCapacity(int length) {
+            if (pos + length > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(pos + length, buffer.length * 2));
+            }
+        }
+    }
+}
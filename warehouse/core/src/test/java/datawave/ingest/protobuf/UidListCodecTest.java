@@ -0,0 +1,100 @@
+package datawave.ingest.protobuf;
+
+import com.google.protobuf.InvalidProtocolBufferException;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+
+public class UidListCodecTest {
+    
+    private Uid.List createList(long count, boolean ignore) {
+        Uid.List.Builder builder = Uid.List.newBuilder();
+        builder.setCOUNT(count);
+        builder.setIGNORE(ignore);
+        for (int i = 0; i < 20; i++) {
+            builder.addUID("-3kf8ch.ef2sd9.-iu6ky8." + (i * 37 % 20));
+        }
+        builder.addREMOVEDUID("-3kf8ch.ef2sd9.-iu6ky8.removed");
+        builder.addQUARANTINEUID("1w5dps.-4x0lk4.8p2k1f");
+        return builder.build();
+    }
+    
+    private void assertSameList(Uid.List expected, Uid.List actual) {
+        Assert.assertEquals(expected.getIGNORE(), actual.getIGNORE());
+        Assert.assertEquals(expected.getCOUNT(), actual.getCOUNT());
+        Assert.assertEquals(new HashSet<>(expected.getUIDList()), new HashSet<>(actual.getUIDList()));
+        Assert.assertEquals(expected.getUIDCount(), actual.getUIDCount());
+        Assert.assertEquals(new HashSet<>(expected.getREMOVEDUIDList()), new HashSet<>(actual.getREMOVEDUIDList()));
+        Assert.assertEquals(new HashSet<>(expected.getQUARANTINEUIDList()), new HashSet<>(actual.getQUARANTINEUIDList()));
+    }
+    
+    @Test
+    public void testCompactRoundTrip() throws Exception {
+        for (long count : new long[] {0, 1, -1, 20, Long.MAX_VALUE, Long.MIN_VALUE}) {
+            Uid.List list = createList(count, count < 0);
+            byte[] compact = UidListCodec.encodeCompact(list);
+            Assert.assertTrue(UidListCodec.isCompact(compact));
+            assertSameList(list, UidListCodec.decode(compact));
+        }
+    }
+    
+    @Test
+    public void testReadsBothFormats() throws Exception {
+        Uid.List list = createList(20, false);
+        byte[] protobuf = UidListCodec.encode(list, UidListCodec.Format.PROTOBUF);
+        byte[] compact = UidListCodec.encode(list, UidListCodec.Format.COMPACT);
+        
+        Assert.assertEquals(UidListCodec.Format.PROTOBUF, UidListCodec.getFormat(protobuf));
+        Assert.assertEquals(UidListCodec.Format.COMPACT, UidListCodec.getFormat(compact));
+        Assert.assertEquals(list, UidListCodec.decode(protobuf));
+        assertSameList(list, UidListCodec.decode(compact));
+    }
+    
+    @Test
+    public void testBytesSaved() {
+        Uid.List list = createList(20, false);
+        byte[] compact = UidListCodec.encodeCompact(list);
+        long saved = UidListCodec.getBytesSaved(list, compact.length);
+        Assert.assertEquals(list.toByteArray().length - compact.length, saved);
+        // the shared hash prefix of the uids is only stored once
+        Assert.assertTrue("saved " + saved + " bytes", saved > 19 * 20);
+        
+        // a single uid is no larger than its protobuf encoding
+        Uid.List single = Uid.List.newBuilder().setIGNORE(false).setCOUNT(1).addUID("-3kf8ch.ef2sd9.-iu6ky8").build();
+        Assert.assertTrue(UidListCodec.getBytesSaved(single, UidListCodec.encodeCompact(single).length) >= 0);
+    }
+    
+    @Test
+    public void testEmptyAndDuplicateUids() throws Exception {
+        Uid.List list = Uid.List.newBuilder().setIGNORE(false).setCOUNT(3).addUID("").addUID("a.b").addUID("a.b").build();
+        Uid.List decoded = UidListCodec.decode(UidListCodec.encodeCompact(list));
+        Assert.assertEquals(Arrays.asList("", "a.b", "a.b"), decoded.getUIDList());
+    }
+    
+    @Test
+    public void testUnsupportedVersion() {
+        byte[] compact = UidListCodec.encodeCompact(createList(1, false));
+        compact[1] = (byte) ((UidListCodec.COMPACT_VERSION + 1) << 4);
+        try {
+            UidListCodec.decode(compact);
+            Assert.fail("Expected an unsupported version to be rejected");
+        } catch (InvalidProtocolBufferException e) {
+            // expected
+        }
+    }
+    
+    @Test
+    public void testTruncatedValue() {
+        byte[] compact = UidListCodec.encodeCompact(createList(1, false));
+        for (int length = 1; length < compact.length; length++) {
+            try {
+                UidListCodec.decode(Arrays.copyOf(compact, length));
+                Assert.fail("Expected a truncated value of length " + length + " to be rejected");
+            } catch (InvalidProtocolBufferException e) {
+                // expected
+            }
+        }
+    }
+}
@@ -41,6 +41,7 @@ import datawave.ingest.mapreduce.job.statsd.StatsDEnabledDataTypeHandler;
 import datawave.ingest.metadata.RawRecordMetadata;
 import datawave.ingest.protobuf.Uid;
 import datawave.ingest.protobuf.Uid.List.Builder;
+import datawave.ingest.protobuf.UidListCodec;
 import datawave.ingest.table.config.LoadDateTableConfigHelper;
 import datawave.ingest.util.BloomFilterUtil;
 import datawave.ingest.util.BloomFilterWrapper;
@@ -175,6 +176,11 @@ public abstract class ShardedDataTypeHandler<KEYIN> extends StatsDEnabledDataTyp
     // Config option name for all tables that are "sharded"
     public static final String SHARDED_TNAMES = "sharded.table.names";
     
+    /**
+     * The format of the Uid.List values written to the global indexes, PROTOBUF (the default) or COMPACT. See {@link UidListCodec}.
+     */
+    public static final String UID_LIST_FORMAT = "shard.global.index.uid.list.format";
+    
     private static final long MS_PER_DAY = TimeUnit.DAYS.toMillis(1);
     
     private float bloomFilteringDiskThreshold;
@@ -195,6 +201,7 @@ public abstract class ShardedDataTypeHandler<KEYIN> extends StatsDEnabledDataTyp
     protected MarkingFunctions markingFunctions;
     protected IngestConfiguration ingestConfig = IngestConfigurationFactory.getIngestConfiguration();
     private boolean suppressEventKeys = false;
+    private UidListCodec.Format uidListFormat = UidListCodec.Format.PROTOBUF;
     
     /**
      * Determines whether or not we produce cardinality estimates for data
@@ -282,6 +289,8 @@ public abstract class ShardedDataTypeHandler<KEYIN> extends StatsDEnabledDataTyp
         
         // Event key suppression
         this.suppressEventKeys = conf.getBoolean(SUPPRESS_EVENT_KEYS, false);
+        
+        this.uidListFormat = conf.getEnum(UID_LIST_FORMAT, UidListCodec.Format.PROTOBUF);
     }
     
     private void setupToReindexIfEnabled(Configuration conf) {
@@ -1063,7 +1072,17 @@ public abstract class ShardedDataTypeHandler<KEYIN> extends StatsDEnabledDataTyp
         uidBuilder.addUID(uid);
         
         Uid.List uidList = uidBuilder.build();
-        return new Value(uidList.toByteArray());
+        return createUidListValue(uidList);
+    }
+    
+    /**
+     * Serialize a Uid.List for the global indexes in the configured format
+     * 
+     * @param uidList
+     * @return the value
+     */
+    protected Value createUidListValue(Uid.List uidList) {
+        return new Value(UidListCodec.encode(uidList, uidListFormat));
     }
     
     /**
@@ -1110,7 +1129,7 @@ public abstract class ShardedDataTypeHandler<KEYIN> extends StatsDEnabledDataTyp
             }
             Uid.List uidList = uidBuilder.build();
             
-            Value val = new Value(uidList.toByteArray());
+            Value val = createUidListValue(uidList);
             
             // Dont create index entries for empty values
             if (!StringUtils.isEmpty(normalizedMaskedValue)) {
@@ -1144,7 +1163,7 @@ public abstract class ShardedDataTypeHandler<KEYIN> extends StatsDEnabledDataTyp
                 uidBuilder.addUID(event.getId().toString());
             }
             Uid.List uidList = uidBuilder.build();
-            Value val = new Value(uidList.toByteArray());
+            Value val = createUidListValue(uidList);
             
             /**
              * For values that are not being masked, we use the "unmaskedValue" and the masked visibility e.g. release the value as it was in the event at the
@@ -780,7 +780,7 @@ public abstract class ExtendedContentIndexingColumnBasedHandler<KEYIN,KEYOUT,VAL
             uidBuilder.addUID(this.eventUid);
         }
         Uid.List uidList = uidBuilder.build();
-        Value val = new Value(uidList.toByteArray());
+        Value val = createUidListValue(uidList);
         
         BulkIngestKey bKey = new BulkIngestKey(tableName, k);
         contextWriter.write(bKey, val, context);
@@ -17,6 +17,7 @@ import org.apache.accumulo.core.client.security.tokens.PasswordToken;
 import org.apache.accumulo.core.master.thrift.MasterClientService.Iface;
 import org.apache.accumulo.core.master.thrift.MasterMonitorInfo;
 import org.apache.accumulo.core.master.thrift.TableInfo;
+import org.apache.accumulo.core.master.thrift.TabletServerStatus;
 import org.apache.hadoop.conf.Configurable;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.FileChecksum;
@@ -57,17 +58,31 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Observer;
+import java.util.Queue;
 import java.util.Stack;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntSupplier;
+import java.util.function.Predicate;
 
 /**
  * A processor whose job is to watch for completed Bulk Ingest jobs and bring the map files produced by them online in accumulo. This class attempts to bring
  * multiple map files online at once if many jobs have completed, and also attempts to throttle itself to prevent queuing up too many major compactions on the
  * various tablet servers.
+ * <p>
+ * When more than one pipeline directory is configured (-pipelineDirectories), job directories are processed concurrently: ownership is taken on the monitor
+ * thread while the copy, validation, import and cleanup of previously owned directories continue on a pool of pipeline threads. In that mode the number of
+ * concurrent imports into any one table is bounded by -maxImportsPerTable, and imports are held off while a tablet server hosting the target table has more
+ * than -tserverMajcThreshold major compactions running or queued.
  */
 public final class BulkIngestMapFileLoader implements Runnable {
     private static Logger log = Logger.getLogger(BulkIngestMapFileLoader.class);
@@ -77,6 +92,10 @@ public final class BulkIngestMapFileLoader implements Runnable {
     private static int MAJC_CHECK_INTERVAL = 1;
     private static int MAJC_THRESHOLD = 3000;
     private static int MAJC_WAIT_TIMEOUT = 0;// 2 * 60 * 1000;
+    private static int PIPELINE_DIRECTORIES = 1;
+    private static int MAX_IMPORTS_PER_TABLE = 2;
+    private static int TSERVER_MAJC_THRESHOLD = 0;
+    private static int TSERVER_MAJC_WAIT_TIME = 30000;
     private static int SHUTDOWN_PORT = 24111;
     private static boolean FIFO = true;
     private static boolean INGEST_METRICS = true;
@@ -102,6 +121,9 @@ public final class BulkIngestMapFileLoader implements Runnable {
     private StandaloneStatusReporter reporter = new StandaloneStatusReporter();
     private volatile boolean running;
     private ExecutorService executor;
+    private JobDirectoryPipeline pipeline;
+    private Map<String,Semaphore> tableImportPermits = new ConcurrentHashMap<>();
+    private AtomicInteger fsAccessFailures = new AtomicInteger();
     private JobObservable jobObservable;
     
     public static void main(String[] args) throws AccumuloSecurityException, IOException {
@@ -117,6 +139,7 @@ public final class BulkIngestMapFileLoader implements Runnable {
             log.error("usage: BulkIngestMapFileLoader hdfsWorkDir jobDirPattern instanceName zooKeepers username password "
                             + "[-sleepTime sleepTime] [-majcThreshold threshold] [-majcCheckInterval count] [-majcDelay majcDelay] "
                             + " [-seqFileHdfs seqFileSystemUri] [-srcHdfs srcFileSystemURI] [-destHdfs destFileSystemURI] [-jt jobTracker] "
+                            + "[-pipelineDirectories count] [-maxImportsPerTable count] [-tserverMajcThreshold threshold] [-tserverMajcWait ms] "
                             + "[-ingestMetricsDisabled] [-jobObservers jobObserverClasses] [-shutdownPort portNum] confFile [{confFile}]");
             System.exit(-1);
         }
@@ -184,6 +207,50 @@ public final class BulkIngestMapFileLoader implements Runnable {
                         log.error("-maxDirectories must be followed a number of directories", e);
                         System.exit(-2);
                     }
+                } else if ("-pipelineDirectories".equalsIgnoreCase(args[i])) {
+                    if (i + 2 > args.length) {
+                        log.error("-pipelineDirectories must be followed by the number of job directories to process concurrently");
+                        System.exit(-2);
+                    }
+                    try {
+                        PIPELINE_DIRECTORIES = Integer.parseInt(args[++i]);
+                    } catch (NumberFormatException e) {
+                        log.error("-pipelineDirectories must be followed by the number of job directories to process concurrently", e);
+                        System.exit(-2);
+                    }
+                } else if ("-maxImportsPerTable".equalsIgnoreCase(args[i])) {
+                    if (i + 2 > args.length) {
+                        log.error("-maxImportsPerTable must be followed by the maximum number of concurrent imports into a single table");
+                        System.exit(-2);
+                    }
+                    try {
+                        MAX_IMPORTS_PER_TABLE = Integer.parseInt(args[++i]);
+                    } catch (NumberFormatException e) {
+                        log.error("-maxImportsPerTable must be followed by the maximum number of concurrent imports into a single table", e);
+                        System.exit(-2);
+                    }
+                } else if ("-tserverMajcThreshold".equalsIgnoreCase(args[i])) {
+                    if (i + 2 > args.length) {
+                        log.error("-tserverMajcThreshold must be followed by the maximum number of major compactions per tablet server before waiting");
+                        System.exit(-2);
+                    }
+                    try {
+                        TSERVER_MAJC_THRESHOLD = Integer.parseInt(args[++i]);
+                    } catch (NumberFormatException e) {
+                        log.error("-tserverMajcThreshold must be followed by the maximum number of major compactions per tablet server before waiting", e);
+                        System.exit(-2);
+                    }
+                } else if ("-tserverMajcWait".equalsIgnoreCase(args[i])) {
+                    if (i + 2 > args.length) {
+                        log.error("-tserverMajcWait must be followed by the number of ms to wait between tablet server compaction checks");
+                        System.exit(-2);
+                    }
+                    try {
+                        TSERVER_MAJC_WAIT_TIME = Integer.parseInt(args[++i]);
+                    } catch (NumberFormatException e) {
+                        log.error("-tserverMajcWait must be followed by the number of ms to wait between tablet server compaction checks", e);
+                        System.exit(-2);
+                    }
                 } else if ("-numThreads".equalsIgnoreCase(args[i])) {
                     if (i + 2 > args.length) {
                         log.error("-numThreads must be followed by the number of bulk import threads");
@@ -318,6 +385,12 @@ public final class BulkIngestMapFileLoader implements Runnable {
         log.info("Will not bring map files online unless at least " + MAJC_WAIT_TIMEOUT + "ms have passed since last time.");
         log.info("Will check the majcThreshold and majcDelay every " + MAJC_CHECK_INTERVAL + " bulk loads.");
         log.info("Processing a max of " + MAX_DIRECTORIES + " directories");
+        log.info("Processing up to " + PIPELINE_DIRECTORIES + " job directories concurrently");
+        log.info("Allowing up to " + MAX_IMPORTS_PER_TABLE + " concurrent imports per table");
+        if (TSERVER_MAJC_THRESHOLD > 0) {
+            log.info("Will hold off imports while a hosting tablet server has more than " + TSERVER_MAJC_THRESHOLD
+                            + " running or queued major compactions, rechecking every " + TSERVER_MAJC_WAIT_TIME + "ms");
+        }
         log.info("Using " + numBulkThreads + " bulk load threads");
         log.info("Using " + numHdfsThreads + " HDFS operation threads");
         log.info("Using " + numBulkAssignThreads + " bulk assign threads");
@@ -388,6 +461,9 @@ public final class BulkIngestMapFileLoader implements Runnable {
         this.jobtracker = jobtracker;
         this.running = true;
         this.executor = Executors.newFixedThreadPool(numHdfsThreads > 0 ? numHdfsThreads : 1);
+        if (PIPELINE_DIRECTORIES > 1) {
+            this.pipeline = new JobDirectoryPipeline(PIPELINE_DIRECTORIES);
+        }
         try {
             this.jobObservable = new JobObservable(seqFileHdfs != null ? getFileSystem(seqFileHdfs) : null);
         } catch (IOException e) {
@@ -421,7 +497,6 @@ public final class BulkIngestMapFileLoader implements Runnable {
         log.info("Starting process to monitor map files.");
         long lastOnlineTime = 0;
         long lastLoadMessageTime = 0;
-        int fsAccessFailures = 0;
         Path[] jobDirectories = new Path[0];
         int nextJobIndex = 0;
         
@@ -440,6 +515,14 @@ public final class BulkIngestMapFileLoader implements Runnable {
                     sleep();
                     if (!running)
                         break;
+                    
+                    // gather up the directories completed by the pipeline threads since the last pass
+                    List<Path> completed = (pipeline != null) ? pipeline.drainCompleted() : Collections.emptyList();
+                    if (!completed.isEmpty()) {
+                        writeStats(completed.toArray(new Path[completed.size()]));
+                        lastLoadMessageTime = 0;
+                    }
+                    
                     long loadMessageDelta = System.currentTimeMillis() - lastLoadMessageTime;
                     boolean logMessages = (loadMessageDelta > (5 * 60 * 1000));
                     if (logMessages) {
@@ -458,58 +541,25 @@ public final class BulkIngestMapFileLoader implements Runnable {
                     }
                     if (jobDirectories.length > 0) {
                         while (processedDirectories.size() < MAJC_CHECK_INTERVAL && jobDirectories.length > 0) {
-                            Path srcJobDirectory = jobDirectories[nextJobIndex++];
                             if (!running)
                                 break;
+                            // when pipelining, only take ownership of a directory once a pipeline thread is free to process it
+                            if (pipeline != null && !pipeline.tryAcquireSlot()) {
+                                break;
+                            }
+                            Path srcJobDirectory = jobDirectories[nextJobIndex++];
                             // take ownership of the job directory if we can
                             if (takeOwnershipJobDirectory(srcJobDirectory)) {
                                 processedDirectories.add(srcJobDirectory);
-                                Path mapFilesDir = new Path(srcJobDirectory, "mapFiles");
                                 reporter.getCounter("MapFileLoader.StartTimes", srcJobDirectory.getName()).increment(System.currentTimeMillis());
-                                Path dstJobDirectory = srcJobDirectory;
-                                URI workingHdfs = srcHdfs;
-                                
-                                try {
-                                    log.info("Started processing " + mapFilesDir);
-                                    long start = System.currentTimeMillis();
-                                    
-                                    // copy the data if needed
-                                    dstJobDirectory = distCpDirectory(srcJobDirectory);
-                                    workingHdfs = destHdfs;
-                                    
-                                    // recreate the map files directory reference in case it moved filesystems
-                                    mapFilesDir = new Path(dstJobDirectory, "mapFiles");
-                                    
-                                    // now if we have a destination work directory, then move then move the files
-                                    bringMapFilesOnline(mapFilesDir);
-                                    
-                                    // ensure everything got loaded
-                                    verifyNothingLeftBehind(mapFilesDir);
-                                    
-                                    cleanUpJobDirectory(mapFilesDir);
-                                    long end = System.currentTimeMillis();
-                                    log.info("Finished processing " + mapFilesDir + ", duration (sec): " + ((end - start) / 1000));
-                                    
+                                if (pipeline != null) {
+                                    pipeline.submit(srcJobDirectory, this::processJobDirectory);
+                                } else if (processJobDirectory(srcJobDirectory)) {
                                     // now that we actually processed something, reset the last load message time to force a message on the next round
                                     lastLoadMessageTime = 0;
-                                } catch (Exception e) {
-                                    log.error("Failed to process " + mapFilesDir, e);
-                                    boolean marked = markJobDirectoryFailed(workingHdfs, dstJobDirectory);
-                                    if (!marked) {
-                                        ++fsAccessFailures;
-                                        if (fsAccessFailures >= 3) {
-                                            log.error("Too many failures updating marker files.  Exiting...");
-                                            shutdown();
-                                        } else {
-                                            log.warn("Failed to mark " + dstJobDirectory + " as failed. Sleeping in case this was a transient failure.");
-                                            try {
-                                                Thread.sleep(FAILURE_SLEEP_TIME);
-                                            } catch (InterruptedException ie) {
-                                                log.warn("Interrupted while sleeping.", ie);
-                                            }
-                                        }
-                                    }
                                 }
+                            } else if (pipeline != null) {
+                                pipeline.releaseSlot();
                             }
                             if (nextJobIndex >= jobDirectories.length) {
                                 jobDirectories = getJobDirectories(srcHdfs, new Path(workDir, jobDirPattern + '/' + COMPLETE_FILE_MARKER));
@@ -518,7 +568,9 @@ public final class BulkIngestMapFileLoader implements Runnable {
                             
                         }
                         if (!processedDirectories.isEmpty()) {
-                            writeStats(processedDirectories.toArray(new Path[processedDirectories.size()]));
+                            if (pipeline == null) {
+                                writeStats(processedDirectories.toArray(new Path[processedDirectories.size()]));
+                            }
                             lastOnlineTime = System.currentTimeMillis();
                         }
                     }
@@ -528,6 +580,23 @@ public final class BulkIngestMapFileLoader implements Runnable {
             }
             
         } finally {
+            if (pipeline != null) {
+                log.info("Waiting for in-progress job directories to complete");
+                try {
+                    pipeline.shutdown();
+                } catch (InterruptedException e) {
+                    log.warn("Interrupted while waiting for in-progress job directories to complete.", e);
+                }
+                // report the directories completed since the last pass, including those completed while shutting down
+                List<Path> completed = pipeline.drainCompleted();
+                if (!completed.isEmpty()) {
+                    try {
+                        writeStats(completed.toArray(new Path[completed.size()]));
+                    } catch (IOException e) {
+                        log.error("Unable to write the stats of the job directories completed while shutting down: " + e.getMessage(), e);
+                    }
+                }
+            }
             log.info("Shutting down executor service");
             accumuloClient.close();
             executor.shutdown();
@@ -535,6 +604,60 @@ public final class BulkIngestMapFileLoader implements Runnable {
         log.info("Bulk map file loader shutting down.");
     }
     
+    /**
+     * Copies (if needed), imports, verifies and cleans up a job directory that this process has already taken ownership of. If anything fails, then the job
+     * directory is marked as failed.
+     *
+     * @param srcJobDirectory
+     *            the job directory in the source filesystem
+     * @return true if the map files were brought online successfully
+     */
+    protected boolean processJobDirectory(Path srcJobDirectory) {
+        Path mapFilesDir = new Path(srcJobDirectory, "mapFiles");
+        Path dstJobDirectory = srcJobDirectory;
+        URI workingHdfs = srcHdfs;
+        
+        try {
+            log.info("Started processing " + mapFilesDir);
+            long start = System.currentTimeMillis();
+            
+            // copy the data if needed
+            dstJobDirectory = distCpDirectory(srcJobDirectory);
+            workingHdfs = destHdfs;
+            
+            // recreate the map files directory reference in case it moved filesystems
+            mapFilesDir = new Path(dstJobDirectory, "mapFiles");
+            
+            // now if we have a destination work directory, then move then move the files
+            bringMapFilesOnline(mapFilesDir);
+            
+            // ensure everything got loaded
+            verifyNothingLeftBehind(mapFilesDir);
+            
+            cleanUpJobDirectory(mapFilesDir);
+            long end = System.currentTimeMillis();
+            log.info("Finished processing " + mapFilesDir + ", duration (sec): " + ((end - start) / 1000));
+            return true;
+        } catch (Exception e) {
+            log.error("Failed to process " + mapFilesDir, e);
+            boolean marked = markJobDirectoryFailed(workingHdfs, dstJobDirectory);
+            if (!marked) {
+                if (fsAccessFailures.incrementAndGet() >= 3) {
+                    log.error("Too many failures updating marker files.  Exiting...");
+                    shutdown();
+                } else {
+                    log.warn("Failed to mark " + dstJobDirectory + " as failed. Sleeping in case this was a transient failure.");
+                    try {
+                        Thread.sleep(FAILURE_SLEEP_TIME);
+                    } catch (InterruptedException ie) {
+                        log.warn("Interrupted while sleeping.", ie);
+                    }
+                }
+            }
+            return false;
+        }
+    }
+    
     protected void cleanJobDirectoriesOnStartup() throws IOException {
         Path[] cleanupDirectories = getJobDirectories(destHdfs, new Path(workDir, jobDirPattern + '/' + CLEANUP_FILE_MARKER));
         for (int i = 0; i < cleanupDirectories.length; i++) {
@@ -694,6 +817,68 @@ public final class BulkIngestMapFileLoader implements Runnable {
         return majC;
     }
     
+    /**
+     * Gets the largest number of major compactions (running and queued) on any one tablet server hosting the specified table.
+     *
+     * @param tableId
+     *            the table id, or null to consider all tablet servers
+     * @return the maximum number of major compactions on a hosting tablet server
+     */
+    private int getMaxTabletServerCompactionCount(String tableId) {
+        int maxMajC = 0;
+        
+        Iface client = null;
+        try {
+            client = MasterClient.getConnection((ClientContext) accumuloClient);
+            MasterMonitorInfo mmi = client.getMasterStats(null, ((ClientContext) accumuloClient).rpcCreds());
+            
+            for (TabletServerStatus tserver : mmi.getTServerInfo()) {
+                Map<String,TableInfo> tableStats = tserver.getTableMap();
+                if (tableStats == null || (tableId != null && !tableStats.containsKey(tableId))) {
+                    continue;
+                }
+                int majC = 0;
+                for (TableInfo tableInfo : tableStats.values()) {
+                    majC += tableInfo.getMajors().getQueued();
+                    majC += tableInfo.getMajors().getRunning();
+                }
+                maxMajC = Math.max(maxMajC, majC);
+            }
+        } catch (Exception e) {
+            log.error("Unable to retrieve tablet server major compaction stats: " + e.getMessage());
+        } finally {
+            if (client != null) {
+                MasterClient.close(client);
+            }
+        }
+        
+        return maxMajC;
+    }
+    
+    /**
+     * Holds off an import into {@code tableName} while any tablet server hosting that table has more than -tserverMajcThreshold major compactions running or
+     * queued. This is a no-op if no threshold was configured.
+     */
+    protected void waitForTabletServerCompactions(String tableName) throws InterruptedException {
+        if (TSERVER_MAJC_THRESHOLD <= 0) {
+            return;
+        }
+        String tableId = accumuloClient.tableOperations().tableIdMap().get(tableName);
+        waitForTabletServerCompactions(tableName, () -> getMaxTabletServerCompactionCount(tableId));
+    }
+    
+    void waitForTabletServerCompactions(String tableName, IntSupplier maxCompactions) throws InterruptedException {
+        int majC;
+        while (running && (majC = maxCompactions.getAsInt()) > TSERVER_MAJC_THRESHOLD) {
+            log.info("Holding off import into " + tableName + " since a hosting tablet server has " + majC + " compactions running or queued.");
+            Thread.sleep(TSERVER_MAJC_WAIT_TIME);
+        }
+    }
+    
+    Semaphore getTableImportPermits(String tableName) {
+        return tableImportPermits.computeIfAbsent(tableName, t -> new Semaphore(Math.max(1, MAX_IMPORTS_PER_TABLE), true));
+    }
+    
     /**
      * Gets a list of job directories that are marked with pathPattern.
      * 
@@ -885,10 +1070,17 @@ public final class BulkIngestMapFileLoader implements Runnable {
                 }
                 fileSystem.mkdirs(failuresPath);
                 
-                // import the directory
-                log.info("Bringing Map Files online for " + tableName);
-                accumuloClient.tableOperations().importDirectory(tableName, tableDir.toString(), failuresDir, false);
-                log.info("Completed bringing map files online for " + tableName);
+                // import the directory, limiting the number of concurrent imports into this table across job directories
+                Semaphore importPermits = getTableImportPermits(tableName);
+                importPermits.acquire();
+                try {
+                    waitForTabletServerCompactions(tableName);
+                    log.info("Bringing Map Files online for " + tableName);
+                    accumuloClient.tableOperations().importDirectory(tableName, tableDir.toString(), failuresDir, false);
+                    log.info("Completed bringing map files online for " + tableName);
+                } finally {
+                    importPermits.release();
+                }
                 validateComplete();
             } catch (Exception e) {
                 log.error("Error importing files into table " + tableName + " from directory " + mapFilesDir, e);
@@ -1175,7 +1367,10 @@ public final class BulkIngestMapFileLoader implements Runnable {
                     
                     if (jobFile != null) {
                         log.info("Notifying observers for job: " + jobFile.getName() + " from work dir: " + jobDirectory);
-                        jobObservable.setJobId(jobFile.getName());
+                        // job directories may be completing concurrently when pipelining
+                        synchronized (jobObservable) {
+                            jobObservable.setJobId(jobFile.getName());
+                        }
                     } else {
                         log.warn("no job file found for: " + jobDirectory);
                     }
@@ -1269,4 +1464,66 @@ public final class BulkIngestMapFileLoader implements Runnable {
         }
     }
     
+    /**
+     * The job directories being processed concurrently on the pipeline threads. A slot is taken before ownership of a directory is taken, and is given back
+     * once the directory has been processed, whether or not that succeeded.
+     */
+    static class JobDirectoryPipeline {
+        private final ExecutorService executor;
+        private final Semaphore slots;
+        private final Queue<Path> completed = new ConcurrentLinkedQueue<>();
+        
+        JobDirectoryPipeline(int directories) {
+            this.executor = Executors.newFixedThreadPool(directories);
+            this.slots = new Semaphore(directories);
+        }
+        
+        boolean tryAcquireSlot() {
+            return slots.tryAcquire();
+        }
+        
+        void releaseSlot() {
+            slots.release();
+        }
+        
+        /**
+         * Process a job directory on a pipeline thread, using a slot which the caller has already acquired
+         */
+        void submit(Path jobDirectory, Predicate<Path> processor) {
+            try {
+                executor.submit(() -> {
+                    try {
+                        processor.test(jobDirectory);
+                    } catch (RuntimeException e) {
+                        log.error("Error processing job directory " + jobDirectory, e);
+                    } finally {
+                        completed.add(jobDirectory);
+                        slots.release();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                slots.release();
+                throw e;
+            }
+        }
+        
+        /**
+         * @return the job directories that have been processed since the last call
+         */
+        List<Path> drainCompleted() {
+            List<Path> directories = new ArrayList<>();
+            for (Path directory = completed.poll(); directory != null; directory = completed.poll()) {
+                directories.add(directory);
+            }
+            return directories;
+        }
+        
+        /**
+         * Wait for the job directories in progress to be processed
+         */
+        void shutdown() throws InterruptedException {
+            executor.shutdown();
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        }
+    }
 }
@@ -19,7 +19,9 @@ import datawave.ingest.mapreduce.job.writer.ContextWriter;
 import datawave.ingest.mapreduce.job.writer.DedupeContextWriter;
 import datawave.ingest.mapreduce.job.writer.LiveContextWriter;
 import datawave.ingest.mapreduce.job.writer.TableCachingContextWriter;
+import datawave.ingest.mapreduce.partition.BalancedShardPartitioner;
 import datawave.ingest.mapreduce.partition.MultiTableRangePartitioner;
+import datawave.ingest.mapreduce.partition.ShardWeights;
 import datawave.ingest.metric.IngestInput;
 import datawave.ingest.metric.IngestOutput;
 import datawave.ingest.metric.IngestProcess;
@@ -119,7 +121,9 @@ import java.util.Set;
  * Class that starts a MapReduce job to create Accumulo Map files that to be bulk imported into Accumulo If outputMutations is specified, then Mutations are
  * created instead which will modify accumulo directly instead of using Accumulo Map files (e.g. use for live ingest). If mapOnly is specified (only valid for
  * live ingest), then the combiner and reducers will be run as part of the map process. Beware that potentially more data may be cached in memory when doing
- * mapOnly processing. This will only be an issue if something like the EdgeDataTypeHandler produces an unreasonable number of edges for one event. The general
+ * mapOnly processing. This will only be an issue if something like the EdgeDataTypeHandler produces an unreasonable number of edges for one event. For bulk
+ * ingest, mapOnlyRFiles may be specified instead, in which case the map tasks sort their output and write it with the MapOnlyRFileOutputFormatter into
+ * RFiles aligned to the cached table splits, skipping the shuffle entirely. The general
  * sequence of events is as follows:
  * <p>
  * EventSequenceFileInputFormat produces an EventSequenceFileReader to read files of Event objects EventMapper used in map phase which calls processBulk on
@@ -134,6 +138,7 @@ public class IngestJob implements Tool {
     
     public static final String DAEMON_PROCESSES_PROPERTY = "accumulo.ingest.daemons";
     public static final String REDUCE_TASKS_ARG_PREFIX = "-mapreduce.job.reduces=";
+    public static final String WORK_DIR_QUALIFIED = "ingest.work.dir.qualified";
     
     protected boolean eventProcessingError = false;
     protected Logger log = Logger.getLogger("datawave.ingest");
@@ -161,6 +166,7 @@ public class IngestJob implements Tool {
     protected String pipelineId = null;
     protected boolean outputMutations = false;
     protected boolean useMapOnly = false;
+    protected boolean mapOnlyRFiles = false;
     protected boolean useCombiner = false;
     protected boolean useInlineCombiner = false;
     protected boolean verboseCounters = false;
@@ -237,6 +243,7 @@ public class IngestJob implements Tool {
         System.out.println("                     [-outputMutations]");
         System.out.println("                     [-mapreduce.job.reduces=numReducers]");
         System.out.println("                     [-disableSpeculativeExecution] [-mapOnly] [-useCombiner] [-useInlineCombiner]");
+        System.out.println("                     [-mapOnlyRFiles] [-mapOnlySpillBufferSize bytes]");
         System.out.println("                     [-verboseCounters]");
         System.out.println("                     [-tableCounters] [-contextWriterCounters] [-noFileNameCounters]");
         System.out.println("                     [-generateMapFileRowKeys]");
@@ -330,7 +337,7 @@ public class IngestJob implements Tool {
         Path unqualifiedWorkPath = Path.getPathWithoutSchemeAndAuthority(new Path(workDir));
         conf.set("ingest.work.dir.unqualified", unqualifiedWorkPath.toString());
         Path workDirPath = new Path(new Path(writeDirectlyToDest ? destHdfs : srcHdfs), unqualifiedWorkPath);
-        conf.set("ingest.work.dir.qualified", workDirPath.toString());
+        conf.set(WORK_DIR_QUALIFIED, workDirPath.toString());
         
         // Create the Job
         Job job = Job.getInstance(conf);
@@ -480,6 +487,11 @@ public class IngestJob implements Tool {
                 log.error("Unable to remove job working directory: " + workDirPath);
             }
         } else {
+            // collect the reducer shard bytes before the job directory is moved or handed to the loader
+            if (!useMapOnly && conf.getBoolean(BalancedShardPartitioner.SKEW_AWARE_PROP, false)) {
+                updateShardWeights(conf, workDirPath, job.getNumReduceTasks(), job.getJobID().toString());
+            }
+            
             // now move the job directory over to the warehouse if needed
             FileSystem destFs = getFileSystem(conf, destHdfs);
             
@@ -514,6 +526,7 @@ public class IngestJob implements Tool {
                 log.error("Failed to create marker file indicating job completion.");
                 return -3;
             }
+            
         }
         
         // if we had a failure writing the metrics, or we have event processing errors, then return -5
@@ -538,6 +551,32 @@ public class IngestJob implements Tool {
         return 0;
     }
     
+    /**
+     * Save the hot shard volumes reported by the reducers so that the next job's BalancedShardPartitioner can spread those shards across several reducers. The
+     * bytes of each shard are summed over the reducers before the hottest are kept, and they are written to a file of this job's own so that concurrent jobs
+     * do not replace each other's weights. The reducer files are removed from the job directory once read. Failing to do so does not fail the job.
+     */
+    protected void updateShardWeights(Configuration conf, Path workDirPath, int numReduceTasks, String jobId) {
+        String weightsFile = conf.get(BalancedShardPartitioner.SHARD_WEIGHTS_FILE_PROP);
+        if (weightsFile == null) {
+            log.warn(BalancedShardPartitioner.SKEW_AWARE_PROP + " is set but " + BalancedShardPartitioner.SHARD_WEIGHTS_FILE_PROP + " is not");
+            return;
+        }
+        try {
+            ShardWeights weights = ShardWeights.fromReducerFiles(conf, workDirPath, numReduceTasks);
+            weights.retainHottest(conf.getInt(BalancedShardPartitioner.MAX_HOT_SHARDS_PROP, BalancedShardPartitioner.DEFAULT_MAX_HOT_SHARDS),
+                            conf.getLong(BalancedShardPartitioner.HOT_SHARD_MIN_BYTES_PROP, BalancedShardPartitioner.DEFAULT_HOT_SHARD_MIN_BYTES));
+            Path jobWeightsFile = ShardWeights.getJobWeightsFile(new Path(weightsFile), jobId);
+            log.info("Writing shard weights to " + jobWeightsFile + ", average bytes per reducer: " + weights.getBytesPerReducer());
+            weights.write(conf, jobWeightsFile);
+            ShardWeights.deleteExpired(conf, new Path(weightsFile));
+            Path reducerBytesDir = new Path(workDirPath, ShardWeights.REDUCER_BYTES_DIR);
+            reducerBytesDir.getFileSystem(conf).delete(reducerBytesDir, true);
+        } catch (IOException e) {
+            log.warn("Unable to write shard weights to " + weightsFile, e);
+        }
+    }
+    
     protected Configuration interpolateEnvironment(Configuration conf) {
         // We have set up the Configuration, now replace all instances of ${DATAWAVE_INGEST_HOME} with
         // the value that is set in the environment.
@@ -636,6 +675,13 @@ public class IngestJob implements Tool {
             } else if (args[i].equals("-mapOnly")) {
                 useMapOnly = true;
                 generateMarkerFile = false;
+            } else if (args[i].equals("-mapOnlyRFiles")) {
+                // bulk ingest without a reduce phase: the map tasks write rfiles aligned to the cached splits
+                useMapOnly = true;
+                mapOnlyRFiles = true;
+                generateMarkerFile = false;
+            } else if (args[i].equals("-mapOnlySpillBufferSize")) {
+                MapOnlyRFileOutputFormatter.setSpillBufferSize(conf, Long.parseLong(args[++i]));
             } else if (args[i].equals("-useCombiner")) {
                 useCombiner = true;
             } else if (args[i].equals("-useInlineCombiner")) {
@@ -761,8 +807,8 @@ public class IngestJob implements Tool {
             return null;
         }
         
-        if (useMapOnly && !outputMutations) {
-            log.error("ERROR: Cannot do bulk ingest mapOnly (i.e. without the reduce phase).  Bulk ingest required sorted keys.");
+        if (useMapOnly && !outputMutations && !mapOnlyRFiles) {
+            log.error("ERROR: Cannot do bulk ingest mapOnly (i.e. without the reduce phase).  Bulk ingest required sorted keys.  Use -mapOnlyRFiles instead.");
             return null;
         }
         
@@ -791,12 +837,26 @@ public class IngestJob implements Tool {
     protected void configureBulkPartitionerAndOutputFormatter(Job job, AccumuloHelper cbHelper, Configuration conf, FileSystem outputFs)
                     throws AccumuloSecurityException, AccumuloException, IOException, URISyntaxException, TableExistsException, TableNotFoundException {
         if (null == conf.get("split.work.dir")) {
-            conf.set("split.work.dir", conf.get("ingest.work.dir.qualified"));
+            conf.set("split.work.dir", conf.get(WORK_DIR_QUALIFIED));
         }
         conf.setInt("splits.num.reduce", this.reduceTasks);
         // used by the output formatter and the sharded partitioner
         ShardedTableMapFile.setupFile(conf);
         
+        if (mapOnlyRFiles) {
+            // There is no shuffle and hence no partitioner. Instead the map tasks write their rfiles aligned to the cached splits, so ensure they are current
+            TableSplitsCache splitsCache = new TableSplitsCache(conf);
+            if (!TableSplitsCacheStatus.isCacheValid(conf)) {
+                if (!TableSplitsCache.shouldRefreshSplits(conf)) {
+                    throw new IOException("Splits cache is invalid");
+                }
+                log.info("Recreating splits");
+                splitsCache.update();
+            }
+            configureMultiRFileOutputFormatter(conf, compressionType, compressionTableBlackList, maxRFileEntries, maxRFileSize, generateMapFileRowKeys);
+            return;
+        }
+        
         conf.setInt(MultiRFileOutputFormatter.EVENT_PARTITION_COUNT, this.reduceTasks * 2);
         configureMultiRFileOutputFormatter(conf, compressionType, compressionTableBlackList, maxRFileEntries, maxRFileSize, generateMapFileRowKeys);
         
@@ -980,7 +1040,7 @@ public class IngestJob implements Tool {
             job.setOutputFormatClass(CBMutationOutputFormatter.class);
         } else {
             FileOutputFormat.setOutputPath(job, new Path(workDirPath, "mapFiles"));
-            job.setOutputFormatClass(MultiRFileOutputFormatter.class);
+            job.setOutputFormatClass(mapOnlyRFiles ? MapOnlyRFileOutputFormatter.class : MultiRFileOutputFormatter.class);
         }
         
         // Setup the location for the history output (old and new property names)
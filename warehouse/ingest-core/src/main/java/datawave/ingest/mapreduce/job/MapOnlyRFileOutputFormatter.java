@@ -0,0 +1,234 @@
+package datawave.ingest.mapreduce.job;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import datawave.marking.MarkingFunctions;
+
+import org.apache.accumulo.core.crypto.CryptoServiceFactory;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.file.FileOperations;
+import org.apache.accumulo.core.file.FileSKVIterator;
+import org.apache.accumulo.core.file.rfile.RFile;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapreduce.RecordWriter;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.hadoop.mapreduce.lib.output.FileOutputCommitter;
+import org.apache.log4j.Logger;
+
+import com.google.common.collect.Maps;
+
+/**
+ * An output formatter for map-only bulk ingest. Instead of relying on the shuffle to route keys to the reducer owning the target tablets and to sort them, the
+ * map output is buffered per table. Whenever the buffer exceeds the configured spill size, and when the task completes, the buffer is sorted and written out
+ * directly as one RFile per tablet, using the split points held in the {@link TableSplitsCache}. Every spill produces its own set of files, so a tablet may
+ * receive several files from a single map task, all of which can be brought online by the {@link BulkIngestMapFileLoader} as is.
+ * <p>
+ * All keys are written to the default locality group.
+ */
+public class MapOnlyRFileOutputFormatter extends MultiRFileOutputFormatter {
+    
+    private static final Logger log = Logger.getLogger(MapOnlyRFileOutputFormatter.class);
+    
+    public static final String SPILL_BUFFER_SIZE = PREFIX + ".mapOnly.spillBufferSize";
+    public static final long DEFAULT_SPILL_BUFFER_SIZE = 128L * 1024L * 1024L;
+    
+    public static final String COUNTER_GROUP = "MapOnlyRFileOutput";
+    
+    public static void setSpillBufferSize(Configuration conf, long spillBufferSize) {
+        conf.setLong(SPILL_BUFFER_SIZE, spillBufferSize);
+    }
+    
+    /**
+     * Get the index of the tablet containing {@code row}. Tablet {@code i} contains the rows in {@code (splits[i - 1], splits[i]]}, and the last tablet (at
+     * index {@code splits.length}) contains everything after the last split.
+     *
+     * @param splits
+     *            the sorted split points for the table
+     * @param row
+     *            the row
+     * @return the tablet index
+     */
+    static int getTabletIndex(Text[] splits, Text row) {
+        int index = Arrays.binarySearch(splits, row);
+        return index < 0 ? (index + 1) * -1 : index;
+    }
+    
+    @Override
+    public RecordWriter<BulkIngestKey,Value> getRecordWriter(final TaskAttemptContext context) throws IOException, InterruptedException {
+        MarkingFunctions.Factory.createMarkingFunctions();
+        // get the task output path
+        FileOutputCommitter committer = (FileOutputCommitter) getOutputCommitter(context);
+        workDir = committer.getWorkPath();
+        conf = context.getConfiguration();
+        
+        columnFamilyToLocalityGroup = Maps.newHashMap();
+        localityGroupToColumnFamilies = Maps.newHashMap();
+        
+        setTableIdsAndConfigs();
+        
+        fs = workDir.getFileSystem(conf);
+        
+        extension = conf.get(FILE_TYPE);
+        if (extension == null || extension.isEmpty())
+            extension = RFile.EXTENSION;
+        extension = "." + extension;
+        
+        Set<String> tableList = getTableList();
+        for (String table : tableList) {
+            if (tableIds.get(table) == null) {
+                throw new IOException("Unable to determine id for table " + table);
+            }
+        }
+        
+        return new TabletAlignedRecordWriter(context, tableList, createSplitsCache(conf), conf.getLong(SPILL_BUFFER_SIZE, DEFAULT_SPILL_BUFFER_SIZE));
+    }
+    
+    protected TableSplitsCache createSplitsCache(Configuration conf) {
+        return new TableSplitsCache(conf);
+    }
+    
+    /**
+     * Buffers the map output and spills it, sorted, into one RFile per table per tablet.
+     */
+    protected class TabletAlignedRecordWriter extends RecordWriter<BulkIngestKey,Value> {
+        private final TaskAttemptContext context;
+        private final Set<String> tableList;
+        private final TableSplitsCache splitsCache;
+        private final long spillBufferSize;
+        private final Map<String,List<Map.Entry<Key,Value>>> buffer = new HashMap<>();
+        private final Map<String,Text[]> tableSplits = new HashMap<>();
+        private final Map<Path,String> writtenPaths = new HashMap<>();
+        private long bufferedBytes = 0;
+        private int spillCount = 0;
+        private long startTime = System.currentTimeMillis();
+        
+        public TabletAlignedRecordWriter(TaskAttemptContext context, Set<String> tableList, TableSplitsCache splitsCache, long spillBufferSize) {
+            this.context = context;
+            this.tableList = tableList;
+            this.splitsCache = splitsCache;
+            this.spillBufferSize = spillBufferSize;
+        }
+        
+        @Override
+        public void write(BulkIngestKey key, Value value) throws IOException {
+            String tableName = key.getTableName().toString();
+            if (!tableList.contains(tableName)) {
+                throw new IOException("Asked to create writer for table " + tableName
+                                + ", however this table was not in the configured set of ingest job tables");
+            }
+            
+            // the context writers may reuse their keys and values, so take a copy before buffering
+            Key k = new Key(key.getKey());
+            Value v = (value == null ? new Value() : new Value(value));
+            buffer.computeIfAbsent(tableName, t -> new ArrayList<>()).add(Maps.immutableEntry(k, v));
+            bufferedBytes += k.getSize() + v.getSize();
+            
+            if (bufferedBytes >= spillBufferSize) {
+                spill();
+            }
+        }
+        
+        @Override
+        public void close(TaskAttemptContext context) throws IOException, InterruptedException {
+            spill();
+            
+            // To verify the files were actually written successfully, we need to reopen them which will reread the index at the end and verify its integrity.
+            FileOperations fops = FileOperations.getInstance();
+            for (Map.Entry<Path,String> entry : writtenPaths.entrySet()) {
+                Path path = entry.getKey();
+                try {
+                    FileSKVIterator openReader = fops.newReaderBuilder().forFile(path.toString(), fs, conf, CryptoServiceFactory.newDefaultInstance())
+                                    .withTableConfiguration(tableConfigs.get(entry.getValue())).build();
+                    FileStatus fileStatus = fs.getFileStatus(path);
+                    openReader.close();
+                    if (log.isDebugEnabled()) {
+                        log.debug("Successfully wrote " + path + ". Total size: " + fileStatus.getLen() + " B.");
+                    }
+                } catch (Exception ex) {
+                    log.error("Verification of successful RFile completion failed!!! " + path, ex);
+                    throw new IOException(ex);
+                }
+            }
+            log.info("Wrote " + writtenPaths.size() + " tablet aligned files in " + spillCount + " spills. Total time: "
+                            + (System.currentTimeMillis() - startTime) + " ms.");
+        }
+        
+        /**
+         * Sort the buffered entries and write them out, one file per table per tablet.
+         */
+        protected void spill() throws IOException {
+            if (buffer.isEmpty()) {
+                return;
+            }
+            
+            long start = System.currentTimeMillis();
+            for (Map.Entry<String,List<Map.Entry<Key,Value>>> entry : buffer.entrySet()) {
+                List<Map.Entry<Key,Value>> entries = entry.getValue();
+                entries.sort(Map.Entry.comparingByKey());
+                writeTabletFiles(entry.getKey(), entries);
+            }
+            log.info("Spilled " + bufferedBytes + " B for " + buffer.size() + " tables in " + (System.currentTimeMillis() - start) + " ms.");
+            
+            context.getCounter(COUNTER_GROUP, "Spills").increment(1);
+            context.getCounter(COUNTER_GROUP, "Spilled bytes").increment(bufferedBytes);
+            
+            buffer.clear();
+            bufferedBytes = 0;
+            spillCount++;
+        }
+        
+        private void writeTabletFiles(String tableName, List<Map.Entry<Key,Value>> sortedEntries) throws IOException {
+            Text[] splits = getSplits(tableName);
+            Path tableDir = new Path(workDir, tableName);
+            Text row = new Text();
+            
+            int currentTablet = -1;
+            SizeTrackingWriter writer = null;
+            try {
+                for (Map.Entry<Key,Value> entry : sortedEntries) {
+                    entry.getKey().getRow(row);
+                    int tablet = getTabletIndex(splits, row);
+                    if (writer == null || tablet != currentTablet) {
+                        if (writer != null) {
+                            writer.close();
+                        }
+                        Path tabletFile = new Path(tableDir, getUniqueFile(context, String.format("tablet%06d_spill%04d", tablet, spillCount), extension));
+                        writer = openWriter(tabletFile.toString(), tableConfigs.get(tableName));
+                        writer.startDefaultLocalityGroup();
+                        writtenPaths.put(tabletFile, tableName);
+                        currentTablet = tablet;
+                        context.getCounter(COUNTER_GROUP, tableName + " files").increment(1);
+                    }
+                    writer.append(entry.getKey(), entry.getValue());
+                }
+            } finally {
+                if (writer != null) {
+                    writer.close();
+                }
+            }
+            context.getCounter(COUNTER_GROUP, tableName + " entries").increment(sortedEntries.size());
+        }
+        
+        private Text[] getSplits(String tableName) throws IOException {
+            Text[] splits = tableSplits.get(tableName);
+            if (splits == null) {
+                splits = splitsCache.getSplits(tableName).toArray(new Text[0]);
+                tableSplits.put(tableName, splits);
+                if (splits.length == 0) {
+                    log.warn("No cached splits found for " + tableName + ", writing a single file per spill");
+                }
+            }
+            return splits;
+        }
+    }
+}
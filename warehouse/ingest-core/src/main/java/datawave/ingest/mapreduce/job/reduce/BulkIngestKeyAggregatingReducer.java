@@ -3,15 +3,20 @@ package datawave.ingest.mapreduce.job.reduce;
 import java.io.ByteArrayInputStream;
 import java.io.DataInputStream;
 import java.io.IOException;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
 
 import datawave.ingest.data.TypeRegistry;
 import datawave.ingest.mapreduce.job.BulkIngestKey;
 import datawave.ingest.mapreduce.job.IngestJob;
+import datawave.ingest.mapreduce.job.ShardedTableMapFile;
 import datawave.ingest.mapreduce.job.writer.BulkContextWriter;
 import datawave.ingest.mapreduce.job.writer.ContextWriter;
 import datawave.ingest.mapreduce.job.writer.LiveContextWriter;
+import datawave.ingest.mapreduce.partition.BalancedShardPartitioner;
+import datawave.ingest.mapreduce.partition.ShardWeights;
 import datawave.ingest.metric.IngestOutput;
 import datawave.ingest.table.aggregator.PropogatingCombiner;
 
@@ -19,6 +24,8 @@ import org.apache.accumulo.core.data.Mutation;
 import org.apache.accumulo.core.data.Value;
 import org.apache.accumulo.core.iterators.Combiner;
 import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.Text;
 import org.apache.hadoop.io.WritableUtils;
 
 import com.google.common.collect.Iterators;
@@ -40,6 +47,15 @@ public class BulkIngestKeyAggregatingReducer<K2,V2> extends AggregatingReducer<B
     private boolean verboseCounters = false;
     private boolean superExtraExplanatoryHappyPartitionerMode = false;
     
+    // input byte tracking for the skew aware BalancedShardPartitioner
+    private boolean reportShardBytes = false;
+    private Set<Text> shardedTableNames = new HashSet<>();
+    private ShardWeights shardBytes = new ShardWeights();
+    private Text currentShardTable = null;
+    private Text currentShardId = null;
+    private long currentShardBytes = 0;
+    private long reducerInputBytes = 0;
+    
     @SuppressWarnings("unchecked")
     @Override
     public void setup(Configuration conf) throws IOException, InterruptedException {
@@ -53,6 +69,18 @@ public class BulkIngestKeyAggregatingReducer<K2,V2> extends AggregatingReducer<B
         usingCombiner = conf.getBoolean(BulkIngestKeyDedupeCombiner.USING_COMBINER, false);
         verboseCounters = conf.getBoolean(VERBOSE_COUNTERS, verboseCounters);
         superExtraExplanatoryHappyPartitionerMode = conf.getBoolean(VERBOSE_PARTITIONING_COUNTERS, false);
+        
+        setupShardBytesReporting(conf);
+    }
+    
+    protected void setupShardBytesReporting(Configuration conf) throws IOException {
+        reportShardBytes = conf.getBoolean(BalancedShardPartitioner.SKEW_AWARE_PROP, false);
+        if (reportShardBytes) {
+            String[] tableNames = conf.getStrings(ShardedTableMapFile.CONFIGURED_SHARDED_TABLE_NAMES, new String[0]);
+            for (String tableName : tableNames) {
+                shardedTableNames.add(new Text(tableName));
+            }
+        }
     }
     
     protected void setupContextWriter(Configuration conf) throws IOException {
@@ -78,6 +106,70 @@ public class BulkIngestKeyAggregatingReducer<K2,V2> extends AggregatingReducer<B
     public void finish(TaskInputOutputContext<?,?,K2,V2> context) throws IOException, InterruptedException {
         super.finish(context);
         contextWriter.cleanup(context);
+        if (reportShardBytes && TaskType.REDUCE == context.getTaskAttemptID().getTaskType()) {
+            reportShardBytes(context);
+        }
+    }
+    
+    /**
+     * Track the input bytes for this reducer, and for the current shard if the key belongs to a sharded table
+     */
+    protected Iterable<Value> trackInputBytes(BulkIngestKey key, Iterable<Value> values) {
+        if (shardedTableNames.contains(key.getTableName())) {
+            if (currentShardId == null || !currentShardTable.equals(key.getTableName()) || key.getKey().compareRow(currentShardId) != 0) {
+                recordCurrentShard();
+                currentShardTable = new Text(key.getTableName());
+                currentShardId = key.getKey().getRow();
+            }
+        }
+        long keyBytes = key.getKey().getSize();
+        return () -> {
+            Iterator<Value> it = values.iterator();
+            return new Iterator<Value>() {
+                @Override
+                public boolean hasNext() {
+                    return it.hasNext();
+                }
+                
+                @Override
+                public Value next() {
+                    Value value = it.next();
+                    long bytes = keyBytes + value.getSize();
+                    reducerInputBytes += bytes;
+                    if (currentShardId != null) {
+                        currentShardBytes += bytes;
+                    }
+                    return value;
+                }
+            };
+        };
+    }
+    
+    private void recordCurrentShard() {
+        if (currentShardId != null) {
+            shardBytes.add(currentShardTable.toString(), currentShardId, currentShardBytes);
+        }
+        currentShardTable = null;
+        currentShardId = null;
+        currentShardBytes = 0;
+    }
+    
+    /**
+     * Write this reducer's input bytes and the bytes of every shard it read to a file in the job's work directory, for IngestJob to collect into the shard
+     * weights once the job completes. All shards are written because a shard spread by the partitioner delivers only part of its bytes to each reducer, so the
+     * hottest shards can only be picked once those parts are summed. The file is written to a hidden name and renamed so that a partial file is never read,
+     * and a retried attempt simply replaces it.
+     */
+    private void reportShardBytes(TaskInputOutputContext<?,?,K2,V2> context) throws IOException {
+        recordCurrentShard();
+        Configuration conf = context.getConfiguration();
+        String workDir = conf.get(IngestJob.WORK_DIR_QUALIFIED);
+        if (workDir == null) {
+            log.warn(BalancedShardPartitioner.SKEW_AWARE_PROP + " is set but " + IngestJob.WORK_DIR_QUALIFIED + " is not, not reporting shard bytes");
+            return;
+        }
+        shardBytes.setBytesPerReducer(reducerInputBytes);
+        shardBytes.write(conf, ShardWeights.getReducerBytesFile(new Path(workDir), context.getTaskAttemptID().getTaskID().getId()));
     }
     
     public void flush(TaskInputOutputContext<?,?,K2,V2> context) throws IOException, InterruptedException {
@@ -107,6 +199,10 @@ public class BulkIngestKeyAggregatingReducer<K2,V2> extends AggregatingReducer<B
             values = IngestJob.verboseCounters(ctx, "reducer", key, values);
         }
         
+        if (reportShardBytes && TaskType.REDUCE == ctx.getTaskAttemptID().getTaskType()) {
+            values = trackInputBytes(key, values);
+        }
+        
         // if super verbose counters, then add one to each
         if (superExtraExplanatoryHappyPartitionerMode && TaskType.REDUCE == ctx.getTaskAttemptID().getTaskType()) {
             int reducerId = ctx.getTaskAttemptID().getTaskID().getId();
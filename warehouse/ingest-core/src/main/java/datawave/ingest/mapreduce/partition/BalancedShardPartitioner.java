@@ -5,11 +5,15 @@ import datawave.ingest.mapreduce.handler.shard.ShardIdFactory;
 import datawave.ingest.mapreduce.job.BulkIngestKey;
 import datawave.ingest.mapreduce.job.ShardedTableMapFile;
 import datawave.util.time.DateHelper;
+import org.apache.accumulo.core.data.ByteSequence;
+import org.apache.accumulo.core.data.Key;
 import org.apache.accumulo.core.data.Value;
 import org.apache.commons.lang.time.DateUtils;
 import org.apache.hadoop.conf.Configurable;
 import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.WritableComparator;
 import org.apache.hadoop.mapreduce.Job;
 import org.apache.hadoop.mapreduce.Partitioner;
 import org.apache.log4j.Logger;
@@ -30,6 +34,10 @@ import java.util.TreeMap;
  * of each day's shards and the hashCode function caused collisions for a given day's shards. * The number of days without collisions = floor(min(r, ts) / x)
  * 'ts' = number of tablet servers, 'r' = number of partitioners 'x' = number of shards in a given day * Depends on the ShardedTableMapFile for getting splits
  * and for identifying the tables it might see (ShardedTableMapFile.CONFIGURED_SHARDED_TABLE_NAMES), also assumes that the num of shard ids property is set.
+ * <p>
+ * When skew awareness is enabled, the partitioner also loads the {@link ShardWeights} learned from the reducers of previous jobs. A shard that received
+ * several times the average bytes per reducer in that job is spread across that many reducers, each of which produces its own importable rfile for the shard.
+ * Keys are spread by their column family and qualifier, so identical keys still meet in the same reducer.
  */
 public class BalancedShardPartitioner extends Partitioner<BulkIngestKey,Value> implements Configurable, DelegatePartitioner {
     private static final Logger log = Logger.getLogger(BalancedShardPartitioner.class);
@@ -42,6 +50,17 @@ public class BalancedShardPartitioner extends Partitioner<BulkIngestKey,Value> i
     int missingShardIdCount = 0;
     
     public static final String MISSING_SHARD_STRATEGY_PROP = "datawave.ingest.mapreduce.partition.BalancedShardPartitioner.missing.shard.strategy";
+    public static final String SKEW_AWARE_PROP = "datawave.ingest.mapreduce.partition.BalancedShardPartitioner.skew.aware";
+    public static final String SHARD_WEIGHTS_FILE_PROP = "datawave.ingest.mapreduce.partition.BalancedShardPartitioner.shard.weights.file";
+    public static final String MAX_SPREAD_PROP = "datawave.ingest.mapreduce.partition.BalancedShardPartitioner.max.spread";
+    public static final int DEFAULT_MAX_SPREAD = 8;
+    public static final String HOT_SHARD_MIN_BYTES_PROP = "datawave.ingest.mapreduce.partition.BalancedShardPartitioner.hot.shard.min.bytes";
+    public static final long DEFAULT_HOT_SHARD_MIN_BYTES = 64L * 1024L * 1024L;
+    public static final String MAX_HOT_SHARDS_PROP = "datawave.ingest.mapreduce.partition.BalancedShardPartitioner.max.hot.shards";
+    public static final int DEFAULT_MAX_HOT_SHARDS = 10;
+    
+    private ShardWeights shardWeights = null;
+    private int maxSpread = DEFAULT_MAX_SPREAD;
     
     private ShardIdFactory shardIdFactory = null;
     
@@ -49,17 +68,38 @@ public class BalancedShardPartitioner extends Partitioner<BulkIngestKey,Value> i
     public synchronized int getPartition(BulkIngestKey key, Value value, int numReduceTasks) {
         try {
             // partition will be balanced for a given day, more so for recent days
-            int partition = getAssignedPartition(key.getTableName().toString(), key.getKey().getRow());
+            String tableName = key.getTableName().toString();
+            Text shardId = key.getKey().getRow();
+            int partition = getAssignedPartition(tableName, shardId);
             
             // the offsets should help send today's shard data to a different set of reducers than today's error shard data
             int offsetForTable = shardIdFactory.getNumShards(key.getKey().getTimestamp()) * offsetsFactorByTable.get(key.getTableName());
             
+            // spread hot shards evenly around the reducers
+            if (shardWeights != null) {
+                int spread = shardWeights.getSpread(tableName, shardId, maxSpread);
+                if (spread > 1) {
+                    int slot = (hashColumns(key.getKey()) & Integer.MAX_VALUE) % spread;
+                    partition = (partition % numReduceTasks) + slot * Math.max(1, numReduceTasks / spread);
+                }
+            }
+            
             return (partition + offsetForTable) % numReduceTasks;
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
     }
     
+    /**
+     * Hash the column family and qualifier, but not the timestamp, so that identical keys are sent to the same reducer
+     */
+    private static int hashColumns(Key key) {
+        ByteSequence cf = key.getColumnFamilyData();
+        ByteSequence cq = key.getColumnQualifierData();
+        return 31 * WritableComparator.hashBytes(cf.getBackingArray(), cf.offset(), cf.length())
+                        + WritableComparator.hashBytes(cq.getBackingArray(), cq.offset(), cq.length());
+    }
+    
     /**
      */
     private int getAssignedPartition(String tableName, Text shardId) throws IOException {
@@ -233,6 +273,28 @@ public class BalancedShardPartitioner extends Partitioner<BulkIngestKey,Value> i
         this.conf = conf;
         shardIdFactory = new ShardIdFactory(conf);
         defineOffsetsForTables(conf);
+        loadShardWeights(conf);
+    }
+    
+    private void loadShardWeights(Configuration conf) {
+        shardWeights = null;
+        if (!conf.getBoolean(SKEW_AWARE_PROP, false)) {
+            return;
+        }
+        maxSpread = conf.getInt(MAX_SPREAD_PROP, DEFAULT_MAX_SPREAD);
+        String weightsFile = conf.get(SHARD_WEIGHTS_FILE_PROP);
+        if (weightsFile == null) {
+            log.warn(SKEW_AWARE_PROP + " is set but " + SHARD_WEIGHTS_FILE_PROP + " is not, hot shards will not be spread");
+            return;
+        }
+        try {
+            ShardWeights weights = ShardWeights.readAll(conf, new Path(weightsFile));
+            if (!weights.isEmpty()) {
+                shardWeights = weights;
+            }
+        } catch (IOException e) {
+            log.warn("Unable to read shard weights from " + weightsFile + ", hot shards will not be spread", e);
+        }
     }
     
     private void defineOffsetsForTables(Configuration conf) {
@@ -0,0 +1,317 @@
+package datawave.ingest.mapreduce.partition;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.Text;
+import org.apache.log4j.Logger;
+
+import java.io.BufferedReader;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The volume of data observed for the hot shards of the sharded tables, as learned from the reducers of previous ingest jobs. Used by the
+ * BalancedShardPartitioner to spread hot shards over several reducers. The weights are persisted as a text file of {@code table<tab>shardId<tab>bytes} lines
+ * preceded by a line holding the average number of bytes per reducer in the job that produced them.
+ * <p>
+ * Each reducer writes the same format to its own file under the {@link #REDUCER_BYTES_DIR} directory of the job's work directory, with the bytes read by that
+ * reducer in place of the average, and every shard it read. Side files are used rather than counters so that the number of reducers and shards is not bound
+ * by the job's counter limit. The bytes of a shard split across reducers are summed before the hottest shards are picked.
+ * <p>
+ * Each job writes its weights to its own file next to the configured weights file, named after the job id, so that concurrent jobs do not overwrite each
+ * other. The files are merged when read, and expire after {@link #MAX_AGE_PROP}.
+ */
+public class ShardWeights {
+    private static final Logger log = Logger.getLogger(ShardWeights.class);
+    
+    /** Directory of the job's work directory holding the bytes reported by each reducer */
+    public static final String REDUCER_BYTES_DIR = "shardBytes";
+    
+    /** How long the weights written by a job are used for, in milliseconds */
+    public static final String MAX_AGE_PROP = "datawave.ingest.mapreduce.partition.ShardWeights.max.age.ms";
+    public static final long DEFAULT_MAX_AGE_MS = 24L * 60L * 60L * 1000L;
+    
+    private static final String BYTES_PER_REDUCER = "#bytesPerReducer";
+    
+    private final Map<String,Map<Text,Long>> bytesByTable = new HashMap<>();
+    private long bytesPerReducer = 0;
+    
+    public void add(String tableName, Text shardId, long bytes) {
+        bytesByTable.computeIfAbsent(tableName, t -> new HashMap<>()).merge(new Text(shardId), bytes, Long::sum);
+    }
+    
+    public long getBytes(String tableName, Text shardId) {
+        Map<Text,Long> shardBytes = bytesByTable.get(tableName);
+        if (shardBytes == null) {
+            return 0;
+        }
+        Long bytes = shardBytes.get(shardId);
+        return (bytes == null ? 0 : bytes);
+    }
+    
+    public long getBytesPerReducer() {
+        return bytesPerReducer;
+    }
+    
+    public void setBytesPerReducer(long bytesPerReducer) {
+        this.bytesPerReducer = bytesPerReducer;
+    }
+    
+    public boolean isEmpty() {
+        return bytesByTable.isEmpty();
+    }
+    
+    /**
+     * Get the number of reducers a shard should be spread across. A shard that received n times the average bytes per reducer in the previous job is spread
+     * across n reducers.
+     *
+     * @param tableName
+     *            the sharded table
+     * @param shardId
+     *            the shard id
+     * @param maxSpread
+     *            the maximum number of reducers to spread a single shard over
+     * @return the number of reducers, at least 1
+     */
+    public int getSpread(String tableName, Text shardId, int maxSpread) {
+        long bytes = getBytes(tableName, shardId);
+        if (bytes == 0 || bytesPerReducer <= 0) {
+            return 1;
+        }
+        long spread = (bytes + bytesPerReducer - 1) / bytesPerReducer;
+        return (int) Math.max(1, Math.min(maxSpread, spread));
+    }
+    
+    /**
+     * Keep only the hottest shards of all tables, once the bytes of each shard have been summed.
+     *
+     * @param maxShards
+     *            the maximum number of shards to keep
+     * @param minBytes
+     *            the minimum bytes of a shard to keep
+     */
+    public void retainHottest(int maxShards, long minBytes) {
+        List<ShardBytes> shards = new ArrayList<>();
+        for (Map.Entry<String,Map<Text,Long>> table : bytesByTable.entrySet()) {
+            for (Map.Entry<Text,Long> shard : table.getValue().entrySet()) {
+                if (shard.getValue() >= minBytes) {
+                    shards.add(new ShardBytes(table.getKey(), shard.getKey(), shard.getValue()));
+                }
+            }
+        }
+        shards.sort(Comparator.comparingLong((ShardBytes shard) -> shard.bytes).reversed());
+        
+        bytesByTable.clear();
+        for (ShardBytes shard : shards.subList(0, Math.min(maxShards, shards.size()))) {
+            add(shard.tableName, shard.shardId, shard.bytes);
+        }
+    }
+    
+    /**
+     * Merge the weights written by another job into these. The bytes of the other job are scaled to the bytes per reducer of the busier job, so that each shard
+     * keeps the spread it was given by its job, and a shard in both keeps the larger.
+     *
+     * @param other
+     *            the weights of another job
+     */
+    public void merge(ShardWeights other) {
+        long mergedBytesPerReducer = Math.max(bytesPerReducer, other.bytesPerReducer);
+        if (mergedBytesPerReducer <= 0) {
+            return;
+        }
+        Map<String,Map<Text,Long>> merged = new HashMap<>();
+        for (ShardWeights weights : new ShardWeights[] {this, other}) {
+            if (weights.bytesPerReducer <= 0) {
+                continue;
+            }
+            double scale = (double) mergedBytesPerReducer / weights.bytesPerReducer;
+            for (Map.Entry<String,Map<Text,Long>> table : weights.bytesByTable.entrySet()) {
+                Map<Text,Long> shardBytes = merged.computeIfAbsent(table.getKey(), t -> new HashMap<>());
+                for (Map.Entry<Text,Long> shard : table.getValue().entrySet()) {
+                    shardBytes.merge(shard.getKey(), Math.round(shard.getValue() * scale), Math::max);
+                }
+            }
+        }
+        bytesByTable.clear();
+        bytesByTable.putAll(merged);
+        bytesPerReducer = mergedBytesPerReducer;
+    }
+    
+    /**
+     * Get the file a reducer reports its input bytes and shards to.
+     *
+     * @param workDir
+     *            the job's work directory
+     * @param reducerId
+     *            the reducer's task id
+     * @return the reducer's shard bytes file
+     */
+    public static Path getReducerBytesFile(Path workDir, int reducerId) {
+        return new Path(new Path(workDir, REDUCER_BYTES_DIR), String.format("part-r-%05d", reducerId));
+    }
+    
+    /**
+     * Build the shard weights from the files written by the reducers of a completed job. Bytes reported for the same shard by several reducers are summed.
+     *
+     * @param conf
+     *            the configuration
+     * @param workDir
+     *            the job's work directory
+     * @param numReduceTasks
+     *            the number of reducers in the job
+     * @return the shard weights
+     */
+    public static ShardWeights fromReducerFiles(Configuration conf, Path workDir, int numReduceTasks) throws IOException {
+        ShardWeights weights = new ShardWeights();
+        Path dir = new Path(workDir, REDUCER_BYTES_DIR);
+        FileSystem fs = dir.getFileSystem(conf);
+        long totalBytes = 0;
+        if (fs.exists(dir)) {
+            for (FileStatus status : fs.listStatus(dir)) {
+                // skip files still being written
+                if (status.isFile() && !status.getPath().getName().startsWith(".")) {
+                    ShardWeights reducerWeights = read(conf, status.getPath());
+                    totalBytes += reducerWeights.getBytesPerReducer();
+                    for (Map.Entry<String,Map<Text,Long>> table : reducerWeights.bytesByTable.entrySet()) {
+                        for (Map.Entry<Text,Long> shard : table.getValue().entrySet()) {
+                            weights.add(table.getKey(), shard.getKey(), shard.getValue());
+                        }
+                    }
+                }
+            }
+        }
+        weights.setBytesPerReducer(totalBytes / Math.max(1, numReduceTasks));
+        return weights;
+    }
+    
+    /**
+     * Get the file a job writes its shard weights to, next to the configured weights file.
+     *
+     * @param weightsFile
+     *            the configured weights file
+     * @param jobId
+     *            the id of the job
+     * @return the job's weights file
+     */
+    public static Path getJobWeightsFile(Path weightsFile, String jobId) {
+        return new Path(weightsFile.getParent(), weightsFile.getName() + "." + jobId);
+    }
+    
+    /**
+     * Read and merge the shard weights written by all jobs to the configured weights file, or to their own file next to it, within the last
+     * {@link #MAX_AGE_PROP}.
+     *
+     * @param conf
+     *            the configuration
+     * @param weightsFile
+     *            the configured weights file
+     * @return the merged shard weights
+     */
+    public static ShardWeights readAll(Configuration conf, Path weightsFile) throws IOException {
+        ShardWeights weights = new ShardWeights();
+        for (FileStatus status : listWeightsFiles(conf, weightsFile)) {
+            if (!isExpired(conf, status)) {
+                weights.merge(read(conf, status.getPath()));
+            }
+        }
+        return weights;
+    }
+    
+    /**
+     * Remove the expired shard weights written by any job to the configured weights file or next to it.
+     *
+     * @param conf
+     *            the configuration
+     * @param weightsFile
+     *            the configured weights file
+     */
+    public static void deleteExpired(Configuration conf, Path weightsFile) throws IOException {
+        FileSystem fs = weightsFile.getFileSystem(conf);
+        for (FileStatus status : listWeightsFiles(conf, weightsFile)) {
+            if (isExpired(conf, status)) {
+                log.info("Removing expired shard weights " + status.getPath());
+                fs.delete(status.getPath(), false);
+            }
+        }
+    }
+    
+    private static FileStatus[] listWeightsFiles(Configuration conf, Path weightsFile) throws IOException {
+        FileSystem fs = weightsFile.getFileSystem(conf);
+        String prefix = weightsFile.getName() + ".";
+        try {
+            // files being written are hidden
+            return fs.listStatus(weightsFile.getParent(), path -> path.getName().equals(weightsFile.getName()) || path.getName().startsWith(prefix));
+        } catch (FileNotFoundException e) {
+            return new FileStatus[0];
+        }
+    }
+    
+    private static boolean isExpired(Configuration conf, FileStatus status) {
+        return status.getModificationTime() < System.currentTimeMillis() - conf.getLong(MAX_AGE_PROP, DEFAULT_MAX_AGE_MS);
+    }
+    
+    /**
+     * Read the shard weights from a file. A missing file results in empty weights.
+     */
+    public static ShardWeights read(Configuration conf, Path path) throws IOException {
+        ShardWeights weights = new ShardWeights();
+        FileSystem fs = path.getFileSystem(conf);
+        try (BufferedReader in = new BufferedReader(new InputStreamReader(fs.open(path)))) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                String[] parts = line.split("\t");
+                if (parts.length == 2 && BYTES_PER_REDUCER.equals(parts[0])) {
+                    weights.setBytesPerReducer(Long.parseLong(parts[1]));
+                } else if (parts.length == 3) {
+                    weights.add(parts[0], new Text(parts[1]), Long.parseLong(parts[2]));
+                } else if (!line.isEmpty()) {
+                    log.warn("Skipping malformed shard weight line in " + path + ": " + line);
+                }
+            }
+        } catch (FileNotFoundException e) {
+            log.info("No shard weights found at " + path);
+        }
+        return weights;
+    }
+    
+    /**
+     * Write the shard weights to a file, replacing any existing one.
+     */
+    public void write(Configuration conf, Path path) throws IOException {
+        FileSystem fs = path.getFileSystem(conf);
+        Path tmpPath = new Path(path.getParent(), "." + path.getName() + "." + System.currentTimeMillis());
+        try (PrintStream out = new PrintStream(fs.create(tmpPath))) {
+            out.println(BYTES_PER_REDUCER + "\t" + bytesPerReducer);
+            for (Map.Entry<String,Map<Text,Long>> table : bytesByTable.entrySet()) {
+                for (Map.Entry<Text,Long> shard : table.getValue().entrySet()) {
+                    out.println(table.getKey() + "\t" + shard.getKey() + "\t" + shard.getValue());
+                }
+            }
+        }
+        fs.delete(path, false);
+        if (!fs.rename(tmpPath, path)) {
+            throw new IOException("Unable to rename " + tmpPath + " to " + path);
+        }
+    }
+    
+    private static class ShardBytes {
+        private final String tableName;
+        private final Text shardId;
+        private final long bytes;
+        
+        private ShardBytes(String tableName, Text shardId, long bytes) {
+            this.tableName = tableName;
+            this.shardId = shardId;
+            this.bytes = bytes;
+        }
+    }
+}
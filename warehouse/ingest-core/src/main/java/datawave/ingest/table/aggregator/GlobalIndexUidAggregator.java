@@ -10,12 +10,14 @@ import org.apache.log4j.Logger;
 import com.google.protobuf.InvalidProtocolBufferException;
 
 import datawave.ingest.protobuf.Uid;
+import datawave.ingest.protobuf.UidListCodec;
 
 /**
  * Implementation of an Aggregator that aggregates objects of the type Uid.List. This is an optimization for the shardIndex and shardReverseIndex, where the
  * list of UIDs for events will be maintained in the global index for low cardinality terms.
  * 
- * 
+ * Values may be in either of the formats read by the {@link UidListCodec}. Once any of the values combined for a key is in the compact format, the aggregate
+ * is written in the compact format, so that tables migrate to it as they are compacted.
  * 
  */
 public class GlobalIndexUidAggregator extends PropogatingCombiner {
@@ -56,6 +58,16 @@ public class GlobalIndexUidAggregator extends PropogatingCombiner {
      */
     private boolean seenIgnore = false;
     
+    /**
+     * flag for whether or not we have seen a value in the compact format
+     */
+    private boolean seenCompact = false;
+    
+    /**
+     * bytes saved by writing aggregates in the compact format rather than as protocol buffers
+     */
+    private long compactBytesSaved = 0;
+    
     /**
      * Maximum number of UIDs.
      */
@@ -120,7 +132,15 @@ public class GlobalIndexUidAggregator extends PropogatingCombiner {
         }
         if (log.isDebugEnabled())
             log.debug("Building aggregate. Count is " + count + ", uids.size() is " + uids.size() + ". builder size is " + builder.getUIDList().size());
-        return new Value(builder.build().toByteArray());
+        Uid.List aggregate = builder.build();
+        if (seenCompact) {
+            byte[] compact = UidListCodec.encodeCompact(aggregate);
+            compactBytesSaved += UidListCodec.getBytesSaved(aggregate, compact.length);
+            if (log.isDebugEnabled())
+                log.debug("Compact aggregate is " + compact.length + " bytes, " + compactBytesSaved + " bytes saved so far");
+            return new Value(compact);
+        }
+        return new Value(aggregate.toByteArray());
         
     }
     
@@ -145,7 +165,9 @@ public class GlobalIndexUidAggregator extends PropogatingCombiner {
             
             // Collect the values, which are serialized Uid.List objects
             try {
-                Uid.List v = Uid.List.parseFrom(value.get());
+                byte[] bytes = value.get();
+                Uid.List v = UidListCodec.decode(bytes);
+                seenCompact |= UidListCodec.isCompact(bytes);
                 
                 long delta = v.getCOUNT();
                 
@@ -233,6 +255,7 @@ public class GlobalIndexUidAggregator extends PropogatingCombiner {
             log.debug("Resetting GlobalIndexUidAggregator");
         count = 0;
         seenIgnore = false;
+        seenCompact = false;
         builder = Uid.List.newBuilder();
         uids.clear();
         uidsToRemove.clear();
@@ -240,6 +263,13 @@ public class GlobalIndexUidAggregator extends PropogatingCombiner {
         quarantinedIds.clear();
     }
     
+    /**
+     * @return the number of bytes saved by writing aggregates in the compact format since this aggregator was created
+     */
+    public long getCompactBytesSaved() {
+        return compactBytesSaved;
+    }
+    
     /*
      * (non-Javadoc)
      * 
@@ -0,0 +1,363 @@
+package datawave.ingest.table.aggregator;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Iterator;
+
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Value;
+import org.apache.log4j.Logger;
+
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.WireFormat;
+
+import datawave.ingest.protobuf.Uid;
+import datawave.ingest.protobuf.UidListCodec;
+
+/**
+ * A drop in replacement for the {@link GlobalIndexUidAggregator} which aggregates the serialized Uid.List values without materializing them. The values are
+ * scanned directly from their protobuf encoding, the UIDs are held as raw bytes in primitive open addressing hash sets, and the aggregate is serialized
+ * straight from those sets. For hot terms this avoids creating a String (and a HashSet entry) per UID for every value combined during compactions and scans.
+ * <p>
+ * The aggregation semantics, including the handling of removals, quarantined and released UIDs, are the same as those of the {@link GlobalIndexUidAggregator}.
+ * Protocol buffer aggregates list the UIDs in the order they were first seen.
+ * <p>
+ * Values in the compact format of the {@link UidListCodec} are expanded into a reused buffer rather than scanned in place. As with the
+ * {@link GlobalIndexUidAggregator}, the aggregate is written in the compact format once any of the values combined for a key is compact.
+ */
+public class HashedGlobalIndexUidAggregator extends PropogatingCombiner {
+    private static final Logger log = Logger.getLogger(HashedGlobalIndexUidAggregator.class);
+    
+    private static final int IGNORE_TAG = makeTag(Uid.List.IGNORE_FIELD_NUMBER, WireFormat.WIRETYPE_VARINT);
+    private static final int COUNT_TAG = makeTag(Uid.List.COUNT_FIELD_NUMBER, WireFormat.WIRETYPE_VARINT);
+    private static final int UID_TAG = makeTag(Uid.List.UID_FIELD_NUMBER, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+    private static final int REMOVEDUID_TAG = makeTag(Uid.List.REMOVEDUID_FIELD_NUMBER, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+    private static final int QUARANTINEUID_TAG = makeTag(Uid.List.QUARANTINEUID_FIELD_NUMBER, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+    
+    /**
+     * Maximum number of UIDs.
+     */
+    public int maxUids;
+    
+    private final UidHashSet uids = new UidHashSet();
+    private final UidHashSet uidsToRemove = new UidHashSet();
+    private final UidHashSet quarantinedIds = new UidHashSet();
+    private final UidHashSet releasedUids = new UidHashSet();
+    
+    /**
+     * flag for whether or not we have seen ignore
+     */
+    private boolean seenIgnore = false;
+    
+    /**
+     * representative count.
+     */
+    private long count = 0;
+    
+    /**
+     * flag for whether or not we have seen a value in the compact format
+     */
+    private boolean seenCompact = false;
+    
+    /**
+     * bytes saved by writing aggregates in the compact format rather than as protocol buffers
+     */
+    private long compactBytesSaved = 0;
+    
+    // the fields of the value currently being combined
+    private boolean valueIgnore;
+    private long valueCount;
+    private final Spans uidSpans = new Spans();
+    private final Spans removedSpans = new Spans();
+    private final Spans quarantinedSpans = new Spans();
+    
+    // the UIDs of the current value when it is in the compact format
+    private byte[] expanded = new byte[1024];
+    private int expandedLength = 0;
+    private final UidListCodec.CompactWriter compactWriter = new UidListCodec.CompactWriter();
+    
+    public HashedGlobalIndexUidAggregator(int max) {
+        this.maxUids = max;
+    }
+    
+    public HashedGlobalIndexUidAggregator() {
+        this.maxUids = GlobalIndexUidAggregator.MAX;
+    }
+    
+    private static int makeTag(int fieldNumber, int wireType) {
+        return (fieldNumber << 3) | wireType;
+    }
+    
+    @Override
+    public Value aggregate() {
+        boolean ignore = seenIgnore || count > maxUids;
+        if (ignore) {
+            // if we catch seenIgnore, then there is no need to propogate removals.
+            propogate = false;
+        } else {
+            uidsToRemove.removeAll(quarantinedIds);
+            uidsToRemove.removeAll(releasedUids);
+            quarantinedIds.removeAll(releasedUids);
+            
+            uids.removeAll(uidsToRemove);
+            uids.removeAll(quarantinedIds);
+            uids.addAll(releasedUids);
+        }
+        
+        if (log.isDebugEnabled())
+            log.debug("Propogating: " + propogate);
+        
+        int size = CodedOutputStream.computeBoolSize(Uid.List.IGNORE_FIELD_NUMBER, ignore)
+                        + CodedOutputStream.computeUInt64Size(Uid.List.COUNT_FIELD_NUMBER, count);
+        if (!ignore) {
+            size += uids.getSerializedSize(Uid.List.UID_FIELD_NUMBER);
+        }
+        if (propogate) {
+            size += uidsToRemove.getSerializedSize(Uid.List.REMOVEDUID_FIELD_NUMBER);
+            size += quarantinedIds.getSerializedSize(Uid.List.QUARANTINEUID_FIELD_NUMBER);
+        }
+        
+        if (seenCompact) {
+            boolean writeRemoved = propogate && !uidsToRemove.isEmpty();
+            boolean writeQuarantined = propogate && !quarantinedIds.isEmpty();
+            compactWriter.start(ignore, count, writeRemoved, writeQuarantined);
+            if (ignore) {
+                compactWriter.startList(0);
+            } else {
+                uids.writeCompactTo(compactWriter);
+            }
+            if (writeRemoved) {
+                uidsToRemove.writeCompactTo(compactWriter);
+            }
+            if (writeQuarantined) {
+                quarantinedIds.writeCompactTo(compactWriter);
+            }
+            compactBytesSaved += size - compactWriter.size();
+            if (log.isDebugEnabled())
+                log.debug("Compact aggregate is " + compactWriter.size() + " bytes, " + compactBytesSaved + " bytes saved so far");
+            return new Value(compactWriter.toByteArray());
+        }
+        
+        byte[] result = new byte[size];
+        CodedOutputStream out = CodedOutputStream.newInstance(result);
+        try {
+            out.writeBool(Uid.List.IGNORE_FIELD_NUMBER, ignore);
+            out.writeUInt64(Uid.List.COUNT_FIELD_NUMBER, count);
+            if (!ignore) {
+                uids.writeTo(out, Uid.List.UID_FIELD_NUMBER);
+            }
+            if (propogate) {
+                uidsToRemove.writeTo(out, Uid.List.REMOVEDUID_FIELD_NUMBER);
+                quarantinedIds.writeTo(out, Uid.List.QUARANTINEUID_FIELD_NUMBER);
+            }
+            out.checkNoSpaceLeft();
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to serialize aggregated Uid.List", e);
+        }
+        
+        if (log.isDebugEnabled())
+            log.debug("Building aggregate. Count is " + count + ", uids.size() is " + uids.size());
+        return new Value(result);
+    }
+    
+    /**
+     * See {@link GlobalIndexUidAggregator#reduce(Key, Iterator)} for a description of how the values are combined.
+     */
+    @Override
+    public Value reduce(Key key, Iterator<Value> iter) {
+        while (iter.hasNext()) {
+            byte[] data = iter.next().get();
+            try {
+                if (UidListCodec.isCompact(data)) {
+                    parseCompact(data);
+                    data = expanded;
+                    seenCompact = true;
+                } else {
+                    parse(data);
+                }
+            } catch (IOException e) {
+                if (key.isDeleted()) {
+                    log.warn("Value passed to aggregator for a delete key was not of type Uid.List");
+                } else {
+                    log.error("Value passed to aggregator was not of type Uid.List", e);
+                }
+                continue;
+            }
+            
+            long delta = valueCount;
+            count += delta;
+            
+            if (valueIgnore) {
+                seenIgnore = true;
+                if (log.isDebugEnabled())
+                    log.debug("SeenIgnore is true. Skipping collections");
+            }
+            
+            if (delta > 0) {
+                for (int i = 0; i < quarantinedSpans.count; i++) {
+                    int offset = quarantinedSpans.offsets[i];
+                    int length = quarantinedSpans.lengths[i];
+                    long hash = UidHashSet.hash(data, offset, length);
+                    quarantinedIds.remove(data, offset, length, hash);
+                    releasedUids.add(data, offset, length, hash);
+                }
+                
+                for (int i = 0; i < uidSpans.count; i++) {
+                    int offset = uidSpans.offsets[i];
+                    int length = uidSpans.lengths[i];
+                    long hash = UidHashSet.hash(data, offset, length);
+                    // add the UID iff it has not been removed and we are under our MAX
+                    if (uids.size() < maxUids && !uidsToRemove.contains(data, offset, length, hash)
+                                    && !quarantinedIds.contains(data, offset, length, hash)) {
+                        uids.add(data, offset, length, hash);
+                    }
+                }
+            } else if (delta < 0 && !seenIgnore) {
+                for (int i = 0; i < removedSpans.count; i++) {
+                    remove(data, removedSpans.offsets[i], removedSpans.lengths[i]);
+                }
+                
+                for (int i = 0; i < quarantinedSpans.count; i++) {
+                    int offset = quarantinedSpans.offsets[i];
+                    int length = quarantinedSpans.lengths[i];
+                    quarantinedIds.add(data, offset, length, UidHashSet.hash(data, offset, length));
+                }
+                
+                // for backwards compatibility, the UID list of a negative delta is treated as a removal list
+                for (int i = 0; i < uidSpans.count; i++) {
+                    remove(data, uidSpans.offsets[i], uidSpans.lengths[i]);
+                }
+            }
+        }
+        return aggregate();
+    }
+    
+    private void remove(byte[] data, int offset, int length) {
+        long hash = UidHashSet.hash(data, offset, length);
+        uidsToRemove.add(data, offset, length, hash);
+        uids.remove(data, offset, length, hash);
+    }
+    
+    /**
+     * Scan a serialized Uid.List, recording the location of each of the UIDs within {@code data}. The value is fully validated before any of it is combined.
+     */
+    private void parse(byte[] data) throws IOException {
+        uidSpans.clear();
+        removedSpans.clear();
+        quarantinedSpans.clear();
+        boolean hasIgnore = false;
+        boolean hasCount = false;
+        
+        CodedInputStream in = CodedInputStream.newInstance(data);
+        int tag;
+        while ((tag = in.readTag()) != 0) {
+            if (tag == IGNORE_TAG) {
+                valueIgnore = in.readBool();
+                hasIgnore = true;
+            } else if (tag == COUNT_TAG) {
+                valueCount = in.readUInt64();
+                hasCount = true;
+            } else if (tag == UID_TAG) {
+                readSpan(in, uidSpans);
+            } else if (tag == REMOVEDUID_TAG) {
+                readSpan(in, removedSpans);
+            } else if (tag == QUARANTINEUID_TAG) {
+                readSpan(in, quarantinedSpans);
+            } else if (!in.skipField(tag)) {
+                throw new InvalidProtocolBufferException("Unexpected end group tag in Uid.List");
+            }
+        }
+        if (!hasIgnore || !hasCount) {
+            throw new InvalidProtocolBufferException("Uid.List is missing required fields");
+        }
+    }
+    
+    /**
+     * Expand a compact value, recording the location of each of the UIDs within the expanded buffer.
+     */
+    private void parseCompact(byte[] data) throws IOException {
+        uidSpans.clear();
+        removedSpans.clear();
+        quarantinedSpans.clear();
+        expandedLength = 0;
+        
+        UidListCodec.CompactReader reader = new UidListCodec.CompactReader(data);
+        valueIgnore = reader.isIgnore();
+        valueCount = reader.getCount();
+        reader.readUids((fieldNumber, buffer, offset, length) -> {
+            if (expandedLength + length > expanded.length) {
+                expanded = Arrays.copyOf(expanded, Math.max(expandedLength + length, expanded.length * 2));
+            }
+            System.arraycopy(buffer, offset, expanded, expandedLength, length);
+            if (fieldNumber == Uid.List.UID_FIELD_NUMBER) {
+                uidSpans.add(expandedLength, length);
+            } else if (fieldNumber == Uid.List.REMOVEDUID_FIELD_NUMBER) {
+                removedSpans.add(expandedLength, length);
+            } else {
+                quarantinedSpans.add(expandedLength, length);
+            }
+            expandedLength += length;
+        });
+    }
+    
+    private static void readSpan(CodedInputStream in, Spans spans) throws IOException {
+        int length = in.readRawVarint32();
+        int offset = in.getTotalBytesRead();
+        in.skipRawBytes(length);
+        spans.add(offset, length);
+    }
+    
+    @Override
+    public void reset() {
+        if (log.isDebugEnabled())
+            log.debug("Resetting HashedGlobalIndexUidAggregator");
+        count = 0;
+        seenIgnore = false;
+        seenCompact = false;
+        uids.clear();
+        uidsToRemove.clear();
+        releasedUids.clear();
+        quarantinedIds.clear();
+    }
+    
+    /**
+     * @return the number of bytes saved by writing aggregates in the compact format since this aggregator was created
+     */
+    public long getCompactBytesSaved() {
+        return compactBytesSaved;
+    }
+    
+    @Override
+    public boolean propogateKey() {
+        if ((seenIgnore && count > maxUids) || !quarantinedIds.isEmpty())
+            return true;
+        
+        // if <= 0 and every remaining uid has been removed, we can safely remove
+        return !(count <= 0 && uids.isSubsetOf(uidsToRemove));
+    }
+    
+    /**
+     * The offsets and lengths of the occurrences of a repeated field within a serialized value, reused across values.
+     */
+    private static class Spans {
+        private int[] offsets = new int[32];
+        private int[] lengths = new int[32];
+        private int count = 0;
+        
+        void add(int offset, int length) {
+            if (count == offsets.length) {
+                offsets = Arrays.copyOf(offsets, count * 2);
+                lengths = Arrays.copyOf(lengths, count * 2);
+            }
+            offsets[count] = offset;
+            lengths[count] = length;
+            count++;
+        }
+        
+        void clear() {
+            count = 0;
+        }
+    }
+}
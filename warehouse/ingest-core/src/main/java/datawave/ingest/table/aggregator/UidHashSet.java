@@ -0,0 +1,327 @@
+package datawave.ingest.table.aggregator;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.WireFormat;
+
+import datawave.ingest.protobuf.UidListCodec;
+
+/**
+ * An insertion ordered set of UIDs held as their raw serialized bytes. The UIDs are copied into a single byte arena and indexed by a primitive open addressing
+ * table keyed on a 64 bit hash of the bytes, so that neither Strings nor boxed objects are created per UID. Lookups compare the bytes on a hash match, so hash
+ * collisions never result in false positives.
+ * <p>
+ * Removed UIDs leave their bytes in the arena until the set is compacted or cleared.
+ */
+final class UidHashSet {
+    
+    private static final int MIN_CAPACITY = 16;
+    private static final int MAX_RETAINED_CAPACITY = 1024;
+    private static final int REMOVED = -1;
+    
+    // open addressing (linear probing) table holding entry index + 1, where 0 marks an empty slot
+    private int[] table;
+    
+    // the entries in insertion order
+    private long[] hashes;
+    private int[] offsets;
+    private int[] lengths;
+    private int entries;
+    private int size;
+    
+    private byte[] arena;
+    private int arenaLength;
+    
+    UidHashSet() {
+        allocate();
+    }
+    
+    private void allocate() {
+        table = new int[MIN_CAPACITY * 2];
+        hashes = new long[MIN_CAPACITY];
+        offsets = new int[MIN_CAPACITY];
+        lengths = new int[MIN_CAPACITY];
+        arena = new byte[MIN_CAPACITY * 64];
+        entries = 0;
+        size = 0;
+        arenaLength = 0;
+    }
+    
+    /**
+     * Hash a serialized UID (64 bit FNV-1a followed by the murmur3 finalizer to spread the low bits used by the table).
+     */
+    static long hash(byte[] bytes, int offset, int length) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = offset; i < offset + length; i++) {
+            h ^= (bytes[i] & 0xff);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+    
+    public int size() {
+        return size;
+    }
+    
+    public boolean isEmpty() {
+        return size == 0;
+    }
+    
+    public boolean contains(byte[] bytes, int offset, int length, long hash) {
+        return find(bytes, offset, length, hash) >= 0;
+    }
+    
+    public boolean add(byte[] bytes, int offset, int length, long hash) {
+        int slot = find(bytes, offset, length, hash);
+        if (slot >= 0) {
+            return false;
+        }
+        if ((size + 1) * 2 > table.length) {
+            rehash(table.length * 2);
+            slot = find(bytes, offset, length, hash);
+        }
+        if (entries == hashes.length) {
+            // reclaim removed entries before growing, which rebuilds the table
+            if (size < entries / 2) {
+                compact();
+            } else {
+                hashes = Arrays.copyOf(hashes, entries * 2);
+                offsets = Arrays.copyOf(offsets, entries * 2);
+                lengths = Arrays.copyOf(lengths, entries * 2);
+            }
+            slot = find(bytes, offset, length, hash);
+        }
+        if (arenaLength + length > arena.length) {
+            arena = Arrays.copyOf(arena, Math.max(arenaLength + length, arena.length * 2));
+        }
+        System.arraycopy(bytes, offset, arena, arenaLength, length);
+        hashes[entries] = hash;
+        offsets[entries] = arenaLength;
+        lengths[entries] = length;
+        arenaLength += length;
+        table[-(slot + 1)] = ++entries;
+        size++;
+        return true;
+    }
+    
+    public boolean remove(byte[] bytes, int offset, int length, long hash) {
+        int slot = find(bytes, offset, length, hash);
+        if (slot < 0) {
+            return false;
+        }
+        lengths[table[slot] - 1] = REMOVED;
+        deleteSlot(slot);
+        size--;
+        return true;
+    }
+    
+    public void addAll(UidHashSet other) {
+        for (int e = 0; e < other.entries; e++) {
+            if (other.lengths[e] != REMOVED) {
+                add(other.arena, other.offsets[e], other.lengths[e], other.hashes[e]);
+            }
+        }
+    }
+    
+    public void removeAll(UidHashSet other) {
+        if (isEmpty() || other.isEmpty()) {
+            return;
+        }
+        for (int e = 0; e < other.entries; e++) {
+            if (other.lengths[e] != REMOVED) {
+                remove(other.arena, other.offsets[e], other.lengths[e], other.hashes[e]);
+            }
+        }
+    }
+    
+    /**
+     * @return true if every UID in this set is also contained in {@code other}
+     */
+    public boolean isSubsetOf(UidHashSet other) {
+        for (int e = 0; e < entries; e++) {
+            if (lengths[e] != REMOVED && !other.contains(arena, offsets[e], lengths[e], hashes[e])) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * @return the number of bytes needed to write this set as the repeated field {@code fieldNumber}
+     */
+    public int getSerializedSize(int fieldNumber) {
+        int tagSize = CodedOutputStream.computeTagSize(fieldNumber);
+        int serializedSize = 0;
+        for (int e = 0; e < entries; e++) {
+            if (lengths[e] != REMOVED) {
+                serializedSize += tagSize + CodedOutputStream.computeUInt32SizeNoTag(lengths[e]) + lengths[e];
+            }
+        }
+        return serializedSize;
+    }
+    
+    /**
+     * Write this set as the repeated field {@code fieldNumber}, in insertion order.
+     */
+    public void writeTo(CodedOutputStream out, int fieldNumber) throws IOException {
+        for (int e = 0; e < entries; e++) {
+            if (lengths[e] != REMOVED) {
+                out.writeTag(fieldNumber, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+                out.writeUInt32NoTag(lengths[e]);
+                out.writeRawBytes(arena, offsets[e], lengths[e]);
+            }
+        }
+    }
+    
+    /**
+     * Write this set as the next list of a compact value, sorted so that the UIDs front code well.
+     */
+    public void writeCompactTo(UidListCodec.CompactWriter writer) {
+        int[] sorted = new int[size];
+        int n = 0;
+        for (int e = 0; e < entries; e++) {
+            if (lengths[e] != REMOVED) {
+                sorted[n++] = e;
+            }
+        }
+        if (size > 1) {
+            mergeSort(sorted, new int[size], 0, size);
+        }
+        writer.startList(size);
+        for (int e : sorted) {
+            writer.addUid(arena, offsets[e], lengths[e]);
+        }
+    }
+    
+    private void mergeSort(int[] a, int[] scratch, int from, int to) {
+        if (to - from < 2) {
+            return;
+        }
+        int mid = (from + to) >>> 1;
+        mergeSort(a, scratch, from, mid);
+        mergeSort(a, scratch, mid, to);
+        System.arraycopy(a, from, scratch, from, to - from);
+        int i = from;
+        int j = mid;
+        for (int k = from; k < to; k++) {
+            if (j >= to || (i < mid && compareEntries(scratch[i], scratch[j]) <= 0)) {
+                a[k] = scratch[i++];
+            } else {
+                a[k] = scratch[j++];
+            }
+        }
+    }
+    
+    /**
+     * Compare two entries by their bytes, as unsigned values.
+     */
+    private int compareEntries(int a, int b) {
+        int length = Math.min(lengths[a], lengths[b]);
+        for (int i = 0; i < length; i++) {
+            int diff = (arena[offsets[a] + i] & 0xff) - (arena[offsets[b] + i] & 0xff);
+            if (diff != 0) {
+                return diff;
+            }
+        }
+        return lengths[a] - lengths[b];
+    }
+    
+    public void clear() {
+        if (hashes.length > MAX_RETAINED_CAPACITY) {
+            // don't let a single hot term pin a large table for the life of the iterator
+            allocate();
+        } else if (entries > 0) {
+            Arrays.fill(table, 0);
+            entries = 0;
+            size = 0;
+            arenaLength = 0;
+        }
+    }
+    
+    /**
+     * @return the slot of the matching entry, or (-(empty slot) - 1) if the UID is not in the set
+     */
+    private int find(byte[] bytes, int offset, int length, long hash) {
+        int mask = table.length - 1;
+        int slot = (int) hash & mask;
+        while (true) {
+            int entry = table[slot] - 1;
+            if (entry < 0) {
+                return -(slot + 1);
+            }
+            if (hashes[entry] == hash && lengths[entry] == length && equals(arena, offsets[entry], bytes, offset, length)) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+    
+    private static boolean equals(byte[] a, int aOffset, byte[] b, int bOffset, int length) {
+        for (int i = 0; i < length; i++) {
+            if (a[aOffset + i] != b[bOffset + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Empty a slot, shifting back any later entries of the probe sequence that would otherwise become unreachable.
+     */
+    private void deleteSlot(int slot) {
+        int mask = table.length - 1;
+        int hole = slot;
+        int next = (hole + 1) & mask;
+        while (table[next] != 0) {
+            int home = (int) hashes[table[next] - 1] & mask;
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                table[hole] = table[next];
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        table[hole] = 0;
+    }
+    
+    private void rehash(int capacity) {
+        int[] newTable = new int[capacity];
+        int mask = capacity - 1;
+        for (int e = 0; e < entries; e++) {
+            if (lengths[e] != REMOVED) {
+                int slot = (int) hashes[e] & mask;
+                while (newTable[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                newTable[slot] = e + 1;
+            }
+        }
+        table = newTable;
+    }
+    
+    private void compact() {
+        byte[] newArena = new byte[Math.max(arenaLength, MIN_CAPACITY * 64)];
+        int newLength = 0;
+        int live = 0;
+        for (int e = 0; e < entries; e++) {
+            if (lengths[e] != REMOVED) {
+                System.arraycopy(arena, offsets[e], newArena, newLength, lengths[e]);
+                hashes[live] = hashes[e];
+                offsets[live] = newLength;
+                lengths[live] = lengths[e];
+                newLength += lengths[e];
+                live++;
+            }
+        }
+        arena = newArena;
+        arenaLength = newLength;
+        entries = live;
+        rehash(table.length);
+    }
+}
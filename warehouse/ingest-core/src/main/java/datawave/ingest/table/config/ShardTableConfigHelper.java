@@ -8,6 +8,7 @@ import java.util.Set;
 import datawave.ingest.mapreduce.handler.ExtendedDataTypeHandler;
 import datawave.ingest.mapreduce.handler.shard.ShardedDataTypeHandler;
 import datawave.ingest.table.aggregator.CombinerConfiguration;
+import datawave.ingest.table.aggregator.GlobalIndexUidAggregator;
 import datawave.ingest.table.balancer.ShardedTableTabletBalancer;
 import datawave.ingest.table.bloomfilter.ShardKeyFunctor;
 import datawave.ingest.table.bloomfilter.ShardIndexKeyFunctor;
@@ -35,6 +36,12 @@ public class ShardTableConfigHelper extends AbstractTableConfigHelper {
     public static final String ENABLE_BLOOM_FILTERS = "shard.enable.bloom.filters";
     protected boolean enableBloomFilters = false;
     
+    /**
+     * The combiner used for the UID lists of the global index and global reverse index, e.g. datawave.ingest.table.aggregator.HashedGlobalIndexUidAggregator
+     */
+    public static final String UID_AGGREGATOR_CLASS = "shard.global.index.uid.aggregator.class";
+    protected String uidAggregatorClass = GlobalIndexUidAggregator.class.getName();
+    
     public static final String MARKINGS_SETUP_ITERATOR_ENABLED = "markings.setup.iterator.enabled";
     private boolean markingsSetupIteratorEnabled = false;
     
@@ -86,6 +93,7 @@ public class ShardTableConfigHelper extends AbstractTableConfigHelper {
         }
         
         enableBloomFilters = conf.getBoolean(ENABLE_BLOOM_FILTERS, enableBloomFilters);
+        uidAggregatorClass = conf.get(UID_AGGREGATOR_CLASS, uidAggregatorClass);
         
         String localityGroupsConf = null;
         if (tableName.equals(shardTableName)) {
@@ -193,7 +201,7 @@ public class ShardTableConfigHelper extends AbstractTableConfigHelper {
             String stem = String.format("%s%s.%s", Property.TABLE_ITERATOR_PREFIX, scope.name(), "UIDAggregator");
             setPropertyIfNecessary(tableName, stem, "19,datawave.iterators.TotalAggregatingIterator", tops, log);
             stem += ".opt.";
-            setPropertyIfNecessary(tableName, stem + "*", "datawave.ingest.table.aggregator.GlobalIndexUidAggregator", tops, log);
+            setPropertyIfNecessary(tableName, stem + "*", uidAggregatorClass, tops, log);
             
             if (markingsSetupIteratorEnabled) {
                 // we want the markings setup iterator init method to be called up front
@@ -216,7 +224,7 @@ public class ShardTableConfigHelper extends AbstractTableConfigHelper {
             String stem = String.format("%s%s.%s", Property.TABLE_ITERATOR_PREFIX, scope.name(), "UIDAggregator");
             setPropertyIfNecessary(tableName, stem, "19,datawave.iterators.TotalAggregatingIterator", tops, log);
             stem += ".opt.";
-            setPropertyIfNecessary(tableName, stem + "*", "datawave.ingest.table.aggregator.GlobalIndexUidAggregator", tops, log);
+            setPropertyIfNecessary(tableName, stem + "*", uidAggregatorClass, tops, log);
             
             if (markingsSetupIteratorEnabled) {
                 // we want the markings setup iterator init method to be called up front
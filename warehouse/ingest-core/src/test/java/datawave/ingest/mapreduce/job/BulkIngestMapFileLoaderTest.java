@@ -12,9 +12,18 @@ import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
 
 import datawave.common.test.integration.IntegrationTest;
 import datawave.common.test.logging.CommonTestAppender;
@@ -2751,4 +2760,117 @@ public class BulkIngestMapFileLoaderTest {
             BulkIngestMapFileLoaderTest.logger.info("testMarkJobCleanupOnStartup completed.");
         }
     }
+    
+    @Test
+    public void testPipelineBoundsConcurrentDirectories() throws Exception {
+        BulkIngestMapFileLoader.JobDirectoryPipeline pipeline = new BulkIngestMapFileLoader.JobDirectoryPipeline(2);
+        CountDownLatch started = new CountDownLatch(2);
+        CountDownLatch finish = new CountDownLatch(1);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        Predicate<Path> processor = dir -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            started.countDown();
+            try {
+                finish.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            running.decrementAndGet();
+            return true;
+        };
+        
+        Assert.assertTrue(pipeline.tryAcquireSlot());
+        pipeline.submit(new Path("/jobs/job1"), processor);
+        Assert.assertTrue(pipeline.tryAcquireSlot());
+        pipeline.submit(new Path("/jobs/job2"), processor);
+        Assert.assertTrue("Both job directories should be processed at once", started.await(10, TimeUnit.SECONDS));
+        Assert.assertFalse("A third job directory should wait for a free pipeline thread", pipeline.tryAcquireSlot());
+        Assert.assertTrue(pipeline.drainCompleted().isEmpty());
+        
+        finish.countDown();
+        pipeline.shutdown();
+        Assert.assertEquals(2, maxRunning.get());
+        List<Path> completed = pipeline.drainCompleted();
+        Assert.assertEquals(2, completed.size());
+        Assert.assertTrue(completed.contains(new Path("/jobs/job1")));
+        Assert.assertTrue(completed.contains(new Path("/jobs/job2")));
+        Assert.assertTrue("The completed directories should only be returned once", pipeline.drainCompleted().isEmpty());
+        Assert.assertTrue(pipeline.tryAcquireSlot());
+    }
+    
+    @Test
+    public void testPipelineReleasesSlotOnFailure() throws Exception {
+        BulkIngestMapFileLoader.JobDirectoryPipeline pipeline = new BulkIngestMapFileLoader.JobDirectoryPipeline(1);
+        Assert.assertTrue(pipeline.tryAcquireSlot());
+        pipeline.submit(new Path("/jobs/failed"), dir -> {
+            throw new IllegalStateException("failed to process " + dir);
+        });
+        pipeline.shutdown();
+        
+        Assert.assertEquals(Collections.singletonList(new Path("/jobs/failed")), pipeline.drainCompleted());
+        Assert.assertTrue("The slot of a failed job directory should be given back", pipeline.tryAcquireSlot());
+    }
+    
+    @Test
+    public void testPipelineReleasesSlotWhenRejected() throws Exception {
+        BulkIngestMapFileLoader.JobDirectoryPipeline pipeline = new BulkIngestMapFileLoader.JobDirectoryPipeline(1);
+        pipeline.shutdown();
+        Assert.assertTrue(pipeline.tryAcquireSlot());
+        try {
+            pipeline.submit(new Path("/jobs/job1"), dir -> true);
+            Assert.fail("Expected the pipeline to reject a job directory after shutdown");
+        } catch (RejectedExecutionException e) {
+            // expected
+        }
+        Assert.assertTrue(pipeline.tryAcquireSlot());
+        Assert.assertTrue(pipeline.drainCompleted().isEmpty());
+    }
+    
+    @Test
+    public void testTableImportPermits() throws Exception {
+        BulkIngestMapFileLoader uut = createLoader();
+        
+        Semaphore shardPermits = uut.getTableImportPermits("shard");
+        Assert.assertSame(shardPermits, uut.getTableImportPermits("shard"));
+        Assert.assertNotSame(shardPermits, uut.getTableImportPermits("shardIndex"));
+        int maxImports = Whitebox.getInternalState(BulkIngestMapFileLoader.class, "MAX_IMPORTS_PER_TABLE");
+        Assert.assertEquals(Math.max(1, maxImports), shardPermits.availablePermits());
+    }
+    
+    @Test
+    public void testWaitForTabletServerCompactions() throws Exception {
+        int threshold = Whitebox.getInternalState(BulkIngestMapFileLoader.class, "TSERVER_MAJC_THRESHOLD");
+        int waitTime = Whitebox.getInternalState(BulkIngestMapFileLoader.class, "TSERVER_MAJC_WAIT_TIME");
+        try {
+            Whitebox.setInternalState(BulkIngestMapFileLoader.class, "TSERVER_MAJC_THRESHOLD", 3);
+            Whitebox.setInternalState(BulkIngestMapFileLoader.class, "TSERVER_MAJC_WAIT_TIME", 1);
+            BulkIngestMapFileLoader uut = createLoader();
+            
+            // the import waits while a tablet server has more than the threshold, and goes ahead once it is at the threshold
+            Iterator<Integer> compactions = Arrays.asList(5, 4, 3, 0).iterator();
+            AtomicInteger checks = new AtomicInteger();
+            uut.waitForTabletServerCompactions("shard", () -> {
+                checks.incrementAndGet();
+                return compactions.next();
+            });
+            Assert.assertEquals(3, checks.get());
+            
+            checks.set(0);
+            uut.waitForTabletServerCompactions("shard", () -> {
+                checks.incrementAndGet();
+                return 3;
+            });
+            Assert.assertEquals(1, checks.get());
+        } finally {
+            Whitebox.setInternalState(BulkIngestMapFileLoader.class, "TSERVER_MAJC_THRESHOLD", threshold);
+            Whitebox.setInternalState(BulkIngestMapFileLoader.class, "TSERVER_MAJC_WAIT_TIME", waitTime);
+        }
+    }
+    
+    private BulkIngestMapFileLoader createLoader() throws URISyntaxException {
+        URI uri = BulkIngestMapFileLoaderTest.class.getResource("/datawave/ingest/mapreduce/job/all-splits.txt").toURI();
+        return new BulkIngestMapFileLoader(".", "jobs/", "localhost", "localhost", "user", new PasswordToken("pass"), uri, uri, uri, "localhost",
+                        new HashMap<>(), new Configuration(), 0);
+    }
 }
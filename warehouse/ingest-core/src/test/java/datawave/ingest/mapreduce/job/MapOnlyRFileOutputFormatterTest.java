@@ -0,0 +1,230 @@
+package datawave.ingest.mapreduce.job;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import datawave.ingest.mapreduce.StandaloneStatusReporter;
+
+import org.apache.accumulo.core.client.Scanner;
+import org.apache.accumulo.core.client.rfile.RFile;
+import org.apache.accumulo.core.conf.ConfigurationCopy;
+import org.apache.accumulo.core.conf.DefaultConfiguration;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Value;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.LocatedFileStatus;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.fs.RemoteIterator;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapreduce.JobID;
+import org.apache.hadoop.mapreduce.RecordWriter;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.hadoop.mapreduce.TaskAttemptID;
+import org.apache.hadoop.mapreduce.TaskID;
+import org.apache.hadoop.mapreduce.TaskType;
+import org.apache.hadoop.mapreduce.task.TaskAttemptContextImpl;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class MapOnlyRFileOutputFormatterTest {
+    
+    private static final Text[] SPLITS = new Text[] {new Text("20190101_0"), new Text("20190101_5"), new Text("20190102_0")};
+    
+    private static final String JOB_ID = "job_201109071404_1";
+    private static final String TABLE = "shard";
+    
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+    
+    private StandaloneStatusReporter reporter = new StandaloneStatusReporter();
+    
+    @Test
+    public void testRowsBeforeFirstSplit() {
+        Assert.assertEquals(0, MapOnlyRFileOutputFormatter.getTabletIndex(SPLITS, new Text("20181231_9")));
+        Assert.assertEquals(0, MapOnlyRFileOutputFormatter.getTabletIndex(SPLITS, new Text("")));
+    }
+    
+    @Test
+    public void testSplitPointBelongsToPrecedingTablet() {
+        Assert.assertEquals(0, MapOnlyRFileOutputFormatter.getTabletIndex(SPLITS, new Text("20190101_0")));
+        Assert.assertEquals(1, MapOnlyRFileOutputFormatter.getTabletIndex(SPLITS, new Text("20190101_5")));
+        Assert.assertEquals(2, MapOnlyRFileOutputFormatter.getTabletIndex(SPLITS, new Text("20190102_0")));
+    }
+    
+    @Test
+    public void testRowsBetweenSplits() {
+        Assert.assertEquals(1, MapOnlyRFileOutputFormatter.getTabletIndex(SPLITS, new Text("20190101_1")));
+        Assert.assertEquals(2, MapOnlyRFileOutputFormatter.getTabletIndex(SPLITS, new Text("20190101_9")));
+    }
+    
+    @Test
+    public void testRowsAfterLastSplit() {
+        Assert.assertEquals(3, MapOnlyRFileOutputFormatter.getTabletIndex(SPLITS, new Text("20190102_1")));
+        Assert.assertEquals(0, MapOnlyRFileOutputFormatter.getTabletIndex(new Text[0], new Text("20190102_1")));
+    }
+    
+    @Test
+    public void testWritesOneSortedFilePerTablet() throws Exception {
+        Configuration conf = createConfiguration(MapOnlyRFileOutputFormatter.DEFAULT_SPILL_BUFFER_SIZE);
+        TaskAttemptContext context = createContext(conf);
+        RecordWriter<BulkIngestKey,Value> writer = createFormatter(Arrays.asList(SPLITS)).getRecordWriter(context);
+        
+        // written out of order, and spanning all four tablets
+        String[] rows = {"20190102_3", "20190101_0", "20190101_7", "20181231_9", "20190101_2", "20190102_0", "20190101_5", "20190101_0"};
+        for (int i = 0; i < rows.length; i++) {
+            writer.write(new BulkIngestKey(new Text(TABLE), new Key(rows[i], "fi\0FIELD", "value\0" + i)), new Value(("v" + i).getBytes()));
+        }
+        writer.close(context);
+        
+        Map<String,List<Key>> files = readFiles(conf);
+        Assert.assertEquals(files.keySet().toString(), 4, files.size());
+        int total = 0;
+        for (Map.Entry<String,List<Key>> file : files.entrySet()) {
+            Assert.assertTrue(file.getKey(), file.getKey().contains("_spill0000"));
+            int tablet = getTabletFromFileName(file.getKey());
+            List<Key> keys = file.getValue();
+            List<Key> sorted = new ArrayList<>(keys);
+            Collections.sort(sorted);
+            Assert.assertEquals("Keys in " + file.getKey() + " are not sorted", sorted, keys);
+            for (Key key : keys) {
+                Assert.assertEquals(key + " was written to the wrong tablet file", tablet, MapOnlyRFileOutputFormatter.getTabletIndex(SPLITS, key.getRow()));
+            }
+            total += keys.size();
+        }
+        Assert.assertEquals(rows.length, total);
+        Assert.assertEquals(1, reporter.getCounter(MapOnlyRFileOutputFormatter.COUNTER_GROUP, "Spills").getValue());
+        Assert.assertEquals(rows.length, reporter.getCounter(MapOnlyRFileOutputFormatter.COUNTER_GROUP, TABLE + " entries").getValue());
+    }
+    
+    @Test
+    public void testSpillsWhenBufferFills() throws Exception {
+        // every entry is larger than the buffer, so each write spills its own file
+        Configuration conf = createConfiguration(1);
+        TaskAttemptContext context = createContext(conf);
+        RecordWriter<BulkIngestKey,Value> writer = createFormatter(Arrays.asList(SPLITS)).getRecordWriter(context);
+        
+        writer.write(new BulkIngestKey(new Text(TABLE), new Key("20190101_2", "fi\0FIELD", "c")), new Value());
+        writer.write(new BulkIngestKey(new Text(TABLE), new Key("20190101_1", "fi\0FIELD", "b")), new Value());
+        writer.write(new BulkIngestKey(new Text(TABLE), new Key("20190101_3", "fi\0FIELD", "a")), new Value());
+        Assert.assertEquals(3, reporter.getCounter(MapOnlyRFileOutputFormatter.COUNTER_GROUP, "Spills").getValue());
+        writer.close(context);
+        
+        Map<String,List<Key>> files = readFiles(conf);
+        Assert.assertEquals(files.keySet().toString(), 3, files.size());
+        List<String> names = new ArrayList<>(files.keySet());
+        Assert.assertTrue(names.get(0), names.get(0).startsWith("tablet000001_spill0000"));
+        Assert.assertTrue(names.get(1), names.get(1).startsWith("tablet000001_spill0001"));
+        Assert.assertTrue(names.get(2), names.get(2).startsWith("tablet000001_spill0002"));
+        Assert.assertEquals("20190101_2", files.get(names.get(0)).get(0).getRow().toString());
+        Assert.assertEquals("20190101_1", files.get(names.get(1)).get(0).getRow().toString());
+        Assert.assertEquals("20190101_3", files.get(names.get(2)).get(0).getRow().toString());
+        Assert.assertEquals(3, reporter.getCounter(MapOnlyRFileOutputFormatter.COUNTER_GROUP, "Spills").getValue());
+    }
+    
+    @Test
+    public void testBufferCopiesReusedKeysAndValues() throws Exception {
+        Configuration conf = createConfiguration(MapOnlyRFileOutputFormatter.DEFAULT_SPILL_BUFFER_SIZE);
+        TaskAttemptContext context = createContext(conf);
+        RecordWriter<BulkIngestKey,Value> writer = createFormatter(Collections.emptyList()).getRecordWriter(context);
+        
+        // the context writers reuse their keys and values between writes
+        Key key = new Key("20190101_1", "fi\0FIELD", "a");
+        Value value = new Value("first".getBytes());
+        BulkIngestKey bulkKey = new BulkIngestKey(new Text(TABLE), key);
+        writer.write(bulkKey, value);
+        key.set(new Key("20190101_2", "fi\0FIELD", "a"));
+        value.set("second".getBytes());
+        writer.write(bulkKey, value);
+        writer.close(context);
+        
+        // without splits, each spill goes to a single file
+        Map<String,List<Key>> files = readFiles(conf);
+        Assert.assertEquals(files.keySet().toString(), 1, files.size());
+        Assert.assertTrue(files.keySet().iterator().next().startsWith("tablet000000_spill0000"));
+        List<Key> keys = files.values().iterator().next();
+        Assert.assertEquals(2, keys.size());
+        Assert.assertEquals("20190101_1", keys.get(0).getRow().toString());
+        Assert.assertEquals("20190101_2", keys.get(1).getRow().toString());
+    }
+    
+    @Test(expected = IOException.class)
+    public void testUnknownTable() throws Exception {
+        Configuration conf = createConfiguration(MapOnlyRFileOutputFormatter.DEFAULT_SPILL_BUFFER_SIZE);
+        RecordWriter<BulkIngestKey,Value> writer = createFormatter(Arrays.asList(SPLITS)).getRecordWriter(createContext(conf));
+        writer.write(new BulkIngestKey(new Text("unknown"), new Key("20190101_1")), new Value());
+    }
+    
+    private Configuration createConfiguration(long spillBufferSize) {
+        Configuration conf = new Configuration();
+        conf.set("mapred.output.dir", temporaryFolder.getRoot().toURI().toString());
+        conf.set(MultiRFileOutputFormatter.CONFIGURED_TABLE_NAMES, TABLE);
+        MapOnlyRFileOutputFormatter.setSpillBufferSize(conf, spillBufferSize);
+        return conf;
+    }
+    
+    private TaskAttemptContext createContext(Configuration conf) {
+        return new TaskAttemptContextImpl(conf, new TaskAttemptID(new TaskID(new JobID(JOB_ID, 1), TaskType.MAP, 1), 1), reporter);
+    }
+    
+    private MapOnlyRFileOutputFormatter createFormatter(final List<Text> splits) {
+        return new MapOnlyRFileOutputFormatter() {
+            @Override
+            protected Set<String> getTableList() {
+                return Collections.singleton(TABLE);
+            }
+            
+            @Override
+            protected void setTableIdsAndConfigs() {
+                tableConfigs = new HashMap<>();
+                tableConfigs.put(TABLE, new ConfigurationCopy(DefaultConfiguration.getInstance()));
+                tableIds = new HashMap<>();
+                tableIds.put(TABLE, "1");
+            }
+            
+            @Override
+            protected TableSplitsCache createSplitsCache(Configuration conf) {
+                return new TableSplitsCache(conf) {
+                    @Override
+                    public List<Text> getSplits(String table) {
+                        return splits;
+                    }
+                };
+            }
+        };
+    }
+    
+    /**
+     * Read back every file written under the table directory, keyed and ordered by file name
+     */
+    private Map<String,List<Key>> readFiles(Configuration conf) throws IOException {
+        Map<String,List<Key>> files = new TreeMap<>();
+        FileSystem fs = FileSystem.getLocal(conf);
+        RemoteIterator<LocatedFileStatus> statuses = fs.listFiles(new Path(temporaryFolder.getRoot().toURI()), true);
+        while (statuses.hasNext()) {
+            Path path = statuses.next().getPath();
+            if (!path.getParent().getName().equals(TABLE) || !path.getName().endsWith(".rf")) {
+                continue;
+            }
+            List<Key> keys = new ArrayList<>();
+            try (Scanner scanner = RFile.newScanner().from(path.toString()).withFileSystem(fs).build()) {
+                scanner.forEach(entry -> keys.add(entry.getKey()));
+            }
+            files.put(path.getName(), keys);
+        }
+        return files;
+    }
+    
+    private static int getTabletFromFileName(String fileName) {
+        return Integer.parseInt(fileName.substring("tablet".length(), "tablet".length() + 6));
+    }
+}
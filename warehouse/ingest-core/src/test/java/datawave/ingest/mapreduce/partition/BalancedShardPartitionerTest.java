@@ -1,11 +1,13 @@
 package datawave.ingest.mapreduce.partition;
 
+import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.SortedMap;
 import java.util.TreeMap;
 import java.util.TreeSet;
@@ -19,13 +21,16 @@ import org.apache.accumulo.core.data.Key;
 import org.apache.accumulo.core.data.Value;
 import org.apache.commons.lang.time.DateUtils;
 import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.io.Text;
 import org.apache.hadoop.mapreduce.Partitioner;
 import org.junit.After;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.BeforeClass;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
@@ -39,6 +44,9 @@ public class BalancedShardPartitionerTest {
     private BalancedShardPartitioner partitioner = null;
     private ShardIdFactory shardIdFactory = new ShardIdFactory(conf);
     
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+    
     @BeforeClass
     public static void defineShardLocationsFile() throws IOException {
         conf = new Configuration();
@@ -264,6 +272,131 @@ public class BalancedShardPartitionerTest {
         // tablets
     }
     
+    @Test
+    public void testHotShardIsSpreadAcrossReducers() throws IOException {
+        String today = formatDay(0);
+        File weightsFile = File.createTempFile("shardWeights", ".txt");
+        weightsFile.deleteOnExit();
+        ShardWeights weights = new ShardWeights();
+        weights.setBytesPerReducer(1000);
+        weights.add(TableName.SHARD, new Text(today + "_1"), 3500);
+        weights.write(conf, new Path(weightsFile.toURI()));
+        
+        conf.setBoolean(BalancedShardPartitioner.SKEW_AWARE_PROP, true);
+        conf.set(BalancedShardPartitioner.SHARD_WEIGHTS_FILE_PROP, weightsFile.toURI().toString());
+        try {
+            partitioner.setConf(conf);
+            Set<Integer> hotPartitions = new HashSet<>();
+            Set<Integer> coldPartitions = new HashSet<>();
+            for (int i = 0; i < 100; i++) {
+                long now = System.currentTimeMillis();
+                Key hotKey = new Key(today + "_1", "datatype\u0000uid" + i, "FIELD\u0000value", now);
+                Key coldKey = new Key(today + "_2", "datatype\u0000uid" + i, "FIELD\u0000value", now);
+                int hotPartition = partitioner.getPartition(new BulkIngestKey(new Text(TableName.SHARD), hotKey), new Value(), NUM_REDUCE_TASKS);
+                hotPartitions.add(hotPartition);
+                coldPartitions.add(partitioner.getPartition(new BulkIngestKey(new Text(TableName.SHARD), coldKey), new Value(), NUM_REDUCE_TASKS));
+                
+                // identical keys, regardless of timestamp, must go to the same reducer
+                Key sameKeyLater = new Key(today + "_1", "datatype\u0000uid" + i, "FIELD\u0000value", now + 1000);
+                assertEquals(hotPartition, partitioner.getPartition(new BulkIngestKey(new Text(TableName.SHARD), sameKeyLater), new Value(), NUM_REDUCE_TASKS));
+            }
+            // 3500 bytes at 1000 bytes per reducer is spread across 4 reducers
+            assertEquals(4, hotPartitions.size());
+            assertEquals(1, coldPartitions.size());
+        } finally {
+            conf.unset(BalancedShardPartitioner.SKEW_AWARE_PROP);
+            conf.unset(BalancedShardPartitioner.SHARD_WEIGHTS_FILE_PROP);
+        }
+    }
+    
+    @Test
+    public void testShardWeightsFromReducerFiles() throws IOException {
+        Path workDir = new Path(temporaryFolder.getRoot().toURI());
+        ShardWeights first = new ShardWeights();
+        first.setBytesPerReducer(3000);
+        first.add(TableName.SHARD, new Text("20200101_1"), 2000);
+        first.write(conf, ShardWeights.getReducerBytesFile(workDir, 0));
+        ShardWeights second = new ShardWeights();
+        second.setBytesPerReducer(1000);
+        second.add(TableName.SHARD, new Text("20200101_1"), 500);
+        second.add(TableName.SHARD, new Text("20200101_2"), 400);
+        second.write(conf, ShardWeights.getReducerBytesFile(workDir, 1));
+        // a reducer without any hot shards still reports its input bytes
+        ShardWeights third = new ShardWeights();
+        third.setBytesPerReducer(2000);
+        third.write(conf, ShardWeights.getReducerBytesFile(workDir, 2));
+        
+        // the fourth reducer never reported
+        ShardWeights weights = ShardWeights.fromReducerFiles(conf, workDir, 4);
+        assertEquals(1500, weights.getBytesPerReducer());
+        assertEquals(2500, weights.getBytes(TableName.SHARD, new Text("20200101_1")));
+        assertEquals(400, weights.getBytes(TableName.SHARD, new Text("20200101_2")));
+        assertEquals(0, weights.getBytes(TableName.SHARD, new Text("20200101_3")));
+        assertEquals(2, weights.getSpread(TableName.SHARD, new Text("20200101_1"), BalancedShardPartitioner.DEFAULT_MAX_SPREAD));
+    }
+    
+    @Test
+    public void testShardWeightsRetainHottestAfterSumming() throws IOException {
+        Path workDir = new Path(temporaryFolder.getRoot().toURI());
+        // a shard spread over two reducers is cooler than another in either reducer, but hotter once summed
+        ShardWeights first = new ShardWeights();
+        first.setBytesPerReducer(2000);
+        first.add(TableName.SHARD, new Text("20200101_1"), 700);
+        first.add(TableName.SHARD, new Text("20200101_2"), 800);
+        first.add(TableName.SHARD, new Text("20200101_3"), 100);
+        first.write(conf, ShardWeights.getReducerBytesFile(workDir, 0));
+        ShardWeights second = new ShardWeights();
+        second.setBytesPerReducer(2000);
+        second.add(TableName.SHARD, new Text("20200101_1"), 700);
+        second.write(conf, ShardWeights.getReducerBytesFile(workDir, 1));
+        
+        ShardWeights weights = ShardWeights.fromReducerFiles(conf, workDir, 2);
+        weights.retainHottest(1, 200);
+        assertEquals(1400, weights.getBytes(TableName.SHARD, new Text("20200101_1")));
+        assertEquals(0, weights.getBytes(TableName.SHARD, new Text("20200101_2")));
+        
+        weights = ShardWeights.fromReducerFiles(conf, workDir, 2);
+        weights.retainHottest(10, 200);
+        assertEquals(800, weights.getBytes(TableName.SHARD, new Text("20200101_2")));
+        assertEquals(0, weights.getBytes(TableName.SHARD, new Text("20200101_3")));
+    }
+    
+    @Test
+    public void testShardWeightsOfConcurrentJobs() throws IOException {
+        Path weightsFile = new Path(new Path(temporaryFolder.getRoot().toURI()), "shardWeights.txt");
+        ShardWeights first = new ShardWeights();
+        first.setBytesPerReducer(1000);
+        first.add(TableName.SHARD, new Text("20200101_1"), 3000);
+        first.write(conf, ShardWeights.getJobWeightsFile(weightsFile, "job_1"));
+        ShardWeights second = new ShardWeights();
+        second.setBytesPerReducer(2000);
+        second.add(TableName.SHARD, new Text("20200101_1"), 2000);
+        second.add(TableName.SHARD, new Text("20200101_2"), 8000);
+        second.write(conf, ShardWeights.getJobWeightsFile(weightsFile, "job_2"));
+        
+        // neither job replaced the weights of the other, and each shard keeps the larger spread
+        ShardWeights weights = ShardWeights.readAll(conf, weightsFile);
+        assertEquals(2000, weights.getBytesPerReducer());
+        assertEquals(3, weights.getSpread(TableName.SHARD, new Text("20200101_1"), BalancedShardPartitioner.DEFAULT_MAX_SPREAD));
+        assertEquals(4, weights.getSpread(TableName.SHARD, new Text("20200101_2"), BalancedShardPartitioner.DEFAULT_MAX_SPREAD));
+        
+        // the weights of a job expire
+        Path expired = ShardWeights.getJobWeightsFile(weightsFile, "job_2");
+        weightsFile.getFileSystem(conf).setTimes(expired, System.currentTimeMillis() - ShardWeights.DEFAULT_MAX_AGE_MS - 1000, -1);
+        ShardWeights.deleteExpired(conf, weightsFile);
+        Assert.assertFalse(weightsFile.getFileSystem(conf).exists(expired));
+        weights = ShardWeights.readAll(conf, weightsFile);
+        assertEquals(1000, weights.getBytesPerReducer());
+        assertEquals(0, weights.getBytes(TableName.SHARD, new Text("20200101_2")));
+    }
+    
+    @Test
+    public void testShardWeightsWithoutReducerFiles() throws IOException {
+        ShardWeights weights = ShardWeights.fromReducerFiles(conf, new Path(temporaryFolder.getRoot().toURI()), 4);
+        assertTrue(weights.isEmpty());
+        assertEquals(0, weights.getBytesPerReducer());
+    }
+    
     private static String formatDay(int daysBack) {
         return DateHelper.format(System.currentTimeMillis() - (daysBack * DateUtils.MILLIS_PER_DAY));
     }
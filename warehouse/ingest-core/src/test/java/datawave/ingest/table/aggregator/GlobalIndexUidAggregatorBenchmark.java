@@ -0,0 +1,92 @@
+package datawave.ingest.table.aggregator;
+
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import datawave.ingest.protobuf.Uid;
+
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Value;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.google.common.collect.Lists;
+
+/**
+ * Compares the {@link GlobalIndexUidAggregator} with the {@link HashedGlobalIndexUidAggregator} when combining the values of a hot term, as happens during a
+ * major compaction of the global index. Run with the test classpath, e.g. from an IDE, via {@link #main(String[])}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GlobalIndexUidAggregatorBenchmark {
+    
+    /** The number of values combined for the term */
+    @Param({"1000", "100000"})
+    public int numValues;
+    
+    /** The maximum number of UIDs kept for the term */
+    @Param({"20", "10000"})
+    public int maxUids;
+    
+    /** The percentage of the values which are removals */
+    @Param({"0", "10"})
+    public int removalPercent;
+    
+    private List<Value> values;
+    private Key key = new Key("hotTerm", "FIELD", "20200101_1\u0000datatype");
+    
+    @Setup
+    public void setup() {
+        Random random = new Random(1);
+        List<String> seen = Lists.newArrayList();
+        values = Lists.newArrayListWithCapacity(numValues);
+        for (int i = 0; i < numValues; i++) {
+            Uid.List.Builder b = Uid.List.newBuilder().setIGNORE(false);
+            if (!seen.isEmpty() && random.nextInt(100) < removalPercent) {
+                b.setCOUNT(-1).addREMOVEDUID(seen.get(random.nextInt(seen.size())));
+            } else {
+                String uid = UUID.randomUUID().toString();
+                seen.add(uid);
+                b.setCOUNT(1).addUID(uid);
+            }
+            values.add(new Value(b.build().toByteArray()));
+        }
+    }
+    
+    @Benchmark
+    public Value globalIndexUidAggregator() {
+        return aggregate(new GlobalIndexUidAggregator(maxUids));
+    }
+    
+    @Benchmark
+    public Value hashedGlobalIndexUidAggregator() {
+        return aggregate(new HashedGlobalIndexUidAggregator(maxUids));
+    }
+    
+    private Value aggregate(PropogatingCombiner combiner) {
+        combiner.reset();
+        return combiner.reduce(key, values.iterator());
+    }
+    
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(GlobalIndexUidAggregatorBenchmark.class.getSimpleName()).addProfiler("gc").build()).run();
+    }
+}
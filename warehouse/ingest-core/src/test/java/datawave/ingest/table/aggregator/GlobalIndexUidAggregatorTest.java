@@ -1,16 +1,19 @@
 package datawave.ingest.table.aggregator;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
 import java.util.UUID;
 
 import datawave.ingest.protobuf.Uid;
 import datawave.ingest.protobuf.Uid.List.Builder;
+import datawave.ingest.protobuf.UidListCodec;
 
 import org.apache.accumulo.core.data.Key;
 import org.apache.accumulo.core.data.Value;
@@ -228,4 +231,38 @@ public class GlobalIndexUidAggregatorTest {
         assertEquals(1, resultList.getUIDCount());
         
     }
+    
+    @Test
+    public void testMixedFormats() throws Exception {
+        agg.reset();
+        List<String> uids = new ArrayList<>();
+        Collection<Value> values = Lists.newArrayList();
+        for (int i = 0; i < 5; i++) {
+            Builder b = createNewUidList();
+            b.setIGNORE(false);
+            b.setCOUNT(1);
+            String uid = "abc.def.ghi." + i;
+            uids.add(uid);
+            b.addUID(uid);
+            values.add(new Value(UidListCodec.encode(b.build(), (i % 2 == 0 ? UidListCodec.Format.COMPACT : UidListCodec.Format.PROTOBUF))));
+        }
+        Builder b = createNewUidList();
+        b.setIGNORE(false);
+        b.setCOUNT(-1);
+        b.addREMOVEDUID(uids.remove(0));
+        values.add(new Value(b.build().toByteArray()));
+        
+        Value result = agg.reduce(new Key("key"), values.iterator());
+        assertTrue(UidListCodec.isCompact(result.get()));
+        Uid.List resultList = UidListCodec.decode(result.get());
+        assertEquals(4, resultList.getCOUNT());
+        assertEquals(false, resultList.getIGNORE());
+        assertEquals(new HashSet<>(uids), new HashSet<>(resultList.getUIDList()));
+        assertEquals(1, resultList.getREMOVEDUIDCount());
+        
+        // protobuf only values are left as protobuf
+        agg.reset();
+        result = agg.reduce(new Key("key"), Iterators.singletonIterator(new Value(b.build().toByteArray())));
+        assertFalse(UidListCodec.isCompact(result.get()));
+    }
 }
@@ -0,0 +1,85 @@
+package datawave.ingest.table.aggregator;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+
+import datawave.ingest.protobuf.Uid;
+import datawave.ingest.protobuf.Uid.List.Builder;
+
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Value;
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+
+/**
+ * Runs the {@link GlobalIndexUidAggregatorTest} against the {@link HashedGlobalIndexUidAggregator}, and verifies that both aggregators agree on random
+ * sequences of additions, removals and quarantines.
+ */
+public class HashedGlobalIndexUidAggregatorTest extends GlobalIndexUidAggregatorTest {
+    
+    public HashedGlobalIndexUidAggregatorTest() {
+        agg = new HashedGlobalIndexUidAggregator();
+    }
+    
+    @Test
+    public void testMatchesGlobalIndexUidAggregator() throws Exception {
+        Random random = new Random(42);
+        GlobalIndexUidAggregator expectedAgg = new GlobalIndexUidAggregator();
+        
+        for (int round = 0; round < 500; round++) {
+            int numUids = 1 + random.nextInt(2 * GlobalIndexUidAggregator.MAX);
+            List<Value> values = Lists.newArrayList();
+            for (int i = random.nextInt(30); i >= 0; i--) {
+                values.add(randomValue(random, numUids));
+            }
+            
+            for (boolean propogate : new boolean[] {true, false}) {
+                expectedAgg.reset();
+                expectedAgg.setPropogate(propogate);
+                agg.reset();
+                agg.setPropogate(propogate);
+                
+                Uid.List expected = Uid.List.parseFrom(expectedAgg.reduce(new Key("key"), values.iterator()).get());
+                Uid.List result = Uid.List.parseFrom(agg.reduce(new Key("key"), values.iterator()).get());
+                
+                String message = "round " + round;
+                assertEquals(message, expected.getIGNORE(), result.getIGNORE());
+                assertEquals(message, expected.getCOUNT(), result.getCOUNT());
+                assertEquals(message, new HashSet<>(expected.getUIDList()), new HashSet<>(result.getUIDList()));
+                assertEquals(message, new HashSet<>(expected.getREMOVEDUIDList()), new HashSet<>(result.getREMOVEDUIDList()));
+                assertEquals(message, new HashSet<>(expected.getQUARANTINEUIDList()), new HashSet<>(result.getQUARANTINEUIDList()));
+                assertEquals(message, expectedAgg.propogateKey(), agg.propogateKey());
+            }
+        }
+    }
+    
+    private Value randomValue(Random random, int numUids) {
+        Builder b = Uid.List.newBuilder();
+        b.setIGNORE(random.nextInt(50) == 0);
+        int type = random.nextInt(10);
+        if (type < 6) {
+            int n = 1 + random.nextInt(3);
+            b.setCOUNT(n);
+            for (int i = 0; i < n; i++) {
+                b.addUID("uid." + random.nextInt(numUids));
+            }
+            if (type == 0) {
+                b.addQUARANTINEUID("uid." + random.nextInt(numUids));
+            }
+        } else {
+            b.setCOUNT(-1);
+            if (type < 8) {
+                b.addREMOVEDUID("uid." + random.nextInt(numUids));
+            } else if (type == 8) {
+                b.addQUARANTINEUID("uid." + random.nextInt(numUids));
+            } else {
+                b.addUID("uid." + random.nextInt(numUids));
+            }
+        }
+        return new Value(b.build().toByteArray());
+    }
+}
@@ -244,6 +244,9 @@ public abstract class DatawaveFieldIndexCachingIteratorJexl extends WrappingIter
     @SuppressWarnings("unchecked")
     protected static final Collection<ByteSequence> EMPTY_CFS = Collections.EMPTY_LIST;
     
+    // the number of consecutive non-matching keys after which we attempt to seek ahead to the next possible match
+    protected static final int SEEK_AHEAD_THRESHOLD = 10;
+    
     // These are the ranges to scan in the field index
     private final List<Range> boundingFiRanges = new ArrayList<>();
     protected Range currentFiRange = null;
@@ -1087,6 +1090,7 @@ public abstract class DatawaveFieldIndexCachingIteratorJexl extends WrappingIter
             QuerySpan querySpan = null;
             Key nextSeekKey = null;
             int nextCount = 0;
+            int misses = 0;
             try {
                 if (collectTimingDetails && source instanceof SourceTrackingIterator) {
                     querySpan = ((SourceTrackingIterator) source).getQuerySpan();
@@ -1172,9 +1176,23 @@ public abstract class DatawaveFieldIndexCachingIteratorJexl extends WrappingIter
                     
                     if (addKey(top, source.getTopValue())) {
                         matched++;
+                        misses = 0;
                         if (!totalResults.increment()) {
                             throw new DatawaveIvaratorMaxResultsException("Exceeded the maximum set size");
                         }
+                    } else if (!negated && ++misses >= SEEK_AHEAD_THRESHOLD) {
+                        // after a run of misses, skip directly to the next key which could match if known
+                        misses = 0;
+                        Key seekAheadKey = getNextPossibleMatch(top);
+                        if (seekAheadKey != null && seekAheadKey.compareTo(top) > 0) {
+                            if (boundingFiRange.afterEndKey(seekAheadKey)) {
+                                break;
+                            }
+                            source.seek(new Range(seekAheadKey, true, boundingFiRange.getEndKey(), boundingFiRange.isEndKeyInclusive()), EMPTY_CFS, false);
+                            scanned++;
+                            DatawaveFieldIndexCachingIteratorJexl.this.scannedKeys.incrementAndGet();
+                            continue;
+                        }
                     }
                     
                     source.next();
@@ -1389,6 +1407,18 @@ public abstract class DatawaveFieldIndexCachingIteratorJexl extends WrappingIter
      */
     protected abstract boolean matches(Key k) throws IOException;
     
+    /**
+     * Get the key of the next field index entry which could possibly match following a key which did not. No key between the two may match, which lets
+     * {@link #fillSet(Range, TotalResults)} seek past runs of keys which cannot match instead of nexting through them. NOTE: This method must be thread safe
+     *
+     * @param k
+     *            a non-matching field index key
+     * @return the key to seek to, or null if unknown in which case the scan simply continues with the next key
+     */
+    protected Key getNextPossibleMatch(Key k) {
+        return null;
+    }
+    
     /**
      * A protected method to force persistence of the set. This can be used by test cases to verify tear down and rebuilding with reuse of the previous results.
      * 
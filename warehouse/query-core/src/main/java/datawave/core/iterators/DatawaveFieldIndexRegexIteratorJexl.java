@@ -4,8 +4,10 @@ import datawave.data.ColumnFamilyConstants;
 import datawave.query.Constants;
 import datawave.query.parser.JavaRegexAnalyzer;
 import datawave.query.parser.JavaRegexAnalyzer.JavaRegexParseException;
+import org.apache.accumulo.core.data.ByteSequence;
 import org.apache.accumulo.core.data.Column;
 import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.PartialKey;
 import org.apache.accumulo.core.data.Range;
 import org.apache.accumulo.core.data.Value;
 import org.apache.accumulo.core.iterators.IteratorEnvironment;
@@ -44,6 +46,7 @@ public class DatawaveFieldIndexRegexIteratorJexl extends DatawaveFieldIndexCachi
     protected DatawaveFieldIndexRegexIteratorJexl(Builder builder) {
         super(builder);
         this.regex = builder.fieldValue.toString();
+        this.automaton = RegexAutomaton.compile(this.regex, false);
         try {
             // now fix the fValue to be the part we use for ranges
             JavaRegexAnalyzer analyzer = new JavaRegexAnalyzer(this.regex);
@@ -60,6 +63,8 @@ public class DatawaveFieldIndexRegexIteratorJexl extends DatawaveFieldIndexCachi
     
     private String regex = null;
     private ThreadLocal<Pattern> pattern = ThreadLocal.withInitial(() -> Pattern.compile(regex));
+    // the regex compiled to an automaton, or null if it could not be in which case the pattern is used
+    private RegexAutomaton automaton = null;
     
     // -------------------------------------------------------------------------
     // ------------- Constructors
@@ -70,6 +75,7 @@ public class DatawaveFieldIndexRegexIteratorJexl extends DatawaveFieldIndexCachi
     public DatawaveFieldIndexRegexIteratorJexl(DatawaveFieldIndexRegexIteratorJexl other, IteratorEnvironment env) {
         super(other, env);
         this.regex = other.regex;
+        this.automaton = other.automaton;
     }
     
     // -------------------------------------------------------------------------
@@ -124,14 +130,55 @@ public class DatawaveFieldIndexRegexIteratorJexl extends DatawaveFieldIndexCachi
     @Override
     protected boolean matches(Key k) throws IOException {
         boolean matches = false;
-        String colq = k.getColumnQualifier().toString();
         
-        // search backwards for the null bytes to expose the value in value\0datatype\0UID
-        int index = colq.lastIndexOf('\0');
-        index = colq.lastIndexOf('\0', index - 1);
-        matches = (pattern.get().matcher(colq.substring(0, index)).matches());
+        if (automaton != null) {
+            // match the value directly against the column qualifier bytes
+            ByteSequence colq = k.getColumnQualifierData();
+            matches = automaton.matches(colq.getBackingArray(), colq.offset(), getValueLength(colq));
+        } else {
+            String colq = k.getColumnQualifier().toString();
+            
+            // search backwards for the null bytes to expose the value in value\0datatype\0UID
+            int index = colq.lastIndexOf('\0');
+            index = colq.lastIndexOf('\0', index - 1);
+            matches = (pattern.get().matcher(colq.substring(0, index)).matches());
+        }
         
         return matches;
     }
     
+    /**
+     * Seek to the next value which the regex could match within the same field, or past the field if there are none.
+     *
+     * @param k
+     *            a non-matching field index key
+     * @return the key to seek to, or null if the regex could not be compiled into an automaton
+     */
+    @Override
+    protected Key getNextPossibleMatch(Key k) {
+        if (automaton == null) {
+            return null;
+        }
+        ByteSequence colq = k.getColumnQualifierData();
+        byte[] nextValue = automaton.nextPossibleMatch(colq.getBackingArray(), colq.offset(), getValueLength(colq));
+        if (nextValue == null) {
+            return k.followingKey(PartialKey.ROW_COLFAM);
+        }
+        return new Key(k.getRow(), k.getColumnFamily(), new Text(nextValue));
+    }
+    
+    /**
+     * @return the length of the value in value\0datatype\0UID, found by searching backwards for the null bytes
+     */
+    private static int getValueLength(ByteSequence colq) {
+        byte[] bytes = colq.getBackingArray();
+        int index = colq.offset() + colq.length() - 1;
+        for (int nulls = 0; index >= colq.offset(); index--) {
+            if (bytes[index] == 0 && ++nulls == 2) {
+                break;
+            }
+        }
+        return Math.max(index - colq.offset(), 0);
+    }
+    
 }
@@ -11,6 +11,7 @@ import java.util.TreeMap;
 
 import datawave.ingest.protobuf.Uid;
 import datawave.ingest.protobuf.Uid.List.Builder;
+import datawave.ingest.protobuf.UidListCodec;
 import datawave.marking.MarkingFunctions;
 
 import datawave.query.Constants;
@@ -321,7 +322,7 @@ public class GlobalIndexDateSummaryIterator implements SortedKeyValueIterator<Ke
                 // Parse the UID.List object from the value
                 Uid.List uidList = null;
                 try {
-                    uidList = Uid.List.parseFrom(value.get());
+                    uidList = UidListCodec.decode(value.get());
                     if (null != uidList) {
                         count = uidList.getCOUNT();
                     }
@@ -6,6 +6,7 @@ import java.util.Collections;
 import java.util.Map;
 
 import datawave.ingest.protobuf.Uid;
+import datawave.ingest.protobuf.UidListCodec;
 
 import org.apache.accumulo.core.data.ByteSequence;
 import org.apache.accumulo.core.data.Key;
@@ -78,7 +79,7 @@ public class GlobalIndexRangeSamplingIterator implements SortedKeyValueIterator<
             // Parse the UID.List object from the value
             Uid.List uidList = null;
             try {
-                uidList = Uid.List.parseFrom(this.iterator.getTopValue().get());
+                uidList = UidListCodec.decode(this.iterator.getTopValue().get());
                 // Add the count for this shard to the total count for the term.
                 count += uidList.getCOUNT();
             } catch (InvalidProtocolBufferException e) {
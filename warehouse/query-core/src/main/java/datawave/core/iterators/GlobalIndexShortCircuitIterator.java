@@ -13,6 +13,7 @@ import java.util.Map.Entry;
 import java.util.Set;
 
 import datawave.ingest.protobuf.Uid;
+import datawave.ingest.protobuf.UidListCodec;
 import datawave.query.Constants;
 import datawave.util.TextUtil;
 
@@ -271,7 +272,7 @@ public class GlobalIndexShortCircuitIterator implements SortedKeyValueIterator<K
             Uid.List uidList = null;
             boolean forcedDayRange = false;
             try {
-                uidList = Uid.List.parseFrom(currentValue.get());
+                uidList = UidListCodec.decode(currentValue.get());
                 
                 if (log.isDebugEnabled()) {
                     log.debug("UidCOUNT for this key: " + uidList.getCOUNT());
@@ -14,6 +14,7 @@ import org.apache.accumulo.core.data.Value;
 import org.apache.accumulo.core.iterators.IteratorEnvironment;
 import org.apache.accumulo.core.iterators.OptionDescriber;
 import org.apache.accumulo.core.iterators.SortedKeyValueIterator;
+import org.apache.hadoop.io.Text;
 import org.apache.log4j.Logger;
 
 public class GlobalIndexTermMatchingIterator extends GlobalIndexTermMatchingFilter implements SortedKeyValueIterator<Key,Value>, OptionDescriber {
@@ -21,6 +22,9 @@ public class GlobalIndexTermMatchingIterator extends GlobalIndexTermMatchingFilt
     public static final String UNIQUE_TERMS_IN_FIELD = "term.unique";
     private static final Logger log = Logger.getLogger(GlobalIndexTermMatchingIterator.class);
     
+    // the number of consecutive rejected keys after which we attempt to seek ahead to the next possible match
+    private static final int SEEK_AHEAD_THRESHOLD = 10;
+    
     private SortedKeyValueIterator<Key,Value> source;
     
     private boolean foundMatch = false;
@@ -105,18 +109,57 @@ public class GlobalIndexTermMatchingIterator extends GlobalIndexTermMatchingFilt
         foundMatch = false;
         if (log.isTraceEnabled())
             log.trace("has top ? " + getSource().hasTop());
+        int misses = 0;
         while (!foundMatch && getSource().hasTop()) {
             Key top = getSource().getTopKey();
             if (log.isTraceEnabled())
                 log.trace("top key is " + top);
             if (accept(top, getSource().getTopValue())) {
                 foundMatch = true;
+            } else if (++misses >= SEEK_AHEAD_THRESHOLD && getAutomaton() != null) {
+                misses = 0;
+                if (!seekToNextPossibleMatch(top)) {
+                    break;
+                }
             } else {
                 getSource().next();
             }
         }
     }
     
+    /**
+     * Seeks to the first row which could match following a row which did not, skipping the rows in between
+     * 
+     * @param top
+     *            current key that we see, which was not accepted
+     * @return false if no following row within the scan range can match
+     * @throws IOException
+     */
+    private boolean seekToNextPossibleMatch(final Key top) throws IOException {
+        ByteSequence row = top.getRowData();
+        byte[] nextRow = getAutomaton().nextPossibleMatch(row.getBackingArray(), row.offset(), row.length());
+        if (nextRow == null) {
+            if (log.isTraceEnabled())
+                log.trace("no row following " + top + " can match");
+            return false;
+        }
+        Key next = new Key(new Text(nextRow));
+        Key endKey = scanRange.getEndKey();
+        if (null != endKey && next.compareTo(endKey) > 0) {
+            if (log.isTraceEnabled())
+                log.trace("next possible match " + next + " is beyond the end of the range");
+            return false;
+        }
+        if (next.compareTo(top) > 0) {
+            if (log.isTraceEnabled())
+                log.trace("seeking ahead to " + next);
+            getSource().seek(new Range(next, true, endKey, scanRange.isEndKeyInclusive()), scanCFs, scanInclusive);
+        } else {
+            getSource().next();
+        }
+        return true;
+    }
+    
     /**
      * Advances to the next top key
      * 
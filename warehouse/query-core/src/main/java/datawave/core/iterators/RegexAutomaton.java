@@ -0,0 +1,512 @@
+package datawave.core.iterators;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.log4j.Logger;
+import org.apache.lucene.util.automaton.Automata;
+import org.apache.lucene.util.automaton.Automaton;
+import org.apache.lucene.util.automaton.ByteRunAutomaton;
+import org.apache.lucene.util.automaton.Operations;
+import org.apache.lucene.util.automaton.RegExp;
+import org.apache.lucene.util.automaton.TooComplexToDeterminizeException;
+
+/**
+ * A deterministic automaton over UTF-8 bytes compiled from one or more java regular expressions (and literals), used to match terms directly against the raw
+ * bytes of a key, and to find the next term at or after a non-matching one that could possibly match so that a scan can seek over runs of terms that cannot.
+ * <p>
+ * Only the subset of the java regex syntax that describes a regular language is supported: literals, escapes, character classes (including the \d, \w and \s
+ * shorthands), the dot, groups, alternation and the greedy and reluctant quantifiers. An expression using anything else (anchors other than a leading ^ or
+ * trailing $, lookaround, back references, flags, nested classes, possessive quantifiers, ...) cannot be compiled, in which case callers should fall back to
+ * {@link java.util.regex.Pattern}.
+ * <p>
+ * Instances are immutable and thread safe.
+ */
+public class RegexAutomaton {
+    private static final Logger log = Logger.getLogger(RegexAutomaton.class);
+    
+    // the characters which java regex's dot does not match (without DOTALL)
+    private static final String DOT = "[^\\\n\\\r\\\u0085\\\u2028\\\u2029]";
+    private static final String DIGITS = "0-9";
+    private static final String WORD = "a-zA-Z_0-9";
+    private static final String SPACE = "\\ \\\t\\\n\\\u000B\\\f\\\r";
+    
+    private final ByteRunAutomaton automaton;
+    
+    // whether an accepting state can be reached from each state
+    private final boolean[] live;
+    
+    protected RegexAutomaton(Automaton automaton) {
+        this.automaton = new ByteRunAutomaton(automaton);
+        this.live = computeLiveStates(this.automaton);
+    }
+    
+    /**
+     * Compile a java regular expression.
+     *
+     * @param regex
+     *            the regular expression
+     * @param reverse
+     *            true to match the terms reversed, as stored in a reverse index
+     * @return the automaton, or null if the expression is not supported
+     */
+    public static RegexAutomaton compile(String regex, boolean reverse) {
+        return union(Collections.singletonList(regex), Collections.<String> emptyList(), reverse);
+    }
+    
+    /**
+     * Compile a set of java regular expressions and literals into a single automaton matching any of them.
+     *
+     * @param regexes
+     *            the regular expressions
+     * @param literals
+     *            the literals
+     * @param reverse
+     *            true to match the terms reversed, as stored in a reverse index
+     * @return the automaton, or null if any of the expressions is not supported
+     */
+    public static RegexAutomaton union(Collection<String> regexes, Collection<String> literals, boolean reverse) {
+        List<Automaton> automata = new ArrayList<>();
+        try {
+            for (String regex : regexes) {
+                String luceneRegex = toLuceneRegExp(regex);
+                if (luceneRegex == null) {
+                    if (log.isDebugEnabled()) {
+                        log.debug("Unable to convert " + regex + " into an automaton");
+                    }
+                    return null;
+                }
+                automata.add(new RegExp(luceneRegex, RegExp.NONE).toAutomaton(Operations.DEFAULT_MAX_DETERMINIZED_STATES));
+            }
+            for (String literal : literals) {
+                automata.add(Automata.makeString(literal));
+            }
+            Automaton automaton = Operations.union(automata);
+            if (reverse) {
+                automaton = Operations.reverse(automaton);
+            }
+            return new RegexAutomaton(Operations.removeDeadStates(automaton));
+        } catch (IllegalArgumentException | TooComplexToDeterminizeException e) {
+            log.debug("Unable to convert " + regexes + " into an automaton", e);
+            return null;
+        }
+    }
+    
+    /**
+     * @return true if the UTF-8 encoded term is matched
+     */
+    public boolean matches(byte[] term, int offset, int length) {
+        return automaton.run(term, offset, length);
+    }
+    
+    /**
+     * Find the next term that could be matched at or after a term. Every matching term that sorts at or after {@code term} sorts at or after the returned term,
+     * which makes it a safe seek target when scanning terms in sorted order.
+     *
+     * @param term
+     *            the UTF-8 encoded term
+     * @param offset
+     *            the offset of the term
+     * @param length
+     *            the length of the term
+     * @return the term itself if it matches, a term which sorts after it, or null if no term at or after it can match
+     */
+    public byte[] nextPossibleMatch(byte[] term, int offset, int length) {
+        if (!live[0]) {
+            return null;
+        }
+        
+        // follow the term as far as it could still lead to a match
+        int[] states = new int[length + 1];
+        int depth = 0;
+        int state = 0;
+        while (depth < length) {
+            int next = automaton.step(state, term[offset + depth] & 0xff);
+            if (next == -1 || !live[next]) {
+                break;
+            }
+            state = next;
+            states[++depth] = state;
+        }
+        
+        if (depth == length) {
+            // the term is a prefix of (or is) a match, so the next match is its smallest extension
+            return smallestCompletion(Arrays.copyOfRange(term, offset, offset + length), state);
+        }
+        
+        // otherwise find the deepest position at which a larger byte can still lead to a match
+        for (int position = depth; position >= 0; position--) {
+            int label = nextLabel(states[position], (term[offset + position] & 0xff) + 1);
+            if (label != -1) {
+                byte[] prefix = Arrays.copyOfRange(term, offset, offset + position + 1);
+                prefix[position] = (byte) label;
+                return smallestCompletion(prefix, automaton.step(states[position], label));
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * Extend a prefix leading to a live state into the smallest term it could match. If the smallest extension is infinite (the automaton loops) then the
+     * extension up to the loop is returned, which is still a lower bound.
+     */
+    private byte[] smallestCompletion(byte[] prefix, int state) {
+        byte[] term = prefix;
+        int length = prefix.length;
+        boolean[] visited = new boolean[live.length];
+        while (!automaton.isAccept(state) && !visited[state]) {
+            visited[state] = true;
+            int label = nextLabel(state, 0);
+            if (length == term.length) {
+                term = Arrays.copyOf(term, Math.max(16, length * 2));
+            }
+            term[length++] = (byte) label;
+            state = automaton.step(state, label);
+        }
+        return (length == term.length ? term : Arrays.copyOf(term, length));
+    }
+    
+    /**
+     * @return the smallest label at or above {@code minLabel} leading from {@code state} to a live state, or -1 if there is none
+     */
+    private int nextLabel(int state, int minLabel) {
+        for (int label = minLabel; label < 256; label++) {
+            int next = automaton.step(state, label);
+            if (next != -1 && live[next]) {
+                return label;
+            }
+        }
+        return -1;
+    }
+    
+    private static boolean[] computeLiveStates(ByteRunAutomaton automaton) {
+        int size = automaton.getSize();
+        
+        // build the reverse transitions
+        int[] predecessorCounts = new int[size + 1];
+        for (int state = 0; state < size; state++) {
+            for (int label = 0; label < 256; label++) {
+                int next = automaton.step(state, label);
+                if (next != -1) {
+                    predecessorCounts[next + 1]++;
+                }
+            }
+        }
+        for (int state = 0; state < size; state++) {
+            predecessorCounts[state + 1] += predecessorCounts[state];
+        }
+        int[] predecessors = new int[predecessorCounts[size]];
+        int[] fill = Arrays.copyOf(predecessorCounts, size);
+        for (int state = 0; state < size; state++) {
+            for (int label = 0; label < 256; label++) {
+                int next = automaton.step(state, label);
+                if (next != -1) {
+                    predecessors[fill[next]++] = state;
+                }
+            }
+        }
+        
+        // walk backwards from the accepting states
+        boolean[] live = new boolean[size];
+        int[] queue = new int[size];
+        int tail = 0;
+        for (int state = 0; state < size; state++) {
+            if (automaton.isAccept(state)) {
+                live[state] = true;
+                queue[tail++] = state;
+            }
+        }
+        for (int head = 0; head < tail; head++) {
+            int state = queue[head];
+            for (int i = predecessorCounts[state]; i < predecessorCounts[state + 1]; i++) {
+                if (!live[predecessors[i]]) {
+                    live[predecessors[i]] = true;
+                    queue[tail++] = predecessors[i];
+                }
+            }
+        }
+        return live;
+    }
+    
+    /**
+     * Convert a java regular expression into the lucene regular expression syntax (with no optional operators enabled), where every character other than a
+     * letter or digit is escaped.
+     *
+     * @param regex
+     *            the java regular expression
+     * @return the lucene regular expression, or null if the java expression uses an unsupported construct
+     */
+    static String toLuceneRegExp(String regex) {
+        StringBuilder out = new StringBuilder();
+        int length = regex.length();
+        // anchors are implied when matching the whole term
+        int i = (regex.startsWith("^") ? 1 : 0);
+        int depth = 0;
+        boolean quantifiable = false;
+        while (i < length) {
+            char c = regex.charAt(i);
+            switch (c) {
+                case '\\':
+                    if (i + 1 >= length) {
+                        return null;
+                    }
+                    char escaped = regex.charAt(i + 1);
+                    if (escaped == 'Q') {
+                        int end = regex.indexOf("\\E", i + 2);
+                        String quoted = (end < 0 ? regex.substring(i + 2) : regex.substring(i + 2, end));
+                        quoted.codePoints().forEach(cp -> appendLiteral(out, cp));
+                        quantifiable = !quoted.isEmpty();
+                        i = (end < 0 ? length : end + 2);
+                    } else {
+                        String shorthand = getShorthandClass(escaped);
+                        if (shorthand != null) {
+                            out.append(shorthand);
+                            i += 2;
+                        } else {
+                            int[] literal = parseEscapedLiteral(regex, i);
+                            if (literal == null) {
+                                return null;
+                            }
+                            appendLiteral(out, literal[0]);
+                            i = literal[1];
+                        }
+                        quantifiable = true;
+                    }
+                    break;
+                case '[':
+                    int end = appendCharacterClass(regex, i, out);
+                    if (end < 0) {
+                        return null;
+                    }
+                    i = end;
+                    quantifiable = true;
+                    break;
+                case '(':
+                    if (regex.startsWith("(?:", i)) {
+                        i += 3;
+                    } else if (regex.startsWith("(?", i)) {
+                        // lookaround, flags and named groups
+                        return null;
+                    } else {
+                        i++;
+                    }
+                    out.append('(');
+                    depth++;
+                    quantifiable = false;
+                    break;
+                case ')':
+                    if (--depth < 0) {
+                        return null;
+                    }
+                    out.append(')');
+                    i++;
+                    quantifiable = true;
+                    break;
+                case '|':
+                    out.append('|');
+                    i++;
+                    quantifiable = false;
+                    break;
+                case '*':
+                case '+':
+                case '?':
+                case '{':
+                    if (!quantifiable) {
+                        return null;
+                    }
+                    if (c == '{') {
+                        int close = regex.indexOf('}', i);
+                        if (close < 0 || !regex.substring(i + 1, close).matches("\\d+(,\\d*)?")) {
+                            return null;
+                        }
+                        out.append(regex, i, close + 1);
+                        i = close + 1;
+                    } else {
+                        out.append(c);
+                        i++;
+                    }
+                    // a reluctant quantifier matches the same set of terms, a possessive one may not
+                    if (i < length && regex.charAt(i) == '?') {
+                        i++;
+                    } else if (i < length && regex.charAt(i) == '+') {
+                        return null;
+                    }
+                    quantifiable = false;
+                    break;
+                case '.':
+                    out.append(DOT);
+                    i++;
+                    quantifiable = true;
+                    break;
+                case '$':
+                    if (i != length - 1) {
+                        return null;
+                    }
+                    i++;
+                    break;
+                case '^':
+                    return null;
+                default:
+                    int codePoint = regex.codePointAt(i);
+                    appendLiteral(out, codePoint);
+                    i += Character.charCount(codePoint);
+                    quantifiable = true;
+            }
+        }
+        return (depth == 0 ? out.toString() : null);
+    }
+    
+    private static void appendLiteral(StringBuilder out, int codePoint) {
+        if (!Character.isLetterOrDigit(codePoint) || codePoint > 127) {
+            out.append('\\');
+        }
+        out.appendCodePoint(codePoint);
+    }
+    
+    private static String getShorthandClass(char escaped) {
+        switch (escaped) {
+            case 'd':
+                return '[' + DIGITS + ']';
+            case 'D':
+                return "[^" + DIGITS + ']';
+            case 'w':
+                return '[' + WORD + ']';
+            case 'W':
+                return "[^" + WORD + ']';
+            case 's':
+                return '[' + SPACE + ']';
+            case 'S':
+                return "[^" + SPACE + ']';
+            default:
+                return null;
+        }
+    }
+    
+    /**
+     * Parse an escaped literal character starting at the backslash at {@code i}.
+     *
+     * @return the code point and the index following the escape, or null if the escape is not a literal
+     */
+    private static int[] parseEscapedLiteral(String regex, int i) {
+        char escaped = regex.charAt(i + 1);
+        switch (escaped) {
+            case 't':
+                return new int[] {'\t', i + 2};
+            case 'n':
+                return new int[] {'\n', i + 2};
+            case 'r':
+                return new int[] {'\r', i + 2};
+            case 'f':
+                return new int[] {'\f', i + 2};
+            case 'a':
+                return new int[] {'\u0007', i + 2};
+            case 'e':
+                return new int[] {'\u001B', i + 2};
+            case 'x':
+                return parseHex(regex, i + 2, 2);
+            case 'u':
+                return parseHex(regex, i + 2, 4);
+            default:
+                // any other letter or digit is a class, boundary, back reference or an error
+                if (Character.isLetterOrDigit(escaped)) {
+                    return null;
+                }
+                int codePoint = regex.codePointAt(i + 1);
+                return new int[] {codePoint, i + 1 + Character.charCount(codePoint)};
+        }
+    }
+    
+    private static int[] parseHex(String regex, int start, int digits) {
+        if (start + digits > regex.length()) {
+            return null;
+        }
+        String hex = regex.substring(start, start + digits);
+        if (!hex.matches("[0-9a-fA-F]+")) {
+            return null;
+        }
+        return new int[] {Integer.parseInt(hex, 16), start + digits};
+    }
+    
+    /**
+     * Append the character class starting at the open bracket at {@code start}.
+     *
+     * @return the index following the class, or -1 if the class is not supported
+     */
+    private static int appendCharacterClass(String regex, int start, StringBuilder out) {
+        int length = regex.length();
+        int i = start + 1;
+        out.append('[');
+        if (i < length && regex.charAt(i) == '^') {
+            out.append('^');
+            i++;
+        }
+        boolean first = true;
+        while (true) {
+            if (i >= length) {
+                return -1;
+            }
+            char c = regex.charAt(i);
+            if (c == ']' && !first) {
+                out.append(']');
+                return i + 1;
+            }
+            first = false;
+            // nested classes, unions and intersections are not supported
+            if (c == '[' || regex.startsWith("&&", i)) {
+                return -1;
+            }
+            
+            int low;
+            if (c == '\\') {
+                if (i + 1 >= length) {
+                    return -1;
+                }
+                char escaped = regex.charAt(i + 1);
+                if (escaped == 'd' || escaped == 'w' || escaped == 's') {
+                    String shorthand = getShorthandClass(escaped);
+                    out.append(shorthand, 1, shorthand.length() - 1);
+                    i += 2;
+                    // a shorthand cannot start a range
+                    if (i + 1 < length && regex.charAt(i) == '-' && regex.charAt(i + 1) != ']') {
+                        return -1;
+                    }
+                    continue;
+                }
+                int[] literal = parseEscapedLiteral(regex, i);
+                if (literal == null) {
+                    return -1;
+                }
+                low = literal[0];
+                i = literal[1];
+            } else {
+                low = regex.codePointAt(i);
+                i += Character.charCount(low);
+            }
+            
+            out.append('\\').appendCodePoint(low);
+            if (i + 1 < length && regex.charAt(i) == '-' && regex.charAt(i + 1) != ']') {
+                int high;
+                if (regex.charAt(i + 1) == '\\') {
+                    if (i + 2 >= length) {
+                        return -1;
+                    }
+                    int[] literal = parseEscapedLiteral(regex, i + 1);
+                    if (literal == null) {
+                        return -1;
+                    }
+                    high = literal[0];
+                    i = literal[1];
+                } else if (regex.charAt(i + 1) == '[') {
+                    return -1;
+                } else {
+                    high = regex.codePointAt(i + 1);
+                    i += 1 + Character.charCount(high);
+                }
+                out.append("-\\").appendCodePoint(high);
+            }
+        }
+    }
+}
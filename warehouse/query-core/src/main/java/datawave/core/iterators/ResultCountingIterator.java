@@ -12,11 +12,14 @@ import datawave.marking.MarkingFunctions;
 import org.apache.accumulo.core.client.BatchScanner;
 import org.apache.accumulo.core.data.ByteSequence;
 import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.PartialKey;
 import org.apache.accumulo.core.data.Range;
 import org.apache.accumulo.core.data.Value;
 import org.apache.accumulo.core.iterators.IteratorEnvironment;
 import org.apache.accumulo.core.iterators.SortedKeyValueIterator;
 import org.apache.accumulo.core.iterators.WrappingIterator;
+import org.apache.accumulo.core.iterators.YieldCallback;
+import org.apache.accumulo.core.iterators.YieldingKeyValueIterator;
 import org.apache.accumulo.core.security.ColumnVisibility;
 import org.apache.hadoop.io.Text;
 import org.apache.hadoop.io.VLongWritable;
@@ -47,9 +50,23 @@ import com.google.common.collect.Sets;
  * <p>
  * When using a {@link BatchScanner}, be aware that this will return <code>n</code> counts, where <code>n</code> is the number of ranges set. It is up to the
  * client to sum the counts for each range together.
+ *
+ * <p>
+ * A source entry with the {@link #COUNTED_COLUMN_QUALIFIER} already holds a serialized {@link ResultCountTuple}, such as the count of a query satisfied by the
+ * field index, and its count and visibility are added rather than counting it as a single k/v pair.
+ *
+ * <p>
+ * When the source yields, the count up to that point is returned and the scan is then yielded at the position of the source, so that the scan resumes where
+ * the source left off and the client adds up the counts.
  */
-public class ResultCountingIterator extends WrappingIterator {
+public class ResultCountingIterator extends WrappingIterator implements YieldingKeyValueIterator<Key,Value> {
     private static final Logger log = Logger.getLogger(ResultCountingIterator.class);
+    
+    /**
+     * The column qualifier of a source entry whose value is a {@link ResultCountTuple} counted below this iterator
+     */
+    public static final String COUNTED_COLUMN_QUALIFIER = "\u0000count";
+    
     private final Cache<Text,ColumnVisibility> CV_CACHE = CacheBuilder.newBuilder().concurrencyLevel(1).maximumSize(100).build();
     
     private static final Ticker zeroTicker = new Ticker() {
@@ -58,9 +75,14 @@ public class ResultCountingIterator extends WrappingIterator {
             return 0;
         }
     };
-    private int count;
+    private long count;
     
     private Key currentTopKey = null;
+    
+    private YieldCallback<Key> yield = null;
+    // given to the source, so that a yield of the source can be passed on once the count up to it has been returned
+    private YieldCallback<Key> sourceYield = null;
+    private Key yieldPosition = null;
     private Kryo kryo = new Kryo();
     
     private String threadName = null;
@@ -85,6 +107,15 @@ public class ResultCountingIterator extends WrappingIterator {
         this.count = 0;
     }
     
+    @Override
+    public void enableYielding(YieldCallback<Key> yieldCallback) {
+        this.yield = yieldCallback;
+        if (getSource() instanceof YieldingKeyValueIterator) {
+            this.sourceYield = new YieldCallback<>();
+            ((YieldingKeyValueIterator<Key,Value>) getSource()).enableYielding(this.sourceYield);
+        }
+    }
+    
     @Override
     public boolean hasTop() {
         return 0 < count;
@@ -92,7 +123,11 @@ public class ResultCountingIterator extends WrappingIterator {
     
     @Override
     public void next() throws IOException {
-        if (getSource().hasTop()) {
+        if (yieldPosition != null) {
+            // the count up to the yield of the source has been returned
+            yieldAt(yieldPosition);
+            this.count = 0;
+        } else if (getSource().hasTop()) {
             getSource().next();
             consume();
         } else {
@@ -109,6 +144,7 @@ public class ResultCountingIterator extends WrappingIterator {
         if (log.isTraceEnabled()) {
             log.trace(threadName + ": seeking to : " + range);
         }
+        this.yieldPosition = null;
         getSource().seek(range, columnFamilies, inclusive);
         consume();
     }
@@ -151,7 +187,13 @@ public class ResultCountingIterator extends WrappingIterator {
                     continue;
                 }
                 
-                this.count++;
+                if (isCounted(this.currentTopKey)) {
+                    ResultCountTuple tuple = kryo.readObject(new Input(getSource().getTopValue().get()), ResultCountTuple.class);
+                    columnVisibilities.add(tuple.getVisibility());
+                    this.count += tuple.getCount();
+                } else {
+                    this.count++;
+                }
             }
             
             processResultSW.stop();
@@ -168,6 +210,17 @@ public class ResultCountingIterator extends WrappingIterator {
         ioWaitSW.stop();
         consumeSW.stop();
         
+        if (sourceYield != null && sourceYield.hasYielded()) {
+            yieldPosition = sourceYield.getPositionAndReset();
+            // the yield position has to follow the key of the count which is returned first
+            if (this.count > 0 && yieldPosition.compareTo(this.currentTopKey) <= 0) {
+                yieldPosition = this.currentTopKey.followingKey(PartialKey.ROW_COLFAM_COLQUAL_COLVIS_TIME);
+            }
+            if (this.count == 0) {
+                yieldAt(yieldPosition);
+            }
+        }
+        
         if (log.isDebugEnabled()) {
             log.debug(threadName + ": Returning a count of " + this.count);
         }
@@ -179,6 +232,19 @@ public class ResultCountingIterator extends WrappingIterator {
         }
     }
     
+    private void yieldAt(Key position) {
+        if (log.isDebugEnabled()) {
+            log.debug(threadName + ": Yielding at " + position);
+        }
+        yield.yield(position);
+        yieldPosition = null;
+    }
+    
+    private static boolean isCounted(Key key) {
+        ByteSequence cq = key.getColumnQualifierData();
+        return cq.length() == COUNTED_COLUMN_QUALIFIER.length() && cq.toString().equals(COUNTED_COLUMN_QUALIFIER);
+    }
+    
     @Override
     public Key getTopKey() {
         return currentTopKey; // This is the unchanged key that our source iterator returned.
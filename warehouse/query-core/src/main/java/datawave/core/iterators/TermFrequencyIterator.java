@@ -58,7 +58,6 @@ public class TermFrequencyIterator extends WrappingIterator {
     protected TreeSet<String> uids;
     protected TreeSet<String> values;
     protected TreeSet<String> fields;
-    protected TreeSet<String> uidsAndValues;
     
     // Wrapping iterator only accesses its private source in setSource and getSource
     // Since this class overrides these methods, it's safest to keep the source declaration here
@@ -74,7 +73,6 @@ public class TermFrequencyIterator extends WrappingIterator {
         this.uids = buildUidsFromKeys(keys);
         this.fields = new TreeSet<>(fieldValues.keySet());
         this.values = new TreeSet<>(fieldValues.values());
-        this.uidsAndValues = buildUidAndValuesInner(uids, values);
         
         if (this.keys == null) {
             throw new IllegalStateException("Keys must be set on TermFrequencyIterator, they were null.");
@@ -88,7 +86,6 @@ public class TermFrequencyIterator extends WrappingIterator {
         this.uids = other.uids;
         this.fields = other.fields;
         this.values = other.values;
-        this.uidsAndValues = other.uidsAndValues;
     }
     
     // -------------------------------------------------------------------------
@@ -214,9 +211,8 @@ public class TermFrequencyIterator extends WrappingIterator {
     }
     
     private boolean fieldValueAccepted(String[] cqParts, String value) {
-        String uid = cqParts[1];
-        String uidAndValue = uid + '\u0000' + value;
-        return uidsAndValues.contains(uidAndValue) && fields.contains(cqParts[cqParts.length - 1]);
+        // the uid is already known to match
+        return values.contains(value) && fields.contains(cqParts[cqParts.length - 1]);
     }
     
     private boolean uidMatches(String[] parts) {
@@ -290,7 +286,8 @@ public class TermFrequencyIterator extends WrappingIterator {
     }
     
     /**
-     * Get the next seek range based on the provided set of keys and the current key
+     * Get the next seek range based on the provided set of keys and the current key. The uid and value pairs searched are every uid paired with every value,
+     * and as a uid never contains a null byte they sort by uid and then value, so the next pair is found from the two sets without building their product.
      *
      * @param k
      *            the current key
@@ -298,8 +295,7 @@ public class TermFrequencyIterator extends WrappingIterator {
      */
     public Range getNextSeekRange(Key k) {
         DatawaveKey tfKey = new DatawaveKey(k);
-        String uidAndValue = tfKey.getUid() + '\u0000' + tfKey.getFieldValue();
-        String next = uidsAndValues.higher(uidAndValue);
+        String next = getNextUidAndValue(tfKey.getUid(), tfKey.getFieldValue());
         if (next == null) {
             // Done, return an empty range.
             Key startKey = initialSeekRange.getEndKey();
@@ -313,12 +309,43 @@ public class TermFrequencyIterator extends WrappingIterator {
         }
     }
     
+    /**
+     * Get the first uid and value pair searched which follows a uid and value
+     *
+     * @param uid
+     *            the uid
+     * @param value
+     *            the value
+     * @return the uid and value separated by a null byte, or null if there is no following pair
+     */
+    protected String getNextUidAndValue(String uid, String value) {
+        if (values.isEmpty()) {
+            return null;
+        }
+        if (uids.contains(uid)) {
+            String nextValue = values.higher(value);
+            if (nextValue != null) {
+                return uid + '\u0000' + nextValue;
+            }
+        }
+        String nextUid = uids.higher(uid);
+        return nextUid == null ? null : nextUid + '\u0000' + values.first();
+    }
+    
     public TreeSet<Key> getKeys() {
         return this.keys;
     }
     
+    /**
+     * Set the document keys to search, so the field values and their derived search structures can be reused across documents. Only the uids of the keys
+     * are rebuilt.
+     *
+     * @param keys
+     *            the document keys
+     */
     public void setKeys(Set<Key> keys) {
         this.keys = new TreeSet<>(keys);
+        this.uids = buildUidsFromKeys(keys);
     }
     
     public TreeSet<String> buildUidsFromKeys(Collection<Key> keys) {
@@ -329,14 +356,4 @@ public class TermFrequencyIterator extends WrappingIterator {
         }
         return uids;
     }
-    
-    public TreeSet<String> buildUidAndValuesInner(TreeSet<String> uids, TreeSet<String> values) {
-        TreeSet<String> uidsAndValues = new TreeSet<>();
-        for (String uid : uids) {
-            for (String value : values) {
-                uidsAndValues.add(uid + '\u0000' + value);
-            }
-        }
-        return uidsAndValues;
-    }
 }
@@ -1,14 +1,19 @@
 package datawave.core.iterators.filter;
 
 import java.io.IOException;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Set;
 import java.util.regex.Pattern;
 
 import com.google.protobuf.InvalidProtocolBufferException;
+import datawave.core.iterators.RegexAutomaton;
 import datawave.ingest.protobuf.Uid;
+import datawave.ingest.protobuf.UidListCodec;
+import org.apache.accumulo.core.data.ByteSequence;
 import org.apache.accumulo.core.data.Key;
 import org.apache.accumulo.core.data.Value;
 import org.apache.accumulo.core.iterators.Filter;
@@ -30,6 +35,10 @@ public class GlobalIndexTermMatchingFilter extends Filter {
     private Set<String> literals = new HashSet<>();
     private boolean reverseIndex = false;
     private String matchedValue = null;
+    // all of the patterns and literals compiled into one automaton over the row bytes, or null if any pattern could not be
+    private RegexAutomaton automaton = null;
+    // an automaton per literal and pattern, in the order they are tried, used to find the matched value once the combined automaton accepts a row
+    private Map<String,RegexAutomaton> termAutomata = new LinkedHashMap<>();
     
     @Override
     public void init(SortedKeyValueIterator<Key,Value> source, Map<String,String> options, IteratorEnvironment env) throws IOException {
@@ -55,19 +64,54 @@ public class GlobalIndexTermMatchingFilter extends Filter {
         if (options.containsKey(REVERSE_INDEX)) {
             reverseIndex = Boolean.parseBoolean(options.get(REVERSE_INDEX));
         }
+        automaton = RegexAutomaton.union(patterns.keySet(), literals, reverseIndex);
+        if (automaton != null && patterns.size() + literals.size() > 1) {
+            for (String literal : literals) {
+                termAutomata.put(literal, RegexAutomaton.union(Collections.<String> emptyList(), Collections.singletonList(literal), reverseIndex));
+            }
+            for (String pattern : patterns.keySet()) {
+                termAutomata.put(pattern, RegexAutomaton.compile(pattern, reverseIndex));
+            }
+        }
         if (log.isDebugEnabled()) {
             log.debug("Set the literals to " + literals);
             log.debug("Set the patterns to " + patterns);
             log.debug("Set the reverseIndex flag to " + reverseIndex);
+            log.debug("Matching with " + (automaton == null ? "patterns" : "an automaton"));
         }
     }
     
     @Override
     public boolean accept(Key k, Value v) {
-        // The row is the term
+        // The row is the term. The automaton matches exactly what the patterns do, so the row never needs to be decoded when there is one
+        if (automaton != null) {
+            ByteSequence row = k.getRowData();
+            matchedValue = null;
+            if (!automaton.matches(row.getBackingArray(), row.offset(), row.length())) {
+                return false;
+            }
+            if (termAutomata.isEmpty()) {
+                matchedValue = (literals.isEmpty() ? patterns.keySet().iterator().next() : literals.iterator().next());
+                return true;
+            }
+            for (Map.Entry<String,RegexAutomaton> term : termAutomata.entrySet()) {
+                if (term.getValue().matches(row.getBackingArray(), row.offset(), row.length())) {
+                    matchedValue = term.getKey();
+                    return true;
+                }
+            }
+            return false;
+        }
         return matches(k.getRow().toString());
     }
     
+    /**
+     * @return the automaton matching the (possibly reversed) rows accepted by this filter, or null if the patterns could not all be compiled into one
+     */
+    protected RegexAutomaton getAutomaton() {
+        return automaton;
+    }
+    
     /**
      * Determine if we have events. For this to be true
      * 
@@ -76,7 +120,7 @@ public class GlobalIndexTermMatchingFilter extends Filter {
      */
     private boolean hasEvents(final Value v) {
         try {
-            Uid.List protobuf = Uid.List.parseFrom(v.get());
+            Uid.List protobuf = UidListCodec.decode(v.get());
             
             // the protobuf list should be aggregated already
             return protobuf.getIGNORE() || !protobuf.getUIDList().isEmpty();
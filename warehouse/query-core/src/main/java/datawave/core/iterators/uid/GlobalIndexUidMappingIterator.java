@@ -1,6 +1,7 @@
 package datawave.core.iterators.uid;
 
 import datawave.ingest.protobuf.Uid;
+import datawave.ingest.protobuf.UidListCodec;
 
 import org.apache.accumulo.core.data.Key;
 import org.apache.accumulo.core.data.KeyValue;
@@ -37,7 +38,8 @@ public class GlobalIndexUidMappingIterator extends UidMappingIterator {
     protected KeyValue mapUid(KeyValue keyValue, boolean startKey, boolean startKeyInclusive, boolean endKey, boolean endKeyInclusive) {
         if (keyValue != null && keyValue.getValue() != null && keyValue.getValue().getSize() > 0) {
             try {
-                Uid.List.Builder uidList = Uid.List.parseFrom(keyValue.getValue().get()).toBuilder();
+                byte[] bytes = keyValue.getValue().get();
+                Uid.List.Builder uidList = UidListCodec.decode(bytes).toBuilder();
                 boolean changed = false;
                 for (int i = 0; i < uidList.getUIDList().size(); i++) {
                     String uid = uidList.getUID(i);
@@ -57,7 +59,7 @@ public class GlobalIndexUidMappingIterator extends UidMappingIterator {
                     }
                 }
                 if (changed) {
-                    keyValue = new KeyValue(keyValue.getKey(), uidList.build().toByteArray());
+                    keyValue = new KeyValue(keyValue.getKey(), UidListCodec.encode(uidList.build(), UidListCodec.getFormat(bytes)));
                 }
             } catch (InvalidProtocolBufferException e) {
                 // return the value as is
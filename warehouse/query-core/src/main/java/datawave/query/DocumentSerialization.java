@@ -5,6 +5,7 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.text.MessageFormat;
+import java.util.Arrays;
 import java.util.zip.Deflater;
 import java.util.zip.DeflaterOutputStream;
 import java.util.zip.Inflater;
@@ -24,6 +25,7 @@ import datawave.webservice.query.exception.BadRequestQueryException;
 import datawave.webservice.query.exception.DatawaveErrorCode;
 import datawave.webservice.query.exception.NotFoundQueryException;
 import datawave.webservice.query.exception.QueryException;
+import org.xerial.snappy.Snappy;
 
 /**
  *
@@ -40,9 +42,33 @@ public class DocumentSerialization {
     
     public static final byte NONE = 0;
     public static final byte GZIP = 1;
+    public static final byte SNAPPY = 2;
     
     public static final int ZLIB_NUMBER = 2;
     
+    // the length of the header preceding the serialized document
+    public static final int HEADER_LENGTH = 3;
+    
+    /**
+     * Get the compression for the name of a codec
+     *
+     * @param codec
+     *            none, gzip or snappy, ignoring case
+     * @return the compression
+     */
+    public static byte getCompression(String codec) {
+        switch (codec.trim().toLowerCase()) {
+            case "none":
+                return NONE;
+            case "gzip":
+                return GZIP;
+            case "snappy":
+                return SNAPPY;
+            default:
+                throw new IllegalArgumentException("Unknown compression codec: " + codec);
+        }
+    }
+    
     /**
      * If a user-supplied ReturnType is specified, use it; otherwise, use the default ReturnType of {@link #DEFAULT_RETURN_TYPE}
      *
@@ -100,21 +126,37 @@ public class DocumentSerialization {
     }
     
     public static byte[] writeBody(byte[] data, int compression) throws InvalidDocumentHeader {
+        return writeBody(data, 0, data.length, compression);
+    }
+    
+    public static byte[] writeBody(byte[] data, int offset, int length, int compression) throws InvalidDocumentHeader {
         if (NONE == compression) {
-            return data;
+            if (offset == 0 && length == data.length) {
+                return data;
+            }
+            return Arrays.copyOfRange(data, offset, offset + length);
         } else if (GZIP == compression) {
-            ByteArrayOutputStream bytes = new ByteArrayOutputStream(data.length);
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(length);
             
             try {
                 Deflater deflater = new Deflater(ZLIB_NUMBER);
                 DeflaterOutputStream deflate = new DeflaterOutputStream(bytes, deflater, 1024);
-                deflate.write(data);
+                deflate.write(data, offset, length);
                 deflate.close();
                 return bytes.toByteArray();
             } catch (IOException e) {
                 QueryException qe = new QueryException(DatawaveErrorCode.GZIP_STREAM_WRITE_ERROR, e);
                 throw new InvalidDocumentHeader(qe);
             }
+        } else if (SNAPPY == compression) {
+            try {
+                byte[] compressed = new byte[Snappy.maxCompressedLength(length)];
+                int compressedLength = Snappy.compress(data, offset, length, compressed, 0);
+                return Arrays.copyOf(compressed, compressedLength);
+            } catch (IOException e) {
+                QueryException qe = new QueryException(DatawaveErrorCode.DATA_INVALID_ERROR, e);
+                throw new InvalidDocumentHeader(qe);
+            }
         } else {
             BadRequestQueryException qe = new BadRequestQueryException(DatawaveErrorCode.UNKNOWN_COMPRESSION_SCHEME, MessageFormat.format("{0}", compression));
             throw new InvalidDocumentHeader(qe);
@@ -122,13 +164,38 @@ public class DocumentSerialization {
     }
     
     public static InputStream consumeHeader(byte[] data) throws InvalidDocumentHeader {
-        if (null == data || 3 > data.length) {
+        int compression = readHeader(data);
+        
+        if (NONE == compression) {
+            return new ByteArrayInputStream(data, HEADER_LENGTH, data.length - HEADER_LENGTH);
+        } else if (GZIP == compression) {
+            ByteArrayInputStream bytes = new ByteArrayInputStream(data, HEADER_LENGTH, data.length - HEADER_LENGTH);
+            return new InflaterInputStream(bytes, new Inflater(), 1024);
+        } else if (SNAPPY == compression) {
+            return new ByteArrayInputStream(uncompressSnappy(data));
+        } else {
+            BadRequestQueryException qe = new BadRequestQueryException(DatawaveErrorCode.UNKNOWN_COMPRESSION_SCHEME, MessageFormat.format("{0}", compression));
+            throw new InvalidDocumentHeader(qe);
+        }
+    }
+    
+    /**
+     * Validate the header of a serialized document
+     *
+     * @param data
+     *            the serialized document, including the header
+     * @return the compression of the body, which follows the first {@link #HEADER_LENGTH} bytes
+     * @throws InvalidDocumentHeader
+     *             if the header is missing or invalid
+     */
+    public static int readHeader(byte[] data) throws InvalidDocumentHeader {
+        if (null == data || HEADER_LENGTH > data.length) {
             QueryException qe = new QueryException(DatawaveErrorCode.DATA_INVALID_ERROR, MessageFormat.format("Length: {0}",
                             (null != data ? data.length : null)));
             throw new InvalidDocumentHeader(qe);
         }
         
-        ByteArrayInputStream bais = new ByteArrayInputStream(data);
+        ByteArrayInputStream bais = new ByteArrayInputStream(data, 0, HEADER_LENGTH);
         int magic = readUShort(bais);
         
         if (DOC_MAGIC != magic) {
@@ -136,15 +203,25 @@ public class DocumentSerialization {
             throw new InvalidDocumentHeader(qe);
         }
         
-        int compression = readUByte(bais);
-        
-        if (NONE == compression) {
-            return new ByteArrayInputStream(data, 3, data.length - 3);
-        } else if (GZIP == compression) {
-            ByteArrayInputStream bytes = new ByteArrayInputStream(data, 3, data.length - 3);
-            return new InflaterInputStream(bytes, new Inflater(), 1024);
-        } else {
-            BadRequestQueryException qe = new BadRequestQueryException(DatawaveErrorCode.UNKNOWN_COMPRESSION_SCHEME, MessageFormat.format("{0}", compression));
+        return readUByte(bais);
+    }
+    
+    /**
+     * Uncompress the snappy compressed body of a serialized document
+     *
+     * @param data
+     *            the serialized document, including the header
+     * @return the uncompressed body
+     * @throws InvalidDocumentHeader
+     *             if the body could not be uncompressed
+     */
+    public static byte[] uncompressSnappy(byte[] data) throws InvalidDocumentHeader {
+        try {
+            byte[] body = new byte[Snappy.uncompressedLength(data, HEADER_LENGTH, data.length - HEADER_LENGTH)];
+            Snappy.uncompress(data, HEADER_LENGTH, data.length - HEADER_LENGTH, body, 0);
+            return body;
+        } catch (IOException e) {
+            QueryException qe = new QueryException(DatawaveErrorCode.BUFFER_READ_ERROR, e);
             throw new InvalidDocumentHeader(qe);
         }
     }
@@ -1,5 +1,8 @@
 package datawave.query.attributes;
 
+import datawave.query.iterator.profile.QueryNodeProfile;
+
+import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.Map;
 
@@ -12,7 +15,9 @@ public class TimingMetadata extends Metadata {
     private static final String SOURCE_COUNT = "SOURCE_COUNT";
     private static final String SEEK_COUNT = "SEEK_COUNT";
     private static final String YIELD_COUNT = "YIELD_COUNT";
+    private static final String REORDER_COUNT = "REORDER_COUNT";
     private static final String STAGE_TIMERS = "STAGE_TIMERS";
+    private static final String NODE_PROFILES = "NODE_PROFILES";
     private static final String HOST = "HOST";
     
     public long getNextCount() {
@@ -68,6 +73,19 @@ public class TimingMetadata extends Metadata {
         put(YIELD_COUNT, new Numeric(yieldCount, this.getMetadata(), this.isToKeep()));
     }
     
+    public long getReorderCount() {
+        Numeric numericValue = (Numeric) get(REORDER_COUNT);
+        if (numericValue != null) {
+            return ((Number) numericValue.getData()).longValue();
+        } else {
+            return 0L;
+        }
+    }
+    
+    public void setReorderCount(long reorderCount) {
+        put(REORDER_COUNT, new Numeric(reorderCount, this.getMetadata(), this.isToKeep()));
+    }
+    
     public void addStageTimer(String stageName, Numeric elapsed) {
         Metadata stageTimers = (Metadata) get(STAGE_TIMERS);
         if (stageTimers == null) {
@@ -93,6 +111,42 @@ public class TimingMetadata extends Metadata {
         return stageTimers;
     }
     
+    /**
+     * Add the evaluation profile of a query node. The node strings are not usable as attribute names, so each profile is stored as a single value of the form
+     * invocations,trueCount,nanos,node
+     *
+     * @param node
+     *            the query string of the node
+     * @param nodeProfile
+     *            the evaluation profile
+     */
+    public void addNodeProfile(String node, QueryNodeProfile nodeProfile) {
+        String value = nodeProfile.getInvocations() + "," + nodeProfile.getTrueCount() + "," + nodeProfile.getNanos() + "," + node;
+        put(NODE_PROFILES, new Content(value, this.getMetadata(), this.isToKeep()));
+    }
+    
+    public Map<String,QueryNodeProfile> getNodeProfiles() {
+        Map<String,QueryNodeProfile> nodeProfiles = new LinkedHashMap<>();
+        Attribute<?> nodeProfilesAttribute = get(NODE_PROFILES);
+        Iterable<? extends Attribute<?>> values;
+        if (nodeProfilesAttribute instanceof Attributes) {
+            values = ((Attributes) nodeProfilesAttribute).getAttributes();
+        } else if (nodeProfilesAttribute != null) {
+            values = Collections.singleton(nodeProfilesAttribute);
+        } else {
+            values = Collections.emptySet();
+        }
+        for (Attribute<?> value : values) {
+            if (value instanceof Content) {
+                String[] parts = ((Content) value).getContent().split(",", 4);
+                if (parts.length == 4) {
+                    nodeProfiles.put(parts[3], new QueryNodeProfile(Long.parseLong(parts[0]), Long.parseLong(parts[1]), Long.parseLong(parts[2])));
+                }
+            }
+        }
+        return nodeProfiles;
+    }
+    
     public String getHost() {
         Attribute hostAttribute = get(HOST);
         if (hostAttribute instanceof Content) {
@@ -86,6 +86,15 @@ public class ShardQueryConfiguration extends GenericQueryConfiguration implement
     private boolean enforceUniqueTermsWithinExpressions = false;
     private boolean sequentialScheduler = false;
     private boolean collectTimingDetails = false;
+    private boolean collectEvaluationProfile = false;
+    // Should the shards return a single count of the matching documents when the field index satisfies the query
+    private boolean countFromFieldIndex = false;
+    // Use the array based leapfrog AND and heap based OR iterators where no terms require context
+    private boolean leapfrogNestedIterators = false;
+    // Fetch the documents for evaluation in a forward pass over the shard
+    private boolean sequentialDocumentFetch = false;
+    // Order the AND children and evaluation by their observed selectivity
+    private boolean adaptiveOrdering = false;
     private boolean logTimingDetails = false;
     private boolean sendTimingToStatsd = true;
     private String statsdHost = "localhost";
@@ -288,6 +297,8 @@ public class ShardQueryConfiguration extends GenericQueryConfiguration implement
     private int maxOrRangeIvarators = 10;
     private int maxRangesPerRangeIvarator = 5;
     private int maxOrExpansionFstThreshold = 750;
+    // the number of equality terms against a field within a union at which they are looked up in the global index with a single batch scan
+    private int termBatchLookupThreshold = 0;
     private long yieldThresholdMs = Long.MAX_VALUE;
     private String hdfsSiteConfigURLs = null;
     private String hdfsFileCompressionCodec = null;
@@ -317,6 +328,8 @@ public class ShardQueryConfiguration extends GenericQueryConfiguration implement
     private boolean shouldLimitTermExpansionToModel = false;
     private Query query = null;
     private boolean compressServerSideResults = false;
+    // the codec with which server side results are compressed: gzip or snappy
+    private String serverSideResultsCodec = "gzip";
     private boolean indexOnlyFilterFunctionsEnabled = false;
     private boolean compositeFilterFunctionsEnabled = false;
     
@@ -366,6 +379,11 @@ public class ShardQueryConfiguration extends GenericQueryConfiguration implement
         this.setParseTldUids(other.getParseTldUids());
         this.setSequentialScheduler(other.getSequentialScheduler());
         this.setCollectTimingDetails(other.getCollectTimingDetails());
+        this.setCollectEvaluationProfile(other.getCollectEvaluationProfile());
+        this.setCountFromFieldIndex(other.getCountFromFieldIndex());
+        this.setLeapfrogNestedIterators(other.getLeapfrogNestedIterators());
+        this.setSequentialDocumentFetch(other.getSequentialDocumentFetch());
+        this.setAdaptiveOrdering(other.getAdaptiveOrdering());
         this.setLogTimingDetails(other.getLogTimingDetails());
         this.setSendTimingToStatsd(other.getSendTimingToStatsd());
         this.setStatsdHost(other.getStatsdHost());
@@ -471,6 +489,7 @@ public class ShardQueryConfiguration extends GenericQueryConfiguration implement
         this.setMaxOrRangeIvarators(other.getMaxOrRangeIvarators());
         this.setMaxRangesPerRangeIvarator(other.getMaxRangesPerRangeIvarator());
         this.setMaxOrExpansionFstThreshold(other.getMaxOrExpansionFstThreshold());
+        this.setTermBatchLookupThreshold(other.getTermBatchLookupThreshold());
         this.setYieldThresholdMs(other.getYieldThresholdMs());
         this.setHdfsSiteConfigURLs(other.getHdfsSiteConfigURLs());
         this.setHdfsFileCompressionCodec(other.getHdfsFileCompressionCodec());
@@ -496,6 +515,7 @@ public class ShardQueryConfiguration extends GenericQueryConfiguration implement
         this.setLimitTermExpansionToModel(other.isExpansionLimitedToModelContents());
         this.setQuery(null == other.getQuery() ? null : other.getQuery().duplicate(other.getQuery().getQueryName()));
         this.setCompressServerSideResults(other.isCompressServerSideResults());
+        this.setServerSideResultsCodec(other.getServerSideResultsCodec());
         this.setIndexOnlyFilterFunctionsEnabled(other.isIndexOnlyFilterFunctionsEnabled());
         this.setCompositeFilterFunctionsEnabled(other.isCompositeFilterFunctionsEnabled());
         this.setGroupFieldsBatchSize(other.getGroupFieldsBatchSize());
@@ -1120,6 +1140,21 @@ public class ShardQueryConfiguration extends GenericQueryConfiguration implement
         this.maxOrExpansionThreshold = maxOrExpansionThreshold;
     }
     
+    public int getTermBatchLookupThreshold() {
+        return termBatchLookupThreshold;
+    }
+    
+    /**
+     * Set the number of equality terms against the same field within a union at which they are looked up in the global index together, with a single batch
+     * scan, rather than with a scanner per term. A zero or negative value disables the batched lookup.
+     *
+     * @param termBatchLookupThreshold
+     *            the number of terms
+     */
+    public void setTermBatchLookupThreshold(int termBatchLookupThreshold) {
+        this.termBatchLookupThreshold = termBatchLookupThreshold;
+    }
+    
     public int getMaxOrRangeThreshold() {
         return maxOrRangeThreshold;
     }
@@ -1762,6 +1797,14 @@ public class ShardQueryConfiguration extends GenericQueryConfiguration implement
         this.compressServerSideResults = compressServerSideResults;
     }
     
+    public String getServerSideResultsCodec() {
+        return serverSideResultsCodec;
+    }
+    
+    public void setServerSideResultsCodec(String serverSideResultsCodec) {
+        this.serverSideResultsCodec = serverSideResultsCodec;
+    }
+    
     /**
      * Returns a value indicating whether index-only filter functions (e.g., #INCLUDE, #EXCLUDE) should be enabled. If true, the use of such filters can
      * potentially consume a LOT of memory.
@@ -1913,6 +1956,46 @@ public class ShardQueryConfiguration extends GenericQueryConfiguration implement
         
     }
     
+    public boolean getCollectEvaluationProfile() {
+        return collectEvaluationProfile;
+    }
+    
+    public void setCollectEvaluationProfile(boolean collectEvaluationProfile) {
+        this.collectEvaluationProfile = collectEvaluationProfile;
+    }
+    
+    public boolean getCountFromFieldIndex() {
+        return countFromFieldIndex;
+    }
+    
+    public void setCountFromFieldIndex(boolean countFromFieldIndex) {
+        this.countFromFieldIndex = countFromFieldIndex;
+    }
+    
+    public boolean getLeapfrogNestedIterators() {
+        return leapfrogNestedIterators;
+    }
+    
+    public void setLeapfrogNestedIterators(boolean leapfrogNestedIterators) {
+        this.leapfrogNestedIterators = leapfrogNestedIterators;
+    }
+    
+    public boolean getSequentialDocumentFetch() {
+        return sequentialDocumentFetch;
+    }
+    
+    public void setSequentialDocumentFetch(boolean sequentialDocumentFetch) {
+        this.sequentialDocumentFetch = sequentialDocumentFetch;
+    }
+    
+    public boolean getAdaptiveOrdering() {
+        return adaptiveOrdering;
+    }
+    
+    public void setAdaptiveOrdering(boolean adaptiveOrdering) {
+        this.adaptiveOrdering = adaptiveOrdering;
+    }
+    
     public boolean getLogTimingDetails() {
         return logTimingDetails;
     }
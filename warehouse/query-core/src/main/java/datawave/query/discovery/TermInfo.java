@@ -1,6 +1,7 @@
 package datawave.query.discovery;
 
 import datawave.ingest.protobuf.Uid;
+import datawave.ingest.protobuf.UidListCodec;
 
 import datawave.query.Constants;
 import org.apache.accumulo.core.data.Key;
@@ -51,7 +52,7 @@ public class TermInfo {
             // Parse the UID.List object from the value
             Uid.List uidList = null;
             try {
-                uidList = Uid.List.parseFrom(value.get());
+                uidList = UidListCodec.decode(value.get());
                 if (null != uidList) {
                     count = uidList.getCOUNT();
                     setListSize(uidList.getUIDList().size());
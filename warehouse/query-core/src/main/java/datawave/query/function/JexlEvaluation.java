@@ -2,6 +2,8 @@ package datawave.query.function;
 
 import datawave.query.attributes.Attributes;
 import datawave.query.jexl.ArithmeticJexlEngines;
+import datawave.query.iterator.profile.QuerySpan;
+import datawave.query.jexl.PreparedJexlScript;
 import datawave.query.jexl.DefaultArithmetic;
 import org.apache.accumulo.core.data.Key;
 import org.apache.accumulo.core.security.ColumnVisibility;
@@ -27,10 +29,30 @@ public class JexlEvaluation implements Predicate<Tuple3<Key,Document,DatawaveJex
     private DatawaveJexlEngine engine;
     
     /**
-     * Compiled jexl script
+     * Prepared jexl script
      */
     protected Script script;
     
+    /**
+     * The tree of the script with its per node evaluation state precomputed
+     */
+    private PreparedJexlScript preparedScript;
+    
+    /**
+     * The span to record the evaluation profile of the query and the reorderings of its AND nodes into, may be null
+     */
+    private QuerySpan querySpan;
+    
+    /**
+     * Whether to record the evaluation profile of the query into the span
+     */
+    private boolean profile = false;
+    
+    /**
+     * The number of AND node reorderings already recorded into the span
+     */
+    private long reportedReorderCount = 0;
+    
     public JexlEvaluation(String query) {
         this(query, new DefaultArithmetic());
     }
@@ -42,8 +64,10 @@ public class JexlEvaluation implements Predicate<Tuple3<Key,Document,DatawaveJex
         // Get a JexlEngine initialized with the correct JexlArithmetic for this Document
         this.engine = ArithmeticJexlEngines.getEngine(arithmetic);
         
-        // Evaluate the JexlContext against the Script
-        this.script = this.engine.createScript(query);
+        // Parse the query once, for both the script and its prepared form
+        ASTJexlScript tree = this.engine.parse(query);
+        this.script = this.engine.createScript(tree, query);
+        this.preparedScript = new PreparedJexlScript(tree);
     }
     
     public JexlArithmetic getArithmetic() {
@@ -54,6 +78,37 @@ public class JexlEvaluation implements Predicate<Tuple3<Key,Document,DatawaveJex
         return engine;
     }
     
+    public QuerySpan getQuerySpan() {
+        return querySpan;
+    }
+    
+    public void setQuerySpan(QuerySpan querySpan) {
+        this.querySpan = querySpan;
+    }
+    
+    public boolean isProfile() {
+        return profile;
+    }
+    
+    public void setProfile(boolean profile) {
+        this.profile = profile;
+    }
+    
+    public boolean isAdaptiveOrdering() {
+        return preparedScript.isAdaptive();
+    }
+    
+    /**
+     * Evaluate the children of each AND node in the order that rejects documents most cheaply, as observed over the documents evaluated so far. This is ignored
+     * when evaluating with a {@link HitListArithmetic}, as the order of evaluation affects which terms are recorded as hits.
+     *
+     * @param adaptiveOrdering
+     *            whether to reorder the AND nodes
+     */
+    public void setAdaptiveOrdering(boolean adaptiveOrdering) {
+        preparedScript.setAdaptive(adaptiveOrdering && !(arithmetic instanceof HitListArithmetic));
+    }
+    
     public ASTJexlScript parse(CharSequence expression) {
         return engine.parse(expression);
     }
@@ -65,7 +120,20 @@ public class JexlEvaluation implements Predicate<Tuple3<Key,Document,DatawaveJex
     @Override
     public boolean apply(Tuple3<Key,Document,DatawaveJexlContext> input) {
         
-        Object o = script.execute(input.third());
+        Object o;
+        if (profile && querySpan != null) {
+            o = engine.execute(preparedScript, input.third(), querySpan);
+        } else {
+            o = engine.execute(preparedScript, input.third());
+        }
+        
+        if (querySpan != null && preparedScript.isAdaptive()) {
+            long reorderCount = preparedScript.getReorderCount();
+            if (reorderCount > reportedReorderCount) {
+                querySpan.reorder(reorderCount - reportedReorderCount);
+                reportedReorderCount = reorderCount;
+            }
+        }
         
         if (log.isTraceEnabled()) {
             log.trace("Evaluation of " + query + " against " + input.third() + " returned " + o);
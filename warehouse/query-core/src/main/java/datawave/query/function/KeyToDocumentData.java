@@ -54,6 +54,11 @@ public class KeyToDocumentData implements Function<Entry<Key,Document>,Entry<Doc
     protected static final Collection<ByteSequence> columnFamilies = Lists.<ByteSequence> newArrayList(new ArrayByteSequence("tf"), new ArrayByteSequence("d"));
     protected static final boolean inclusive = false;
     
+    /**
+     * When fetching sequentially, the number of keys to step over with next() to reach the following document before giving up and seeking to it instead
+     */
+    protected static final int NEXT_THRESHOLD = 10;
+    
     private final DescendantCountFunction countFunction;
     
     protected Equality equality;
@@ -62,6 +67,13 @@ public class KeyToDocumentData implements Function<Entry<Key,Document>,Entry<Doc
     
     private boolean includeParent = false;
     
+    // whether the source is left positioned after each document so that the following document can be reached with next() calls
+    private boolean sequentialFetch = false;
+    // the range of the last sequential seek, or null if the source has since been repositioned by something else
+    private Range fetchRange = null;
+    // the end of the last document range fetched
+    private Key lastEndKey = null;
+    
     public KeyToDocumentData(SortedKeyValueIterator<Key,Value> source) {
         this(source, new PrefixEquality(PartialKey.ROW_COLFAM), false, false);
     }
@@ -99,6 +111,24 @@ public class KeyToDocumentData implements Function<Entry<Key,Document>,Entry<Doc
         }
     }
     
+    /**
+     * Enable fetching the documents in a single forward pass over the shard. The documents must then be applied in sorted order, as they are when coming
+     * from the field index. Each document is fetched by seeking to the end of its row rather than to the end of the document, which leaves the source
+     * positioned such that a following document close by can be reached by calling next() rather than seeking again.
+     *
+     * @param sequentialFetch
+     *            true to fetch the documents sequentially
+     */
+    public void setSequentialFetch(boolean sequentialFetch) {
+        this.sequentialFetch = sequentialFetch;
+        this.fetchRange = null;
+        this.lastEndKey = null;
+    }
+    
+    public boolean isSequentialFetch() {
+        return sequentialFetch;
+    }
+    
     /**
      * Append hierarchy fields, including parent and descendant counts, based on the specified range and key
      * 
@@ -124,7 +154,7 @@ public class KeyToDocumentData implements Function<Entry<Key,Document>,Entry<Doc
         
         try {
             
-            source.seek(keyRange, columnFamilies, inclusive);
+            seekToDocument(keyRange);
             
             if (log.isDebugEnabled())
                 log.debug(source.hasTop() + " Key range is " + keyRange);
@@ -132,7 +162,7 @@ public class KeyToDocumentData implements Function<Entry<Key,Document>,Entry<Doc
             final List<Entry<Key,Value>> attrs; // Assign only once for
                                                 // efficiency
             final Set<Key> docKeys = new HashSet<>();
-            if (source.hasTop()) {
+            if (source.hasTop() && !keyRange.afterEndKey(source.getTopKey())) {
                 attrs = this.collectDocumentAttributes(from.getKey(), docKeys, keyRange);
                 this.appendHierarchyFields(attrs, keyRange, from.getKey());
             } else {
@@ -148,6 +178,46 @@ public class KeyToDocumentData implements Function<Entry<Key,Document>,Entry<Doc
         
     }
     
+    /**
+     * Position the source at the first key of the document range. When fetching sequentially, the source is advanced with next() if it is already positioned
+     * a short way before the document, and is otherwise seeked to the range from the start of the document to the end of its row.
+     *
+     * @param keyRange
+     *            the range of the document
+     * @throws IOException
+     */
+    protected void seekToDocument(Range keyRange) throws IOException {
+        if (!sequentialFetch || countFunction != null) {
+            // the descendant count function repositions the source, so we always seek
+            source.seek(keyRange, columnFamilies, inclusive);
+            return;
+        }
+        
+        Key endKey = keyRange.getEndKey();
+        if (fetchRange != null && lastEndKey != null && keyRange.getStartKey() != null && endKey != null
+                        && lastEndKey.compareTo(keyRange.getStartKey()) <= 0 && !fetchRange.afterEndKey(endKey)) {
+            // the source has not gone past the end of the previous document, which precedes this one
+            int nexts = 0;
+            while (source.hasTop() && keyRange.beforeStartKey(source.getTopKey()) && nexts < NEXT_THRESHOLD) {
+                source.next();
+                nexts++;
+            }
+            if (!source.hasTop() || !keyRange.beforeStartKey(source.getTopKey())) {
+                lastEndKey = endKey;
+                return;
+            }
+        }
+        
+        if (keyRange.getStartKey() != null && endKey != null) {
+            fetchRange = new Range(keyRange.getStartKey(), keyRange.isStartKeyInclusive(), endKey.followingKey(PartialKey.ROW), false);
+            lastEndKey = endKey;
+            source.seek(fetchRange, columnFamilies, inclusive);
+        } else {
+            fetchRange = null;
+            source.seek(keyRange, columnFamilies, inclusive);
+        }
+    }
+    
     /**
      * Given a Key pointing to the start of an document to aggregate, construct a list of attributes, adding the names of the attributes to the specified set of
      * "docKeys".
@@ -161,7 +231,7 @@ public class KeyToDocumentData implements Function<Entry<Key,Document>,Entry<Doc
      * @return
      */
     public List<Entry<Key,Value>> collectDocumentAttributes(final Key documentStartKey, final Set<Key> docKeys, final Range keyRange) throws IOException {
-        return collectAttributesForDocumentKey(documentStartKey, source, equality, filter, docKeys, keyRange);
+        return collectAttributesForDocumentKey(documentStartKey, docKeys, keyRange);
     }
     
     /**
@@ -174,8 +244,7 @@ public class KeyToDocumentData implements Function<Entry<Key,Document>,Entry<Doc
      *            the Range used to initialize source with seek()
      * @return the attributes
      */
-    private static List<Entry<Key,Value>> collectAttributesForDocumentKey(Key documentStartKey, SortedKeyValueIterator<Key,Value> source, Equality equality,
-                    EventDataQueryFilter filter, Set<Key> docKeys, Range keyRange) throws IOException {
+    private List<Entry<Key,Value>> collectAttributesForDocumentKey(Key documentStartKey, Set<Key> docKeys, Range keyRange) throws IOException {
         
         // setup the document key we are filtering for on the EventDataQueryFilter
         if (filter != null) {
@@ -189,7 +258,8 @@ public class KeyToDocumentData implements Function<Entry<Key,Document>,Entry<Doc
             documentAttributes = new ArrayList<>(256);
             WeakReference<Key> docAttrKey = new WeakReference<>(source.getTopKey());
             
-            while (docAttrKey != null) {
+            // when fetching sequentially the source extends beyond the document range
+            while (docAttrKey != null && !keyRange.afterEndKey(docAttrKey.get())) {
                 boolean seeked = false;
                 if (equality.partOf(documentStartKey, docAttrKey.get())) {
                     if (filter == null || filter.keep(docAttrKey.get())) {
@@ -208,6 +278,8 @@ public class KeyToDocumentData implements Function<Entry<Key,Document>,Entry<Doc
                         if (seekRange != null) {
                             source.seek(seekRange, columnFamilies, inclusive);
                             seeked = true;
+                            // the source is now bounded by the document range
+                            fetchRange = null;
                         }
                     }
                 }
@@ -229,6 +301,42 @@ public class KeyToDocumentData implements Function<Entry<Key,Document>,Entry<Doc
         return documentAttributes;
     }
     
+    /**
+     * Determine whether the document would be given a document key, and with it a record id, by {@link #apply(Entry)}, without collecting its attributes. The
+     * document range is scanned only up to the first key of the document which the scan can see and the filter keeps.
+     *
+     * @param from
+     *            the document key and document
+     * @return true if the document has a key which would be added to its document keys
+     */
+    public boolean hasDocumentKey(Entry<Key,Document> from) {
+        if (null == from || null == from.getKey()) {
+            return false;
+        }
+        Range keyRange = getKeyRange(from);
+        try {
+            source.seek(keyRange, columnFamilies, inclusive);
+            // the source is no longer positioned for a sequential fetch
+            fetchRange = null;
+            
+            if (filter != null) {
+                filter.startNewDocument(from.getKey());
+            }
+            while (source.hasTop() && !keyRange.afterEndKey(source.getTopKey())) {
+                Key key = source.getTopKey();
+                if (equality.partOf(from.getKey(), key) && (filter == null || filter.keep(key))) {
+                    return true;
+                }
+                source.next();
+            }
+            return false;
+        } catch (IOException e) {
+            log.error("Unable to check the document for a document key: " + keyRange, e);
+            QueryException qe = new QueryException(DatawaveErrorCode.DOCUMENT_EVALUATION_ERROR, e);
+            throw new DatawaveFatalQueryException(qe);
+        }
+    }
+    
     // map the key to the dockey (only shard, datatype, uid)
     public static Key getDocKey(Key key) {
         final ByteSequence row = key.getRowData(), cf = key.getColumnFamilyData(), cv = key.getColumnVisibilityData();
@@ -5,6 +5,7 @@ import java.net.UnknownHostException;
 import java.util.Map.Entry;
 
 import datawave.query.attributes.Numeric;
+import datawave.query.iterator.profile.QueryNodeProfile;
 import datawave.query.iterator.profile.QuerySpan;
 import datawave.query.attributes.Document;
 import datawave.query.attributes.TimingMetadata;
@@ -57,6 +58,7 @@ public class LogTiming implements Function<Entry<Key,Document>,Entry<Key,Documen
                 } else {
                     timingMetadata.setYieldCount(0L);
                 }
+                timingMetadata.setReorderCount(querySpan.getReorderCount());
                 
                 long totalStageTimers = querySpan.getStageTimerTotal();
                 // do not report timers that are less than 5% of the total
@@ -66,6 +68,9 @@ public class LogTiming implements Function<Entry<Key,Document>,Entry<Key,Documen
                         timingMetadata.addStageTimer(e.getKey(), new Numeric(e.getValue(), document.getMetadata(), document.isToKeep()));
                     }
                 }
+                for (Entry<String,QueryNodeProfile> e : querySpan.getNodeProfiles().entrySet()) {
+                    timingMetadata.addNodeProfile(e.getKey(), e.getValue());
+                }
                 querySpan.reset();
             }
             document.put(TIMING_METADATA, timingMetadata);
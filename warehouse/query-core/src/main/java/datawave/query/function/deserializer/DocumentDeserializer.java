@@ -1,5 +1,6 @@
 package datawave.query.function.deserializer;
 
+import java.io.ByteArrayInputStream;
 import java.io.InputStream;
 import java.util.Map.Entry;
 
@@ -16,13 +17,38 @@ public abstract class DocumentDeserializer implements Function<Entry<Key,Value>,
     
     @Override
     public Entry<Key,Document> apply(Entry<Key,Value> from) {
-        InputStream is = DocumentSerialization.consumeHeader(from.getValue().get());
+        // the backing array of the value, which is not copied
+        byte[] data = from.getValue().get();
         
-        Document document = deserialize(is);
+        Document document;
+        int compression = DocumentSerialization.readHeader(data);
+        if (DocumentSerialization.NONE == compression) {
+            document = deserialize(data, DocumentSerialization.HEADER_LENGTH, data.length - DocumentSerialization.HEADER_LENGTH);
+        } else if (DocumentSerialization.SNAPPY == compression) {
+            byte[] body = DocumentSerialization.uncompressSnappy(data);
+            document = deserialize(body, 0, body.length);
+        } else {
+            document = deserialize(DocumentSerialization.consumeHeader(data));
+        }
         
         return Maps.immutableEntry(from.getKey(), document);
     }
     
     public abstract Document deserialize(InputStream data);
     
+    /**
+     * Deserialize a document from a region of an array. Deserializers which can read the array directly override this to avoid the stream.
+     *
+     * @param data
+     *            the array
+     * @param offset
+     *            the offset of the serialized document
+     * @param length
+     *            the length of the serialized document
+     * @return the document
+     */
+    public Document deserialize(byte[] data, int offset, int length) {
+        return deserialize(new ByteArrayInputStream(data, offset, length));
+    }
+    
 }
@@ -39,4 +39,17 @@ public class KryoDocumentDeserializer extends DocumentDeserializer implements Se
         return document;
     }
     
+    @Override
+    public Document deserialize(byte[] data, int offset, int length) {
+        // read straight from the array rather than copying it through the buffer of a stream
+        Input input = new Input(data, offset, length);
+        Document document = kryo.readObject(input, Document.class);
+        
+        if (null == document) {
+            throw new RuntimeException("Deserialized null Document");
+        }
+        
+        return document;
+    }
+    
 }
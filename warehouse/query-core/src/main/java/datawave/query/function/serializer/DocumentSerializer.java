@@ -27,8 +27,20 @@ public abstract class DocumentSerializer implements Function<Entry<Key,Document>
     }
     
     public DocumentSerializer(boolean reducedResponse, boolean allowCompression, int minCompressionSize) {
+        this(reducedResponse, allowCompression ? DocumentSerialization.GZIP : DocumentSerialization.NONE, minCompressionSize);
+    }
+    
+    /**
+     * @param reducedResponse
+     *            whether to reduce the response
+     * @param compression
+     *            the {@link DocumentSerialization} compression of documents larger than the minimum compression size
+     * @param minCompressionSize
+     *            the minimum size in bytes of a document to compress
+     */
+    public DocumentSerializer(boolean reducedResponse, int compression, int minCompressionSize) {
         this.reducedResponse = reducedResponse;
-        this.compression = allowCompression ? DocumentSerialization.GZIP : DocumentSerialization.NONE;
+        this.compression = compression;
         this.minCompressionSize = minCompressionSize;
         this.concreteName = this.getClass().getSimpleName();
     }
@@ -48,13 +60,7 @@ public abstract class DocumentSerializer implements Function<Entry<Key,Document>
                 s.getSpan().addKVAnnotation("Serialization type", this.concreteName);
             }
             
-            byte[] bytes = serialize(from.getValue());
-            
-            if (s.getSpan() != null) {
-                s.getSpan().addKVAnnotation("Raw size", Integer.toString(bytes.length));
-            }
-            
-            Value v = getValue(bytes, s);
+            Value v = serializeValue(from.getValue(), s);
             
             return Maps.immutableEntry(from.getKey(), v);
         }
@@ -62,25 +68,55 @@ public abstract class DocumentSerializer implements Function<Entry<Key,Document>
     
     public abstract byte[] serialize(Document d);
     
+    /**
+     * Serialize a document into the value returned for it, with its header. Serializers which write into a reusable buffer override this to build the value
+     * straight from that buffer.
+     *
+     * @param d
+     *            the document
+     * @param span
+     *            the trace span
+     * @return the value
+     */
+    protected Value serializeValue(Document d, TraceScope span) {
+        byte[] bytes = serialize(d);
+        
+        if (span.getSpan() != null) {
+            span.getSpan().addKVAnnotation("Raw size", Integer.toString(bytes.length));
+        }
+        
+        return getValue(bytes, span);
+    }
+    
     protected Value getValue(byte[] document, TraceScope span) {
+        return getValue(document, 0, document.length, span);
+    }
+    
+    protected Value getValue(byte[] document, int offset, int length, TraceScope span) {
         byte[] header;
         byte[] dataToWrite;
+        int dataOffset;
+        int dataLength;
         
         // Only compress the data if it's greater than minCompressionSize in size (bytes)
-        if (DocumentSerialization.NONE != this.compression && document.length > minCompressionSize) {
+        if (DocumentSerialization.NONE != this.compression && length > minCompressionSize) {
             header = DocumentSerialization.getHeader(compression);
-            dataToWrite = DocumentSerialization.writeBody(document, this.compression);
+            dataToWrite = DocumentSerialization.writeBody(document, offset, length, this.compression);
+            dataOffset = 0;
+            dataLength = dataToWrite.length;
             if (span.getSpan() != null) {
                 span.getSpan().addKVAnnotation("Compressed size", Integer.toString(dataToWrite.length));
             }
         } else {
             header = DocumentSerialization.getHeader();
             dataToWrite = document;
+            dataOffset = offset;
+            dataLength = length;
         }
         
-        ByteBuffer buf = ByteBuffer.allocate(header.length + dataToWrite.length);
+        ByteBuffer buf = ByteBuffer.allocate(header.length + dataLength);
         buf.put(header);
-        buf.put(dataToWrite);
+        buf.put(dataToWrite, dataOffset, dataLength);
         
         return new Value(buf.array());
     }
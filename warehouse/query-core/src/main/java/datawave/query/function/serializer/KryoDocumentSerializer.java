@@ -1,11 +1,12 @@
 package datawave.query.function.serializer;
 
-import java.io.ByteArrayOutputStream;
-
+import datawave.query.DocumentSerialization;
 import datawave.query.attributes.Attribute;
 import datawave.query.attributes.Document;
 import datawave.query.function.KryoCVAwareSerializableSerializer;
 
+import org.apache.accumulo.core.data.Value;
+import org.apache.htrace.TraceScope;
 import org.apache.log4j.Logger;
 
 import com.esotericsoftware.kryo.Kryo;
@@ -19,8 +20,15 @@ import com.esotericsoftware.kryo.io.Output;
  */
 public class KryoDocumentSerializer extends DocumentSerializer {
     private static final Logger log = Logger.getLogger(KryoDocumentSerializer.class);
+    
+    // the initial size of the output buffer, and the largest one retained between documents
+    public static final int INITIAL_BUFFER_SIZE = 4096;
+    public static final int MAX_RETAINED_BUFFER_SIZE = 1024 * 1024;
+    
     final Kryo kryo = new Kryo();
-    final ByteArrayOutputStream baos = new ByteArrayOutputStream(4096);
+    
+    // reused across documents so the buffer is only grown, never reallocated, for documents of a similar size
+    final Output output = new Output(INITIAL_BUFFER_SIZE, -1);
     
     public KryoDocumentSerializer() {
         this(false, false);
@@ -35,17 +43,43 @@ public class KryoDocumentSerializer extends DocumentSerializer {
         kryo.addDefaultSerializer(Attribute.class, new KryoCVAwareSerializableSerializer(reducedResponse));
     }
     
+    /**
+     * @param reducedResponse
+     *            whether to reduce the response
+     * @param compression
+     *            the {@link DocumentSerialization} compression of large documents
+     */
+    public KryoDocumentSerializer(boolean reducedResponse, int compression) {
+        super(reducedResponse, compression, DEFAULT_MIN_COMPRESS_SIZE);
+        kryo.addDefaultSerializer(Attribute.class, new KryoCVAwareSerializableSerializer(reducedResponse));
+    }
+    
     @Override
     public byte[] serialize(Document doc) {
-        baos.reset();
-        
-        Output output = new Output(baos);
+        write(doc);
+        return output.toBytes();
+    }
+    
+    @Override
+    protected Value serializeValue(Document doc, TraceScope span) {
+        write(doc);
         
-        kryo.writeObject(output, doc);
+        if (span.getSpan() != null) {
+            span.getSpan().addKVAnnotation("Raw size", Integer.toString(output.position()));
+        }
         
-        output.close();
+        return getValue(output.getBuffer(), 0, output.position(), span);
+    }
+    
+    private void write(Document doc) {
+        // let go of a buffer grown by an unusually large document
+        if (output.getBuffer().length > MAX_RETAINED_BUFFER_SIZE) {
+            output.setBuffer(new byte[INITIAL_BUFFER_SIZE], -1);
+        } else {
+            output.clear();
+        }
         
-        return baos.toByteArray();
+        kryo.writeObject(output, doc);
     }
     
 }
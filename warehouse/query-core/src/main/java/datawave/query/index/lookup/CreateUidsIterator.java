@@ -10,6 +10,7 @@ import java.util.TreeSet;
 import java.util.stream.Collectors;
 
 import datawave.ingest.protobuf.Uid;
+import datawave.ingest.protobuf.UidListCodec;
 import datawave.query.tld.TLD;
 import datawave.query.util.Tuple3;
 import datawave.query.util.Tuples;
@@ -205,7 +206,7 @@ public class CreateUidsIterator implements SortedKeyValueIterator<Key,Value>, Op
     
     public static Tuple3<Long,Boolean,List<String>> parseUids(Key k, Value v) throws IOException {
         final String dataType = parseDataType(k);
-        Uid.List docIds = Uid.List.parseFrom(v.get());
+        Uid.List docIds = UidListCodec.decode(v.get());
         final boolean ignore = docIds.getIGNORE();
         List<String> uids = ignore || docIds.getUIDList() == null ? Collections.emptyList() : Lists.transform(docIds.getUIDList(),
                         s -> dataType + "\u0000" + s.trim());
@@ -2,6 +2,7 @@ package datawave.query.index.lookup;
 
 import com.google.common.base.Function;
 import com.google.common.base.Predicate;
+import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.Iterators;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Multimap;
@@ -45,6 +46,7 @@ import org.apache.accumulo.core.client.BatchScanner;
 import org.apache.accumulo.core.client.IteratorSetting;
 import org.apache.accumulo.core.client.TableNotFoundException;
 import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.PartialKey;
 import org.apache.accumulo.core.data.Range;
 import org.apache.accumulo.core.data.Value;
 import org.apache.accumulo.core.iterators.SortedKeyValueIterator;
@@ -81,11 +83,14 @@ import java.util.Calendar;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -307,8 +312,12 @@ public class RangeStream extends BaseVisitor implements CloseableIterable<QueryP
     public IndexStream visit(ASTOrNode node, Object data) {
         Union.Builder builder = Union.builder();
         List<ConcurrentScannerInitializer> todo = Lists.newArrayList();
+        Map<JexlNode,IndexStream> batchedTerms = lookupTermsInBatches(node);
         for (int i = 0; i < node.jjtGetNumChildren(); i++) {
-            IndexStream child = (IndexStream) node.jjtGetChild(i).jjtAccept(this, builder);
+            IndexStream child = batchedTerms.get(JexlASTHelper.dereference(node.jjtGetChild(i)));
+            if (null == child) {
+                child = (IndexStream) node.jjtGetChild(i).jjtAccept(this, builder);
+            }
             if (null != child) {
                 todo.add(new ConcurrentScannerInitializer(child));
             }
@@ -500,6 +509,103 @@ public class RangeStream extends BaseVisitor implements CloseableIterable<QueryP
         }
     }
     
+    /**
+     * Look up the equality terms of a union in the global index with a single batch scan per field, for each field with at least
+     * {@link ShardQueryConfiguration#getTermBatchLookupThreshold()} indexed terms. This saves a scanner per term for a union of many terms, such as a bulk
+     * lookup of identifiers, where each term tends to hit a few shards at most. The entries of all the terms against a field are buffered, so the streams
+     * returned for the terms are the same as those {@link #visit(ASTEQNode, Object)} would have returned.
+     * <p>
+     * Terms are not batched when the scanners are limited, since each term is then looked up through a {@link RangeStreamScanner}, which collapses the shards
+     * of a day past the shards per day threshold and bounds the entries buffered per term, neither of which a single batch scan of all the terms can do.
+     *
+     * @param node
+     *            the union
+     * @return the streams of the batched terms, keyed by their equality node
+     */
+    protected Map<JexlNode,IndexStream> lookupTermsInBatches(ASTOrNode node) {
+        int threshold = config.getTermBatchLookupThreshold();
+        if (limitScanners || threshold <= 0 || node.jjtGetNumChildren() < threshold) {
+            return Collections.emptyMap();
+        }
+        
+        // group the indexed equality terms by field, and then by literal
+        Map<String,Multimap<String,ASTEQNode>> fieldTerms = new HashMap<>();
+        for (int i = 0; i < node.jjtGetNumChildren(); i++) {
+            JexlNode child = JexlASTHelper.dereference(node.jjtGetChild(i));
+            if (!(child instanceof ASTEQNode) || isUnOrNotFielded(child)) {
+                continue;
+            }
+            IdentifierOpLiteral op = JexlASTHelper.getIdentifierOpLiteral(child);
+            if (op == null || op.getLiteralValue() == null) {
+                continue;
+            }
+            String fieldName = op.deconstructIdentifier();
+            if (QueryOptions.DEFAULT_DATATYPE_FIELDNAME.equals(fieldName) || !isIndexed(fieldName, config.getIndexedFields())) {
+                continue;
+            }
+            fieldTerms.computeIfAbsent(fieldName, k -> ArrayListMultimap.create()).put(op.getLiteralValue().toString(), (ASTEQNode) child);
+        }
+        
+        Map<JexlNode,IndexStream> streams = new HashMap<>();
+        for (Map.Entry<String,Multimap<String,ASTEQNode>> entry : fieldTerms.entrySet()) {
+            if (entry.getValue().size() >= threshold) {
+                streams.putAll(lookupTerms(entry.getKey(), entry.getValue()));
+            }
+        }
+        return streams;
+    }
+    
+    protected Map<JexlNode,IndexStream> lookupTerms(String fieldName, Multimap<String,ASTEQNode> terms) {
+        if (log.isDebugEnabled()) {
+            log.debug("Looking up " + terms.keySet().size() + " terms against \"" + fieldName + "\" with a single batch scan");
+        }
+        
+        List<Range> ranges = new ArrayList<>(terms.keySet().size());
+        for (String literal : terms.keySet()) {
+            ranges.add(rangeForTerm(literal, fieldName, config));
+        }
+        
+        SortedMap<Key,Value> entries = new TreeMap<>();
+        BatchScanner scanner = null;
+        try {
+            int stackStart = config.getBaseIteratorPriority();
+            scanner = scanners.newScanner(config.getIndexTableName(), config.getAuthorizations(), Math.max(config.getNumIndexLookupThreads(), 1),
+                            config.getQuery());
+            scanner.setRanges(ranges);
+            scanner.fetchColumnFamily(new Text(fieldName));
+            scanner.addScanIterator(makeDataTypeFilter(config, stackStart++));
+            
+            final IteratorSetting uidSetting = new IteratorSetting(stackStart++, createUidsIteratorClass);
+            uidSetting.addOption(CreateUidsIterator.COLLAPSE_UIDS, Boolean.valueOf(collapseUids).toString());
+            uidSetting.addOption(CreateUidsIterator.PARSE_TLD_UIDS, Boolean.valueOf(config.getParseTldUids()).toString());
+            scanner.addScanIterator(uidSetting);
+            
+            // the batch scanner returns the entries out of order, so sort them to stream each term by shard
+            for (Map.Entry<Key,Value> entry : scanner) {
+                entries.put(entry.getKey(), entry.getValue());
+            }
+        } catch (Exception e) {
+            log.error(e);
+            throw new RuntimeException(e);
+        } finally {
+            if (scanner != null) {
+                scanners.close(scanner);
+            }
+        }
+        
+        Map<JexlNode,IndexStream> streams = new HashMap<>();
+        for (String literal : terms.keySet()) {
+            Key start = new Key(literal);
+            SortedMap<Key,Value> termEntries = entries.subMap(start, start.followingKey(PartialKey.ROW));
+            for (ASTEQNode term : terms.get(literal)) {
+                Iterator<Tuple2<String,IndexInfo>> itr = Iterators.transform(termEntries.entrySet().iterator(),
+                                new EntryParser(term, fieldName, literal, indexOnlyFields));
+                streams.put(term, ScannerStream.initialized(itr, term));
+            }
+        }
+        return streams;
+    }
+    
     /*
      * Presume that functions have already been expanded with their index query parts @see QueryIndexQueryExpandingVisitor
      */
@@ -0,0 +1,159 @@
+package datawave.query.iterator;
+
+import com.google.common.base.Predicate;
+import com.google.common.collect.Maps;
+import datawave.core.iterators.ResultCountingIterator;
+import datawave.core.iterators.ResultCountingIterator.ResultCountTuple;
+import datawave.marking.MarkingFunctions;
+import datawave.query.attributes.Document;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.PartialKey;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.iterators.YieldCallback;
+import org.apache.accumulo.core.security.ColumnVisibility;
+import org.apache.hadoop.io.Text;
+import org.apache.log4j.Logger;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.io.Output;
+
+import java.io.ByteArrayOutputStream;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map.Entry;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Counts the documents returned by the field index tree of a query which the field index fully satisfies, without fetching or evaluating any of them. A single
+ * entry is returned holding the count and the combined visibility of the matched field index entries, in the form the {@link ResultCountingIterator} produces.
+ * <p>
+ * The key of the entry is the last document counted with the {@link ResultCountingIterator#COUNTED_COLUMN_QUALIFIER}, so a scan torn down after the entry is
+ * returned resumes beyond everything already counted, and the {@link ResultCountingIterator} above the query iterator knows to add the count rather than
+ * counting the entry as a single result.
+ * <p>
+ * A document filter may be given to drop the documents which would not be returned by the evaluation of the query, such as those left empty once the
+ * attributes outside of the date range or not visible to the scan are removed.
+ * <p>
+ * When yielding is enabled and counting has run past the yield threshold, the count so far is returned, and the scan is then yielded just after the key of
+ * that entry, so that it resumes from the last document counted. If no document was counted by then, the scan is yielded at the last document looked at.
+ * Without yielding the whole range is counted into a single entry.
+ */
+public class FieldIndexCountingIterator implements Iterator<Entry<Key,Value>> {
+    private static final Logger log = Logger.getLogger(FieldIndexCountingIterator.class);
+    
+    private static final MarkingFunctions markingFunctions = MarkingFunctions.Factory.createMarkingFunctions();
+    
+    private final NestedIterator<Key> documents;
+    private final Predicate<Entry<Key,Document>> documentFilter;
+    private final YieldCallback<Key> yield;
+    private final long yieldThresholdMs;
+    
+    private Entry<Key,Value> next = null;
+    private boolean counted = false;
+    // the key at which the scan is yielded once the count up to the yield threshold has been returned
+    private Key yieldKey = null;
+    
+    public FieldIndexCountingIterator(NestedIterator<Key> documents) {
+        this(documents, null, null, Long.MAX_VALUE);
+    }
+    
+    public FieldIndexCountingIterator(NestedIterator<Key> documents, Predicate<Entry<Key,Document>> documentFilter, YieldCallback<Key> yieldCallback,
+                    long yieldThresholdMs) {
+        this.documents = documents;
+        this.documentFilter = documentFilter;
+        this.yield = yieldCallback;
+        this.yieldThresholdMs = yieldThresholdMs;
+    }
+    
+    @Override
+    public boolean hasNext() {
+        if (!counted) {
+            counted = true;
+            next = count();
+        }
+        if (next == null && yieldKey != null) {
+            // the count up to the yield threshold has been returned, so resume after it in a new scan
+            yield.yield(yieldKey);
+            if (log.isDebugEnabled()) {
+                log.debug("Yielding at " + yieldKey);
+            }
+            yieldKey = null;
+        }
+        return next != null;
+    }
+    
+    @Override
+    public Entry<Key,Value> next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        Entry<Key,Value> result = next;
+        next = null;
+        return result;
+    }
+    
+    private Entry<Key,Value> count() {
+        long count = 0;
+        Key last = null;
+        Set<ColumnVisibility> columnVisibilities = new HashSet<>();
+        long startMs = System.currentTimeMillis();
+        boolean yielding = false;
+        while (!yielding && documents.hasNext()) {
+            Key key = documents.next();
+            Document document = documents.document();
+            boolean dropped = (documentFilter != null) && !documentFilter.apply(Maps.immutableEntry(key, document));
+            yielding = (yield != null) && (System.currentTimeMillis() - startMs > yieldThresholdMs);
+            if (dropped) {
+                if (yielding && count == 0) {
+                    // nothing has been counted, so resume after the documents dropped so far
+                    yieldKey = countedKey(key, new ColumnVisibility(key.getColumnVisibility()));
+                }
+                continue;
+            }
+            last = key;
+            if (document != null && document.size() > 0) {
+                columnVisibilities.add(document.getColumnVisibility());
+            } else {
+                columnVisibilities.add(new ColumnVisibility(last.getColumnVisibility()));
+            }
+            count++;
+        }
+        
+        if (log.isDebugEnabled()) {
+            log.debug("Counted " + count + " documents from the field index");
+        }
+        if (count == 0) {
+            return null;
+        }
+        
+        ColumnVisibility columnVisibility;
+        try {
+            columnVisibility = markingFunctions.combine(columnVisibilities);
+        } catch (MarkingFunctions.Exception e) {
+            throw new IllegalStateException("Could not create combined columnVisibility for the count", e);
+        }
+        
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        Output kryoOutput = new Output(baos);
+        new Kryo().writeObject(kryoOutput, new ResultCountTuple(count, columnVisibility));
+        kryoOutput.close();
+        
+        Key key = countedKey(last, columnVisibility);
+        if (yielding) {
+            // the yield has to follow the key of the count, and resumes beyond the same document
+            yieldKey = key.followingKey(PartialKey.ROW_COLFAM_COLQUAL_COLVIS_TIME);
+        }
+        return Maps.immutableEntry(key, new Value(baos.toByteArray()));
+    }
+    
+    private static Key countedKey(Key document, ColumnVisibility columnVisibility) {
+        return new Key(document.getRow(), document.getColumnFamily(), new Text(ResultCountingIterator.COUNTED_COLUMN_QUALIFIER), columnVisibility,
+                        document.getTimestamp());
+    }
+    
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException("This iterator does not support remove.");
+    }
+}
@@ -356,7 +356,7 @@ public class FieldIndexOnlyQueryIterator extends QueryIterator {
         
         if (this.getReturnType() == ReturnType.kryo) {
             // Serialize the Document using Kryo
-            this.serializedDocuments = Iterators.transform(fieldIndexDocuments, new KryoDocumentSerializer(isReducedResponse(), isCompressResults()));
+            this.serializedDocuments = Iterators.transform(fieldIndexDocuments, new KryoDocumentSerializer(isReducedResponse(), getResultsCompression()));
         } else if (this.getReturnType() == ReturnType.writable) {
             // Use the Writable interface to serialize the Document
             this.serializedDocuments = Iterators.transform(fieldIndexDocuments, new WritableDocumentSerializer(isReducedResponse()));
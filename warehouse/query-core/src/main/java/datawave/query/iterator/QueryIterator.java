@@ -236,7 +236,11 @@ public class QueryIterator extends QueryOptions implements YieldingKeyValueItera
         
         // Parse the query
         try {
-            this.script = JexlASTHelper.parseJexlQuery(this.getQuery());
+            // use a copy of the tree cached with the other parsed options when there is one
+            this.script = (parsedOptions == null ? null : parsedOptions.getScript());
+            if (this.script == null) {
+                this.script = JexlASTHelper.parseJexlQuery(this.getQuery());
+            }
             this.myEvaluationFunction = new JexlEvaluation(this.getQuery(), arithmetic);
             
         } catch (Exception e) {
@@ -265,6 +269,7 @@ public class QueryIterator extends QueryOptions implements YieldingKeyValueItera
         // update ActiveQueryLog with (potentially) updated config
         if (env != null) {
             ActiveQueryLog.setConfig(env.getConfig());
+            QueryOptionsCache.setConfig(env.getConfig());
         }
         
         DatawaveFieldIndexListIteratorJexl.FSTManager.setHdfsFileSystem(this.getFileSystemCache());
@@ -389,6 +394,14 @@ public class QueryIterator extends QueryOptions implements YieldingKeyValueItera
                 }
             } else {
                 this.seekKeySource = buildDocumentIterator(documentRange, range, columnFamilies, inclusive);
+                
+                if (isCountingFromFieldIndex()) {
+                    // count the documents straight from the field index without fetching or evaluating them
+                    this.serializedDocuments = new FieldIndexCountingIterator(this.seekKeySource,
+                                    getFieldIndexCountFilter(sourceForDeepCopies.deepCopy(myEnvironment)), yield, yieldThresholdMs);
+                    prepareKeyValue(span);
+                    return;
+                }
             }
             
             // Create the pipeline iterator for document aggregation and
@@ -445,7 +458,7 @@ public class QueryIterator extends QueryOptions implements YieldingKeyValueItera
             
             if (this.getReturnType() == ReturnType.kryo) {
                 // Serialize the Document using Kryo
-                this.serializedDocuments = Iterators.transform(pipelineDocuments, new KryoDocumentSerializer(isReducedResponse(), isCompressResults()));
+                this.serializedDocuments = Iterators.transform(pipelineDocuments, new KryoDocumentSerializer(isReducedResponse(), getResultsCompression()));
             } else if (this.getReturnType() == ReturnType.writable) {
                 // Use the Writable interface to serialize the Document
                 this.serializedDocuments = Iterators.transform(pipelineDocuments, new WritableDocumentSerializer(isReducedResponse()));
@@ -783,8 +796,10 @@ public class QueryIterator extends QueryOptions implements YieldingKeyValueItera
                 }
             };
         } else {
-            docMapper = new KeyToDocumentData(deepSourceCopy, myEnvironment, documentOptions, super.equality, getEvaluationFilter(),
+            KeyToDocumentData keyToDocumentData = new KeyToDocumentData(deepSourceCopy, myEnvironment, documentOptions, super.equality, getEvaluationFilter(),
                             this.includeHierarchyFields, this.includeHierarchyFields);
+            keyToDocumentData.setSequentialFetch(isSequentialDocumentFetch());
+            docMapper = keyToDocumentData;
         }
         
         Iterator<Entry<DocumentData,Document>> sourceIterator = Iterators.transform(documentSpecificSource, from -> {
@@ -826,7 +841,7 @@ public class QueryIterator extends QueryOptions implements YieldingKeyValueItera
         
         if (gatherTimingDetails()) {
             documents = new EvaluationTrackingIterator(QuerySpan.Stage.DocumentEvaluation, trackingSpan, getEvaluation(documentSpecificSource, deepSourceCopy,
-                            documents, compositeMetadata, typeMetadataWithNonIndexed, columnFamilies, inclusive));
+                            documents, compositeMetadata, typeMetadataWithNonIndexed, columnFamilies, inclusive, trackingSpan));
         } else {
             documents = getEvaluation(documentSpecificSource, deepSourceCopy, documents, compositeMetadata, typeMetadataWithNonIndexed, columnFamilies,
                             inclusive);
@@ -925,10 +940,25 @@ public class QueryIterator extends QueryOptions implements YieldingKeyValueItera
     protected Iterator<Entry<Key,Document>> getEvaluation(NestedQueryIterator<Key> documentSource, SortedKeyValueIterator<Key,Value> sourceDeepCopy,
                     Iterator<Entry<Key,Document>> documents, CompositeMetadata compositeMetadata, TypeMetadata typeMetadataForEval,
                     Collection<ByteSequence> columnFamilies, boolean inclusive) {
+        return getEvaluation(documentSource, sourceDeepCopy, documents, compositeMetadata, typeMetadataForEval, columnFamilies, inclusive, null);
+    }
+    
+    /**
+     * Get the evaluation of the documents against the query
+     *
+     * @param evaluationSpan
+     *            the span to record the evaluation profile of the query nodes and the reordering of the AND nodes into, may be null
+     */
+    protected Iterator<Entry<Key,Document>> getEvaluation(NestedQueryIterator<Key> documentSource, SortedKeyValueIterator<Key,Value> sourceDeepCopy,
+                    Iterator<Entry<Key,Document>> documents, CompositeMetadata compositeMetadata, TypeMetadata typeMetadataForEval,
+                    Collection<ByteSequence> columnFamilies, boolean inclusive, QuerySpan evaluationSpan) {
         // Filter the Documents by testing them against the JEXL query
         if (!this.disableEvaluation) {
             
             JexlEvaluation jexlEvaluationFunction = getJexlEvaluation(documentSource);
+            jexlEvaluationFunction.setQuerySpan(evaluationSpan);
+            jexlEvaluationFunction.setProfile(isCollectEvaluationProfile());
+            jexlEvaluationFunction.setAdaptiveOrdering(isAdaptiveOrdering());
             Collection<String> variables = null;
             if (null != documentSource && null != documentSource.getQuery()) {
                 
@@ -1047,6 +1077,7 @@ public class QueryIterator extends QueryOptions implements YieldingKeyValueItera
         if (fieldIndexSatisfiesQuery) {
             final KeyToDocumentData docMapper = new KeyToDocumentData(deepSourceCopy, this.myEnvironment, this.documentOptions, super.equality,
                             getEvaluationFilter(), this.includeHierarchyFields, this.includeHierarchyFields);
+            docMapper.setSequentialFetch(isSequentialDocumentFetch());
             Iterator<Tuple2<Key,Document>> mappedDocuments = Iterators.transform(
                             documents,
                             new GetDocument(docMapper, new Aggregation(this.getTimeFilter(), typeMetadataWithNonIndexed, compositeMetadata, this
@@ -1085,6 +1116,34 @@ public class QueryIterator extends QueryOptions implements YieldingKeyValueItera
         }
     }
     
+    /**
+     * Create the filter of the documents counted from the field index, which keeps those that the evaluation of the query would return. A document the scan
+     * can see an event key of which the evaluation filter keeps is given its record id, so it is kept without fetching the rest of it. Any other document is
+     * fetched and aggregated with the date range and evaluation filter as it would be otherwise, and kept if anything is left once the attributes not to be
+     * kept are removed.
+     *
+     * @param deepSourceCopy
+     *            the source from which the documents are fetched
+     * @return the document filter
+     */
+    protected Predicate<Entry<Key,Document>> getFieldIndexCountFilter(SortedKeyValueIterator<Key,Value> deepSourceCopy) {
+        final KeyToDocumentData docMapper = new KeyToDocumentData(deepSourceCopy, this.myEnvironment, this.documentOptions, super.equality,
+                        getEvaluationFilter(), this.includeHierarchyFields, this.includeHierarchyFields);
+        final GetDocument getDocument = new GetDocument(docMapper, new Aggregation(this.getTimeFilter(), typeMetadataWithNonIndexed, compositeMetadata,
+                        this.isIncludeGroupingContext(), this.includeRecordId, this.disableIndexOnlyDocuments(), getEvaluationFilter(), isTrackSizes()));
+        final Function<Entry<Key,Document>,Entry<Key,Document>> keepFilter = new AttributeKeepFilter<>();
+        final DocumentProjection compositeProjection = getCompositeProjection();
+        final Predicate<Entry<Key,Document>> emptyDocumentFilter = new EmptyDocumentFilter();
+        return input -> {
+            if (docMapper.hasDocumentKey(input)) {
+                return true;
+            }
+            Document fieldIndexDocument = input.getValue() != null ? input.getValue() : new Document();
+            Tuple2<Key,Document> document = getDocument.apply(Maps.immutableEntry(input.getKey(), fieldIndexDocument));
+            return emptyDocumentFilter.apply(compositeProjection.apply(keepFilter.apply(Maps.immutableEntry(document.first(), document.second()))));
+        };
+    }
+    
     private void prepareKeyValue(TraceScope span) {
         if (this.serializedDocuments.hasNext()) {
             Entry<Key,Value> entry = this.serializedDocuments.next();
@@ -1327,6 +1386,23 @@ public class QueryIterator extends QueryOptions implements YieldingKeyValueItera
         return this.fieldIndexSatisfiesQuery;
     }
     
+    /**
+     * Determine whether the documents can be counted straight from the field index. That requires a count to have been requested, the field index to satisfy
+     * the query, and nothing between the field index and the results which could drop or combine documents.
+     * <p>
+     * The field index entries are already limited to the date range and to the visibilities of the scan, and the documents which would be left empty are
+     * dropped by the {@link #getFieldIndexCountFilter(SortedKeyValueIterator) count filter}. That is only cheaper than evaluating the documents when the record
+     * id is included, as then most documents are kept on the first event key found for them.
+     *
+     * @return true if the documents can be counted from the field index
+     */
+    protected boolean isCountingFromFieldIndex() {
+        return isCountFromFieldIndex() && isFieldIndexSatisfyingQuery() && this.includeRecordId && this.sortedUIDs && !this.collectTimingDetails
+                        && !this.projectResults
+                        && (this.postProcessingFunctions == null || this.postProcessingFunctions.isEmpty()) && getUniqueTransform() == null
+                        && getGroupingTransform() == null;
+    }
+    
     protected NestedIterator<Key> getEventDataNestedIterator(SortedKeyValueIterator<Key,Value> source) {
         return new EventDataScanNestedIterator(source, getEventEntryKeyDataTypeFilter());
     }
@@ -1377,6 +1453,9 @@ public class QueryIterator extends QueryOptions implements YieldingKeyValueItera
                 .setTermFrequencyFields(this.getTermFrequencyFields())
                 .setIsQueryFullySatisfied(isQueryFullySatisfied)
                 .setSortedUIDs(sortedUIDs)
+                .setLeapfrogNestedIterators(leapfrogNestedIterators)
+                .setAdaptiveOrdering(adaptiveOrdering)
+                .setTrackingSpan(this.trackingSpan)
                 .limit(documentRange)
                 .disableIndexOnly(disableFiEval)
                 .limit(this.sourceLimit)
@@ -37,6 +37,7 @@ import datawave.query.iterator.filter.StringToText;
 import datawave.query.iterator.logic.IndexIterator;
 import datawave.query.jexl.DefaultArithmetic;
 import datawave.query.jexl.HitListArithmetic;
+import datawave.query.jexl.JexlASTHelper;
 import datawave.query.jexl.functions.FieldIndexAggregator;
 import datawave.query.jexl.functions.IdentityAggregator;
 import datawave.query.planner.SeekingQueryPlanner;
@@ -56,6 +57,7 @@ import org.apache.accumulo.core.data.Range;
 import org.apache.accumulo.core.iterators.OptionDescriber;
 import org.apache.commons.codec.binary.Base64;
 import org.apache.commons.jexl2.JexlArithmetic;
+import org.apache.commons.jexl2.parser.ASTJexlScript;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.io.Text;
 import org.apache.log4j.Logger;
@@ -147,6 +149,7 @@ public class QueryOptions implements OptionDescriber {
     public static final String INCLUDE_RECORD_ID = "include.record.id";
     public static final String LOG_TIMING_DETAILS = "log.timing.details";
     public static final String COLLECT_TIMING_DETAILS = "collect.timing.details";
+    public static final String COLLECT_EVALUATION_PROFILE = "collect.evaluation.profile";
     public static final String STATSD_HOST_COLON_PORT = "statsd.host.colon.port";
     public static final String STATSD_MAX_QUEUE_SIZE = "statsd.max.queue.size";
     public static final String DATATYPE_FIELDNAME = "include.datatype.fieldname";
@@ -221,6 +224,8 @@ public class QueryOptions implements OptionDescriber {
     
     public static final String COMPRESS_SERVER_SIDE_RESULTS = "compress.server.side.results";
     
+    public static final String SERVER_SIDE_RESULTS_CODEC = "server.side.results.codec";
+    
     public static final String MAX_EVALUATION_PIPELINES = "max.evaluation.pipelines";
     
     public static final String SERIAL_EVALUATION_PIPELINE = "serial.evaluation.pipeline";
@@ -237,6 +242,14 @@ public class QueryOptions implements OptionDescriber {
     
     public static final String SORTED_UIDS = "sorted.uids";
     
+    public static final String LEAPFROG_NESTED_ITERATORS = "leapfrog.nested.iterators";
+    
+    public static final String SEQUENTIAL_DOCUMENT_FETCH = "sequential.document.fetch";
+    
+    public static final String ADAPTIVE_ORDERING = "adaptive.ordering";
+    
+    public static final String COUNT_FROM_FIELD_INDEX = "count.from.field.index";
+    
     public static final String RANGES = "ranges";
     
     protected Map<String,String> options;
@@ -252,6 +265,8 @@ public class QueryOptions implements OptionDescriber {
     protected Set<String> typeMetadataAuthsKey = Sets.newHashSet();
     protected CompositeMetadata compositeMetadata = null;
     protected int compositeSeekThreshold = 10;
+    // the artifacts parsed from the options, shared with the other iterators for this query on the tablet server
+    protected QueryOptionsCache.ParsedOptions parsedOptions = null;
     protected DocumentSerialization.ReturnType returnType = DocumentSerialization.ReturnType.kryo;
     protected boolean reducedResponse = false;
     protected boolean fullTableScanOnly = false;
@@ -346,6 +361,9 @@ public class QueryOptions implements OptionDescriber {
     
     protected boolean compressResults = false;
     
+    // the compression of the serialized documents when compressing results
+    protected byte resultsCodec = DocumentSerialization.GZIP;
+    
     protected Boolean compressedMappings = false;
     protected boolean limitOverride = false;
     
@@ -354,8 +372,23 @@ public class QueryOptions implements OptionDescriber {
     // is required.
     boolean sortedUIDs = true;
     
+    // use the array based leapfrog AND and heap based OR iterators where possible instead of the multimap based ones
+    protected boolean leapfrogNestedIterators = false;
+    
+    // fetch the documents for evaluation in a forward pass over the shard instead of seeking to each one
+    protected boolean sequentialDocumentFetch = false;
+    
+    // reorder the leapfrog AND children and the evaluation of the AND nodes by their observed selectivity
+    protected boolean adaptiveOrdering = false;
+    
+    // return a single count of the matching documents when the field index satisfies the query, instead of the documents
+    protected boolean countFromFieldIndex = false;
+    
     protected boolean collectTimingDetails = false;
     
+    // profile the evaluation of each node of the query tree, returned with the timing details
+    protected boolean collectEvaluationProfile = false;
+    
     protected String statsdHostAndPort = null;
     protected int statsdMaxQueueSize = 500;
     
@@ -393,6 +426,12 @@ public class QueryOptions implements OptionDescriber {
         this.metadataTableName = other.metadataTableName;
         this.compositeMetadata = other.compositeMetadata;
         this.compositeSeekThreshold = other.compositeSeekThreshold;
+        this.parsedOptions = other.parsedOptions;
+        this.leapfrogNestedIterators = other.leapfrogNestedIterators;
+        this.sequentialDocumentFetch = other.sequentialDocumentFetch;
+        this.adaptiveOrdering = other.adaptiveOrdering;
+        this.countFromFieldIndex = other.countFromFieldIndex;
+        this.collectEvaluationProfile = other.collectEvaluationProfile;
         this.returnType = other.returnType;
         this.reducedResponse = other.reducedResponse;
         this.fullTableScanOnly = other.fullTableScanOnly;
@@ -453,6 +492,7 @@ public class QueryOptions implements OptionDescriber {
         this.yieldThresholdMs = other.yieldThresholdMs;
         
         this.compressResults = other.compressResults;
+        this.resultsCodec = other.resultsCodec;
         this.limitFieldsMap = other.limitFieldsMap;
         this.limitFieldsPreQueryEvaluation = other.limitFieldsPreQueryEvaluation;
         this.limitFieldsField = other.limitFieldsField;
@@ -919,6 +959,21 @@ public class QueryOptions implements OptionDescriber {
         this.compressResults = compressResults;
     }
     
+    public byte getResultsCodec() {
+        return resultsCodec;
+    }
+    
+    public void setResultsCodec(byte resultsCodec) {
+        this.resultsCodec = resultsCodec;
+    }
+    
+    /**
+     * @return the {@link DocumentSerialization} compression of the serialized documents
+     */
+    public int getResultsCompression() {
+        return compressResults ? resultsCodec : DocumentSerialization.NONE;
+    }
+    
     public Map<String,Integer> getLimitFieldsMap() {
         return limitFieldsMap;
     }
@@ -991,6 +1046,46 @@ public class QueryOptions implements OptionDescriber {
         this.sortedUIDs = sortedUIDs;
     }
     
+    public boolean isLeapfrogNestedIterators() {
+        return leapfrogNestedIterators;
+    }
+    
+    public void setLeapfrogNestedIterators(boolean leapfrogNestedIterators) {
+        this.leapfrogNestedIterators = leapfrogNestedIterators;
+    }
+    
+    public boolean isSequentialDocumentFetch() {
+        return sequentialDocumentFetch;
+    }
+    
+    public void setSequentialDocumentFetch(boolean sequentialDocumentFetch) {
+        this.sequentialDocumentFetch = sequentialDocumentFetch;
+    }
+    
+    public boolean isAdaptiveOrdering() {
+        return adaptiveOrdering;
+    }
+    
+    public void setAdaptiveOrdering(boolean adaptiveOrdering) {
+        this.adaptiveOrdering = adaptiveOrdering;
+    }
+    
+    public boolean isCountFromFieldIndex() {
+        return countFromFieldIndex;
+    }
+    
+    public void setCountFromFieldIndex(boolean countFromFieldIndex) {
+        this.countFromFieldIndex = countFromFieldIndex;
+    }
+    
+    public boolean isCollectEvaluationProfile() {
+        return collectEvaluationProfile;
+    }
+    
+    public void setCollectEvaluationProfile(boolean collectEvaluationProfile) {
+        this.collectEvaluationProfile = collectEvaluationProfile;
+    }
+    
     public boolean isDebugMultithreadedSources() {
         return debugMultithreadedSources;
     }
@@ -1023,6 +1118,7 @@ public class QueryOptions implements OptionDescriber {
         options.put(INCLUDE_DATATYPE, "Include the data type as a field in the document.");
         options.put(INCLUDE_RECORD_ID, "Include the record id as a field in the document.");
         options.put(COLLECT_TIMING_DETAILS, "Collect timing details about the underlying iterators");
+        options.put(COLLECT_EVALUATION_PROFILE, "Collect the evaluation counts and times of each node of the query, returned with the timing details");
         options.put(STATSD_HOST_COLON_PORT,
                         "A configured statsd host:port which will be used to send resource and timing details from the underlying iterators if configured");
         options.put(STATSD_MAX_QUEUE_SIZE, "Max queued metrics before statsd metrics are flushed");
@@ -1071,6 +1167,7 @@ public class QueryOptions implements OptionDescriber {
         options.put(YIELD_THRESHOLD_MS,
                         "The threshold in milliseconds that the query iterator will evaluate consecutive documents to false before yielding the scan.");
         options.put(COMPRESS_SERVER_SIDE_RESULTS, "GZIP compress the serialized Documents before returning to the webserver");
+        options.put(SERVER_SIDE_RESULTS_CODEC, "The codec (gzip or snappy) with which to compress the serialized Documents");
         options.put(MAX_EVALUATION_PIPELINES, "The max number of evaluation pipelines");
         options.put(SERIAL_EVALUATION_PIPELINE, "Forces us to use the serial pipeline. Allows us to still have a single thread for evaluation");
         options.put(MAX_PIPELINE_CACHED_RESULTS, "The max number of non-null evaluated results to cache beyond the evaluation pipelines in queue");
@@ -1079,6 +1176,16 @@ public class QueryOptions implements OptionDescriber {
         options.put(SORTED_UIDS,
                         "Whether the UIDs need to be sorted.  Normally this is true, however in limited circumstances it could be false which allows ivarators to avoid pre-fetching all UIDs and sorting before returning the first one.");
         
+        options.put(LEAPFROG_NESTED_ITERATORS,
+                        "Use the array based leapfrog AND and heap based OR iterators instead of the multimap based ones where no terms require context");
+        
+        options.put(SEQUENTIAL_DOCUMENT_FETCH, "Fetch the documents for evaluation in a forward pass over the shard, stepping to nearby documents");
+        
+        options.put(ADAPTIVE_ORDERING,
+                        "Advance the most selective child of the leapfrog ANDs first, and evaluate AND nodes in the order rejecting documents most cheaply");
+        
+        options.put(COUNT_FROM_FIELD_INDEX, "Return a count of the matching documents instead of the documents where the field index satisfies the query");
+        
         options.put(RANGES, "The ranges associated with this scan.  Intended to be used for investigative purposes.");
         
         options.put(DEBUG_MULTITHREADED_SOURCES, "If provided, the SourceThreadTrackingIterator will be used");
@@ -1146,12 +1253,14 @@ public class QueryOptions implements OptionDescriber {
             compressedMappings = Boolean.valueOf(options.get(QUERY_MAPPING_COMPRESS));
         }
         
+        // decompressing and parsing the metadata and query is only done once per query on this tablet server
+        this.parsedOptions = QueryOptionsCache.get(options, this::parseOptions);
+        
         this.validateTypeMetadata(options);
         
         if (options.containsKey(COMPOSITE_METADATA)) {
-            String compositeMetadataString = options.get(COMPOSITE_METADATA);
-            if (compositeMetadataString != null && !compositeMetadataString.isEmpty())
-                this.compositeMetadata = CompositeMetadata.fromBytes(java.util.Base64.getDecoder().decode(compositeMetadataString));
+            if (parsedOptions.getCompositeMetadata() != null)
+                this.compositeMetadata = parsedOptions.getCompositeMetadata();
             
             if (log.isTraceEnabled()) {
                 log.trace("Using compositeMetadata: " + this.compositeMetadata);
@@ -1242,6 +1351,12 @@ public class QueryOptions implements OptionDescriber {
             this.collectTimingDetails = Boolean.parseBoolean(options.get(COLLECT_TIMING_DETAILS));
         }
         
+        if (options.containsKey(COLLECT_EVALUATION_PROFILE)) {
+            this.collectEvaluationProfile = Boolean.parseBoolean(options.get(COLLECT_EVALUATION_PROFILE));
+            // the profile is returned with the timing details
+            this.collectTimingDetails |= this.collectEvaluationProfile;
+        }
+        
         if (options.containsKey(STATSD_HOST_COLON_PORT)) {
             this.statsdHostAndPort = options.get(STATSD_HOST_COLON_PORT);
         }
@@ -1385,17 +1500,7 @@ public class QueryOptions implements OptionDescriber {
         }
         
         if (options.containsKey(NON_INDEXED_DATATYPES)) {
-            try {
-                
-                String nonIndexedDataTypes = options.get(NON_INDEXED_DATATYPES);
-                if (compressedMappings) {
-                    nonIndexedDataTypes = decompressOption(nonIndexedDataTypes, QueryOptions.UTF8);
-                }
-                
-                this.setNonIndexedDataTypeMap(buildFieldDataTypeMap(nonIndexedDataTypes));
-            } catch (IOException e) {
-                throw new RuntimeException(e);
-            }
+            this.setNonIndexedDataTypeMap(parsedOptions.getNonIndexedDataTypeMap());
         }
         
         if (options.containsKey(CONTAINS_INDEX_ONLY_TERMS)) {
@@ -1482,6 +1587,10 @@ public class QueryOptions implements OptionDescriber {
             this.setCompressResults(Boolean.parseBoolean(options.get(COMPRESS_SERVER_SIDE_RESULTS)));
         }
         
+        if (options.containsKey(SERVER_SIDE_RESULTS_CODEC)) {
+            this.setResultsCodec(DocumentSerialization.getCompression(options.get(SERVER_SIDE_RESULTS_CODEC)));
+        }
+        
         if (options.containsKey(MAX_EVALUATION_PIPELINES)) {
             this.setMaxEvaluationPipelines(Integer.parseInt(options.get(MAX_EVALUATION_PIPELINES)));
         }
@@ -1537,6 +1646,22 @@ public class QueryOptions implements OptionDescriber {
             this.sortedUIDs = Boolean.parseBoolean(options.get(SORTED_UIDS));
         }
         
+        if (options.containsKey(LEAPFROG_NESTED_ITERATORS)) {
+            this.leapfrogNestedIterators = Boolean.parseBoolean(options.get(LEAPFROG_NESTED_ITERATORS));
+        }
+        
+        if (options.containsKey(SEQUENTIAL_DOCUMENT_FETCH)) {
+            this.sequentialDocumentFetch = Boolean.parseBoolean(options.get(SEQUENTIAL_DOCUMENT_FETCH));
+        }
+        
+        if (options.containsKey(ADAPTIVE_ORDERING)) {
+            this.adaptiveOrdering = Boolean.parseBoolean(options.get(ADAPTIVE_ORDERING));
+        }
+        
+        if (options.containsKey(COUNT_FROM_FIELD_INDEX)) {
+            this.countFromFieldIndex = Boolean.parseBoolean(options.get(COUNT_FROM_FIELD_INDEX));
+        }
+        
         if (options.containsKey(DEBUG_MULTITHREADED_SOURCES)) {
             this.debugMultithreadedSources = Boolean.parseBoolean(options.get(DEBUG_MULTITHREADED_SOURCES));
         }
@@ -1550,15 +1675,8 @@ public class QueryOptions implements OptionDescriber {
     
     protected void validateTypeMetadata(Map<String,String> options) {
         if (options.containsKey(TYPE_METADATA_AUTHS)) {
-            String typeMetadataAuthsString = options.get(TYPE_METADATA_AUTHS);
-            try {
-                if (typeMetadataAuthsString != null && compressedMappings) {
-                    typeMetadataAuthsString = decompressOption(typeMetadataAuthsString, QueryOptions.UTF8);
-                }
-                this.typeMetadataAuthsKey = Sets.newHashSet(Splitter.on(CharMatcher.anyOf(",& ")).omitEmptyStrings().trimResults()
-                                .split(typeMetadataAuthsString));
-            } catch (IOException e) {
-                log.warn("could not set typeMetadataAuthsKey from: \"" + typeMetadataAuthsString + "\"");
+            if (parsedOptions.getTypeMetadataAuthsKey() != null) {
+                this.typeMetadataAuthsKey = parsedOptions.getTypeMetadataAuthsKey();
             }
             
             if (log.isTraceEnabled()) {
@@ -1567,14 +1685,8 @@ public class QueryOptions implements OptionDescriber {
         }
         // Serialized version of a mapping from field name to DataType used
         if (options.containsKey(TYPE_METADATA)) {
-            String typeMetadataString = options.get(TYPE_METADATA);
-            try {
-                if (compressedMappings) {
-                    typeMetadataString = decompressOption(typeMetadataString, QueryOptions.UTF8);
-                }
-                this.typeMetadata = buildTypeMetadata(typeMetadataString);
-            } catch (IOException e) {
-                throw new RuntimeException(e);
+            if (parsedOptions.getTypeMetadata() != null) {
+                this.typeMetadata = parsedOptions.getTypeMetadata();
             }
             
             if (log.isTraceEnabled()) {
@@ -1587,6 +1699,71 @@ public class QueryOptions implements OptionDescriber {
         
     }
     
+    /**
+     * Decompress and parse the options which are the same for every iterator of a query. This is only called on a miss in the {@link QueryOptionsCache}, so
+     * the result must depend on nothing but the {@link QueryOptionsCache#KEY_OPTIONS}.
+     *
+     * @param options
+     *            the iterator options
+     * @return the parsed options
+     */
+    protected QueryOptionsCache.ParsedOptions parseOptions(Map<String,String> options) {
+        boolean compressed = Boolean.parseBoolean(options.get(QUERY_MAPPING_COMPRESS));
+        
+        Set<String> authsKey = null;
+        String typeMetadataAuthsString = options.get(TYPE_METADATA_AUTHS);
+        if (typeMetadataAuthsString != null) {
+            try {
+                if (compressed) {
+                    typeMetadataAuthsString = decompressOption(typeMetadataAuthsString, QueryOptions.UTF8);
+                }
+                authsKey = Sets.newHashSet(Splitter.on(CharMatcher.anyOf(",& ")).omitEmptyStrings().trimResults().split(typeMetadataAuthsString));
+            } catch (IOException e) {
+                log.warn("could not set typeMetadataAuthsKey from: \"" + typeMetadataAuthsString + "\"");
+            }
+        }
+        
+        TypeMetadata parsedTypeMetadata = null;
+        Map<String,Set<String>> parsedNonIndexedDataTypeMap = null;
+        try {
+            String typeMetadataString = options.get(TYPE_METADATA);
+            if (typeMetadataString != null) {
+                if (compressed) {
+                    typeMetadataString = decompressOption(typeMetadataString, QueryOptions.UTF8);
+                }
+                parsedTypeMetadata = buildTypeMetadata(typeMetadataString);
+            }
+            
+            if (options.containsKey(NON_INDEXED_DATATYPES)) {
+                String nonIndexedDataTypes = options.get(NON_INDEXED_DATATYPES);
+                if (nonIndexedDataTypes != null && compressed) {
+                    nonIndexedDataTypes = decompressOption(nonIndexedDataTypes, QueryOptions.UTF8);
+                }
+                parsedNonIndexedDataTypeMap = buildFieldDataTypeMap(nonIndexedDataTypes);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        
+        CompositeMetadata parsedCompositeMetadata = null;
+        String compositeMetadataString = options.get(COMPOSITE_METADATA);
+        if (compositeMetadataString != null && !compositeMetadataString.isEmpty()) {
+            parsedCompositeMetadata = CompositeMetadata.fromBytes(java.util.Base64.getDecoder().decode(compositeMetadataString));
+        }
+        
+        // a query which cannot be parsed is left for the iterator to report
+        ASTJexlScript script = null;
+        if (options.containsKey(QUERY)) {
+            try {
+                script = JexlASTHelper.parseJexlQuery(options.get(QUERY));
+            } catch (Exception e) {
+                log.debug("Could not parse the query for the options cache", e);
+            }
+        }
+        
+        return new QueryOptionsCache.ParsedOptions(authsKey, parsedTypeMetadata, parsedCompositeMetadata, parsedNonIndexedDataTypeMap, script);
+    }
+    
     protected static String decompressOption(final String buffer, Charset characterSet) throws IOException {
         final byte[] inBase64 = Base64.decodeBase64(buffer.getBytes());
         
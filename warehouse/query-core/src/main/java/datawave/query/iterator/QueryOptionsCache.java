@@ -0,0 +1,220 @@
+package datawave.query.iterator;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import datawave.query.composite.CompositeMetadata;
+import datawave.query.jexl.visitors.RebuildingVisitor;
+import datawave.query.util.TypeMetadata;
+import org.apache.accumulo.core.conf.AccumuloConfiguration;
+import org.apache.commons.jexl2.parser.ASTJexlScript;
+import org.apache.log4j.Logger;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * A tablet server wide cache of the artifacts parsed out of the {@link QueryOptions}. The serialized type metadata, composite metadata, non-indexed datatypes
+ * and query are identical for every tablet, re-seek and deep copy of a query, so they are decompressed and parsed once and then shared by the iterators.
+ * <p>
+ * Entries are keyed by a SHA-256 hash of the options they are parsed from. The cached artifacts must be treated as read only; the query tree is the exception
+ * as the visitors modify it in place, so each caller gets its own copy of it.
+ * <p>
+ * The size of the parsed artifacts follows the size of the options they are parsed from, which varies by orders of magnitude between a small query and one
+ * with a large type metadata. The cache is therefore bounded by the total length of the options of its entries rather than by their number.
+ */
+public class QueryOptionsCache {
+    
+    private static final Logger log = Logger.getLogger(QueryOptionsCache.class);
+    
+    // Accumulo properties
+    public static final String MAX_WEIGHT = "datawave.query.options.cache.maxWeight";
+    public static final String EXPIRE_AFTER_ACCESS = "datawave.query.options.cache.expireAfterAccessMs";
+    
+    // the total length in characters of the options of the cached entries
+    public static final long DEFAULT_MAX_WEIGHT = 16L * 1024L * 1024L;
+    public static final long DEFAULT_EXPIRE_AFTER_ACCESS = TimeUnit.MILLISECONDS.convert(1, TimeUnit.HOURS);
+    
+    /**
+     * The options the cached artifacts are parsed from, and therefore the only ones which contribute to the key
+     */
+    static final String[] KEY_OPTIONS = {QueryOptions.QUERY, QueryOptions.QUERY_MAPPING_COMPRESS, QueryOptions.TYPE_METADATA_AUTHS, QueryOptions.TYPE_METADATA,
+                    QueryOptions.COMPOSITE_METADATA, QueryOptions.NON_INDEXED_DATATYPES};
+    
+    private static AccumuloConfiguration conf = null;
+    private static volatile long maxWeight = DEFAULT_MAX_WEIGHT;
+    private static volatile long expireAfterAccess = DEFAULT_EXPIRE_AFTER_ACCESS;
+    private static volatile Cache<String,Entry> cache = buildCache(DEFAULT_MAX_WEIGHT, DEFAULT_EXPIRE_AFTER_ACCESS);
+    
+    private QueryOptionsCache() {}
+    
+    /**
+     * Apply the cache settings from the tablet server configuration. The cache is rebuilt only when the settings have changed.
+     *
+     * @param conf
+     *            the tablet server configuration
+     */
+    synchronized public static void setConfig(AccumuloConfiguration conf) {
+        if (conf != null && (QueryOptionsCache.conf == null || conf.getUpdateCount() > QueryOptionsCache.conf.getUpdateCount())) {
+            QueryOptionsCache.conf = conf;
+            
+            long newMaxWeight = DEFAULT_MAX_WEIGHT;
+            String maxWeightStr = conf.get(MAX_WEIGHT);
+            if (maxWeightStr != null) {
+                try {
+                    newMaxWeight = Long.parseLong(maxWeightStr);
+                } catch (NumberFormatException e) {
+                    log.error("Bad value: (" + maxWeightStr + ") in " + MAX_WEIGHT + " : " + e.getMessage());
+                }
+            }
+            
+            long newExpireAfterAccess = DEFAULT_EXPIRE_AFTER_ACCESS;
+            String expireAfterAccessStr = conf.get(EXPIRE_AFTER_ACCESS);
+            if (expireAfterAccessStr != null) {
+                try {
+                    newExpireAfterAccess = Long.parseLong(expireAfterAccessStr);
+                } catch (NumberFormatException e) {
+                    log.error("Bad value: (" + expireAfterAccessStr + ") in " + EXPIRE_AFTER_ACCESS + " : " + e.getMessage());
+                }
+            }
+            
+            if (newMaxWeight != maxWeight || newExpireAfterAccess != expireAfterAccess) {
+                maxWeight = newMaxWeight;
+                expireAfterAccess = newExpireAfterAccess;
+                cache = buildCache(newMaxWeight, newExpireAfterAccess);
+            }
+        }
+    }
+    
+    private static Cache<String,Entry> buildCache(long maxWeight, long expireAfterAccess) {
+        return Caffeine.newBuilder().maximumWeight(Math.max(maxWeight, 0)).weigher((String key, Entry entry) -> entry.weight)
+                        .expireAfterAccess(expireAfterAccess, TimeUnit.MILLISECONDS).recordStats().build();
+    }
+    
+    /**
+     * Get the parsed artifacts for the supplied options, parsing them if they are not already cached. A max weight of zero disables the cache.
+     *
+     * @param options
+     *            the iterator options
+     * @param parser
+     *            parses the options on a cache miss
+     * @return the parsed artifacts
+     */
+    public static ParsedOptions get(Map<String,String> options, Function<Map<String,String>,ParsedOptions> parser) {
+        if (maxWeight <= 0) {
+            return parser.apply(options);
+        }
+        
+        Cache<String,Entry> current = cache;
+        String key = getKey(options);
+        Entry entry = current.getIfPresent(key);
+        if (entry == null) {
+            entry = current.get(key, k -> new Entry(parser.apply(options), getWeight(options)));
+            if (log.isDebugEnabled()) {
+                log.debug("Parsed query options, cache stats: " + current.stats());
+            }
+        }
+        return entry.parsed;
+    }
+    
+    /**
+     * @return the hit, miss and eviction counts of the cache
+     */
+    public static CacheStats getStats() {
+        return cache.stats();
+    }
+    
+    /**
+     * Drop all cached entries
+     */
+    public static void invalidateAll() {
+        cache.invalidateAll();
+    }
+    
+    /**
+     * @return the total length of the options the cached artifacts are parsed from
+     */
+    static int getWeight(Map<String,String> options) {
+        long weight = 0;
+        for (String option : KEY_OPTIONS) {
+            String value = options.get(option);
+            if (value != null) {
+                weight += value.length();
+            }
+        }
+        return (int) Math.min(weight, Integer.MAX_VALUE);
+    }
+    
+    static String getKey(Map<String,String> options) {
+        Hasher hasher = Hashing.sha256().newHasher();
+        for (String option : KEY_OPTIONS) {
+            String value = options.get(option);
+            if (value == null) {
+                hasher.putInt(-1);
+            } else {
+                hasher.putInt(value.length());
+                hasher.putString(value, StandardCharsets.UTF_8);
+            }
+        }
+        return hasher.hash().toString();
+    }
+    
+    private static class Entry {
+        private final ParsedOptions parsed;
+        private final int weight;
+        
+        private Entry(ParsedOptions parsed, int weight) {
+            this.parsed = parsed;
+            this.weight = weight;
+        }
+    }
+    
+    /**
+     * The immutable artifacts parsed from the options. A null value means the corresponding option was absent or could not be parsed.
+     */
+    public static class ParsedOptions {
+        private final Set<String> typeMetadataAuthsKey;
+        private final TypeMetadata typeMetadata;
+        private final CompositeMetadata compositeMetadata;
+        private final Map<String,Set<String>> nonIndexedDataTypeMap;
+        private final ASTJexlScript script;
+        
+        public ParsedOptions(Set<String> typeMetadataAuthsKey, TypeMetadata typeMetadata, CompositeMetadata compositeMetadata,
+                        Map<String,Set<String>> nonIndexedDataTypeMap, ASTJexlScript script) {
+            this.typeMetadataAuthsKey = (typeMetadataAuthsKey == null ? null : Collections.unmodifiableSet(typeMetadataAuthsKey));
+            this.typeMetadata = typeMetadata;
+            this.compositeMetadata = compositeMetadata;
+            this.nonIndexedDataTypeMap = (nonIndexedDataTypeMap == null ? null : Collections.unmodifiableMap(nonIndexedDataTypeMap));
+            this.script = script;
+        }
+        
+        public Set<String> getTypeMetadataAuthsKey() {
+            return typeMetadataAuthsKey;
+        }
+        
+        public TypeMetadata getTypeMetadata() {
+            return typeMetadata;
+        }
+        
+        public CompositeMetadata getCompositeMetadata() {
+            return compositeMetadata;
+        }
+        
+        public Map<String,Set<String>> getNonIndexedDataTypeMap() {
+            return nonIndexedDataTypeMap;
+        }
+        
+        /**
+         * @return a copy of the parsed query which the caller is free to modify, or null if the query was absent or could not be parsed
+         */
+        public ASTJexlScript getScript() {
+            return (script == null ? null : (ASTJexlScript) RebuildingVisitor.copy(script));
+        }
+    }
+}
@@ -2,6 +2,8 @@ package datawave.query.iterator.builder;
 
 import datawave.query.iterator.NestedIterator;
 import datawave.query.iterator.logic.AndIterator;
+import datawave.query.iterator.logic.LeapfrogAndIterator;
+import datawave.query.iterator.profile.QuerySpan;
 import org.apache.commons.jexl2.parser.JexlNode;
 
 import java.util.HashSet;
@@ -11,6 +13,40 @@ public class AndIteratorBuilder extends AbstractIteratorBuilder {
     
     Set<JexlNode> compositePredicates = new HashSet<>();
     
+    protected boolean leapfrog = false;
+    
+    protected boolean adaptive = false;
+    
+    protected QuerySpan querySpan = null;
+    
+    public boolean isLeapfrog() {
+        return leapfrog;
+    }
+    
+    /**
+     * @param leapfrog
+     *            whether to build a {@link LeapfrogAndIterator} when none of the sources require context
+     */
+    public void setLeapfrog(boolean leapfrog) {
+        this.leapfrog = leapfrog;
+    }
+    
+    public boolean isAdaptive() {
+        return adaptive;
+    }
+    
+    /**
+     * @param adaptive
+     *            whether a {@link LeapfrogAndIterator} advances its most selective child first
+     */
+    public void setAdaptive(boolean adaptive) {
+        this.adaptive = adaptive;
+    }
+    
+    public void setQuerySpan(QuerySpan querySpan) {
+        this.querySpan = querySpan;
+    }
+    
     public Set<JexlNode> getCompositePredicates() {
         return compositePredicates;
     }
@@ -28,6 +64,12 @@ public class AndIteratorBuilder extends AbstractIteratorBuilder {
         if (includes.isEmpty()) {
             throw new IllegalStateException("AndIterator has no inclusive sources!");
         }
+        if (leapfrog && LeapfrogAndIterator.isSupported((Iterable) includes, (Iterable) excludes)) {
+            LeapfrogAndIterator leapfrogAnd = new LeapfrogAndIterator(includes, excludes);
+            leapfrogAnd.setAdaptive(adaptive);
+            leapfrogAnd.setQuerySpan(querySpan);
+            return leapfrogAnd;
+        }
         return new AndIterator(includes, excludes);
     }
 }
@@ -1,13 +1,31 @@
 package datawave.query.iterator.builder;
 
 import datawave.query.iterator.NestedIterator;
+import datawave.query.iterator.logic.HeapOrIterator;
 import datawave.query.iterator.logic.OrIterator;
 
 public class OrIteratorBuilder extends AbstractIteratorBuilder {
     
+    protected boolean heap = false;
+    
+    public boolean isHeap() {
+        return heap;
+    }
+    
+    /**
+     * @param heap
+     *            whether to build a {@link HeapOrIterator} when none of the sources require context
+     */
+    public void setHeap(boolean heap) {
+        this.heap = heap;
+    }
+    
     @SuppressWarnings({"rawtypes", "unchecked"})
     @Override
     public <T> NestedIterator<T> build() {
+        if (heap && HeapOrIterator.isSupported((Iterable) includes, (Iterable) excludes)) {
+            return new HeapOrIterator(includes, excludes);
+        }
         return new OrIterator(includes, excludes);
     }
     
@@ -254,7 +254,7 @@ public class DynamicFacetIterator extends FieldIndexOnlyQueryIterator {
         
         if (this.getReturnType() == ReturnType.kryo) {
             // Serialize the Document using Kryo
-            this.serializedDocuments = Iterators.transform(fieldIndexDocuments, new KryoDocumentSerializer(isReducedResponse(), isCompressResults()));
+            this.serializedDocuments = Iterators.transform(fieldIndexDocuments, new KryoDocumentSerializer(isReducedResponse(), getResultsCompression()));
         } else if (this.getReturnType() == ReturnType.writable) {
             // Use the Writable interface to serialize the Document
             this.serializedDocuments = Iterators.transform(fieldIndexDocuments, new WritableDocumentSerializer(isReducedResponse()));
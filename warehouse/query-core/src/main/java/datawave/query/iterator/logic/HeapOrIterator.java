@@ -0,0 +1,358 @@
+package datawave.query.iterator.logic;
+
+import datawave.query.attributes.Document;
+import datawave.query.iterator.NestedIterator;
+import datawave.query.iterator.Util;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * Performs a deduping merge of the child iterators, an alternative to the {@link OrIterator} for ORs which do not have any children requiring context. The
+ * children are kept in an array based binary min-heap ordered by their current head, so advancing the lowest child is a single sift rather than rebuilding
+ * entries in sorted structures.
+ * <p>
+ * As with the {@link OrIterator}, the children are not advanced past a returned value until the next call to hasNext() or move(), so that a move can take them
+ * straight to the target.
+ *
+ * @param <T>
+ */
+public class HeapOrIterator<T extends Comparable<T>> implements NestedIterator<T> {
+    // temporary stores of uninitialized streams of iterators
+    private List<NestedIterator<T>> includes;
+    
+    private Util.Transformer<T> transformer;
+    private Comparator<T> comparator;
+    
+    // the heap of child indexes ordered by the transformed heads of the children
+    private NestedIterator<T>[] children;
+    private T[] heads;
+    private T[] originals;
+    private int[] heap;
+    private int size;
+    
+    // whether the children have been advanced to their first value
+    private boolean started = false;
+    // the transformed value last returned, which the children at the top of the heap must be advanced beyond
+    private T lastMatch;
+    
+    // the children at the top of the heap when collecting a document
+    private List<NestedIterator<T>> matching = new ArrayList<>();
+    
+    private T prev;
+    private T next;
+    
+    private Document prevDocument, document;
+    
+    private boolean converged = false;
+    
+    public HeapOrIterator(Iterable<NestedIterator<T>> sources) {
+        this(sources, null);
+    }
+    
+    public HeapOrIterator(Iterable<NestedIterator<T>> sources, Iterable<NestedIterator<T>> filters) {
+        if (filters != null && filters.iterator().hasNext()) {
+            throw new IllegalArgumentException("HeapOrIterator does not support excludes");
+        }
+        includes = new LinkedList<>();
+        for (NestedIterator<T> src : sources) {
+            if (src.isContextRequired()) {
+                throw new IllegalArgumentException("HeapOrIterator does not support includes which require context: " + src);
+            }
+            includes.add(src);
+        }
+    }
+    
+    /**
+     * Determine whether a HeapOrIterator can replace an {@link OrIterator} over the supplied sources, which is the case when there are no excludes and none of
+     * the includes require context.
+     *
+     * @param sources
+     *            the includes
+     * @param filters
+     *            the excludes
+     * @return true if a HeapOrIterator can be used
+     */
+    public static <T> boolean isSupported(Iterable<NestedIterator<T>> sources, Iterable<NestedIterator<T>> filters) {
+        if (filters != null && filters.iterator().hasNext()) {
+            return false;
+        }
+        for (NestedIterator<T> src : sources) {
+            if (src.isContextRequired()) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Allows creators of this iterator to defer advancing the children until some condition is met. This is intended to let us build the tree of iterators in
+     * <code>init()</code> and defer positioning the iterators until after <code>seek()</code> is called.
+     */
+    @SuppressWarnings("unchecked")
+    public void initialize() {
+        transformer = Util.keyTransformer();
+        comparator = Util.keyComparator();
+        
+        for (NestedIterator<T> include : includes) {
+            include.initialize();
+        }
+        
+        children = includes.toArray(new NestedIterator[includes.size()]);
+        heads = (T[]) new Comparable[children.length];
+        originals = (T[]) new Comparable[children.length];
+        heap = new int[children.length];
+        size = 0;
+        started = false;
+        lastMatch = null;
+        converged = false;
+    }
+    
+    public boolean hasNext() {
+        if (null == children) {
+            throw new IllegalStateException("initialize() was never called");
+        }
+        
+        if (!converged) {
+            next = findNext(null);
+            converged = true;
+        }
+        
+        return next != null;
+    }
+    
+    /**
+     * return the previously found next and set its document. The children are advanced to find the following next on the next call to hasNext() or move()
+     *
+     * @return the previously found next
+     */
+    public T next() {
+        if (!converged) {
+            hasNext();
+        }
+        
+        prev = next;
+        prevDocument = document;
+        
+        next = null;
+        document = null;
+        converged = false;
+        
+        return prev;
+    }
+    
+    /**
+     * Advance the children to the lowest value at or beyond minimum
+     *
+     * @param minimum
+     *            the minimum to return, or null to simply return the following value
+     * @return the untransformed value, or null if there is none
+     */
+    private T findNext(T minimum) {
+        if (!started) {
+            for (int i = 0; i < children.length; i++) {
+                NestedIterator<T> child = children[i];
+                T head = (minimum == null ? (child.hasNext() ? child.next() : null) : child.move(minimum));
+                if (head != null) {
+                    originals[i] = head;
+                    heads[i] = transformer.transform(head);
+                    heap[size++] = i;
+                }
+            }
+            for (int i = size / 2 - 1; i >= 0; i--) {
+                siftDown(i);
+            }
+            started = true;
+        } else {
+            // advance the children beyond the last value returned
+            while (size > 0 && lastMatch != null && comparator.compare(heads[heap[0]], lastMatch) == 0) {
+                if (minimum != null && comparator.compare(minimum, lastMatch) > 0) {
+                    advanceTop(minimum);
+                } else {
+                    advanceTop(null);
+                }
+            }
+            // move any children lagging behind the minimum
+            while (size > 0 && minimum != null && comparator.compare(heads[heap[0]], minimum) < 0) {
+                advanceTop(minimum);
+            }
+        }
+        
+        if (size == 0) {
+            return null;
+        }
+        
+        int top = heap[0];
+        lastMatch = heads[top];
+        
+        // build the document from every child sharing the lowest value
+        matching.clear();
+        collectMatching(0, lastMatch);
+        document = Util.buildNewDocument(matching);
+        
+        return originals[top];
+    }
+    
+    /**
+     * Advance the child at the top of the heap, either to its next value or to the supplied minimum, and restore the heap
+     */
+    private void advanceTop(T minimum) {
+        int top = heap[0];
+        NestedIterator<T> child = children[top];
+        T head = (minimum == null ? (child.hasNext() ? child.next() : null) : child.move(minimum));
+        if (head == null) {
+            // exhausted, drop it from the heap
+            heap[0] = heap[--size];
+        } else {
+            originals[top] = head;
+            heads[top] = transformer.transform(head);
+        }
+        if (size > 0) {
+            siftDown(0);
+        }
+    }
+    
+    private void collectMatching(int position, T value) {
+        if (position < size && comparator.compare(heads[heap[position]], value) == 0) {
+            matching.add(children[heap[position]]);
+            collectMatching(2 * position + 1, value);
+            collectMatching(2 * position + 2, value);
+        }
+    }
+    
+    private void siftDown(int position) {
+        int child = heap[position];
+        T head = heads[child];
+        int half = size >>> 1;
+        while (position < half) {
+            int smallest = 2 * position + 1;
+            int right = smallest + 1;
+            if (right < size && comparator.compare(heads[heap[right]], heads[heap[smallest]]) < 0) {
+                smallest = right;
+            }
+            if (comparator.compare(head, heads[heap[smallest]]) <= 0) {
+                break;
+            }
+            heap[position] = heap[smallest];
+            position = smallest;
+        }
+        heap[position] = child;
+    }
+    
+    /**
+     * Advance the children to the first value greater than or equal to minimum
+     *
+     * @param minimum
+     *            the minimum to return
+     * @return the first greater than or equal to minimum or null if none exists
+     * @throws IllegalStateException
+     *             if prev is greater than or equal to minimum
+     */
+    public T move(T minimum) {
+        if (null == children) {
+            throw new IllegalStateException("initialize() was never called");
+        }
+        
+        // test preconditions
+        if (prev != null && prev.compareTo(minimum) >= 0) {
+            throw new IllegalStateException("Tried to call move when already at or beyond move point: topkey=" + prev + ", movekey=" + minimum);
+        }
+        
+        // test if the cached next is already beyond the minimum
+        if (!converged || next == null || next.compareTo(minimum) < 0) {
+            next = findNext(minimum);
+            converged = true;
+        }
+        
+        return next();
+    }
+    
+    public Collection<NestedIterator<T>> leaves() {
+        LinkedList<NestedIterator<T>> leaves = new LinkedList<>();
+        for (NestedIterator<T> itr : includes) {
+            leaves.addAll(itr.leaves());
+        }
+        return leaves;
+    }
+    
+    public void remove() {
+        throw new UnsupportedOperationException("This iterator does not support remove.");
+    }
+    
+    public Document document() {
+        return prevDocument;
+    }
+    
+    @Override
+    public Collection<NestedIterator<T>> children() {
+        return new ArrayList<>(includes);
+    }
+    
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("HeapOrIterator: ");
+        
+        sb.append("Includes: ");
+        sb.append(includes);
+        
+        return sb.toString();
+    }
+    
+    /**
+     * None of the includes require context
+     *
+     * @return false
+     */
+    @Override
+    public boolean isContextRequired() {
+        return false;
+    }
+    
+    /**
+     * No context is required, so it is ignored
+     *
+     * @param context
+     */
+    @Override
+    public void setContext(T context) {}
+    
+    /**
+     * the lowest of the children's peeks and heads, or null if all are exhausted
+     *
+     * @return
+     */
+    @Override
+    public T peek() {
+        if (converged) {
+            return next == null ? null : transformer.transform(next);
+        }
+        
+        T lowest = null;
+        if (!started) {
+            for (NestedIterator<T> child : children) {
+                lowest = lower(lowest, child.peek());
+            }
+        } else {
+            for (int i = 0; i < size; i++) {
+                int child = heap[i];
+                if (lastMatch != null && comparator.compare(heads[child], lastMatch) == 0) {
+                    lowest = lower(lowest, children[child].peek());
+                } else {
+                    lowest = lower(lowest, originals[child]);
+                }
+            }
+        }
+        return lowest;
+    }
+    
+    private T lower(T lowest, T hint) {
+        if (hint == null) {
+            return lowest;
+        }
+        T transform = transformer.transform(hint);
+        return (lowest == null || comparator.compare(transform, lowest) < 0) ? transform : lowest;
+    }
+}
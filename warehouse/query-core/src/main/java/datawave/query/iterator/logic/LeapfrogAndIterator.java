@@ -0,0 +1,593 @@
+package datawave.query.iterator.logic;
+
+import datawave.query.attributes.Document;
+import datawave.query.iterator.NestedIterator;
+import datawave.query.iterator.SeekableIterator;
+import datawave.query.iterator.Util;
+import datawave.query.iterator.Util.Transformer;
+import datawave.query.iterator.profile.QuerySpan;
+import org.apache.accumulo.core.data.ByteSequence;
+import org.apache.accumulo.core.data.Range;
+import org.apache.log4j.Logger;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * Performs a leapfrog join of the child iterators, an alternative to the {@link AndIterator} for ANDs which do not have any children requiring context. The
+ * children are kept in an array sorted by their current head, and the lagging child is moved to the current maximum until all of the children agree. Because
+ * each moved child becomes the new maximum the array stays sorted by simply cycling through it, so no sorted structures are rebuilt as the children advance.
+ * <p>
+ * Excluded (negated) children are moved up to each candidate as needed, and the candidate is dropped if any of them lands on it.
+ * <p>
+ * As with the {@link AndIterator}, the children are not advanced past a returned value until the next call to hasNext() or move(), so that a move can take them
+ * straight to the target.
+ * <p>
+ * When adaptive, the iterator tracks how often moving each child overshoots the target, which is how often that child leads the join. After a match only the
+ * child which leads most often is advanced, and the others are leapfrogged straight to it rather than each stepping to its own next value first.
+ */
+public class LeapfrogAndIterator<T extends Comparable<T>> implements NestedIterator<T>, SeekableIterator {
+    private static final Logger log = Logger.getLogger(LeapfrogAndIterator.class);
+    
+    // temporary stores of uninitialized streams of iterators
+    private List<NestedIterator<T>> includes, excludes;
+    
+    private Transformer<T> transformer;
+    private Comparator<T> comparator;
+    
+    // the included children sorted by their transformed heads, along with the untransformed heads
+    private NestedIterator<T>[] children;
+    private T[] heads;
+    private T[] originals;
+    
+    // the excluded children and their transformed heads, null when not yet moved or exhausted
+    private NestedIterator<T>[] filters;
+    private T[] filterHeads;
+    private boolean[] filtersExhausted;
+    
+    // whether the children have been advanced to their first value
+    private boolean started = false;
+    // whether any child has been exhausted, in which case there are no further values
+    private boolean exhausted = false;
+    // the transformed value the children were last joined on, which they must be advanced beyond
+    private T lastMatch;
+    
+    private T prev;
+    private T next;
+    
+    private Document prevDocument, document;
+    private T evaluationContext;
+    
+    private boolean converged = false;
+    
+    // whether to advance only the most selective child after a match
+    private boolean adaptive = false;
+    // the position of each child in the includes, by which the move and lead counts are indexed
+    private int[] ids;
+    private long[] moves;
+    private long[] leads;
+    // the id of the child currently leading, or -1 if none has been chosen
+    private int leader = -1;
+    
+    // a span to count the changes of leader in, may be null
+    private QuerySpan querySpan;
+    
+    public LeapfrogAndIterator(Iterable<NestedIterator<T>> sources) {
+        this(sources, null);
+    }
+    
+    public LeapfrogAndIterator(Iterable<NestedIterator<T>> sources, Iterable<NestedIterator<T>> filters) {
+        includes = new LinkedList<>();
+        for (NestedIterator<T> src : sources) {
+            if (src.isContextRequired()) {
+                throw new IllegalArgumentException("LeapfrogAndIterator does not support includes which require context: " + src);
+            }
+            includes.add(src);
+        }
+        if (includes.isEmpty()) {
+            throw new IllegalArgumentException("LeapfrogAndIterator has no inclusive sources!");
+        }
+        
+        excludes = new LinkedList<>();
+        if (filters != null) {
+            for (NestedIterator<T> filter : filters) {
+                if (filter.isContextRequired()) {
+                    throw new IllegalArgumentException("LeapfrogAndIterator does not support excludes which require context: " + filter);
+                }
+                excludes.add(filter);
+            }
+        }
+    }
+    
+    /**
+     * Determine whether a LeapfrogAndIterator can replace an {@link AndIterator} over the supplied sources, which is the case when there are includes and
+     * neither the includes nor the excludes require context.
+     *
+     * @param sources
+     *            the includes
+     * @param filters
+     *            the excludes
+     * @return true if a LeapfrogAndIterator can be used
+     */
+    public static <T> boolean isSupported(Iterable<NestedIterator<T>> sources, Iterable<NestedIterator<T>> filters) {
+        boolean hasIncludes = false;
+        for (NestedIterator<T> src : sources) {
+            if (src.isContextRequired()) {
+                return false;
+            }
+            hasIncludes = true;
+        }
+        if (filters != null) {
+            for (NestedIterator<T> filter : filters) {
+                if (filter.isContextRequired()) {
+                    return false;
+                }
+            }
+        }
+        return hasIncludes;
+    }
+    
+    @SuppressWarnings("unchecked")
+    public void initialize() {
+        transformer = Util.keyTransformer();
+        comparator = Util.keyComparator();
+        
+        for (NestedIterator<T> include : includes) {
+            include.initialize();
+        }
+        for (NestedIterator<T> exclude : excludes) {
+            exclude.initialize();
+        }
+        
+        children = includes.toArray(new NestedIterator[includes.size()]);
+        heads = (T[]) new Comparable[children.length];
+        originals = (T[]) new Comparable[children.length];
+        
+        ids = new int[children.length];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = i;
+        }
+        // keep the counts across seeks unless an include has been dropped
+        if (moves == null || moves.length != children.length) {
+            moves = new long[children.length];
+            leads = new long[children.length];
+            leader = -1;
+        }
+        
+        filters = excludes.toArray(new NestedIterator[excludes.size()]);
+        filterHeads = (T[]) new Comparable[filters.length];
+        filtersExhausted = new boolean[filters.length];
+        
+        reset();
+    }
+    
+    public boolean isAdaptive() {
+        return adaptive;
+    }
+    
+    /**
+     * @param adaptive
+     *            whether to advance only the child which leads most often after a match
+     */
+    public void setAdaptive(boolean adaptive) {
+        this.adaptive = adaptive;
+    }
+    
+    public void setQuerySpan(QuerySpan querySpan) {
+        this.querySpan = querySpan;
+    }
+    
+    public boolean isInitialized() {
+        return children != null;
+    }
+    
+    private void reset() {
+        started = false;
+        exhausted = false;
+        lastMatch = null;
+        converged = false;
+        prev = null;
+        next = null;
+        document = null;
+        Arrays.fill(filterHeads, null);
+        Arrays.fill(filtersExhausted, false);
+    }
+    
+    /**
+     * return the previously found next and set its document. The children are advanced to find the following next on the next call to hasNext() or move()
+     *
+     * @return the previously found next
+     */
+    public T next() {
+        if (!isInitialized()) {
+            throw new IllegalStateException("initialize() was never called");
+        }
+        if (!converged) {
+            hasNext();
+        }
+        
+        prev = next;
+        prevDocument = document;
+        
+        next = null;
+        document = null;
+        converged = false;
+        
+        return prev;
+    }
+    
+    public void remove() {
+        throw new UnsupportedOperationException("This iterator does not support remove.");
+    }
+    
+    public boolean hasNext() {
+        if (!isInitialized()) {
+            throw new IllegalStateException("initialize() was never called");
+        }
+        
+        if (!converged) {
+            next = findNext(null);
+            converged = true;
+        }
+        
+        return next != null;
+    }
+    
+    /**
+     * Advance the children to the next value at or beyond minimum that all of the includes agree on and no exclude matches
+     *
+     * @param minimum
+     *            the minimum to return, or null to simply return the following value
+     * @return the untransformed value, or null if there is none
+     */
+    private T findNext(T minimum) {
+        if (exhausted) {
+            return null;
+        }
+        if (evaluationContext != null && (minimum == null || comparator.compare(minimum, evaluationContext) < 0)) {
+            // a value other than the context can not match so start there
+            minimum = evaluationContext;
+        }
+        
+        if (!advanceChildren(minimum)) {
+            return null;
+        }
+        
+        // order the children by head, after which the maximum is the last
+        sortChildren();
+        int position = 0;
+        T max = heads[heads.length - 1];
+        while (true) {
+            if (evaluationContext != null && comparator.compare(max, evaluationContext) > 0) {
+                // it is not possible to intersect on the context anymore
+                return null;
+            }
+            
+            if (comparator.compare(heads[position], max) == 0) {
+                // every child has been moved to max, so they all agree on it
+                if (isFiltered(max)) {
+                    // advance all children beyond the filtered value and start again
+                    lastMatch = max;
+                    if (!advanceChildren(null)) {
+                        return null;
+                    }
+                    sortChildren();
+                    position = 0;
+                    max = heads[heads.length - 1];
+                    continue;
+                }
+                
+                lastMatch = max;
+                document = Util.buildNewDocument(Arrays.asList(children));
+                return originals[position];
+            }
+            
+            // leapfrog the lagging child to the current maximum, which makes it the new maximum
+            if (!moveChild(position, max)) {
+                return null;
+            }
+            max = heads[position];
+            position = (position + 1) % heads.length;
+        }
+    }
+    
+    /**
+     * Advance every child beyond the last match, and at least to the minimum if supplied
+     *
+     * @return false if any child is exhausted
+     */
+    private boolean advanceChildren(T minimum) {
+        if (adaptive && started && minimum == null && lastMatch != null && children.length > 1) {
+            int i = chooseLeader();
+            if (comparator.compare(heads[i], lastMatch) == 0) {
+                if (!nextChild(i)) {
+                    return false;
+                }
+                if (comparator.compare(heads[i], lastMatch) > 0) {
+                    // the others remain on the last match and will be moved to the leader by the join
+                    return true;
+                }
+            }
+        }
+        
+        for (int i = 0; i < children.length; i++) {
+            T head = heads[i];
+            if (!started || (lastMatch != null && comparator.compare(head, lastMatch) == 0)) {
+                if (minimum != null && (head == null || comparator.compare(head, minimum) < 0)) {
+                    if (!moveChild(i, minimum)) {
+                        return false;
+                    }
+                } else if (!nextChild(i)) {
+                    return false;
+                }
+            } else if (minimum != null && comparator.compare(head, minimum) < 0) {
+                if (!moveChild(i, minimum)) {
+                    return false;
+                }
+            }
+        }
+        started = true;
+        return true;
+    }
+    
+    private boolean nextChild(int i) {
+        NestedIterator<T> child = children[i];
+        return setHead(i, child.hasNext() ? child.next() : null);
+    }
+    
+    private boolean moveChild(int i, T to) {
+        if (!setHead(i, children[i].move(to))) {
+            return false;
+        }
+        if (adaptive) {
+            moves[ids[i]]++;
+            if (comparator.compare(heads[i], to) > 0) {
+                leads[ids[i]]++;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Choose the child which most often overshoots the target when moved, counting a change of leader in the query span
+     *
+     * @return the current position of the leader in the children
+     */
+    private int chooseLeader() {
+        int best = 0;
+        double bestRatio = -1;
+        for (int i = 0; i < children.length; i++) {
+            double ratio = (leads[ids[i]] + 1.0d) / (moves[ids[i]] + 2.0d);
+            if (ratio > bestRatio) {
+                best = i;
+                bestRatio = ratio;
+            }
+        }
+        if (ids[best] != leader) {
+            if (leader != -1 && querySpan != null) {
+                querySpan.reorder(1);
+            }
+            leader = ids[best];
+        }
+        return best;
+    }
+    
+    private boolean setHead(int i, T original) {
+        if (original == null) {
+            exhausted = true;
+            started = true;
+            return false;
+        }
+        originals[i] = original;
+        heads[i] = transformer.transform(original);
+        return true;
+    }
+    
+    /**
+     * Insertion sort the children by head. After a join the heads are nearly sorted already, so this is close to linear.
+     */
+    private void sortChildren() {
+        for (int i = 1; i < children.length; i++) {
+            NestedIterator<T> child = children[i];
+            T head = heads[i];
+            T original = originals[i];
+            int id = ids[i];
+            int j = i - 1;
+            while (j >= 0 && comparator.compare(heads[j], head) > 0) {
+                children[j + 1] = children[j];
+                heads[j + 1] = heads[j];
+                originals[j + 1] = originals[j];
+                ids[j + 1] = ids[j];
+                j--;
+            }
+            children[j + 1] = child;
+            heads[j + 1] = head;
+            originals[j + 1] = original;
+            ids[j + 1] = id;
+        }
+    }
+    
+    /**
+     * Moves the excludes up to the candidate if necessary
+     *
+     * @param candidate
+     *            the transformed candidate
+     * @return true if any exclude matches the candidate
+     */
+    private boolean isFiltered(T candidate) {
+        boolean filtered = false;
+        for (int i = 0; i < filters.length; i++) {
+            if (filtersExhausted[i]) {
+                continue;
+            }
+            if (filterHeads[i] == null || comparator.compare(filterHeads[i], candidate) < 0) {
+                T filterHead = filters[i].move(candidate);
+                if (filterHead == null) {
+                    filtersExhausted[i] = true;
+                    filterHeads[i] = null;
+                    continue;
+                }
+                filterHeads[i] = transformer.transform(filterHead);
+            }
+            if (comparator.compare(filterHeads[i], candidate) == 0) {
+                filtered = true;
+            }
+        }
+        return filtered;
+    }
+    
+    @Override
+    public void seek(Range range, Collection<ByteSequence> columnFamilies, boolean inclusive) throws IOException {
+        // seek all of the iterators. Drop those that fail, as long as we have at least one include left
+        Iterator<NestedIterator<T>> include = includes.iterator();
+        while (include.hasNext()) {
+            NestedIterator<T> child = include.next();
+            try {
+                for (NestedIterator<T> itr : child.leaves()) {
+                    if (itr instanceof SeekableIterator) {
+                        ((SeekableIterator) itr).seek(range, columnFamilies, inclusive);
+                    }
+                }
+            } catch (Exception e) {
+                include.remove();
+                if (includes.isEmpty()) {
+                    throw e;
+                } else {
+                    log.warn("Failed include lookup, but dropping in lieu of other terms", e);
+                }
+            }
+        }
+        for (NestedIterator<T> child : excludes) {
+            for (NestedIterator<T> itr : child.leaves()) {
+                if (itr instanceof SeekableIterator) {
+                    ((SeekableIterator) itr).seek(range, columnFamilies, inclusive);
+                }
+            }
+        }
+        
+        if (isInitialized()) {
+            // the children are repositioned, so rebuild the arrays and start over
+            initialize();
+        }
+    }
+    
+    /**
+     * Advance the children to the first value greater than or equal to minimum
+     *
+     * @param minimum
+     *            the minimum to return
+     * @return the first greater than or equal to minimum or null if none exists
+     * @throws IllegalStateException
+     *             if prev is greater than or equal to minimum
+     */
+    public T move(T minimum) {
+        if (!isInitialized()) {
+            throw new IllegalStateException("initialize() was never called");
+        }
+        
+        if (prev != null && prev.compareTo(minimum) >= 0) {
+            throw new IllegalStateException("Tried to call move when already at or beyond move point: topkey=" + prev + ", movekey=" + minimum);
+        }
+        
+        // test if the cached next is already beyond the minimum
+        if (!converged || next == null || next.compareTo(minimum) < 0) {
+            next = findNext(minimum);
+            converged = true;
+        }
+        
+        return next();
+    }
+    
+    public Collection<NestedIterator<T>> leaves() {
+        LinkedList<NestedIterator<T>> leaves = new LinkedList<>();
+        // treat this node as a leaf to allow us to pass through the seek method and appropriately drop branches if possible.
+        leaves.add(this);
+        return leaves;
+    }
+    
+    @Override
+    public Collection<NestedIterator<T>> children() {
+        ArrayList<NestedIterator<T>> children = new ArrayList<>(includes.size() + excludes.size());
+        
+        children.addAll(includes);
+        children.addAll(excludes);
+        
+        return children;
+    }
+    
+    /**
+     * The highest of the children's peeks, or null if any child is exhausted
+     */
+    @Override
+    public T peek() {
+        if (!isInitialized()) {
+            throw new IllegalStateException("must be initialized prior to calling hint");
+        }
+        if (exhausted) {
+            return null;
+        }
+        if (converged) {
+            return next == null ? null : transformer.transform(next);
+        }
+        
+        T highest = null;
+        for (int i = 0; i < children.length; i++) {
+            T hint;
+            if (!started || (lastMatch != null && comparator.compare(heads[i], lastMatch) == 0)) {
+                hint = children[i].peek();
+            } else {
+                hint = originals[i];
+            }
+            if (hint == null) {
+                return null;
+            }
+            T transform = transformer.transform(hint);
+            if (highest == null || comparator.compare(transform, highest) > 0) {
+                highest = transform;
+            }
+        }
+        return highest;
+    }
+    
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("LeapfrogAndIterator: ");
+        
+        sb.append("Includes: ");
+        sb.append(includes);
+        sb.append(", Excludes: ");
+        sb.append(excludes);
+        
+        return sb.toString();
+    }
+    
+    public Document document() {
+        return prevDocument;
+    }
+    
+    /**
+     * There is always at least one include, so no context is required
+     *
+     * @return false
+     */
+    @Override
+    public boolean isContextRequired() {
+        return false;
+    }
+    
+    /**
+     * This context will be used as an anchor point for the join during next calls, only a value equal to it may be returned
+     *
+     * @param context
+     */
+    @Override
+    public void setContext(T context) {
+        this.evaluationContext = context;
+    }
+}
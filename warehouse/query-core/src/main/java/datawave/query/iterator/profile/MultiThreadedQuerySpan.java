@@ -51,6 +51,11 @@ public class MultiThreadedQuerySpan extends QuerySpan {
         return getThreadSpecificQuerySpan().getYield();
     }
     
+    @Override
+    public long getReorderCount() {
+        return getThreadSpecificQuerySpan().getReorderCount();
+    }
+    
     @Override
     public synchronized void next() {
         getThreadSpecificQuerySpan().next();
@@ -66,6 +71,11 @@ public class MultiThreadedQuerySpan extends QuerySpan {
         getThreadSpecificQuerySpan().yield();
     }
     
+    @Override
+    public synchronized void reorder(long count) {
+        getThreadSpecificQuerySpan().reorder(count);
+    }
+    
     @Override
     public void reset() {
         super.reset();
@@ -92,6 +102,16 @@ public class MultiThreadedQuerySpan extends QuerySpan {
         return getThreadSpecificQuerySpan().getStageTimerTotal();
     }
     
+    @Override
+    public void addNodeEvaluation(String node, boolean matched, long elapsed) {
+        getThreadSpecificQuerySpan().addNodeEvaluation(node, matched, elapsed);
+    }
+    
+    @Override
+    public Map<String,QueryNodeProfile> getNodeProfiles() {
+        return getThreadSpecificQuerySpan().getNodeProfiles();
+    }
+    
     @Override
     public void setSeek(long seek) {
         getThreadSpecificQuerySpan().setSeek(seek);
@@ -107,6 +127,11 @@ public class MultiThreadedQuerySpan extends QuerySpan {
         getThreadSpecificQuerySpan().setYield(yield);
     }
     
+    @Override
+    public void setReorderCount(long reorder) {
+        getThreadSpecificQuerySpan().setReorderCount(reorder);
+    }
+    
     @Override
     public void setSourceCount(long sourceCount) {
         getThreadSpecificQuerySpan().setSourceCount(sourceCount);
@@ -117,6 +142,11 @@ public class MultiThreadedQuerySpan extends QuerySpan {
         getThreadSpecificQuerySpan().setStageTimers(stageTimers);
     }
     
+    @Override
+    public void setNodeProfiles(Map<String,QueryNodeProfile> nodeProfiles) {
+        getThreadSpecificQuerySpan().setNodeProfiles(nodeProfiles);
+    }
+    
     public String toString() {
         return getThreadSpecificQuerySpan().toString();
     }
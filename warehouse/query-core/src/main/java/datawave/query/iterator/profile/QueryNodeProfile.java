@@ -0,0 +1,55 @@
+package datawave.query.iterator.profile;
+
+/**
+ * The aggregated evaluation counts and time of a single node of the query tree. The time of a node includes the time spent evaluating its children.
+ */
+public class QueryNodeProfile {
+    
+    private long invocations = 0;
+    
+    private long trueCount = 0;
+    
+    private long nanos = 0;
+    
+    public QueryNodeProfile() {}
+    
+    public QueryNodeProfile(long invocations, long trueCount, long nanos) {
+        this.invocations = invocations;
+        this.trueCount = trueCount;
+        this.nanos = nanos;
+    }
+    
+    public void addEvaluation(boolean matched, long elapsed) {
+        invocations++;
+        if (matched) {
+            trueCount++;
+        }
+        nanos += elapsed;
+    }
+    
+    public void merge(QueryNodeProfile other) {
+        invocations += other.invocations;
+        trueCount += other.trueCount;
+        nanos += other.nanos;
+    }
+    
+    public long getInvocations() {
+        return invocations;
+    }
+    
+    public long getTrueCount() {
+        return trueCount;
+    }
+    
+    public long getFalseCount() {
+        return invocations - trueCount;
+    }
+    
+    public long getNanos() {
+        return nanos;
+    }
+    
+    public String toString() {
+        return "invocations:" + invocations + " true:" + trueCount + " nanos:" + nanos;
+    }
+}
@@ -30,10 +30,16 @@ public class QuerySpan {
     
     protected boolean yield = false;
     
+    // the number of times an iterator or the evaluation changed the order of its children
+    protected long reorder = 0;
+    
     private Map<String,Long> stageTimers = new LinkedHashMap<>();
     
     private long stageTimerTotal = 0;
     
+    // the evaluation profile of the query tree, keyed by the query string of each node
+    private Map<String,QueryNodeProfile> nodeProfiles = new LinkedHashMap<>();
+    
     public enum Stage {
         EmptyTree,
         DocumentSpecificTree,
@@ -96,6 +102,14 @@ public class QuerySpan {
         return seekCount;
     }
     
+    public long getReorderCount() {
+        long reorderCount = reorder;
+        for (QuerySpan subSpan : sources) {
+            reorderCount += subSpan.getReorderCount();
+        }
+        return reorderCount;
+    }
+    
     public boolean getYield() {
         if (yield) {
             return true;
@@ -111,7 +125,7 @@ public class QuerySpan {
     public String toString() {
         StringBuilder sb = new StringBuilder();
         sb.append(super.toString()).append(" sources:").append(getSourceCount()).append(" next:").append(getNextCount()).append(" seek:")
-                        .append(getSeekCount()).append(" yield:").append(getYield());
+                        .append(getSeekCount()).append(" yield:").append(getYield()).append(" reorder:").append(getReorderCount());
         return sb.toString();
     }
     
@@ -156,6 +170,13 @@ public class QuerySpan {
         }
     }
     
+    public synchronized void reorder(long count) {
+        reorder += count;
+        if (log.isTraceEnabled()) {
+            logStack("reorder()");
+        }
+    }
+    
     public void reset() {
         for (QuerySpan source : sources) {
             source.reset();
@@ -164,8 +185,10 @@ public class QuerySpan {
         next = 0;
         seek = 0;
         yield = false;
+        reorder = 0;
         stageTimerTotal = 0;
         stageTimers.clear();
+        nodeProfiles.clear();
     }
     
     public void addStageTimer(QuerySpan.Stage stageName, long elapsed) {
@@ -176,8 +199,18 @@ public class QuerySpan {
         }
     }
     
+    public synchronized void addNodeEvaluation(String node, boolean matched, long elapsed) {
+        QueryNodeProfile nodeProfile = nodeProfiles.get(node);
+        if (nodeProfile == null) {
+            nodeProfile = new QueryNodeProfile();
+            nodeProfiles.put(node, nodeProfile);
+        }
+        nodeProfile.addEvaluation(matched, elapsed);
+    }
+    
     public boolean hasEntries() {
-        if (this.getSeekCount() > 0 || this.getNextCount() > 0 || this.getYield() || this.getSourceCount() > 0 || !this.stageTimers.isEmpty()) {
+        if (this.getSeekCount() > 0 || this.getNextCount() > 0 || this.getYield() || this.getSourceCount() > 0 || this.getReorderCount() > 0
+                        || !this.stageTimers.isEmpty() || !this.nodeProfiles.isEmpty()) {
             return true;
         } else {
             return false;
@@ -196,6 +229,10 @@ public class QuerySpan {
         return stageTimerTotal;
     }
     
+    public Map<String,QueryNodeProfile> getNodeProfiles() {
+        return nodeProfiles;
+    }
+    
     public void setSeek(long seek) {
         this.seek = seek;
     }
@@ -208,6 +245,10 @@ public class QuerySpan {
         this.yield = yield;
     }
     
+    public void setReorderCount(long reorder) {
+        this.reorder = reorder;
+    }
+    
     public void setSourceCount(long sourceCount) {
         this.sourceCount = sourceCount;
     }
@@ -218,4 +259,13 @@ public class QuerySpan {
             addStageTimer(QuerySpan.Stage.valueOf(entry.getKey()), entry.getValue());
         }
     }
+    
+    public void setNodeProfiles(Map<String,QueryNodeProfile> nodeProfiles) {
+        this.nodeProfiles.clear();
+        for (Map.Entry<String,QueryNodeProfile> entry : nodeProfiles.entrySet()) {
+            QueryNodeProfile nodeProfile = new QueryNodeProfile();
+            nodeProfile.merge(entry.getValue());
+            this.nodeProfiles.put(entry.getKey(), nodeProfile);
+        }
+    }
 }
@@ -12,7 +12,9 @@ public class QuerySpanCollector {
     private AtomicLong nextCount = new AtomicLong();
     private AtomicBoolean yield = new AtomicBoolean();
     private AtomicLong sourceCount = new AtomicLong();
+    private AtomicLong reorderCount = new AtomicLong();
     private Map<String,Long> stageTimers = new LinkedHashMap<>();
+    private Map<String,QueryNodeProfile> nodeProfiles = new LinkedHashMap<>();
     private Logger log = Logger.getLogger(QuerySpan.class);
     
     public void addQuerySpan(QuerySpan querySpan) {
@@ -23,6 +25,7 @@ public class QuerySpanCollector {
                 nextCount.addAndGet(querySpan.getNextCount());
                 yield.set(querySpan.getYield());
                 sourceCount.addAndGet(querySpan.getSourceCount());
+                reorderCount.addAndGet(querySpan.getReorderCount());
                 Map<String,Long> timers = querySpan.getStageTimers();
                 for (Map.Entry<String,Long> entry : timers.entrySet()) {
                     String k = entry.getKey();
@@ -33,6 +36,14 @@ public class QuerySpanCollector {
                         stageTimers.put(k, entry.getValue());
                     }
                 }
+                for (Map.Entry<String,QueryNodeProfile> entry : querySpan.getNodeProfiles().entrySet()) {
+                    QueryNodeProfile nodeProfile = nodeProfiles.get(entry.getKey());
+                    if (nodeProfile == null) {
+                        nodeProfile = new QueryNodeProfile();
+                        nodeProfiles.put(entry.getKey(), nodeProfile);
+                    }
+                    nodeProfile.merge(entry.getValue());
+                }
             }
             if (log.isTraceEnabled()) {
                 log.trace("thread:" + Thread.currentThread().getId() + " collector: " + this + " added querySpan: " + querySpan);
@@ -51,8 +62,11 @@ public class QuerySpanCollector {
                 combinedQuerySpan.setSeek(this.seekCount.getAndSet(0));
                 combinedQuerySpan.setYield(this.yield.getAndSet(false));
                 combinedQuerySpan.setSourceCount(this.sourceCount.getAndSet(0));
+                combinedQuerySpan.setReorderCount(this.reorderCount.getAndSet(0));
                 combinedQuerySpan.setStageTimers(this.stageTimers);
                 this.stageTimers.clear();
+                combinedQuerySpan.setNodeProfiles(this.nodeProfiles);
+                this.nodeProfiles.clear();
             }
         }
         return combinedQuerySpan;
@@ -60,7 +74,7 @@ public class QuerySpanCollector {
     
     public boolean hasEntries() {
         if (this.seekCount.intValue() > 0 || this.nextCount.intValue() > 0 || this.yield.get() || this.sourceCount.intValue() > 0
-                        || !this.stageTimers.isEmpty()) {
+                        || this.reorderCount.intValue() > 0 || !this.stageTimers.isEmpty() || !this.nodeProfiles.isEmpty()) {
             return true;
         } else {
             return false;
@@ -85,7 +99,7 @@ public class QuerySpanCollector {
     public String toString() {
         StringBuilder sb = new StringBuilder();
         sb.append(super.toString()).append(" seek:").append(seekCount).append(" next:").append(nextCount).append(" yield:").append(yield).append(" sources:")
-                        .append(sourceCount);
+                        .append(sourceCount).append(" reorder:").append(reorderCount);
         return sb.toString();
     }
     
@@ -118,8 +132,16 @@ public class QuerySpanCollector {
         return sourceCount.longValue();
     }
     
+    public long getReorderCount() {
+        return reorderCount.longValue();
+    }
+    
     public Map<String,Long> getStageTimers() {
         return Collections.unmodifiableMap(stageTimers);
     }
     
+    public Map<String,QueryNodeProfile> getNodeProfiles() {
+        return Collections.unmodifiableMap(nodeProfiles);
+    }
+    
 }
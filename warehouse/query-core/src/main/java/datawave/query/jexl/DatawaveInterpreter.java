@@ -19,6 +19,7 @@ import org.apache.commons.jexl2.parser.ASTFunctionNode;
 import org.apache.commons.jexl2.parser.ASTGENode;
 import org.apache.commons.jexl2.parser.ASTGTNode;
 import org.apache.commons.jexl2.parser.ASTIdentifier;
+import org.apache.commons.jexl2.parser.ASTJexlScript;
 import org.apache.commons.jexl2.parser.ASTLENode;
 import org.apache.commons.jexl2.parser.ASTLTNode;
 import org.apache.commons.jexl2.parser.ASTMethodNode;
@@ -55,6 +56,9 @@ public class DatawaveInterpreter extends Interpreter {
     
     protected Map<String,Object> resultMap;
     
+    // the precomputed node strings and ranges of the script being interpreted, if it was prepared
+    protected PreparedJexlScript preparedScript;
+    
     private static final Logger log = Logger.getLogger(DatawaveInterpreter.class);
     
     public DatawaveInterpreter(JexlEngine jexl, JexlContext aContext, boolean strictFlag, boolean silentFlag) {
@@ -62,6 +66,25 @@ public class DatawaveInterpreter extends Interpreter {
         resultMap = Maps.newHashMap();
     }
     
+    /**
+     * Interpret a prepared script, using its precomputed node strings and ranges rather than computing them as each node is visited
+     *
+     * @param preparedScript
+     *            the prepared script
+     * @return the result of the script
+     */
+    public Object interpret(PreparedJexlScript preparedScript) {
+        this.preparedScript = preparedScript;
+        ASTJexlScript script = preparedScript.getScript();
+        setFrame(script.createFrame((Object[]) null));
+        return interpret(script);
+    }
+    
+    private String getNodeString(JexlNode node) {
+        String nodeString = (preparedScript == null ? null : preparedScript.getNodeString(node));
+        return nodeString != null ? nodeString : JexlStringBuildingVisitor.buildQueryWithoutParse(node);
+    }
+    
     /**
      * This convenience method can be used to interpret the result of the script.execute() result which calls the interpret method below.
      * 
@@ -87,7 +110,7 @@ public class DatawaveInterpreter extends Interpreter {
     
     @Override
     public Object visit(ASTFunctionNode node, Object data) {
-        String nodeString = JexlStringBuildingVisitor.buildQueryWithoutParse(node);
+        String nodeString = getNodeString(node);
         
         Object result = resultMap.get(nodeString);
         if (null != result) {
@@ -135,7 +158,7 @@ public class DatawaveInterpreter extends Interpreter {
     
     @Override
     public Object visit(ASTEQNode node, Object data) {
-        String nodeString = JexlStringBuildingVisitor.buildQueryWithoutParse(node);
+        String nodeString = getNodeString(node);
         
         Object result = resultMap.get(nodeString);
         if (null != result)
@@ -147,7 +170,7 @@ public class DatawaveInterpreter extends Interpreter {
     
     @Override
     public Object visit(ASTERNode node, Object data) {
-        String nodeString = JexlStringBuildingVisitor.buildQueryWithoutParse(node);
+        String nodeString = getNodeString(node);
         
         Object result = resultMap.get(nodeString);
         if (null != result)
@@ -270,7 +293,12 @@ public class DatawaveInterpreter extends Interpreter {
     private Collection<?> evaluateRange(ASTAndNode node) {
         Collection<?> evaluation = null;
         
-        LiteralRange range = JexlASTHelper.findRange().getRange(node);
+        LiteralRange range;
+        if (preparedScript != null && preparedScript.hasRange(node)) {
+            range = preparedScript.getRange(node);
+        } else {
+            range = JexlASTHelper.findRange().getRange(node);
+        }
         if (range != null) {
             JexlNode left = range.getLowerNode();
             JexlNode right = range.getUpperNode();
@@ -333,9 +361,17 @@ public class DatawaveInterpreter extends Interpreter {
             return evaluation;
         }
         
+        // evaluate the child which rejects documents most cheaply first when adaptive, otherwise in the order of the query
+        PreparedJexlScript.AndOrder andOrder = (preparedScript != null ? preparedScript.getAndOrder(node) : null);
+        int first = (andOrder != null ? andOrder.getFirst() : 0);
+        
         FunctionalSet leftFunctionalSet = null;
         FunctionalSet rightFunctionalSet = null;
-        Object left = node.jjtGetChild(0).jjtAccept(this, data);
+        long start = (andOrder != null ? System.nanoTime() : 0);
+        Object left = node.jjtGetChild(first).jjtAccept(this, data);
+        if (andOrder != null) {
+            andOrder.addEvaluation(first, left, System.nanoTime() - start);
+        }
         if (left == null)
             left = FunctionalSet.empty();
         if (left instanceof Collection == false) {
@@ -345,14 +381,18 @@ public class DatawaveInterpreter extends Interpreter {
                     return Boolean.FALSE;
                 }
             } catch (RuntimeException xrt) {
-                throw new JexlException(node.jjtGetChild(0), "boolean coercion error", xrt);
+                throw new JexlException(node.jjtGetChild(first), "boolean coercion error", xrt);
             }
         } else {
             if (leftFunctionalSet == null)
                 leftFunctionalSet = new FunctionalSet();
             leftFunctionalSet.addAll((Collection) left);
         }
-        Object right = node.jjtGetChild(1).jjtAccept(this, data);
+        start = (andOrder != null ? System.nanoTime() : 0);
+        Object right = node.jjtGetChild(1 - first).jjtAccept(this, data);
+        if (andOrder != null) {
+            andOrder.addEvaluation(1 - first, right, System.nanoTime() - start);
+        }
         if (right == null)
             right = FunctionalSet.empty();
         if (right instanceof Collection == false) {
@@ -362,7 +402,7 @@ public class DatawaveInterpreter extends Interpreter {
                     return Boolean.FALSE;
                 }
             } catch (ArithmeticException xrt) {
-                throw new JexlException(node.jjtGetChild(1), "boolean coercion error", xrt);
+                throw new JexlException(node.jjtGetChild(1 - first), "boolean coercion error", xrt);
             }
         } else {
             if (rightFunctionalSet == null)
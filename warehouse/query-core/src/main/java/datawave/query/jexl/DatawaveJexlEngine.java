@@ -2,10 +2,13 @@ package datawave.query.jexl;
 
 import java.util.Map;
 
+import datawave.query.iterator.profile.QuerySpan;
+import org.apache.commons.jexl2.ExpressionImpl;
 import org.apache.commons.jexl2.Interpreter;
 import org.apache.commons.jexl2.JexlArithmetic;
 import org.apache.commons.jexl2.JexlContext;
 import org.apache.commons.jexl2.JexlEngine;
+import org.apache.commons.jexl2.Script;
 import org.apache.commons.jexl2.introspection.Uberspect;
 import org.apache.commons.jexl2.parser.ASTJexlScript;
 import org.apache.commons.logging.Log;
@@ -37,4 +40,51 @@ public class DatawaveJexlEngine extends JexlEngine {
     public ASTJexlScript parse(CharSequence expression) {
         return super.parse(expression, null, null);
     }
+    
+    /**
+     * Create a script from a tree which has already been parsed, rather than parsing its text again as {@link #createScript(String)} would
+     *
+     * @param script
+     *            the parsed tree
+     * @param text
+     *            the text the tree was parsed from
+     * @return the script
+     */
+    public Script createScript(ASTJexlScript script, String text) {
+        return new ParsedScript(this, text, script);
+    }
+    
+    /**
+     * Execute a prepared script, the same as {@link org.apache.commons.jexl2.Script#execute(JexlContext)} would for its tree
+     *
+     * @param preparedScript
+     *            the prepared script
+     * @param context
+     *            the context to evaluate against
+     * @return the result of the script
+     */
+    public Object execute(PreparedJexlScript preparedScript, JexlContext context) {
+        return ((DatawaveInterpreter) createInterpreter(context)).interpret(preparedScript);
+    }
+    
+    /**
+     * Execute a prepared script, recording the evaluation profile of its nodes
+     *
+     * @param preparedScript
+     *            the prepared script
+     * @param context
+     *            the context to evaluate against
+     * @param querySpan
+     *            the span to record the evaluation profile into
+     * @return the result of the script
+     */
+    public Object execute(PreparedJexlScript preparedScript, JexlContext context, QuerySpan querySpan) {
+        return new ProfilingDatawaveInterpreter(this, context, isStrict(), isSilent(), querySpan).interpret(preparedScript);
+    }
+    
+    private static class ParsedScript extends ExpressionImpl {
+        ParsedScript(JexlEngine engine, String text, ASTJexlScript script) {
+            super(engine, text, script);
+        }
+    }
 }
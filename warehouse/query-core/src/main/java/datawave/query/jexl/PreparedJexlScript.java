@@ -0,0 +1,251 @@
+package datawave.query.jexl;
+
+import datawave.query.jexl.visitors.JexlStringBuildingVisitor;
+import org.apache.commons.jexl2.parser.ASTAndNode;
+import org.apache.commons.jexl2.parser.ASTEQNode;
+import org.apache.commons.jexl2.parser.ASTERNode;
+import org.apache.commons.jexl2.parser.ASTFunctionNode;
+import org.apache.commons.jexl2.parser.ASTJexlScript;
+import org.apache.commons.jexl2.parser.JexlNode;
+import org.apache.log4j.Logger;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * A query tree prepared once for repeated evaluation by the {@link DatawaveInterpreter}. The interpreter otherwise rebuilds the query string of every EQ, ER
+ * and function node, and searches every AND node for a bounded range, for each document it evaluates. Those only depend on the tree, so they are computed up
+ * front here and looked up by node identity.
+ * <p>
+ * The tree must not be modified after it has been prepared. Nodes not found in the prepared script, for instance ones created during evaluation, are handled
+ * by the interpreter as before.
+ * <p>
+ * When adaptive, the script also keeps the evaluation statistics of both children of each AND node, from which the interpreter chooses the child to evaluate
+ * first as the one that rejects documents most cheaply.
+ */
+public class PreparedJexlScript {
+    
+    private static final Logger log = Logger.getLogger(PreparedJexlScript.class);
+    
+    // the longest node name reported in an evaluation profile
+    public static final int MAX_PROFILE_NAME_LENGTH = 512;
+    
+    private final ASTJexlScript script;
+    
+    // the query strings of the nodes whose results the interpreter caches
+    private final Map<JexlNode,String> nodeStrings = new IdentityHashMap<>();
+    
+    // the ranges found in the AND nodes, with null for those which are not ranges
+    private final Map<JexlNode,LiteralRange> ranges = new IdentityHashMap<>();
+    
+    // the names of the nodes in an evaluation profile, computed as the nodes are profiled
+    private final Map<JexlNode,String> profileNames = new IdentityHashMap<>();
+    
+    // the evaluation order of the binary AND nodes, only populated when adaptive
+    private final Map<JexlNode,AndOrder> andOrders = new IdentityHashMap<>();
+    
+    private boolean adaptive = false;
+    
+    public PreparedJexlScript(ASTJexlScript script) {
+        this.script = script;
+        
+        // iterative traversal to avoid a stack overflow on large or'd lists
+        Deque<JexlNode> stack = new ArrayDeque<>();
+        stack.push(script);
+        while (!stack.isEmpty()) {
+            JexlNode node = stack.pop();
+            
+            if (node instanceof ASTEQNode || node instanceof ASTERNode || node instanceof ASTFunctionNode) {
+                nodeStrings.put(node, JexlStringBuildingVisitor.buildQueryWithoutParse(node));
+            } else if (node instanceof ASTAndNode) {
+                try {
+                    ranges.put(node, JexlASTHelper.findRange().getRange(node));
+                } catch (RuntimeException e) {
+                    // leave it to the interpreter to find the range when evaluating
+                    log.debug("Unable to find the range for " + JexlStringBuildingVisitor.buildQueryWithoutParse(node), e);
+                }
+            }
+            
+            for (int i = node.jjtGetNumChildren() - 1; i >= 0; i--) {
+                stack.push(node.jjtGetChild(i));
+            }
+        }
+    }
+    
+    public ASTJexlScript getScript() {
+        return script;
+    }
+    
+    /**
+     * Get the query string of an EQ, ER or function node
+     *
+     * @param node
+     *            the node
+     * @return the query string, or null if the node was not prepared
+     */
+    public String getNodeString(JexlNode node) {
+        return nodeStrings.get(node);
+    }
+    
+    /**
+     * @param node
+     *            an AND node
+     * @return true if the range of the node is known, in which case {@link #getRange(JexlNode)} can be used
+     */
+    public boolean hasRange(JexlNode node) {
+        return ranges.containsKey(node);
+    }
+    
+    /**
+     * @param node
+     *            an AND node
+     * @return the range of the node, or null if it is not a range
+     */
+    public LiteralRange getRange(JexlNode node) {
+        return ranges.get(node);
+    }
+    
+    public boolean isAdaptive() {
+        return adaptive;
+    }
+    
+    /**
+     * Enable or disable reordering the children of the AND nodes by their observed cost and selectivity. The order of evaluation affects which terms are
+     * recorded as hits, so this should not be enabled when evaluating with a {@link HitListArithmetic}.
+     *
+     * @param adaptive
+     *            whether to reorder the AND nodes
+     */
+    public synchronized void setAdaptive(boolean adaptive) {
+        this.adaptive = adaptive;
+        andOrders.clear();
+        if (adaptive) {
+            Deque<JexlNode> stack = new ArrayDeque<>();
+            stack.push(script);
+            while (!stack.isEmpty()) {
+                JexlNode node = stack.pop();
+                if (node instanceof ASTAndNode && node.jjtGetNumChildren() == 2) {
+                    andOrders.put(node, new AndOrder());
+                }
+                for (int i = node.jjtGetNumChildren() - 1; i >= 0; i--) {
+                    stack.push(node.jjtGetChild(i));
+                }
+            }
+        }
+    }
+    
+    /**
+     * @param node
+     *            an AND node
+     * @return the evaluation order of the node, or null if the node is not to be reordered
+     */
+    public AndOrder getAndOrder(JexlNode node) {
+        return adaptive ? andOrders.get(node) : null;
+    }
+    
+    /**
+     * @return the number of times the evaluation order of any AND node has changed
+     */
+    public long getReorderCount() {
+        long reorderCount = 0;
+        if (adaptive) {
+            for (AndOrder andOrder : andOrders.values()) {
+                reorderCount += andOrder.getReorderCount();
+            }
+        }
+        return reorderCount;
+    }
+    
+    /**
+     * Get the name of a node in an evaluation profile, which is its query string truncated to {@link #MAX_PROFILE_NAME_LENGTH}
+     *
+     * @param node
+     *            the node
+     * @return the profile name
+     */
+    public synchronized String getProfileName(JexlNode node) {
+        String name = profileNames.get(node);
+        if (name == null) {
+            name = nodeStrings.get(node);
+            if (name == null) {
+                name = JexlStringBuildingVisitor.buildQueryWithoutParse(node);
+            }
+            if (name.length() > MAX_PROFILE_NAME_LENGTH) {
+                name = name.substring(0, MAX_PROFILE_NAME_LENGTH) + "...";
+            }
+            profileNames.put(node, name);
+        }
+        return name;
+    }
+    
+    /**
+     * The evaluation order of the two children of an AND node. Each child is ranked by its average evaluation time divided by the fraction of its evaluations
+     * which were false, which is the expected cost of rejecting a document with it, and the child with the lower rank is evaluated first. A child is only
+     * measured when it is evaluated, so the order is only reconsidered once both children have been evaluated a minimum number of times.
+     * <p>
+     * The statistics are not synchronized, as a race only affects the order of evaluation and not its result.
+     */
+    public static class AndOrder {
+        
+        // the number of evaluations of each child before they are compared
+        public static final int MIN_EVALUATIONS = 32;
+        
+        // the number of evaluations between reconsidering the order
+        public static final int REORDER_INTERVAL = 64;
+        
+        private final long[] evaluations = new long[2];
+        private final long[] falseCounts = new long[2];
+        private final long[] nanos = new long[2];
+        
+        private int first = 0;
+        private int sinceReorder = 0;
+        private long reorderCount = 0;
+        
+        /**
+         * @return the index of the child to evaluate first
+         */
+        public int getFirst() {
+            return first;
+        }
+        
+        public long getReorderCount() {
+            return reorderCount;
+        }
+        
+        /**
+         * Record the evaluation of a child
+         *
+         * @param child
+         *            the index of the child
+         * @param value
+         *            the result of the evaluation
+         * @param elapsed
+         *            the evaluation time in nanoseconds
+         */
+        public void addEvaluation(int child, Object value, long elapsed) {
+            evaluations[child]++;
+            nanos[child] += elapsed;
+            if (value == null || Boolean.FALSE.equals(value) || (value instanceof Collection && ((Collection<?>) value).isEmpty())) {
+                falseCounts[child]++;
+            }
+            if (++sinceReorder >= REORDER_INTERVAL) {
+                sinceReorder = 0;
+                if (evaluations[0] >= MIN_EVALUATIONS && evaluations[1] >= MIN_EVALUATIONS) {
+                    int other = 1 - first;
+                    if (getRank(other) < getRank(first)) {
+                        first = other;
+                        reorderCount++;
+                    }
+                }
+            }
+        }
+        
+        private double getRank(int child) {
+            double falseRate = (falseCounts[child] + 1.0d) / (evaluations[child] + 2.0d);
+            return ((double) nanos[child] / evaluations[child]) / falseRate;
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package datawave.query.jexl;
+
+import datawave.query.iterator.profile.QuerySpan;
+import datawave.query.jexl.visitors.JexlStringBuildingVisitor;
+import org.apache.commons.jexl2.JexlContext;
+import org.apache.commons.jexl2.JexlEngine;
+import org.apache.commons.jexl2.parser.ASTAndNode;
+import org.apache.commons.jexl2.parser.ASTEQNode;
+import org.apache.commons.jexl2.parser.ASTERNode;
+import org.apache.commons.jexl2.parser.ASTFunctionNode;
+import org.apache.commons.jexl2.parser.ASTGENode;
+import org.apache.commons.jexl2.parser.ASTGTNode;
+import org.apache.commons.jexl2.parser.ASTLENode;
+import org.apache.commons.jexl2.parser.ASTLTNode;
+import org.apache.commons.jexl2.parser.ASTNENode;
+import org.apache.commons.jexl2.parser.ASTNRNode;
+import org.apache.commons.jexl2.parser.ASTNotNode;
+import org.apache.commons.jexl2.parser.ASTOrNode;
+import org.apache.commons.jexl2.parser.JexlNode;
+
+/**
+ * A {@link DatawaveInterpreter} which records the number of evaluations, the number of those which were true, and the time spent in each AND, OR, NOT,
+ * function and term node of the query into a {@link QuerySpan}. The time of a node includes the time spent in its children.
+ */
+public class ProfilingDatawaveInterpreter extends DatawaveInterpreter {
+    
+    private final QuerySpan querySpan;
+    
+    public ProfilingDatawaveInterpreter(JexlEngine jexl, JexlContext aContext, boolean strictFlag, boolean silentFlag, QuerySpan querySpan) {
+        super(jexl, aContext, strictFlag, silentFlag);
+        this.querySpan = querySpan;
+    }
+    
+    private Object profile(JexlNode node, Object result, long start) {
+        long elapsed = System.nanoTime() - start;
+        String name = (preparedScript != null ? preparedScript.getProfileName(node) : JexlStringBuildingVisitor.buildQueryWithoutParse(node));
+        querySpan.addNodeEvaluation(name, isMatched(result), elapsed);
+        return result;
+    }
+    
+    @Override
+    public Object visit(ASTAndNode node, Object data) {
+        long start = System.nanoTime();
+        return profile(node, super.visit(node, data), start);
+    }
+    
+    @Override
+    public Object visit(ASTOrNode node, Object data) {
+        long start = System.nanoTime();
+        return profile(node, super.visit(node, data), start);
+    }
+    
+    @Override
+    public Object visit(ASTNotNode node, Object data) {
+        long start = System.nanoTime();
+        return profile(node, super.visit(node, data), start);
+    }
+    
+    @Override
+    public Object visit(ASTFunctionNode node, Object data) {
+        long start = System.nanoTime();
+        return profile(node, super.visit(node, data), start);
+    }
+    
+    @Override
+    public Object visit(ASTEQNode node, Object data) {
+        long start = System.nanoTime();
+        return profile(node, super.visit(node, data), start);
+    }
+    
+    @Override
+    public Object visit(ASTNENode node, Object data) {
+        long start = System.nanoTime();
+        return profile(node, super.visit(node, data), start);
+    }
+    
+    @Override
+    public Object visit(ASTERNode node, Object data) {
+        long start = System.nanoTime();
+        return profile(node, super.visit(node, data), start);
+    }
+    
+    @Override
+    public Object visit(ASTNRNode node, Object data) {
+        long start = System.nanoTime();
+        return profile(node, super.visit(node, data), start);
+    }
+    
+    @Override
+    public Object visit(ASTLTNode node, Object data) {
+        long start = System.nanoTime();
+        return profile(node, super.visit(node, data), start);
+    }
+    
+    @Override
+    public Object visit(ASTLENode node, Object data) {
+        long start = System.nanoTime();
+        return profile(node, super.visit(node, data), start);
+    }
+    
+    @Override
+    public Object visit(ASTGTNode node, Object data) {
+        long start = System.nanoTime();
+        return profile(node, super.visit(node, data), start);
+    }
+    
+    @Override
+    public Object visit(ASTGENode node, Object data) {
+        long start = System.nanoTime();
+        return profile(node, super.visit(node, data), start);
+    }
+}
@@ -35,6 +35,7 @@ import datawave.query.iterator.builder.IvaratorBuilder;
 import datawave.query.iterator.builder.NegationBuilder;
 import datawave.query.iterator.builder.OrIteratorBuilder;
 import datawave.query.iterator.builder.TermFrequencyIndexBuilder;
+import datawave.query.iterator.profile.QuerySpan;
 import datawave.query.iterator.profile.QuerySpanCollector;
 import datawave.query.jexl.ArithmeticJexlEngines;
 import datawave.query.jexl.DatawaveJexlContext;
@@ -170,6 +171,15 @@ public class IteratorBuildingVisitor extends BaseVisitor {
     // case the keys will be modified to include enough context to restart at the correct place.
     protected boolean sortedUIDs = true;
     
+    // should ANDs and ORs use the array based leapfrog and heap implementations where possible
+    protected boolean leapfrogNestedIterators = false;
+    
+    // should the leapfrog ANDs advance their most selective child first
+    protected boolean adaptiveOrdering = false;
+    
+    // the span the leapfrog ANDs count their reorderings in, may be null
+    protected QuerySpan trackingSpan = null;
+    
     protected boolean limitLookup;
     
     protected Class<? extends IteratorBuilder> iteratorBuilderClass = IndexIteratorBuilder.class;
@@ -341,7 +351,10 @@ public class IteratorBuildingVisitor extends BaseVisitor {
             and.childrenAccept(this, data);
         } else {
             // Create an AndIterator and recursively add the children
-            AbstractIteratorBuilder andItr = new AndIteratorBuilder();
+            AndIteratorBuilder andItr = new AndIteratorBuilder();
+            andItr.setLeapfrog(leapfrogNestedIterators);
+            andItr.setAdaptive(adaptiveOrdering);
+            andItr.setQuerySpan(trackingSpan);
             andItr.negateAsNeeded(data);
             and.childrenAccept(this, andItr);
             
@@ -487,7 +500,8 @@ public class IteratorBuildingVisitor extends BaseVisitor {
             or.childrenAccept(this, data);
         } else {
             // Create an OrIterator and recursively add the children
-            AbstractIteratorBuilder orItr = new OrIteratorBuilder();
+            OrIteratorBuilder orItr = new OrIteratorBuilder();
+            orItr.setHeap(leapfrogNestedIterators);
             orItr.setSortedUIDs(sortedUIDs);
             orItr.negateAsNeeded(data);
             or.childrenAccept(this, orItr);
@@ -1671,6 +1685,21 @@ public class IteratorBuildingVisitor extends BaseVisitor {
         return this;
     }
     
+    public IteratorBuildingVisitor setLeapfrogNestedIterators(boolean leapfrogNestedIterators) {
+        this.leapfrogNestedIterators = leapfrogNestedIterators;
+        return this;
+    }
+    
+    public IteratorBuildingVisitor setAdaptiveOrdering(boolean adaptiveOrdering) {
+        this.adaptiveOrdering = adaptiveOrdering;
+        return this;
+    }
+    
+    public IteratorBuildingVisitor setTrackingSpan(QuerySpan trackingSpan) {
+        this.trackingSpan = trackingSpan;
+        return this;
+    }
+    
     public IteratorBuildingVisitor setExceededOrEvaluationCache(Map<String,Object> exceededOrEvaluationCache) {
         this.exceededOrEvaluationCache = exceededOrEvaluationCache;
         return this;
@@ -0,0 +1,166 @@
+package datawave.query.metrics;
+
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+
+import datawave.webservice.query.metric.BaseQueryMetric.PageMetric;
+import datawave.webservice.query.metric.QueryMetric;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Queues the updates of query metrics by query id, so that updates of different queries are written concurrently while the updates of a single query are
+ * written by one thread at a time, in order. An update which arrives while another thread is writing for the same query is coalesced with any other waiting
+ * updates of that query into the latest state of the metric, and the thread writing for the query writes it once. Every caller returns once its update has
+ * been written, or throws the exception of the last failed attempt to write it.
+ */
+public class QueryMetricUpdateQueue {
+    private static final Logger log = Logger.getLogger(QueryMetricUpdateQueue.class);
+    
+    /**
+     * Writes the update of a query metric
+     */
+    public interface Writer {
+        void write(QueryMetric queryMetric) throws Exception;
+    }
+    
+    private final int maxAttempts;
+    
+    // the updates waiting to be written for each query id, coalesced into the latest state of the metric
+    private final ConcurrentMap<String,PendingUpdate> pendingUpdates = new ConcurrentHashMap<>();
+    
+    // the query ids whose updates are being written, by at most one thread per query id
+    private final Set<String> updatesInProgress = ConcurrentHashMap.newKeySet();
+    
+    /**
+     * @param maxAttempts
+     *            the number of times to try writing an update before failing its callers
+     */
+    public QueryMetricUpdateQueue(int maxAttempts) {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("The maximum number of attempts must be at least 1: " + maxAttempts);
+        }
+        this.maxAttempts = maxAttempts;
+    }
+    
+    /**
+     * Update a query metric, returning once the update has been written, whether by this thread or by the thread writing the updates of the same query
+     *
+     * @param queryMetric
+     *            the updated metric
+     * @param writer
+     *            writes the updates, if this thread writes the updates of the query
+     * @throws Exception
+     *             if the update could not be written
+     */
+    public void update(QueryMetric queryMetric, Writer writer) throws Exception {
+        String queryId = queryMetric.getQueryId();
+        PendingUpdate update = pendingUpdates.compute(queryId, (id, pending) -> {
+            if (pending == null) {
+                return new PendingUpdate(queryMetric);
+            }
+            pending.coalesce(queryMetric);
+            return pending;
+        });
+        
+        // the thread which claims the query id writes its updates until there are none left, re-checking after releasing the claim so that an update
+        // which arrived as it was released is not left behind
+        while (pendingUpdates.containsKey(queryId) && updatesInProgress.add(queryId)) {
+            try {
+                PendingUpdate pending;
+                while ((pending = pendingUpdates.remove(queryId)) != null) {
+                    write(pending, writer);
+                }
+            } finally {
+                updatesInProgress.remove(queryId);
+            }
+        }
+        
+        // wait for the thread which holds the claim to write this update
+        try {
+            update.written.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception) {
+                throw (Exception) e.getCause();
+            }
+            throw e;
+        }
+    }
+    
+    private void write(PendingUpdate pending, Writer writer) {
+        for (int attempt = 1;; attempt++) {
+            try {
+                writer.write(pending.queryMetric);
+                pending.written.complete(null);
+                return;
+            } catch (Error e) {
+                // do not leave the callers waiting on an update which will never be written
+                pending.written.completeExceptionally(e);
+                throw e;
+            } catch (Exception e) {
+                if (attempt >= maxAttempts) {
+                    log.error("Failed to write the update of query metric " + pending.queryMetric.getQueryId() + " after " + attempt + " attempts", e);
+                    pending.written.completeExceptionally(e);
+                    return;
+                }
+                log.warn("Failed to write the update of query metric " + pending.queryMetric.getQueryId() + ", attempt " + attempt + " of " + maxAttempts, e);
+            }
+        }
+    }
+    
+    /**
+     * @return the number of query ids with updates waiting to be written
+     */
+    public int getPendingCount() {
+        return pendingUpdates.size();
+    }
+    
+    /**
+     * Merge the page metrics of two updates of a metric, taking those of the later update for the pages in both
+     *
+     * @param earlier
+     *            the earlier update, may be null
+     * @param later
+     *            the later update
+     * @return the page metrics ordered by page number
+     */
+    public static ArrayList<PageMetric> mergePageTimes(QueryMetric earlier, QueryMetric later) {
+        Map<Long,PageMetric> pageMetricMap = new TreeMap<>();
+        if (earlier != null && earlier.getPageTimes() != null) {
+            for (PageMetric p : earlier.getPageTimes()) {
+                pageMetricMap.put(p.getPageNumber(), p);
+            }
+        }
+        for (PageMetric p : later.getPageTimes()) {
+            pageMetricMap.put(p.getPageNumber(), p);
+        }
+        return new ArrayList<>(pageMetricMap.values());
+    }
+    
+    /**
+     * The coalesced updates of a query waiting to be written, and the outcome shared by their callers
+     */
+    private static class PendingUpdate {
+        private QueryMetric queryMetric;
+        private final CompletableFuture<Void> written = new CompletableFuture<>();
+        
+        private PendingUpdate(QueryMetric queryMetric) {
+            this.queryMetric = queryMetric;
+        }
+        
+        /**
+         * Coalesce a later update into this one, keeping the page metrics of both
+         */
+        private void coalesce(QueryMetric later) {
+            QueryMetric coalesced = (QueryMetric) later.duplicate();
+            coalesced.setPageTimes(mergePageTimes(queryMetric, later));
+            queryMetric = coalesced;
+        }
+    }
+}
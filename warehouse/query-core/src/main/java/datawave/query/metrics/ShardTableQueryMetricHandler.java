@@ -23,6 +23,8 @@ import javax.enterprise.context.ApplicationScoped;
 import javax.inject.Inject;
 
 import com.google.common.base.Preconditions;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
@@ -86,7 +88,6 @@ import org.apache.accumulo.core.data.Mutation;
 import org.apache.accumulo.core.data.Value;
 import org.apache.accumulo.core.security.ColumnVisibility;
 import org.apache.commons.codec.binary.Base64;
-import org.apache.commons.collections4.map.LRUMap;
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.lang.time.DateUtils;
 import org.apache.deltaspike.core.api.config.ConfigProperty;
@@ -143,8 +144,13 @@ public class ShardTableQueryMetricHandler extends BaseQueryMetricHandler<QueryMe
     public static final String CONTEXT_WRITER_MAX_CACHE_SIZE = "context.writer.max.cache.size";
     
     // static to share the cache across instances of this class held by QueryExecutorBean, CachedResultsBean, QueryMetricsEnrichmentInterceptor, etc
-    @SuppressWarnings("unchecked")
-    private static Map metricsCache = Collections.synchronizedMap(new LRUMap(5000));
+    private static final Cache<String,QueryMetric> metricsCache = CacheBuilder.newBuilder().maximumSize(5000).build();
+    
+    // the number of times an update is written before its callers are failed
+    private static final int MAX_UPDATE_ATTEMPTS = 3;
+    
+    // static to share the updates across instances of this class, as with the cache
+    private static final QueryMetricUpdateQueue pendingUpdates = new QueryMetricUpdateQueue(MAX_UPDATE_ATTEMPTS);
     
     private final Configuration conf = new Configuration();
     private final StatusReporter reporter = new MockStatusReporter();
@@ -220,7 +226,19 @@ public class ShardTableQueryMetricHandler extends BaseQueryMetricHandler<QueryMe
         }
     }
     
-    private void writeMetrics(QueryMetric updatedQueryMetric, List<QueryMetric> storedQueryMetrics, Date lastUpdated, boolean delete) throws Exception {
+    /**
+     * Write the delete entries for the values of the stored metrics which have changed, followed by the entries of the updated metric
+     *
+     * @param updatedQueryMetric
+     *            the updated metric
+     * @param storedQueryMetrics
+     *            the previously stored metrics
+     * @param lastUpdated
+     *            the time of the update, at which the previous values are deleted
+     * @throws Exception
+     *             if the entries could not be written
+     */
+    private void writeMetrics(QueryMetric updatedQueryMetric, List<QueryMetric> storedQueryMetrics, Date lastUpdated) throws Exception {
         LiveContextWriter contextWriter = null;
         
         MapContext<Text,RawRecordContainer,Text,Mutation> context = null;
@@ -233,23 +251,9 @@ public class ShardTableQueryMetricHandler extends BaseQueryMetricHandler<QueryMe
             context = new MapContextImpl<>(conf, taskId, null, recordWriter, null, reporter, null);
             
             for (QueryMetric storedQueryMetric : storedQueryMetrics) {
-                AbstractColumnBasedHandler<Key> handler = new ContentQueryMetricsHandler<>();
-                handler.setup(context);
-                
-                Multimap<BulkIngestKey,Value> r = getEntries(handler, updatedQueryMetric, storedQueryMetric, lastUpdated, delete);
-                
-                try {
-                    if (r != null) {
-                        contextWriter.write(r, context);
-                    }
-                    
-                    if (handler.getMetadata() != null) {
-                        contextWriter.write(handler.getMetadata().getBulkMetadata(), context);
-                    }
-                } finally {
-                    contextWriter.commit(context);
-                }
+                writeMetric(contextWriter, context, updatedQueryMetric, storedQueryMetric, lastUpdated, true);
             }
+            writeMetric(contextWriter, context, updatedQueryMetric, updatedQueryMetric, lastUpdated, false);
         } finally {
             if (contextWriter != null && context != null) {
                 contextWriter.cleanup(context);
@@ -257,6 +261,26 @@ public class ShardTableQueryMetricHandler extends BaseQueryMetricHandler<QueryMe
         }
     }
     
+    private void writeMetric(LiveContextWriter contextWriter, MapContext<Text,RawRecordContainer,Text,Mutation> context, QueryMetric updatedQueryMetric,
+                    QueryMetric storedQueryMetric, Date lastUpdated, boolean delete) throws Exception {
+        AbstractColumnBasedHandler<Key> handler = new ContentQueryMetricsHandler<>();
+        handler.setup(context);
+        
+        Multimap<BulkIngestKey,Value> r = getEntries(handler, updatedQueryMetric, storedQueryMetric, lastUpdated, delete);
+        
+        try {
+            if (r != null) {
+                contextWriter.write(r, context);
+            }
+            
+            if (handler.getMetadata() != null) {
+                contextWriter.write(handler.getMetadata().getBulkMetadata(), context);
+            }
+        } finally {
+            contextWriter.commit(context);
+        }
+    }
+    
     public Map<String,String> getEventFields(BaseQueryMetric queryMetric) {
         // ignore duplicates as none are expected
         Map<String,String> eventFields = new HashMap<>();
@@ -351,9 +375,16 @@ public class ShardTableQueryMetricHandler extends BaseQueryMetricHandler<QueryMe
         return r;
     }
     
-    @SuppressWarnings("unchecked")
+    /**
+     * Update a query metric. Updates of different queries are written concurrently, and the updates of a single query are coalesced and written in order, see
+     * {@link QueryMetricUpdateQueue}.
+     */
     @Override
     public void updateMetric(QueryMetric updatedQueryMetric, DatawavePrincipal datawavePrincipal) throws Exception {
+        pendingUpdates.update(updatedQueryMetric, queryMetric -> writeUpdate(queryMetric, datawavePrincipal));
+    }
+    
+    private void writeUpdate(QueryMetric updatedQueryMetric, DatawavePrincipal datawavePrincipal) throws Exception {
         Date lastUpdated = updatedQueryMetric.getLastUpdated();
         
         try {
@@ -368,32 +399,13 @@ public class ShardTableQueryMetricHandler extends BaseQueryMetricHandler<QueryMe
             Date end = new Date();
             Date begin = DateUtils.setYears(end, 2000);
             
-            // user's DatawavePrincipal must have the Administrator role to use the Metrics query logic
-            QueryMetric cachedQueryMetric;
-            QueryMetric newCachedQueryMetric;
-            synchronized (ShardTableQueryMetricHandler.class) {
-                cachedQueryMetric = (QueryMetric) metricsCache.get(updatedQueryMetric.getQueryId());
-                // duplicate updatedQueryMetric because we're counting on the cache to be a snapshot of the QueryMetric
-                // so that we can retrieve it next update call to create the delete Mutations for the values written to Accumulo
-                Map<Long,PageMetric> storedPageMetricMap = new TreeMap<>();
-                if (cachedQueryMetric != null) {
-                    List<PageMetric> cachedPageMetrics = cachedQueryMetric.getPageTimes();
-                    if (cachedPageMetrics != null) {
-                        for (PageMetric p : cachedPageMetrics) {
-                            storedPageMetricMap.put(p.getPageNumber(), p);
-                        }
-                    }
-                }
-                // combine all of the page metrics from the cached metric and the updated metric
-                for (PageMetric p : updatedQueryMetric.getPageTimes()) {
-                    storedPageMetricMap.put(p.getPageNumber(), p);
-                }
-                newCachedQueryMetric = (QueryMetric) updatedQueryMetric.duplicate();
-                ArrayList<PageMetric> newPageMetrics = new ArrayList<>();
-                newPageMetrics.addAll(storedPageMetricMap.values());
-                newCachedQueryMetric.setPageTimes(newPageMetrics);
-                metricsCache.put(updatedQueryMetric.getQueryId(), newCachedQueryMetric);
-            }
+            // only this thread updates the metric of this query id, so the cached snapshot can not change underneath it
+            QueryMetric cachedQueryMetric = metricsCache.getIfPresent(updatedQueryMetric.getQueryId());
+            // duplicate updatedQueryMetric because we're counting on the cache to be a snapshot of the QueryMetric
+            // so that we can retrieve it next update call to create the delete Mutations for the values written to Accumulo
+            // combine all of the page metrics from the cached metric and the updated metric
+            QueryMetric newCachedQueryMetric = (QueryMetric) updatedQueryMetric.duplicate();
+            newCachedQueryMetric.setPageTimes(QueryMetricUpdateQueue.mergePageTimes(cachedQueryMetric, updatedQueryMetric));
             
             List<QueryMetric> queryMetrics = new ArrayList<>();
             
@@ -420,10 +432,6 @@ public class ShardTableQueryMetricHandler extends BaseQueryMetricHandler<QueryMe
                 queryMetrics = Collections.singletonList(cachedQueryMetric);
             }
             
-            if (!queryMetrics.isEmpty()) {
-                writeMetrics(updatedQueryMetric, queryMetrics, lastUpdated, true);
-            }
-            
             long nextUpdateNumber = 0;
             
             for (BaseQueryMetric m : queryMetrics) {
@@ -434,13 +442,11 @@ public class ShardTableQueryMetricHandler extends BaseQueryMetricHandler<QueryMe
             
             updatedQueryMetric.setNumUpdates(nextUpdateNumber);
             
-            synchronized (ShardTableQueryMetricHandler.class) {
-                newCachedQueryMetric.setNumUpdates(nextUpdateNumber);
-                metricsCache.put(updatedQueryMetric.getQueryId(), newCachedQueryMetric);
-            }
+            // remove the previous entries and write the new entry through a single context writer
+            writeMetrics(updatedQueryMetric, queryMetrics, lastUpdated);
             
-            // write new entry
-            writeMetrics(updatedQueryMetric, Collections.singletonList(updatedQueryMetric), lastUpdated, false);
+            newCachedQueryMetric.setNumUpdates(nextUpdateNumber);
+            metricsCache.put(updatedQueryMetric.getQueryId(), newCachedQueryMetric);
         } finally {
             enableLogs(true);
         }
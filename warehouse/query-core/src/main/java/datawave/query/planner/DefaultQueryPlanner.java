@@ -1687,6 +1687,21 @@ public class DefaultQueryPlanner extends QueryPlanner implements Cloneable {
                         if (config.getCollectTimingDetails()) {
                             addOption(cfg, QueryOptions.COLLECT_TIMING_DETAILS, Boolean.toString(true), false);
                         }
+                        if (config.getCollectEvaluationProfile()) {
+                            addOption(cfg, QueryOptions.COLLECT_EVALUATION_PROFILE, Boolean.toString(true), false);
+                        }
+                        if (config.getCountFromFieldIndex()) {
+                            addOption(cfg, QueryOptions.COUNT_FROM_FIELD_INDEX, Boolean.toString(true), false);
+                        }
+                        if (config.getLeapfrogNestedIterators()) {
+                            addOption(cfg, QueryOptions.LEAPFROG_NESTED_ITERATORS, Boolean.toString(true), false);
+                        }
+                        if (config.getSequentialDocumentFetch()) {
+                            addOption(cfg, QueryOptions.SEQUENTIAL_DOCUMENT_FETCH, Boolean.toString(true), false);
+                        }
+                        if (config.getAdaptiveOrdering()) {
+                            addOption(cfg, QueryOptions.ADAPTIVE_ORDERING, Boolean.toString(true), false);
+                        }
                         if (config.getSendTimingToStatsd()) {
                             addOption(cfg, QueryOptions.STATSD_HOST_COLON_PORT, config.getStatsdHost() + ':' + Integer.toString(config.getStatsdPort()), false);
                             addOption(cfg, QueryOptions.STATSD_MAX_QUEUE_SIZE, Integer.toString(config.getStatsdMaxQueueSize()), false);
@@ -1983,6 +1998,7 @@ public class DefaultQueryPlanner extends QueryPlanner implements Cloneable {
         addOption(cfg, QueryOptions.ALLOW_FIELD_INDEX_EVALUATION, Boolean.toString(config.isAllowFieldIndexEvaluation()), false);
         addOption(cfg, QueryOptions.ALLOW_TERM_FREQUENCY_LOOKUP, Boolean.toString(config.isAllowTermFrequencyLookup()), false);
         addOption(cfg, QueryOptions.COMPRESS_SERVER_SIDE_RESULTS, Boolean.toString(config.isCompressServerSideResults()), false);
+        addOption(cfg, QueryOptions.SERVER_SIDE_RESULTS_CODEC, config.getServerSideResultsCodec(), false);
     }
     
     /**
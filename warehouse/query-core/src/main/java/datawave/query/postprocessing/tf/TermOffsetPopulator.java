@@ -6,6 +6,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -48,6 +49,9 @@ public class TermOffsetPopulator {
     
     private static final Set<String> phraseFunctions;
     
+    // the most distinct sets of pruned fields for which a term frequency source is kept
+    public static final int MAX_TF_SOURCES = 16;
+    
     static {
         Set<String> _phraseFunctions = Sets.newHashSet();
         _phraseFunctions.add(ContentFunctions.CONTENT_WITHIN_FUNCTION_NAME);
@@ -62,6 +66,17 @@ public class TermOffsetPopulator {
     private Document document;
     private Set<String> contentExpansionFields;
     
+    // the term frequency sources by the fields pruned from the search, reused across documents
+    private final Map<Set<String>,TermFrequencyIterator> tfSources = new LinkedHashMap<Set<String>,TermFrequencyIterator>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Set<String>,TermFrequencyIterator> eldest) {
+            return size() > MAX_TF_SOURCES;
+        }
+    };
+    
+    // a buffer for the positions of a single term frequency entry
+    private final List<TermWeightPosition> positions = new ArrayList<>();
+    
     public TermOffsetPopulator(Multimap<String,String> termFrequencyFieldValues, Set<String> contentExpansionFields, EventDataQueryFilter evaluationFilter,
                     SortedKeyValueIterator<Key,Value> source) {
         this.termFrequencyFieldValues = termFrequencyFieldValues;
@@ -147,21 +162,10 @@ public class TermOffsetPopulator {
     public Map<String,Object> getContextMap(Key docKey, Set<Key> keys, Set<String> fields) {
         document = new Document();
         
-        TermFrequencyIterator tfSource;
-        // Do not prune if no fields exist or if the tf fields would prune to nothing. TODO skip tf entirely if this would prune to zero
-        if (fields == null || fields.isEmpty() || fields.size() == termFrequencyFieldValues.size()) {
-            tfSource = new TermFrequencyIterator(termFrequencyFieldValues, keys);
-        } else {
-            // There are fields to remove, reduce the search space and continue
-            Multimap<String,String> tfFVs = HashMultimap.create(termFrequencyFieldValues);
-            fields.forEach(tfFVs::removeAll);
-            tfSource = new TermFrequencyIterator(tfFVs, keys);
-        }
-        
         Range range = getRange(keys);
+        TermFrequencyIterator tfSource = getTermFrequencySource(keys, fields);
         try {
-            tfSource.init(source, null, null);
-            tfSource.seek(getRange(keys), null, false);
+            tfSource.seek(range, null, false);
         } catch (IOException e) {
             log.error("Seek to the range failed: " + range, e);
         }
@@ -173,6 +177,7 @@ public class TermOffsetPopulator {
         
         Map<String,TermFrequencyList> termOffsetMap = Maps.newHashMap();
         
+        TermWeightPosition.Builder position = new TermWeightPosition.Builder();
         while (tfSource.hasTop()) {
             Key key = tfSource.getTopKey();
             FieldValue fv = FieldValue.getFieldValue(key);
@@ -188,19 +193,19 @@ public class TermOffsetPopulator {
             
             this.document.put(fv.getField(), attr);
             
-            TreeMultimap<TermFrequencyList.Zone,TermWeightPosition> offsets = TreeMultimap.create();
+            TermFrequencyList.Zone twZone;
+            positions.clear();
             try {
                 TermWeight.Info twInfo = TermWeight.Info.parseFrom(tfSource.getTopValue().get());
                 
                 // if no content expansion fields then assume every field is permitted for unfielded content functions
-                TermFrequencyList.Zone twZone = new TermFrequencyList.Zone(fv.getField(),
+                twZone = new TermFrequencyList.Zone(fv.getField(),
                                 (contentExpansionFields == null || contentExpansionFields.isEmpty() || contentExpansionFields.contains(fv.getField())),
                                 TermFrequencyList.getEventId(key));
                 
-                TermWeightPosition.Builder position = new TermWeightPosition.Builder();
                 for (int i = 0; i < twInfo.getTermOffsetCount(); i++) {
                     position.setTermWeightOffsetInfo(twInfo, i);
-                    offsets.put(twZone, position.build());
+                    positions.add(position.build());
                     position.reset();
                 }
                 
@@ -213,12 +218,11 @@ public class TermOffsetPopulator {
             // First time looking up this term in a field
             TermFrequencyList tfl = termOffsetMap.get(fv.getValue());
             if (null == tfl) {
-                termOffsetMap.put(fv.getValue(), new TermFrequencyList(offsets));
-            } else {
-                // Merge in the offsets for the current field+term with all previous
-                // offsets from other fields in the same term
-                tfl.addOffsets(offsets);
+                tfl = new TermFrequencyList(TreeMultimap.create());
+                termOffsetMap.put(fv.getValue(), tfl);
             }
+            // Merge in the offsets for the current field+term with all previous offsets from other fields in the same term
+            tfl.addOffsets(twZone, positions);
             
             try {
                 tfSource.next();
@@ -235,6 +239,46 @@ public class TermOffsetPopulator {
         return map;
     }
     
+    /**
+     * Get the term frequency source for a set of documents. The field values to search, and the structures the {@link TermFrequencyIterator} derives from
+     * them, only depend on the fields pruned from the search, so a source is kept for each distinct set of pruned fields and only its document keys are
+     * replaced. As the documents of a shard are populated in order, the underlying source is always sought forward.
+     *
+     * @param keys
+     *            the document keys
+     * @param fields
+     *            the fields to remove from the search space
+     * @return the term frequency source, which has yet to be sought
+     */
+    protected TermFrequencyIterator getTermFrequencySource(Set<Key> keys, Set<String> fields) {
+        // Do not prune if no fields exist or if the tf fields would prune to nothing. TODO skip tf entirely if this would prune to zero
+        Set<String> prunedFields = Collections.emptySet();
+        if (fields != null && !fields.isEmpty() && fields.size() != termFrequencyFieldValues.size()) {
+            prunedFields = new HashSet<>(fields);
+        }
+        
+        TermFrequencyIterator tfSource = tfSources.get(prunedFields);
+        if (tfSource == null) {
+            Multimap<String,String> tfFVs = termFrequencyFieldValues;
+            if (!prunedFields.isEmpty()) {
+                // There are fields to remove, reduce the search space and continue
+                tfFVs = HashMultimap.create(termFrequencyFieldValues);
+                prunedFields.forEach(tfFVs::removeAll);
+            }
+            tfSource = new TermFrequencyIterator(tfFVs, keys);
+            try {
+                tfSource.init(source, null, null);
+            } catch (IOException e) {
+                // the init only sets the source
+                throw new IllegalStateException("Unable to initialize the term frequency source", e);
+            }
+            tfSources.put(prunedFields, tfSource);
+        } else {
+            tfSource.setKeys(keys);
+        }
+        return tfSource;
+    }
+    
     public static boolean isContentFunctionTerm(String functionName) {
         return phraseFunctions.contains(functionName);
     }
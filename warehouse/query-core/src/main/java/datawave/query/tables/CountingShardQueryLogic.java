@@ -15,15 +15,17 @@ import org.apache.log4j.Logger;
 
 /**
  * A simple extension of the basic ShardQueryTable which applies a counting iterator on top of the "normal" iterator stack.
- * 
- * 
- * 
+ * <p>
+ * By default, shards on which the field index satisfies the query count the matching documents directly from the field index and return a single count, which
+ * the counting iterator adds up, instead of fetching and evaluating every document only to count it. Set countFromFieldIndex to false to always count the
+ * evaluated documents.
  */
 public class CountingShardQueryLogic extends ShardQueryLogic {
     private static final Logger log = Logger.getLogger(CountingShardQueryLogic.class);
     
     public CountingShardQueryLogic() {
         super();
+        setCountFromFieldIndex(true);
     }
     
     public CountingShardQueryLogic(CountingShardQueryLogic other) {
@@ -921,6 +921,13 @@ public class ShardQueryLogic extends BaseQueryLogic<Entry<Key,Value>> {
             config.setCompressServerSideResults(compress);
         }
         
+        String tServerSideResultsCodec = settings.findParameter(QueryOptions.SERVER_SIDE_RESULTS_CODEC).getParameterValue().trim();
+        if (org.apache.commons.lang.StringUtils.isNotBlank(tServerSideResultsCodec)) {
+            // validate the codec before it is passed to the tservers
+            DocumentSerialization.getCompression(tServerSideResultsCodec);
+            config.setServerSideResultsCodec(tServerSideResultsCodec);
+        }
+        
         // Configure index-only filter functions to be enabled if not already set to such a state
         config.setIndexOnlyFilterFunctionsEnabled(this.isIndexOnlyFilterFunctionsEnabled());
         
@@ -943,10 +950,19 @@ public class ShardQueryLogic extends BaseQueryLogic<Entry<Key,Value>> {
                     setCollectTimingDetails(Boolean.valueOf(collectTimingDetailsStr));
                 }
             }
+            String collectEvaluationProfileStr = settings.findParameter(QueryOptions.COLLECT_EVALUATION_PROFILE).getParameterValue().trim();
+            if (org.apache.commons.lang.StringUtils.isNotBlank(collectEvaluationProfileStr)) {
+                setCollectEvaluationProfile(Boolean.valueOf(collectEvaluationProfileStr));
+            }
+            if (getCollectEvaluationProfile()) {
+                // the evaluation profile is returned with the timing details
+                setCollectTimingDetails(true);
+            }
         } else {
             // if the transformer can not process the timing metrics, then turn them off
             setLogTimingDetails(false);
             setCollectTimingDetails(false);
+            setCollectEvaluationProfile(false);
         }
         
         stopwatch.stop();
@@ -1331,6 +1347,14 @@ public class ShardQueryLogic extends BaseQueryLogic<Entry<Key,Value>> {
         getConfig().setMaxOrExpansionThreshold(maxOrExpansionThreshold);
     }
     
+    public int getTermBatchLookupThreshold() {
+        return getConfig().getTermBatchLookupThreshold();
+    }
+    
+    public void setTermBatchLookupThreshold(int termBatchLookupThreshold) {
+        getConfig().setTermBatchLookupThreshold(termBatchLookupThreshold);
+    }
+    
     public int getMaxOrExpansionFstThreshold() {
         return getConfig().getMaxOrExpansionFstThreshold();
     }
@@ -1843,6 +1867,14 @@ public class ShardQueryLogic extends BaseQueryLogic<Entry<Key,Value>> {
         getConfig().setCompressServerSideResults(compressServerSideResults);
     }
     
+    public String getServerSideResultsCodec() {
+        return getConfig().getServerSideResultsCodec();
+    }
+    
+    public void setServerSideResultsCodec(String serverSideResultsCodec) {
+        getConfig().setServerSideResultsCodec(serverSideResultsCodec);
+    }
+    
     /**
      * Returns a value indicating whether index-only filter functions (e.g., #INCLUDE, #EXCLUDE) should be enabled. If true, the use of such filters can
      * potentially consume a LOT of memory.
@@ -1881,6 +1913,7 @@ public class ShardQueryLogic extends BaseQueryLogic<Entry<Key,Value>> {
         optionalParams.add(QueryOptions.REDUCED_RESPONSE);
         optionalParams.add(QueryOptions.POSTPROCESSING_CLASSES);
         optionalParams.add(QueryOptions.COMPRESS_SERVER_SIDE_RESULTS);
+        optionalParams.add(QueryOptions.SERVER_SIDE_RESULTS_CODEC);
         optionalParams.add(QueryOptions.HIT_LIST);
         optionalParams.add(QueryOptions.TYPE_METADATA_IN_HDFS);
         optionalParams.add(QueryOptions.DATE_INDEX_TIME_TRAVEL);
@@ -2063,6 +2096,46 @@ public class ShardQueryLogic extends BaseQueryLogic<Entry<Key,Value>> {
         getConfig().setCollectTimingDetails(collectTimingDetails);
     }
     
+    public Boolean getCollectEvaluationProfile() {
+        return getConfig().getCollectEvaluationProfile();
+    }
+    
+    public void setCollectEvaluationProfile(Boolean collectEvaluationProfile) {
+        getConfig().setCollectEvaluationProfile(collectEvaluationProfile);
+    }
+    
+    public Boolean getCountFromFieldIndex() {
+        return getConfig().getCountFromFieldIndex();
+    }
+    
+    public void setCountFromFieldIndex(Boolean countFromFieldIndex) {
+        getConfig().setCountFromFieldIndex(countFromFieldIndex);
+    }
+    
+    public Boolean getLeapfrogNestedIterators() {
+        return getConfig().getLeapfrogNestedIterators();
+    }
+    
+    public void setLeapfrogNestedIterators(Boolean leapfrogNestedIterators) {
+        getConfig().setLeapfrogNestedIterators(leapfrogNestedIterators);
+    }
+    
+    public Boolean getSequentialDocumentFetch() {
+        return getConfig().getSequentialDocumentFetch();
+    }
+    
+    public void setSequentialDocumentFetch(Boolean sequentialDocumentFetch) {
+        getConfig().setSequentialDocumentFetch(sequentialDocumentFetch);
+    }
+    
+    public Boolean getAdaptiveOrdering() {
+        return getConfig().getAdaptiveOrdering();
+    }
+    
+    public void setAdaptiveOrdering(Boolean adaptiveOrdering) {
+        getConfig().setAdaptiveOrdering(adaptiveOrdering);
+    }
+    
     public Boolean getLogTimingDetails() {
         return getConfig().getLogTimingDetails();
     }
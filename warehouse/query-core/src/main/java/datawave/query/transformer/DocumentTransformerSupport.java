@@ -14,6 +14,7 @@ import datawave.query.cardinality.CardinalityRecord;
 import datawave.query.function.LogTiming;
 import datawave.query.function.deserializer.DocumentDeserializer;
 import datawave.query.iterator.QueryOptions;
+import datawave.query.iterator.profile.QueryNodeProfile;
 import datawave.query.iterator.profile.QuerySpan;
 import datawave.query.jexl.JexlASTHelper;
 import datawave.util.StringUtils;
@@ -25,6 +26,7 @@ import datawave.webservice.query.logic.BaseQueryLogic;
 import datawave.webservice.query.logic.WritesQueryMetrics;
 import datawave.webservice.query.logic.WritesResultCardinalities;
 import datawave.webservice.query.metric.BaseQueryMetric;
+import datawave.webservice.query.metric.BaseQueryMetric.NodeProfile;
 import datawave.webservice.query.result.event.EventBase;
 import datawave.webservice.query.result.event.FieldBase;
 import datawave.webservice.query.result.event.ResponseObjectFactory;
@@ -46,6 +48,7 @@ import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -72,6 +75,7 @@ public abstract class DocumentTransformerSupport<I,O> extends EventQueryTransfor
     private long yieldCount = 0L;
     private long docRanges = 0;
     private long fiRanges = 0;
+    private Map<String,NodeProfile> nodeProfiles = new LinkedHashMap<>();
     private boolean logTimingDetails = false;
     private CardinalityRecord resultCardinalityDocumentDate = null;
     private CardinalityRecord resultCardinalityQueryDate = null;
@@ -218,12 +222,23 @@ public abstract class DocumentTransformerSupport<I,O> extends EventQueryTransfor
             long currentNextCount = timingMetadata.getNextCount();
             long currentSeekCount = timingMetadata.getSeekCount();
             long currentYieldCount = timingMetadata.getYieldCount();
+            long currentReorderCount = timingMetadata.getReorderCount();
             String host = timingMetadata.getHost();
             sourceCount += currentSourceCount;
             nextCount += currentNextCount;
             seekCount += currentSeekCount;
             yieldCount += currentYieldCount;
             Map<String,Long> stageTimers = timingMetadata.getStageTimers();
+            for (Entry<String,QueryNodeProfile> entry : timingMetadata.getNodeProfiles().entrySet()) {
+                NodeProfile nodeProfile = new NodeProfile(entry.getKey(), entry.getValue().getInvocations(), entry.getValue().getTrueCount(),
+                                entry.getValue().getNanos());
+                NodeProfile existing = nodeProfiles.get(entry.getKey());
+                if (existing == null) {
+                    nodeProfiles.put(entry.getKey(), nodeProfile);
+                } else {
+                    existing.merge(nodeProfile);
+                }
+            }
             if (stageTimers.containsKey(QuerySpan.Stage.DocumentSpecificTree.toString())) {
                 docRanges++;
             } else if (stageTimers.containsKey(QuerySpan.Stage.FieldIndexTree.toString())) {
@@ -235,7 +250,8 @@ public abstract class DocumentTransformerSupport<I,O> extends EventQueryTransfor
                 sb.append("retrieved document from host:").append(host).append(" at key:").append(documentKey.toStringNoTime()).append(" stageTimers:")
                                 .append(stageTimers);
                 sb.append(" sourceCount:").append(currentSourceCount).append(" nextCount:").append(currentNextCount).append(" seekCount:")
-                                .append(currentSeekCount).append(" yieldCount:").append(currentYieldCount);
+                                .append(currentSeekCount).append(" yieldCount:").append(currentYieldCount).append(" reorderCount:")
+                                .append(currentReorderCount);
                 if (log.isTraceEnabled()) {
                     log.trace(sb.toString());
                 } else {
@@ -259,6 +275,13 @@ public abstract class DocumentTransformerSupport<I,O> extends EventQueryTransfor
             metric.setYieldCount(yieldCount);
             metric.setDocRanges(docRanges);
             metric.setFiRanges(fiRanges);
+            if (!nodeProfiles.isEmpty()) {
+                List<NodeProfile> profiles = new ArrayList<>();
+                for (NodeProfile nodeProfile : nodeProfiles.values()) {
+                    profiles.add(nodeProfile.duplicate());
+                }
+                metric.setNodeProfiles(profiles);
+            }
         }
     }
     
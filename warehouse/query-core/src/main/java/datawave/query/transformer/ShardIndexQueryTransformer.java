@@ -7,6 +7,7 @@ import java.util.Map.Entry;
 import java.util.UUID;
 
 import datawave.ingest.protobuf.Uid;
+import datawave.ingest.protobuf.UidListCodec;
 import datawave.marking.MarkingFunctions;
 import datawave.marking.MarkingFunctions.Exception;
 import datawave.query.model.QueryModel;
@@ -94,7 +95,7 @@ public class ShardIndexQueryTransformer extends BaseQueryLogicTransformer<Entry<
         Uid.List uidList = null;
         long count = 0;
         try {
-            uidList = Uid.List.parseFrom(entry.getValue().get());
+            uidList = UidListCodec.decode(entry.getValue().get());
             if (null != uidList) {
                 count = uidList.getCOUNT();
             }
@@ -4,6 +4,7 @@ import com.google.common.base.Function;
 import com.google.common.collect.HashMultimap;
 import com.google.common.collect.Iterators;
 import com.google.common.collect.Multimap;
+import java.util.AbstractMap;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -15,6 +16,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 import javax.annotation.Nullable;
@@ -46,9 +48,11 @@ import org.apache.accumulo.core.client.AccumuloClient;
 import org.apache.accumulo.core.client.AccumuloException;
 import org.apache.accumulo.core.client.AccumuloSecurityException;
 import org.apache.accumulo.core.client.BatchScanner;
+import org.apache.accumulo.core.client.BatchWriter;
 import org.apache.accumulo.core.client.BatchWriterConfig;
 import org.apache.accumulo.core.client.IteratorSetting;
 import org.apache.accumulo.core.client.MultiTableBatchWriter;
+import org.apache.accumulo.core.client.MutationsRejectedException;
 import org.apache.accumulo.core.client.Scanner;
 import org.apache.accumulo.core.client.TableNotFoundException;
 import org.apache.accumulo.core.data.Key;
@@ -188,6 +192,8 @@ public class MutableMetadataHandler extends ModificationServiceConfiguration {
     protected static final String MAX_CHAR = new String(Character.toChars(Character.MAX_CODE_POINT));
     protected static final Value NULL_VALUE = new Value(new byte[0]);
     public static final String HISTORY_PREFIX = "HISTORY_";
+    protected static final long BATCH_WRITER_MEMORY = 64L * 1024L * 1024L;
+    protected static final long PROGRESS_INTERVAL_MS = TimeUnit.SECONDS.toMillis(30);
     
     protected String eventTableName = null;
     protected String indexTableName = null;
@@ -309,111 +315,368 @@ public class MutableMetadataHandler extends ModificationServiceConfiguration {
             throw new IllegalArgumentException("No events specified for modification");
         }
         
-        String fieldName = mr.getFieldName();
         MetadataHelper helper = getMetadataHelper(client);
-        MODE mode = mr.getMode();
         MultiTableBatchWriter writer = client.createMultiTableBatchWriter(new BatchWriterConfig().setMaxLatency(1, TimeUnit.SECONDS).setMaxMemory(1048576L)
                         .setMaxWriteThreads(4));
         try {
             for (EventIdentifier e : mr.getEvents()) {
-                String shardId = e.getShardId();
-                String datatype = e.getDatatype();
-                Set<String> datatypeFilter = Collections.singleton(datatype);
-                String eventUid = e.getEventUid();
-                
-                String oldFieldValue = null;
-                Map<String,String> oldFieldMarkings = null;
-                String oldColumnVisibility = null;
-                List<Pair<Key,Value>> currentEntryList = null;
-                int valHistoryCount = 0;
-                
-                /*
-                 * Makes all fields mutable for services requiring no history.
-                 */
-                if (insertHistory && !isFieldMutable(mutableFieldList, datatype, fieldName))
-                    throw new IllegalArgumentException("Field " + fieldName + " is not mutable");
-                
-                boolean isIndexed = helper.isIndexed(fieldName, datatypeFilter);
-                boolean isReverseIndexed = helper.isReverseIndexed(fieldName, datatypeFilter);
-                boolean isIndexOnly = helper.getIndexOnlyFields(datatypeFilter).contains(fieldName);
-                boolean isContent = (contentFields != null && contentFields.contains(fieldName));
-                Set<Type<?>> dataTypes = helper.getDatatypesForField(fieldName, Collections.singleton(datatype));
-                
-                if ((isIndexed || isReverseIndexed || isIndexOnly) && (null == dataTypes || dataTypes.isEmpty()))
-                    throw new IllegalStateException("Field " + fieldName + " is marked index only but has no dataTypes");
-                
-                long origTimestamp = getOriginalEventTimestamp(client, userAuths, shardId, datatype, eventUid);
-                
-                // Count the history entries if history is going to be inserted.
-                if (insertHistory && (MODE.INSERT.equals(mode) || MODE.UPDATE.equals(mode))) {
-                    List<Pair<Key,Value>> fieldHistoryList = getField(client, userAuths, shardId, datatype, eventUid, "HISTORY_" + fieldName, null,
-                                    new HashMap<>(), null);
-                    
-                    for (Pair<Key,Value> p : fieldHistoryList) {
-                        if (p.getFirst().getColumnQualifier().find(mr.getFieldValue()) > -1) {
-                            ++valHistoryCount;
-                        }
-                    }
-                }
+                modify(writer, client, helper, mr, e, null, mutableFieldList, userAuths, user, purgeIndex, insertHistory);
+            }
+        } finally {
+            writer.close();
+        }
+    }
+    
+    @Override
+    public long processBatch(AccumuloClient client, List<ModificationRequestBase> requests, Map<String,Set<String>> mutableFieldList,
+                    Set<Authorizations> userAuths, String user) throws Exception {
+        return this.processBatch(client, requests, mutableFieldList, userAuths, user, false, true);
+    }
+    
+    /**
+     * Process a batch of modification requests. The events of all of the requests are grouped by shard and the events of a shard are read with a single scan,
+     * rather than with several scans for each event. The mutations of the whole batch go through one writer which is flushed as its buffer fills rather than
+     * after every event. Modifications of the same event are applied in the order of the requests, and an event that was already modified by the batch is
+     * read again once those modifications have been written.
+     * <p>
+     * The current values of all the fields updated or deleted by the batch are checked against the events read before anything is written, see
+     * {@link #checkCurrentValues}, so a request whose values do not match rejects the whole batch rather than leaving it partially applied. The events are
+     * not locked, so an event changed by someone else between the check and the write can still fail the batch part way through, in which case the number
+     * of events already modified is logged.
+     * 
+     * @param client
+     * @param requests
+     *            the modification requests, which must all be {@link DefaultModificationRequest}s
+     * @param mutableFieldList
+     * @param userAuths
+     * @param user
+     * @param purgeIndex
+     * @param insertHistory
+     * @return the number of events modified, counting an event once for each request that modifies it
+     * @throws Exception
+     */
+    public long processBatch(AccumuloClient client, List<ModificationRequestBase> requests, Map<String,Set<String>> mutableFieldList,
+                    Set<Authorizations> userAuths, String user, boolean purgeIndex, boolean insertHistory) throws Exception {
+        
+        // check all of the requests before anything is written
+        Map<String,List<Pair<DefaultModificationRequest,EventIdentifier>>> shards = new TreeMap<>();
+        long total = 0;
+        for (ModificationRequestBase request : requests) {
+            if (!(request instanceof DefaultModificationRequest)) {
+                throw new IllegalArgumentException("Batch modification requires " + DefaultModificationRequest.class.getSimpleName() + " requests");
+            }
+            DefaultModificationRequest mr = (DefaultModificationRequest) request;
+            if (null == mr.getEvents() || mr.getEvents().isEmpty()) {
+                throw new IllegalArgumentException("No events specified for modification");
+            }
+            if (null == mr.getMode()) {
+                throw new IllegalArgumentException("mode parameter required");
+            }
+            if (null == mr.getFieldValue() || (MODE.UPDATE.equals(mr.getMode()) && null == mr.getOldFieldValue())) {
+                throw new IllegalArgumentException("fieldValue parameter required for " + mr.getMode().name().toLowerCase());
+            }
+            for (EventIdentifier e : mr.getEvents()) {
+                if (insertHistory && !isFieldMutable(mutableFieldList, e.getDatatype(), mr.getFieldName()))
+                    throw new IllegalArgumentException("Field " + mr.getFieldName() + " is not mutable");
+                shards.computeIfAbsent(e.getShardId(), k -> new ArrayList<>()).add(new Pair<>(mr, e));
+                total++;
+            }
+        }
+        
+        MetadataHelper helper = getMetadataHelper(client);
+        long start = System.currentTimeMillis();
+        
+        // read the events of every shard, and check the current values of the whole batch against them before anything is written
+        Map<String,Map<Text,List<Entry<Key,Value>>>> shardEvents = new HashMap<>();
+        for (Entry<String,List<Pair<DefaultModificationRequest,EventIdentifier>>> shard : shards.entrySet()) {
+            Set<Text> families = new HashSet<>();
+            for (Pair<DefaultModificationRequest,EventIdentifier> modification : shard.getValue()) {
+                families.add(getEventFamily(modification.getSecond()));
+            }
+            Map<Text,List<Entry<Key,Value>>> events = getEvents(client, userAuths, shard.getKey(), families);
+            checkCurrentValues(helper, userAuths, shard.getKey(), shard.getValue(), events);
+            shardEvents.put(shard.getKey(), events);
+        }
+        
+        DeferredFlushWriter writer = new DeferredFlushWriter(client.createMultiTableBatchWriter(new BatchWriterConfig().setMaxLatency(1, TimeUnit.SECONDS)
+                        .setMaxMemory(BATCH_WRITER_MEMORY).setMaxWriteThreads(4)));
+        long lastReport = start;
+        long modified = 0;
+        try {
+            for (Entry<String,List<Pair<DefaultModificationRequest,EventIdentifier>>> shard : shards.entrySet()) {
+                String shardId = shard.getKey();
+                Map<Text,List<Entry<Key,Value>>> events = shardEvents.remove(shardId);
                 
-                if (MODE.UPDATE.equals(mode) || MODE.DELETE.equals(mode)) {
-                    if (MODE.UPDATE.equals(mode)) {
-                        oldFieldValue = mr.getOldFieldValue();
-                        oldFieldMarkings = mr.getOldFieldMarkings();
-                        oldColumnVisibility = mr.getOldColumnVisibility();
-                        if (null == oldFieldValue)
-                            throw new IllegalArgumentException("fieldValue parameter required for update");
-                    } else {
-                        oldFieldValue = mr.getFieldValue();
-                        oldFieldMarkings = mr.getFieldMarkings();
-                        oldColumnVisibility = mr.getColumnVisibility();
-                        if (null == oldFieldValue)
-                            throw new IllegalArgumentException("fieldValue parameter required for delete");
-                    }
-                    ColumnVisibility oldViz = null;
-                    if (null != oldColumnVisibility) {
-                        oldViz = new ColumnVisibility(oldColumnVisibility);
+                // the events whose entries were read before this batch last modified them
+                Set<Text> stale = new HashSet<>();
+                for (Pair<DefaultModificationRequest,EventIdentifier> modification : shard.getValue()) {
+                    Text family = getEventFamily(modification.getSecond());
+                    if (stale.remove(family)) {
+                        writer.flushNow();
+                        events.putAll(getEvents(client, userAuths, shardId, Collections.singleton(family)));
                     }
+                    List<Entry<Key,Value>> event = events.getOrDefault(family, Collections.emptyList());
+                    modify(writer, client, helper, modification.getFirst(), modification.getSecond(), event, mutableFieldList, userAuths, user, purgeIndex,
+                                    insertHistory);
+                    stale.add(family);
+                    modified++;
                     
-                    // find the current values
-                    currentEntryList = getField(client, userAuths, shardId, datatype, eventUid, fieldName, oldFieldValue, oldFieldMarkings, oldViz);
-                    if (oldFieldValue != null && currentEntryList.isEmpty()) {
-                        throw new IllegalArgumentException("Modification request rejected. Current value of " + fieldName + " does not match submitted value.");
+                    long now = System.currentTimeMillis();
+                    if (now - lastReport >= PROGRESS_INTERVAL_MS) {
+                        log.info("Batch modification for " + user + " modified " + modified + " of " + total + " events, " + getRate(modified, now - start)
+                                        + " events/sec");
+                        lastReport = now;
                     }
+                }
+            }
+        } catch (Exception e) {
+            log.error("Batch modification for " + user + " failed after modifying " + modified + " of " + total + " events", e);
+            throw e;
+        } finally {
+            writer.close();
+        }
+        long elapsed = System.currentTimeMillis() - start;
+        log.info("Batch modification for " + user + " modified " + modified + " events in " + shards.size() + " shards from " + requests.size()
+                        + " requests in " + elapsed + "ms, " + getRate(modified, elapsed) + " events/sec");
+        return modified;
+    }
+    
+    /**
+     * Check the current values of the fields updated or deleted by the modifications of a shard against the events read from the shard, so that a batch is
+     * rejected before anything is written rather than part way through. The modifications are applied in order to a copy of the entries of each event, so
+     * that a request may update or delete a value inserted or updated by an earlier request of the batch, and the current values are matched as
+     * {@link #modify} matches them.
+     *
+     * @param helper
+     * @param userAuths
+     * @param shardId
+     * @param modifications
+     *            the modifications of the shard, in order
+     * @param events
+     *            the entries of the events of the shard, keyed by column family, which are not changed
+     * @throws IllegalArgumentException
+     *             if the current value of a field does not match the submitted value, or an inserted value has no security markings
+     * @throws Exception
+     */
+    protected void checkCurrentValues(MetadataHelper helper, Set<Authorizations> userAuths, String shardId,
+                    List<Pair<DefaultModificationRequest,EventIdentifier>> modifications, Map<Text,List<Entry<Key,Value>>> events) throws Exception {
+        Map<Text,List<Entry<Key,Value>>> current = new HashMap<>();
+        for (Pair<DefaultModificationRequest,EventIdentifier> modification : modifications) {
+            DefaultModificationRequest mr = modification.getFirst();
+            EventIdentifier e = modification.getSecond();
+            Text family = getEventFamily(e);
+            List<Entry<Key,Value>> event = current.computeIfAbsent(family, k -> new ArrayList<>(events.getOrDefault(k, Collections.emptyList())));
+            
+            if (MODE.UPDATE.equals(mr.getMode()) || MODE.DELETE.equals(mr.getMode())) {
+                String oldFieldValue;
+                Map<String,String> oldFieldMarkings;
+                String oldColumnVisibility;
+                if (MODE.UPDATE.equals(mr.getMode())) {
+                    oldFieldValue = mr.getOldFieldValue();
+                    oldFieldMarkings = mr.getOldFieldMarkings();
+                    oldColumnVisibility = mr.getOldColumnVisibility();
                 } else {
-                    if (null == mr.getFieldValue())
-                        throw new IllegalArgumentException("fieldValue parameter required for insert");
+                    oldFieldValue = mr.getFieldValue();
+                    oldFieldMarkings = mr.getFieldMarkings();
+                    oldColumnVisibility = mr.getColumnVisibility();
                 }
-                
-                if (MODE.INSERT.equals(mode)) {
-                    String fieldValue = mr.getFieldValue();
-                    Map<String,String> fieldMarkings = mr.getFieldMarkings();
-                    String columnVisibility = mr.getColumnVisibility();
-                    ColumnVisibility colviz = null;
-                    if (null != columnVisibility) {
-                        colviz = new ColumnVisibility(columnVisibility);
-                    }
-                    insert(writer, shardId, datatype, eventUid, fieldMarkings, colviz, fieldName, fieldValue, isIndexOnly, isIndexed, isReverseIndexed,
-                                    dataTypes, user, MODE.INSERT, origTimestamp + valHistoryCount, insertHistory);
-                } else if (MODE.DELETE.equals(mode)) {
-                    delete(writer, client, userAuths, currentEntryList, isIndexOnly, isIndexed, isReverseIndexed, isContent, dataTypes, user, MODE.DELETE,
-                                    origTimestamp + valHistoryCount, purgeIndex, insertHistory);
+                ColumnVisibility oldViz = (null == oldColumnVisibility) ? null : new ColumnVisibility(oldColumnVisibility);
+                List<Pair<Key,Value>> currentEntryList = filterField(event, userAuths, mr.getFieldName(), oldFieldValue, oldFieldMarkings, oldViz);
+                if (currentEntryList.isEmpty()) {
+                    throw new IllegalArgumentException("Modification request rejected. Current value of " + mr.getFieldName() + " in event "
+                                    + e.getEventUid() + " does not match submitted value.");
+                }
+                for (Pair<Key,Value> currentEntry : currentEntryList) {
+                    event.removeIf(entry -> entry.getKey().equals(currentEntry.getFirst()));
+                }
+            }
+            
+            if (MODE.INSERT.equals(mr.getMode()) || MODE.UPDATE.equals(mr.getMode())) {
+                ColumnVisibility viz;
+                if (null != mr.getColumnVisibility()) {
+                    viz = new ColumnVisibility(mr.getColumnVisibility());
+                } else if (null != mr.getFieldMarkings() && !mr.getFieldMarkings().isEmpty()) {
+                    viz = markingFunctions.translateToColumnVisibility(mr.getFieldMarkings());
                 } else {
-                    delete(writer, client, userAuths, currentEntryList, isIndexOnly, isIndexed, isReverseIndexed, isContent, dataTypes, user, MODE.UPDATE,
-                                    origTimestamp + valHistoryCount, purgeIndex, insertHistory);
-                    String fieldValue = mr.getFieldValue();
-                    Map<String,String> fieldMarkings = mr.getFieldMarkings();
-                    String columnVisibility = mr.getColumnVisibility();
-                    ColumnVisibility colviz = null;
-                    if (null != columnVisibility) {
-                        colviz = new ColumnVisibility(columnVisibility);
-                    }
-                    insert(writer, shardId, datatype, eventUid, fieldMarkings, colviz, fieldName, fieldValue, isIndexOnly, isIndexed, isReverseIndexed,
-                                    dataTypes, user, MODE.UPDATE, origTimestamp + valHistoryCount, insertHistory);
+                    throw new IllegalArgumentException("No security information specified. Security markings must be supplied");
+                }
+                // index only fields are not written to the event
+                if (!helper.getIndexOnlyFields(Collections.singleton(e.getDatatype())).contains(mr.getFieldName())) {
+                    Key key = new Key(new Text(shardId), family, new Text(mr.getFieldName() + NULL_BYTE + mr.getFieldValue()), viz, 0L);
+                    event.add(new AbstractMap.SimpleImmutableEntry<>(key, NULL_VALUE));
                 }
             }
+        }
+    }
+    
+    private static long getRate(long count, long elapsedMillis) {
+        return (count * 1000) / Math.max(1, elapsedMillis);
+    }
+    
+    private static Text getEventFamily(EventIdentifier e) {
+        return new Text(e.getDatatype() + NULL_BYTE + e.getEventUid());
+    }
+    
+    /**
+     * Read events from a shard of the event table with a single scan
+     * 
+     * @param client
+     * @param userAuths
+     * @param shardId
+     * @param families
+     *            the column families, datatype and event uid, of the events
+     * @return the entries of each event that has any, keyed by column family
+     * @throws Exception
+     */
+    protected Map<Text,List<Entry<Key,Value>>> getEvents(AccumuloClient client, Set<Authorizations> userAuths, String shardId, Set<Text> families)
+                    throws Exception {
+        Map<Text,List<Entry<Key,Value>>> events = new HashMap<>();
+        Scanner s = ScannerHelper.createScanner(client, this.getEventTableName(), userAuths);
+        try {
+            s.setRange(new Range(shardId));
+            for (Text family : families) {
+                s.fetchColumnFamily(family);
+            }
+            for (Entry<Key,Value> e : s) {
+                events.computeIfAbsent(e.getKey().getColumnFamily(), k -> new ArrayList<>()).add(e);
+            }
         } finally {
-            writer.close();
+            s.close();
+        }
+        return events;
+    }
+    
+    /**
+     * Apply a modification request to one of its events
+     *
+     * @param writer
+     * @param client
+     * @param helper
+     * @param mr
+     *            the modification request
+     * @param e
+     *            the event to modify
+     * @param event
+     *            the entries of the event in the shard table, or null to look them up
+     * @param mutableFieldList
+     * @param userAuths
+     * @param user
+     * @param purgeIndex
+     * @param insertHistory
+     * @throws Exception
+     */
+    protected void modify(MultiTableBatchWriter writer, AccumuloClient client, MetadataHelper helper, DefaultModificationRequest mr, EventIdentifier e,
+                    List<Entry<Key,Value>> event, Map<String,Set<String>> mutableFieldList, Set<Authorizations> userAuths, String user, boolean purgeIndex,
+                    boolean insertHistory) throws Exception {
+        String fieldName = mr.getFieldName();
+        MODE mode = mr.getMode();
+        String shardId = e.getShardId();
+        String datatype = e.getDatatype();
+        Set<String> datatypeFilter = Collections.singleton(datatype);
+        String eventUid = e.getEventUid();
+        
+        String oldFieldValue = null;
+        Map<String,String> oldFieldMarkings = null;
+        String oldColumnVisibility = null;
+        List<Pair<Key,Value>> currentEntryList = null;
+        int valHistoryCount = 0;
+        
+        /*
+         * Makes all fields mutable for services requiring no history.
+         */
+        if (insertHistory && !isFieldMutable(mutableFieldList, datatype, fieldName))
+            throw new IllegalArgumentException("Field " + fieldName + " is not mutable");
+        
+        boolean isIndexed = helper.isIndexed(fieldName, datatypeFilter);
+        boolean isReverseIndexed = helper.isReverseIndexed(fieldName, datatypeFilter);
+        boolean isIndexOnly = helper.getIndexOnlyFields(datatypeFilter).contains(fieldName);
+        boolean isContent = (contentFields != null && contentFields.contains(fieldName));
+        Set<Type<?>> dataTypes = helper.getDatatypesForField(fieldName, Collections.singleton(datatype));
+        
+        if ((isIndexed || isReverseIndexed || isIndexOnly) && (null == dataTypes || dataTypes.isEmpty()))
+            throw new IllegalStateException("Field " + fieldName + " is marked index only but has no dataTypes");
+        
+        long origTimestamp;
+        if (null == event) {
+            origTimestamp = getOriginalEventTimestamp(client, userAuths, shardId, datatype, eventUid);
+        } else {
+            origTimestamp = getOriginalEventTimestamp(event, shardId);
+        }
+        
+        // Count the history entries if history is going to be inserted.
+        if (insertHistory && (MODE.INSERT.equals(mode) || MODE.UPDATE.equals(mode))) {
+            List<Pair<Key,Value>> fieldHistoryList;
+            if (null == event) {
+                fieldHistoryList = getField(client, userAuths, shardId, datatype, eventUid, "HISTORY_" + fieldName, null, new HashMap<>(), null);
+            } else {
+                fieldHistoryList = filterField(event, userAuths, "HISTORY_" + fieldName, null, new HashMap<>(), null);
+            }
+            
+            for (Pair<Key,Value> p : fieldHistoryList) {
+                if (p.getFirst().getColumnQualifier().find(mr.getFieldValue()) > -1) {
+                    ++valHistoryCount;
+                }
+            }
+        }
+        
+        if (MODE.UPDATE.equals(mode) || MODE.DELETE.equals(mode)) {
+            if (MODE.UPDATE.equals(mode)) {
+                oldFieldValue = mr.getOldFieldValue();
+                oldFieldMarkings = mr.getOldFieldMarkings();
+                oldColumnVisibility = mr.getOldColumnVisibility();
+                if (null == oldFieldValue)
+                    throw new IllegalArgumentException("fieldValue parameter required for update");
+            } else {
+                oldFieldValue = mr.getFieldValue();
+                oldFieldMarkings = mr.getFieldMarkings();
+                oldColumnVisibility = mr.getColumnVisibility();
+                if (null == oldFieldValue)
+                    throw new IllegalArgumentException("fieldValue parameter required for delete");
+            }
+            ColumnVisibility oldViz = null;
+            if (null != oldColumnVisibility) {
+                oldViz = new ColumnVisibility(oldColumnVisibility);
+            }
+            
+            // find the current values
+            if (null == event) {
+                currentEntryList = getField(client, userAuths, shardId, datatype, eventUid, fieldName, oldFieldValue, oldFieldMarkings, oldViz);
+            } else {
+                currentEntryList = filterField(event, userAuths, fieldName, oldFieldValue, oldFieldMarkings, oldViz);
+            }
+            if (oldFieldValue != null && currentEntryList.isEmpty()) {
+                throw new IllegalArgumentException("Modification request rejected. Current value of " + fieldName + " does not match submitted value.");
+            }
+        } else {
+            if (null == mr.getFieldValue())
+                throw new IllegalArgumentException("fieldValue parameter required for insert");
+        }
+        
+        if (MODE.INSERT.equals(mode)) {
+            String fieldValue = mr.getFieldValue();
+            Map<String,String> fieldMarkings = mr.getFieldMarkings();
+            String columnVisibility = mr.getColumnVisibility();
+            ColumnVisibility colviz = null;
+            if (null != columnVisibility) {
+                colviz = new ColumnVisibility(columnVisibility);
+            }
+            insert(writer, shardId, datatype, eventUid, fieldMarkings, colviz, fieldName, fieldValue, isIndexOnly, isIndexed, isReverseIndexed,
+                            dataTypes, user, MODE.INSERT, origTimestamp + valHistoryCount, insertHistory);
+        } else if (MODE.DELETE.equals(mode)) {
+            delete(writer, client, userAuths, currentEntryList, isIndexOnly, isIndexed, isReverseIndexed, isContent, dataTypes, user, MODE.DELETE,
+                            origTimestamp + valHistoryCount, purgeIndex, insertHistory);
+        } else {
+            delete(writer, client, userAuths, currentEntryList, isIndexOnly, isIndexed, isReverseIndexed, isContent, dataTypes, user, MODE.UPDATE,
+                            origTimestamp + valHistoryCount, purgeIndex, insertHistory);
+            String fieldValue = mr.getFieldValue();
+            Map<String,String> fieldMarkings = mr.getFieldMarkings();
+            String columnVisibility = mr.getColumnVisibility();
+            ColumnVisibility colviz = null;
+            if (null != columnVisibility) {
+                colviz = new ColumnVisibility(columnVisibility);
+            }
+            insert(writer, shardId, datatype, eventUid, fieldMarkings, colviz, fieldName, fieldValue, isIndexOnly, isIndexed, isReverseIndexed,
+                            dataTypes, user, MODE.UPDATE, origTimestamp + valHistoryCount, insertHistory);
         }
     }
     
@@ -732,8 +995,6 @@ public class MutableMetadataHandler extends ModificationServiceConfiguration {
             TextUtil.textAppend(qualifier, oldFieldValue);
         }
         
-        List<Pair<Key,Value>> results = new ArrayList<>();
-        
         Scanner s = ScannerHelper.createScanner(client, this.getEventTableName(), userAuths);
         try {
             s.setRange(new Range(shardId));
@@ -743,32 +1004,55 @@ public class MutableMetadataHandler extends ModificationServiceConfiguration {
                 s.fetchColumn(family, qualifier);
             }
             
-            for (Entry<Key,Value> e : s) {
-                ColumnVisibility thisViz = new ColumnVisibility(e.getKey().getColumnVisibility());
-                
-                if (!e.getKey().getColumnQualifier().toString().startsWith(fieldName)) {
+            return filterField(s, userAuths, fieldName, oldFieldValue, oldFieldMarkings, oldColumnVisibility);
+        } finally {
+            s.close();
+        }
+    }
+    
+    /**
+     * Get the Key,Value pairs for the field to be updated/deleted from the entries of an event that have already been read from the event table
+     *
+     * @param event
+     *            the entries of the event
+     * @param userAuths
+     * @param fieldName
+     * @param oldFieldValue
+     *            the value to match, or null to match any value of the field
+     * @param oldFieldMarkings
+     * @param oldColumnVisibility
+     * @return the matching entries
+     * @throws Exception
+     */
+    protected List<Pair<Key,Value>> filterField(Iterable<Entry<Key,Value>> event, Set<Authorizations> userAuths, String fieldName, String oldFieldValue,
+                    Map<String,String> oldFieldMarkings, ColumnVisibility oldColumnVisibility) throws Exception {
+        String qualifier = (oldFieldValue == null) ? null : fieldName + NULL_BYTE + oldFieldValue;
+        
+        List<Pair<Key,Value>> results = new ArrayList<>();
+        for (Entry<Key,Value> e : event) {
+            ColumnVisibility thisViz = new ColumnVisibility(e.getKey().getColumnVisibility());
+            
+            String cq = e.getKey().getColumnQualifier().toString();
+            if (!cq.startsWith(fieldName) || (qualifier != null && !qualifier.equals(cq))) {
+                continue;
+            }
+            
+            if (null != oldColumnVisibility) {
+                // need to compare the flattened values for equivalence. It's possible for the visibility to be in a different order
+                String oldColViz = new String(oldColumnVisibility.flatten(), "UTF-8");
+                String thisVis = new String(thisViz.flatten(), "UTF-8");
+                if (!oldColViz.equals(thisVis)) {
+                    log.trace("Skipping key that does not match with column visibility: " + e.getKey());
                     continue;
                 }
-                
-                if (null != oldColumnVisibility) {
-                    // need to compare the flattened values for equivalence. It's possible for the visibility to be in a different order
-                    String oldColViz = new String(oldColumnVisibility.flatten(), "UTF-8");
-                    String thisVis = new String(thisViz.flatten(), "UTF-8");
-                    if (!oldColViz.equals(thisVis)) {
-                        log.trace("Skipping key that does not match with column visibility: " + e.getKey());
-                        continue;
-                    }
-                } else {
-                    Map<String,String> markings = markingFunctions.translateFromColumnVisibilityForAuths(e.getKey().getColumnVisibilityParsed(), userAuths);
-                    if (null != oldFieldMarkings && !oldFieldMarkings.equals(markings)) {
-                        log.trace("Skipping key that does not match with markings: " + e.getKey());
-                        continue;
-                    }
+            } else {
+                Map<String,String> markings = markingFunctions.translateFromColumnVisibilityForAuths(e.getKey().getColumnVisibilityParsed(), userAuths);
+                if (null != oldFieldMarkings && !oldFieldMarkings.equals(markings)) {
+                    log.trace("Skipping key that does not match with markings: " + e.getKey());
+                    continue;
                 }
-                results.add(new Pair<>(e.getKey(), e.getValue()));
             }
-        } finally {
-            s.close();
+            results.add(new Pair<>(e.getKey(), e.getValue()));
         }
         return results;
     }
@@ -791,43 +1075,55 @@ public class MutableMetadataHandler extends ModificationServiceConfiguration {
         Text family = new Text(datatype);
         TextUtil.textAppend(family, eventUid);
         
-        HashMap<Long,Integer> timestampCounts = new HashMap<>();
-        
-        long highestOccurrenceTimestamp = 0;
-        int highestOccurrences = -1;
-        
         // Pull the entire event
         Scanner s = ScannerHelper.createScanner(client, this.getEventTableName(), userAuths);
         try {
             s.setRange(new Range(shardId));
             s.fetchColumnFamily(family);
             
-            // Populate map with how often each timestamp occurs
-            for (Entry<Key,Value> e : s) {
-                long ts = e.getKey().getTimestamp();
-                if (!timestampCounts.containsKey(ts)) {
-                    timestampCounts.put(ts, 1);
-                } else {
-                    timestampCounts.put(ts, timestampCounts.get(ts) + 1);
-                }
-            }
-            
-            // Determine the most common timestamp
-            if (timestampCounts.isEmpty()) {
-                // if no fields exist, then use the shard date at 00:00:00
-                highestOccurrenceTimestamp = DateHelper.parse(shardId.substring(0, 8)).getTime();
+            return getOriginalEventTimestamp(s, shardId);
+        } finally {
+            s.close();
+        }
+    }
+    
+    /**
+     * Returns the most common timestamp of the entries of an event that have already been read from the event table
+     *
+     * @param event
+     *            the entries of the event
+     * @param shardId
+     * @return long - highestOccurrenceTimestamp - most common timestamp in the event
+     */
+    protected long getOriginalEventTimestamp(Iterable<Entry<Key,Value>> event, String shardId) {
+        HashMap<Long,Integer> timestampCounts = new HashMap<>();
+        
+        long highestOccurrenceTimestamp = 0;
+        int highestOccurrences = -1;
+        
+        // Populate map with how often each timestamp occurs
+        for (Entry<Key,Value> e : event) {
+            long ts = e.getKey().getTimestamp();
+            if (!timestampCounts.containsKey(ts)) {
+                timestampCounts.put(ts, 1);
             } else {
-                for (Entry<Long,Integer> entry : timestampCounts.entrySet()) {
-                    Long ts = entry.getKey();
-                    int occurrences = entry.getValue();
-                    if (occurrences > highestOccurrences) {
-                        highestOccurrences = occurrences;
-                        highestOccurrenceTimestamp = ts;
-                    }
+                timestampCounts.put(ts, timestampCounts.get(ts) + 1);
+            }
+        }
+        
+        // Determine the most common timestamp
+        if (timestampCounts.isEmpty()) {
+            // if no fields exist, then use the shard date at 00:00:00
+            highestOccurrenceTimestamp = DateHelper.parse(shardId.substring(0, 8)).getTime();
+        } else {
+            for (Entry<Long,Integer> entry : timestampCounts.entrySet()) {
+                Long ts = entry.getKey();
+                int occurrences = entry.getValue();
+                if (occurrences > highestOccurrences) {
+                    highestOccurrences = occurrences;
+                    highestOccurrenceTimestamp = ts;
                 }
             }
-        } finally {
-            s.close();
         }
         
         return highestOccurrenceTimestamp;
@@ -994,6 +1290,41 @@ public class MutableMetadataHandler extends ModificationServiceConfiguration {
         return new FieldIndexIterable(client, shardTable, eventUid, datatype, userAuths, ranges);
     }
     
+    /**
+     * Defers the flushes of the single event methods, which flush after every event, so that a batch of modifications is written as its buffer fills
+     */
+    protected static class DeferredFlushWriter implements MultiTableBatchWriter {
+        private final MultiTableBatchWriter writer;
+        
+        public DeferredFlushWriter(MultiTableBatchWriter writer) {
+            this.writer = writer;
+        }
+        
+        @Override
+        public BatchWriter getBatchWriter(String table) throws AccumuloException, AccumuloSecurityException, TableNotFoundException {
+            return writer.getBatchWriter(table);
+        }
+        
+        @Override
+        public void flush() {
+            // deferred until flushNow or close
+        }
+        
+        public void flushNow() throws MutationsRejectedException {
+            writer.flush();
+        }
+        
+        @Override
+        public void close() throws MutationsRejectedException {
+            writer.close();
+        }
+        
+        @Override
+        public boolean isClosed() {
+            return writer.isClosed();
+        }
+    }
+    
     protected static class FieldIndexIterable implements Iterable<Key>, AutoCloseable {
         private BatchScanner scanner;
         
@@ -205,6 +205,18 @@ public class MutableMetadataUUIDHandler extends MutableMetadataHandler {
         }
     }
     
+    /**
+     * The events of a UUID modification request are found by query, so the requests of a batch are processed one at a time
+     */
+    @Override
+    public long processBatch(AccumuloClient client, List<ModificationRequestBase> requests, Map<String,Set<String>> mutableFieldList,
+                    Set<Authorizations> userAuths, String user) throws Exception {
+        for (ModificationRequestBase request : requests) {
+            process(client, request, mutableFieldList, userAuths, user);
+        }
+        return requests.size();
+    }
+    
     @Override
     public void process(AccumuloClient client, ModificationRequestBase request, Map<String,Set<String>> mutableFieldList, Set<Authorizations> userAuths,
                     String user) throws BadRequestException, AccumuloException, AccumuloSecurityException, TableNotFoundException, ExecutionException {
@@ -81,6 +81,31 @@ public abstract class ModificationServiceConfiguration {
     public abstract void process(AccumuloClient client, ModificationRequestBase request, Map<String,Set<String>> mutableFieldList,
                     Set<Authorizations> userAuths, String user) throws Exception;
     
+    /**
+     * Process a batch of modification requests. By default the requests are processed one at a time, services that can share their lookups and writes across
+     * requests should override this.
+     * 
+     * @param client
+     *            Accumulo Connector
+     * @param requests
+     *            the modification requests to process, in the order they are to be applied
+     * @param mutableFieldList
+     *            map of datatype to set of fields that are mutable
+     * @param userAuths
+     *            authorizations of user making the call
+     * @param user
+     *            user identifier
+     * @return the number of modifications made, which is the number of requests unless the service counts them otherwise
+     * @throws Exception
+     */
+    public long processBatch(AccumuloClient client, List<ModificationRequestBase> requests, Map<String,Set<String>> mutableFieldList,
+                    Set<Authorizations> userAuths, String user) throws Exception {
+        for (ModificationRequestBase request : requests) {
+            process(client, request, mutableFieldList, userAuths, user);
+        }
+        return requests.size();
+    }
+    
     /**
      * 
      * @return priority from AccumuloConnectionFactory
@@ -0,0 +1,193 @@
+package datawave.core.iterators;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+import datawave.core.iterators.filter.GlobalIndexTermMatchingFilter;
+
+import org.apache.accumulo.core.data.ByteSequence;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Range;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.iterators.SortedMapIterator;
+import org.apache.accumulo.core.iterators.WrappingIterator;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class GlobalIndexTermMatchingIteratorTest {
+    
+    private static final String[] PREFIXES = {"alpha", "bravo", "charlie", "delta"};
+    private static final String[] SHARDS = {"20200101_0\0csv", "20200101_1\0csv"};
+    
+    private CountingIterator source;
+    
+    /**
+     * A global index with 2 shards for each of 400 terms
+     */
+    private static SortedMap<Key,Value> createIndex(boolean reverse) {
+        SortedMap<Key,Value> index = new TreeMap<>();
+        for (String prefix : PREFIXES) {
+            for (int i = 0; i < 100; i++) {
+                String term = prefix + String.format("%03d", i);
+                if (reverse) {
+                    term = new StringBuilder(term).reverse().toString();
+                }
+                for (String shard : SHARDS) {
+                    index.put(new Key(term, "FIELD", shard), new Value());
+                }
+            }
+        }
+        return index;
+    }
+    
+    private GlobalIndexTermMatchingIterator createIterator(SortedMap<Key,Value> index, Map<String,String> options) throws IOException {
+        source = new CountingIterator();
+        source.init(new SortedMapIterator(index), Collections.emptyMap(), null);
+        GlobalIndexTermMatchingIterator iterator = new GlobalIndexTermMatchingIterator();
+        iterator.init(source, options, null);
+        return iterator;
+    }
+    
+    private static Map<String,String> patternOptions(String... patterns) {
+        Map<String,String> options = new HashMap<>();
+        for (int i = 0; i < patterns.length; i++) {
+            options.put(GlobalIndexTermMatchingFilter.PATTERN + (i + 1), patterns[i]);
+        }
+        return options;
+    }
+    
+    private static List<Key> scan(GlobalIndexTermMatchingIterator iterator, Range range) throws IOException {
+        List<Key> keys = new ArrayList<>();
+        iterator.seek(range, Collections.emptyList(), false);
+        while (iterator.hasTop()) {
+            keys.add(iterator.getTopKey());
+            iterator.next();
+        }
+        return keys;
+    }
+    
+    private static List<Key> expected(SortedMap<Key,Value> index, String regex, boolean reverse) {
+        Pattern pattern = Pattern.compile(regex);
+        List<Key> keys = new ArrayList<>();
+        for (Key key : index.keySet()) {
+            String term = key.getRow().toString();
+            if (reverse) {
+                term = new StringBuilder(term).reverse().toString();
+            }
+            if (pattern.matcher(term).matches()) {
+                keys.add(key);
+            }
+        }
+        return keys;
+    }
+    
+    @Test
+    public void testSeeksPastNonMatchingTerms() throws IOException {
+        SortedMap<Key,Value> index = createIndex(false);
+        GlobalIndexTermMatchingIterator iterator = createIterator(index, patternOptions("delta0[0-4].*"));
+        
+        List<Key> keys = scan(iterator, new Range());
+        Assert.assertEquals(expected(index, "delta0[0-4].*", false), keys);
+        Assert.assertEquals(100, keys.size());
+        Assert.assertEquals("delta0[0-4].*", iterator.getMatchedValue());
+        
+        // 600 non-matching entries precede the matches, most of which are sought past
+        Assert.assertTrue("seeks: " + source.seeks, source.seeks > 1);
+        Assert.assertTrue("nexts: " + source.nexts, source.nexts < 150);
+    }
+    
+    @Test
+    public void testMatchesLikePatterns() throws IOException {
+        SortedMap<Key,Value> index = createIndex(false);
+        // the lookahead cannot be compiled into an automaton, and is matched with the pattern without seeking
+        for (String regex : new String[] {".*05[0-9]", "(bravo|charlie)0[1-2]3", "a.*|.*9", "echo.*", "(?=c)charlie00[0-9]"}) {
+            Assert.assertEquals(regex, expected(index, regex, false), scan(createIterator(index, patternOptions(regex)), new Range()));
+        }
+        Assert.assertEquals(1, source.seeks);
+    }
+    
+    @Test
+    public void testReverseIndex() throws IOException {
+        SortedMap<Key,Value> index = createIndex(true);
+        for (String regex : new String[] {".*00[1-3]", "bravo.*", ".*a0[0-9]7"}) {
+            Map<String,String> options = patternOptions(regex);
+            options.put(GlobalIndexTermMatchingFilter.REVERSE_INDEX, "true");
+            List<Key> keys = scan(createIterator(index, options), new Range());
+            Assert.assertFalse(regex, keys.isEmpty());
+            Assert.assertEquals(regex, expected(index, regex, true), keys);
+        }
+    }
+    
+    @Test
+    public void testSeekStaysWithinRange() throws IOException {
+        SortedMap<Key,Value> index = createIndex(false);
+        GlobalIndexTermMatchingIterator iterator = createIterator(index, patternOptions("delta.*"));
+        Assert.assertTrue(scan(iterator, new Range("alpha", true, "charlie050", true)).isEmpty());
+        // the next possible match is past the end of the range, so the scan stops there
+        Assert.assertEquals(1, source.seeks);
+        Assert.assertTrue("nexts: " + source.nexts, source.nexts < 20);
+        
+        List<Key> keys = scan(iterator, new Range("charlie", true, "delta005", false));
+        Assert.assertEquals(10, keys.size());
+        Assert.assertEquals("delta004", keys.get(keys.size() - 1).getRow().toString());
+    }
+    
+    @Test
+    public void testMatchedValueWithSeveralTerms() throws IOException {
+        SortedMap<Key,Value> index = createIndex(false);
+        Map<String,String> options = patternOptions("alpha00[0-2]", "charlie.*9");
+        options.put(GlobalIndexTermMatchingFilter.LITERAL + 1, "bravo007");
+        GlobalIndexTermMatchingIterator iterator = createIterator(index, options);
+        
+        Map<String,String> matched = new TreeMap<>();
+        iterator.seek(new Range(), Collections.emptyList(), false);
+        while (iterator.hasTop()) {
+            matched.put(iterator.getTopKey().getRow().toString(), iterator.getMatchedValue());
+            iterator.next();
+        }
+        Assert.assertEquals(14, matched.size());
+        Assert.assertEquals("alpha00[0-2]", matched.get("alpha001"));
+        Assert.assertEquals("bravo007", matched.get("bravo007"));
+        Assert.assertEquals("charlie.*9", matched.get("charlie049"));
+    }
+    
+    @Test
+    public void testUniqueTerms() throws IOException {
+        SortedMap<Key,Value> index = createIndex(false);
+        Map<String,String> options = patternOptions("bravo0[0-4]1");
+        options.put(GlobalIndexTermMatchingIterator.UNIQUE_TERMS_IN_FIELD, "true");
+        List<Key> keys = scan(createIterator(index, options), new Range());
+        Assert.assertEquals(5, keys.size());
+        for (int i = 0; i < keys.size(); i++) {
+            Assert.assertEquals("bravo0" + i + "1", keys.get(i).getRow().toString());
+        }
+    }
+    
+    /**
+     * Counts the calls made to the source of the iterator under test
+     */
+    private static class CountingIterator extends WrappingIterator {
+        private int nexts = 0;
+        private int seeks = 0;
+        
+        @Override
+        public void next() throws IOException {
+            nexts++;
+            super.next();
+        }
+        
+        @Override
+        public void seek(Range range, Collection<ByteSequence> columnFamilies, boolean inclusive) throws IOException {
+            seeks++;
+            super.seek(range, columnFamilies, inclusive);
+        }
+    }
+}
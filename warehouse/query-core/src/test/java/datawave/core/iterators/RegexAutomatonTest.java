@@ -0,0 +1,129 @@
+package datawave.core.iterators;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class RegexAutomatonTest {
+    
+    private static final String[] SUPPORTED = {".*abc.*", "^ab.*$", ".*ba", "a(b|cd)*c?", "[a-c]+d{1,2}", "[^b]*b[^b]*", "(?:ab)+?", "\\Qa.b\\E.*", "a\\.b|c",
+                    "\\w*d\\d?", "\\s*a", "[\\w.]a", "1\\x2e[\\d]"};
+    
+    private static final String[] UNSUPPORTED = {"a++", "(?=a)b", "(?i)abc", "\\bab", "(a)\\1", "a^b", "a$b", "[a[b]]", "[a-c&&[^b]]", "(ab", "ab)", "*a"};
+    
+    /**
+     * All of the strings up to length 5 over a small alphabet, sorted
+     */
+    private static List<String> getTerms() {
+        List<String> terms = new ArrayList<>();
+        terms.add("");
+        for (int i = 0; i < terms.size(); i++) {
+            String term = terms.get(i);
+            if (term.length() < 5) {
+                for (char c : new char[] {'.', 'a', 'b', 'c', 'd', '1'}) {
+                    terms.add(term + c);
+                }
+            }
+        }
+        Collections.sort(terms);
+        return terms;
+    }
+    
+    private static byte[] bytes(String term) {
+        return term.getBytes(StandardCharsets.UTF_8);
+    }
+    
+    @Test
+    public void testUnsupported() {
+        for (String regex : UNSUPPORTED) {
+            Assert.assertNull(regex, RegexAutomaton.compile(regex, false));
+        }
+        Assert.assertNull(RegexAutomaton.union(Arrays.asList("a.*", "(?i)b"), Collections.singletonList("c"), false));
+    }
+    
+    @Test
+    public void testMatchesLikePattern() {
+        List<String> terms = getTerms();
+        for (String regex : SUPPORTED) {
+            RegexAutomaton automaton = RegexAutomaton.compile(regex, false);
+            Assert.assertNotNull(regex, automaton);
+            Pattern pattern = Pattern.compile(regex);
+            for (String term : terms) {
+                byte[] bytes = bytes(term);
+                Assert.assertEquals(regex + " against " + term, pattern.matcher(term).matches(), automaton.matches(bytes, 0, bytes.length));
+            }
+        }
+    }
+    
+    @Test
+    public void testMatchesReversed() {
+        List<String> terms = getTerms();
+        RegexAutomaton automaton = RegexAutomaton.union(Arrays.asList(".*bc", "d.*"), Collections.singletonList("ab.1"), true);
+        Assert.assertNotNull(automaton);
+        for (String term : terms) {
+            byte[] reversed = bytes(new StringBuilder(term).reverse().toString());
+            boolean expected = term.endsWith("bc") || term.startsWith("d") || term.equals("ab.1");
+            Assert.assertEquals(term, expected, automaton.matches(reversed, 0, reversed.length));
+        }
+    }
+    
+    @Test
+    public void testMatchesWithinValue() {
+        RegexAutomaton automaton = RegexAutomaton.compile("ab.*", false);
+        byte[] value = bytes("zzabc\0datatype\0uid");
+        Assert.assertTrue(automaton.matches(value, 2, 3));
+        Assert.assertFalse(automaton.matches(value, 1, 4));
+    }
+    
+    @Test
+    public void testNextPossibleMatch() {
+        List<String> terms = getTerms();
+        for (String regex : SUPPORTED) {
+            RegexAutomaton automaton = RegexAutomaton.compile(regex, false);
+            for (int i = 0; i < terms.size(); i++) {
+                String term = terms.get(i);
+                byte[] bytes = bytes(term);
+                byte[] next = automaton.nextPossibleMatch(bytes, 0, bytes.length);
+                
+                if (automaton.matches(bytes, 0, bytes.length)) {
+                    Assert.assertArrayEquals(regex + " from " + term, bytes, next);
+                } else if (next == null) {
+                    // no following term can match
+                    for (String following : terms.subList(i, terms.size())) {
+                        byte[] followingBytes = bytes(following);
+                        Assert.assertFalse(regex + " from " + term + " skipped " + following, automaton.matches(followingBytes, 0, followingBytes.length));
+                    }
+                } else {
+                    // no term between the term and the next possible match can match
+                    String nextTerm = new String(next, StandardCharsets.UTF_8);
+                    Assert.assertTrue(regex + " from " + term + " went back to " + nextTerm, nextTerm.compareTo(term) > 0);
+                    for (String following : terms.subList(i, terms.size())) {
+                        if (following.compareTo(nextTerm) >= 0) {
+                            break;
+                        }
+                        byte[] followingBytes = bytes(following);
+                        Assert.assertFalse(regex + " from " + term + " skipped " + following, automaton.matches(followingBytes, 0, followingBytes.length));
+                    }
+                }
+            }
+        }
+    }
+    
+    @Test
+    public void testNextPossibleMatchSkipsAhead() {
+        RegexAutomaton automaton = RegexAutomaton.compile("ab.*", false);
+        Assert.assertEquals("ab", new String(automaton.nextPossibleMatch(bytes("aa"), 0, 2), StandardCharsets.UTF_8));
+        Assert.assertEquals("ab", new String(automaton.nextPossibleMatch(bytes("a"), 0, 1), StandardCharsets.UTF_8));
+        Assert.assertNull(automaton.nextPossibleMatch(bytes("ac"), 0, 2));
+        
+        automaton = RegexAutomaton.compile("a[0-9]z", false);
+        Assert.assertEquals("a0z", new String(automaton.nextPossibleMatch(bytes("a"), 0, 1), StandardCharsets.UTF_8));
+        Assert.assertEquals("a3z", new String(automaton.nextPossibleMatch(bytes("a2zz"), 0, 4), StandardCharsets.UTF_8));
+    }
+}
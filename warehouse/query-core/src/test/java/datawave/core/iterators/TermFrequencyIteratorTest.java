@@ -16,6 +16,7 @@ import org.junit.Test;
 import java.io.IOException;
 import java.util.AbstractMap.SimpleEntry;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -33,6 +34,47 @@ public class TermFrequencyIteratorTest {
     private String lowers = "abcdefghijklmnopqrstuvwxyz";
     private String uppers = "ABCDEFGHIJKLMNOPQRSTUVWXYZ";
     
+    @Test
+    public void testSetKeysReusesIterator() throws IOException {
+        Multimap<String,String> fieldValues = buildFieldValues("FIELD_A", "value_a", "value_c");
+        TermFrequencyIterator tfIter = new TermFrequencyIterator(fieldValues, Collections.singleton(new Key("20200314_0", "datatype\u0000uid3")));
+        tfIter.init(createSource(), null, null);
+        tfIter.seek(new Range(new Key("20200314_0", "tf", "datatype\0uid3"), false, new Key("20200314_0", "tf", "datatype\0uid3\uffff"), true), null, true);
+        assertTrue(tfIter.hasTop());
+        
+        // the same iterator searches the next document once its keys are replaced
+        tfIter.setKeys(Collections.singleton(new Key("20200314_0", "datatype\u0000uid5")));
+        tfIter.seek(new Range(new Key("20200314_0", "tf", "datatype\0uid5"), false, new Key("20200314_0", "tf", "datatype\0uid5\uffff"), true), null, true);
+        int count = 0;
+        while (tfIter.hasTop()) {
+            assertTrue(tfIter.getTopKey().getColumnQualifier().toString().startsWith("datatype\0uid5\0"));
+            tfIter.next();
+            count++;
+        }
+        assertEquals(2, count);
+    }
+    
+    @Test
+    public void testNextUidAndValue() {
+        Multimap<String,String> fieldValues = buildFieldValues("FIELD_A", "value_a", "value_c");
+        Set<Key> keys = Sets.newHashSet(new Key("20200314_0", "datatype\u0000uid3"), new Key("20200314_0", "datatype\u0000uid3.1"),
+                        new Key("20200314_0", "datatype\u0000uid5"));
+        TermFrequencyIterator tfIter = new TermFrequencyIterator(fieldValues, keys);
+        
+        // the pairs follow the order of the uid and value joined by a null byte, so a parent uid comes before its children
+        assertEquals("uid3\u0000value_c", tfIter.getNextUidAndValue("uid3", "value_a"));
+        assertEquals("uid3\u0000value_a", tfIter.getNextUidAndValue("uid2", "value_z"));
+        assertEquals("uid3.1\u0000value_a", tfIter.getNextUidAndValue("uid3", "value_c"));
+        assertEquals("uid3.1\u0000value_a", tfIter.getNextUidAndValue("uid3", "value_d"));
+        assertEquals("uid3.1\u0000value_c", tfIter.getNextUidAndValue("uid3.1", "value_b"));
+        assertEquals("uid5\u0000value_a", tfIter.getNextUidAndValue("uid4", ""));
+        assertNull(tfIter.getNextUidAndValue("uid5", "value_c"));
+        
+        tfIter.setKeys(Collections.singleton(new Key("20200314_0", "datatype\u0000uid4")));
+        assertEquals("uid4\u0000value_a", tfIter.getNextUidAndValue("uid3", "value_c"));
+        assertNull(tfIter.getNextUidAndValue("uid4", "value_c"));
+    }
+    
     @Test
     public void testDocRange_singleKey_parent() throws IOException {
         Key start = new Key("20200314_0", "tf", "datatype\0uid3");
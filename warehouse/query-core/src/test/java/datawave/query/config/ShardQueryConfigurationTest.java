@@ -61,6 +61,11 @@ public class ShardQueryConfigurationTest {
         Assert.assertFalse(config.getParseTldUids());
         Assert.assertFalse(config.getSequentialScheduler());
         Assert.assertFalse(config.getCollectTimingDetails());
+        Assert.assertFalse(config.getCollectEvaluationProfile());
+        Assert.assertFalse(config.getCountFromFieldIndex());
+        Assert.assertFalse(config.getLeapfrogNestedIterators());
+        Assert.assertFalse(config.getSequentialDocumentFetch());
+        Assert.assertFalse(config.getAdaptiveOrdering());
         Assert.assertFalse(config.getLogTimingDetails());
         Assert.assertTrue(config.getSendTimingToStatsd());
         Assert.assertEquals("localhost", config.getStatsdHost());
@@ -160,6 +165,7 @@ public class ShardQueryConfigurationTest {
         Assert.assertEquals(10, config.getMaxOrRangeIvarators());
         Assert.assertEquals(5, config.getMaxRangesPerRangeIvarator());
         Assert.assertEquals(750, config.getMaxOrExpansionFstThreshold());
+        Assert.assertEquals(0, config.getTermBatchLookupThreshold());
         Assert.assertEquals(Long.MAX_VALUE, config.getYieldThresholdMs());
         Assert.assertNull(config.getHdfsSiteConfigURLs());
         Assert.assertNull(config.getHdfsFileCompressionCodec());
@@ -184,6 +190,7 @@ public class ShardQueryConfigurationTest {
         Assert.assertFalse(config.isExpansionLimitedToModelContents());
         Assert.assertEquals(new QueryImpl(), config.getQuery());
         Assert.assertFalse(config.isCompressServerSideResults());
+        Assert.assertEquals("gzip", config.getServerSideResultsCodec());
         Assert.assertFalse(config.isIndexOnlyFilterFunctionsEnabled());
         Assert.assertFalse(config.isCompositeFilterFunctionsEnabled());
         Assert.assertEquals(0, config.getGroupFieldsBatchSize());
@@ -437,7 +444,7 @@ public class ShardQueryConfigurationTest {
      */
     @Test
     public void testCheckForNewAdditions() throws IOException {
-        int expectedObjectCount = 176;
+        int expectedObjectCount = 183;
         ShardQueryConfiguration config = ShardQueryConfiguration.create();
         ObjectMapper mapper = new ObjectMapper();
         JsonNode root = mapper.readTree(mapper.writeValueAsString(config));
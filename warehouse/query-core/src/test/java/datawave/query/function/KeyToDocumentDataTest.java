@@ -0,0 +1,140 @@
+package datawave.query.function;
+
+import com.google.common.collect.Maps;
+import datawave.query.attributes.Document;
+import datawave.query.iterator.aggregation.DocumentData;
+import org.apache.accumulo.core.data.ByteSequence;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Range;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.iterators.SortedMapIterator;
+import org.apache.accumulo.core.iterators.WrappingIterator;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+public class KeyToDocumentDataTest {
+    
+    private SortedMap<Key,Value> data;
+    
+    @Before
+    public void setup() {
+        data = new TreeMap<>();
+        for (String row : new String[] {"20190101_0", "20190101_1"}) {
+            for (int uid = 0; uid < 20; uid++) {
+                String cf = "datatype\0" + uid;
+                // only every third document has a value for BAR
+                data.put(new Key(row, cf, "FOO\0foo" + uid), new Value());
+                if (uid % 3 == 0) {
+                    data.put(new Key(row, cf, "BAR\0bar" + uid), new Value());
+                }
+                data.put(new Key(row, "tf", "datatype\0" + uid + "\0foo" + uid + "\0FOO"), new Value());
+                data.put(new Key(row, "fi\0FOO", "foo" + uid + "\0datatype\0" + uid), new Value());
+            }
+        }
+    }
+    
+    private List<Entry> fetch(List<Key> documents, SeekCountingIterator source, boolean sequential) {
+        KeyToDocumentData keyToDocumentData = new KeyToDocumentData(source);
+        keyToDocumentData.setSequentialFetch(sequential);
+        Assert.assertEquals(sequential, keyToDocumentData.isSequentialFetch());
+        
+        List<Entry> fetched = new ArrayList<>();
+        for (Key document : documents) {
+            DocumentData documentData = keyToDocumentData.apply(Maps.immutableEntry(document, new Document())).getKey();
+            fetched.add(new Entry(documentData.getKey(), documentData.getData()));
+        }
+        return fetched;
+    }
+    
+    private List<Key> getDocuments(int... uids) {
+        List<Key> documents = new ArrayList<>();
+        for (String row : new String[] {"20190101_0", "20190101_1"}) {
+            for (int uid : uids) {
+                documents.add(new Key(row, "datatype\0" + uid));
+            }
+        }
+        // the documents come from the field index in sorted order
+        Collections.sort(documents);
+        return documents;
+    }
+    
+    @Test
+    public void testSequentialFetchMatchesSeeking() throws IOException {
+        List<Key> documents = getDocuments(0, 1, 2, 3, 5, 8, 13, 17, 18, 19);
+        
+        SeekCountingIterator seeking = new SeekCountingIterator(data);
+        SeekCountingIterator sequential = new SeekCountingIterator(data);
+        List<Entry> expected = fetch(documents, seeking, false);
+        List<Entry> actual = fetch(documents, sequential, true);
+        
+        Assert.assertEquals(expected, actual);
+        Assert.assertEquals(documents.size(), seeking.seeks);
+        // close documents are reached with next() calls, and only the far ones need a seek
+        Assert.assertTrue(sequential.seeks + " seeks", sequential.seeks < seeking.seeks);
+        for (Entry entry : actual) {
+            Assert.assertFalse(entry.data.isEmpty());
+        }
+    }
+    
+    @Test
+    public void testSequentialFetchMissingDocuments() throws IOException {
+        // documents 20 and 21 do not exist
+        List<Key> documents = getDocuments(1, 2, 20, 21);
+        
+        List<Entry> expected = fetch(documents, new SeekCountingIterator(data), false);
+        List<Entry> actual = fetch(documents, new SeekCountingIterator(data), true);
+        
+        Assert.assertEquals(expected, actual);
+        Assert.assertTrue(actual.get(2).data.isEmpty());
+        Assert.assertTrue(actual.get(3).data.isEmpty());
+    }
+    
+    private static class Entry {
+        private final Key key;
+        private final List<Map.Entry<Key,Value>> data;
+        
+        private Entry(Key key, List<Map.Entry<Key,Value>> data) {
+            this.key = key;
+            this.data = data;
+        }
+        
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Entry && key.equals(((Entry) o).key) && data.equals(((Entry) o).data);
+        }
+        
+        @Override
+        public int hashCode() {
+            return key.hashCode();
+        }
+        
+        @Override
+        public String toString() {
+            return key + " " + data;
+        }
+    }
+    
+    private static class SeekCountingIterator extends WrappingIterator {
+        private int seeks = 0;
+        
+        private SeekCountingIterator(SortedMap<Key,Value> data) {
+            setSource(new SortedMapIterator(data));
+        }
+        
+        @Override
+        public void seek(Range range, Collection<ByteSequence> columnFamilies, boolean inclusive) throws IOException {
+            seeks++;
+            super.seek(range, columnFamilies, inclusive);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package datawave.query.function.serializer;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import datawave.query.DocumentSerialization;
+import datawave.query.attributes.Content;
+import datawave.query.attributes.Document;
+import datawave.query.function.deserializer.KryoDocumentDeserializer;
+
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.security.ColumnVisibility;
+import org.apache.log4j.Logger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.google.common.collect.Maps;
+
+/**
+ * Compares the codecs of the {@link KryoDocumentSerializer} when serializing documents on the tablet server and deserializing them on the webserver. The
+ * serialized size of the document for each codec is logged once per trial. Run with the test classpath, e.g. from an IDE, via {@link #main(String[])}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class KryoDocumentSerializerBenchmark {
+    
+    private static final Logger log = Logger.getLogger(KryoDocumentSerializerBenchmark.class);
+    
+    private static final Key DOC_KEY = new Key("20190101_0", "datatype\u0000uid", "", new ColumnVisibility("A&B"), 1234L);
+    
+    private static final String[] WORDS = {"the", "quick", "brown", "fox", "jumps", "over", "lazy", "dog", "report", "system", "network", "address", "status",
+                    "received", "pending", "error", "user", "account", "session", "request"};
+    
+    /** The codec, see {@link DocumentSerialization#getCompression(String)} */
+    @Param({"none", "gzip", "snappy"})
+    public String codec;
+    
+    /** The number of fields in the document, enough that it is larger than {@link DocumentSerializer#DEFAULT_MIN_COMPRESS_SIZE} and is compressed */
+    @Param({"500", "5000"})
+    public int numFields;
+    
+    private KryoDocumentSerializer serializer;
+    private KryoDocumentDeserializer deserializer;
+    private Map.Entry<Key,Document> document;
+    private Map.Entry<Key,Value> serialized;
+    
+    @Setup
+    public void setup() {
+        Random random = new Random(1);
+        Document doc = new Document();
+        for (int i = 0; i < numFields; i++) {
+            StringBuilder content = new StringBuilder();
+            int words = 1 + random.nextInt(12);
+            for (int j = 0; j < words; j++) {
+                content.append(WORDS[random.nextInt(WORDS.length)]).append(' ');
+            }
+            content.append(random.nextInt(100000));
+            doc.put("FIELD_" + (i % 50), new Content(content.toString(), DOC_KEY, true));
+        }
+        document = Maps.immutableEntry(DOC_KEY, doc);
+        
+        serializer = new KryoDocumentSerializer(false, DocumentSerialization.getCompression(codec));
+        deserializer = new KryoDocumentDeserializer();
+        serialized = serializer.apply(document);
+        log.info("codec=" + codec + " numFields=" + numFields + " serializedBytes=" + serialized.getValue().getSize());
+    }
+    
+    @Benchmark
+    public Map.Entry<Key,Value> serialize() {
+        return serializer.apply(document);
+    }
+    
+    @Benchmark
+    public Map.Entry<Key,Document> deserialize() {
+        return deserializer.apply(serialized);
+    }
+    
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(KryoDocumentSerializerBenchmark.class.getSimpleName()).addProfiler("gc").build()).run();
+    }
+}
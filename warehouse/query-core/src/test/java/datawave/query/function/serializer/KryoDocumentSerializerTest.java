@@ -0,0 +1,77 @@
+package datawave.query.function.serializer;
+
+import datawave.query.DocumentSerialization;
+import datawave.query.attributes.Content;
+import datawave.query.attributes.Document;
+import datawave.query.function.deserializer.KryoDocumentDeserializer;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.security.ColumnVisibility;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.google.common.collect.Maps;
+
+import java.util.Map;
+
+public class KryoDocumentSerializerTest {
+    
+    private static final Key DOC_KEY = new Key("20190101_0", "datatype\u0000uid", "", new ColumnVisibility("A"), 1234L);
+    
+    @Test
+    public void testUncompressed() {
+        verifyRoundTrip(DocumentSerialization.NONE);
+    }
+    
+    @Test
+    public void testGzip() {
+        verifyRoundTrip(DocumentSerialization.GZIP);
+    }
+    
+    @Test
+    public void testSnappy() {
+        verifyRoundTrip(DocumentSerialization.SNAPPY);
+    }
+    
+    @Test
+    public void testReusedBuffer() {
+        KryoDocumentSerializer serializer = new KryoDocumentSerializer(false, DocumentSerialization.NONE);
+        byte[] first = serializer.apply(Maps.immutableEntry(DOC_KEY, createDocument(500))).getValue().get();
+        serializer.apply(Maps.immutableEntry(DOC_KEY, createDocument(5)));
+        byte[] second = serializer.apply(Maps.immutableEntry(DOC_KEY, createDocument(500))).getValue().get();
+        Assert.assertArrayEquals(first, second);
+    }
+    
+    @Test
+    public void testCodecNames() {
+        Assert.assertEquals(DocumentSerialization.NONE, DocumentSerialization.getCompression("none"));
+        Assert.assertEquals(DocumentSerialization.GZIP, DocumentSerialization.getCompression("GZIP"));
+        Assert.assertEquals(DocumentSerialization.SNAPPY, DocumentSerialization.getCompression(" snappy "));
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownCodec() {
+        DocumentSerialization.getCompression("lzo");
+    }
+    
+    private void verifyRoundTrip(int compression) {
+        // large enough to exceed the minimum compression size
+        Document document = createDocument(500);
+        
+        Map.Entry<Key,Value> serialized = new KryoDocumentSerializer(false, compression).apply(Maps.immutableEntry(DOC_KEY, document));
+        Assert.assertEquals(compression, DocumentSerialization.readHeader(serialized.getValue().get()));
+        
+        Map.Entry<Key,Document> deserialized = new KryoDocumentDeserializer().apply(serialized);
+        Assert.assertEquals(DOC_KEY, deserialized.getKey());
+        Assert.assertEquals(document.getDictionary().keySet(), deserialized.getValue().getDictionary().keySet());
+        Assert.assertEquals(document.get("FIELD_42").getData(), deserialized.getValue().get("FIELD_42").getData());
+    }
+    
+    private Document createDocument(int fields) {
+        Document document = new Document();
+        for (int i = 0; i < fields; i++) {
+            document.put("FIELD_" + i, new Content("some content for field " + i, DOC_KEY, true));
+        }
+        return document;
+    }
+}
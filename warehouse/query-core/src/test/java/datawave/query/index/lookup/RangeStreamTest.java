@@ -28,6 +28,7 @@ import org.apache.accumulo.core.data.Mutation;
 import org.apache.accumulo.core.data.Range;
 import org.apache.accumulo.core.data.Value;
 import org.apache.commons.jexl2.parser.ASTJexlScript;
+import org.apache.commons.jexl2.parser.ASTOrNode;
 import org.apache.hadoop.io.Text;
 import org.junit.Assert;
 import org.junit.Before;
@@ -442,6 +443,78 @@ public class RangeStreamTest {
         assertTrue("Expected ranges not found in query plan: " + expectedRanges.toString(), expectedRanges.isEmpty());
     }
     
+    @Test
+    public void testBatchedTermLookup() throws Exception {
+        String originalQuery = "(FOO == 'bag' || FOO == 'ba' || FOO == 'barglegarglebarsh')";
+        ASTJexlScript script = JexlASTHelper.parseJexlQuery(originalQuery);
+        
+        config.setBeginDate(new Date(0));
+        config.setEndDate(new Date(System.currentTimeMillis()));
+        config.setTermBatchLookupThreshold(2);
+        
+        Multimap<String,Type<?>> dataTypes = HashMultimap.create();
+        dataTypes.putAll("FOO", Sets.newHashSet(new LcNoDiacriticsType()));
+        dataTypes.putAll("NUM", Sets.newHashSet(new NumberType()));
+        
+        config.setQueryFieldsDatatypes(dataTypes);
+        config.setIndexedFields(dataTypes);
+        
+        MockMetadataHelper helper = new MockMetadataHelper();
+        helper.setIndexedFields(dataTypes.keySet());
+        
+        // the terms are looked up with a single scan, but planned the same as if looked up separately
+        Range range1 = makeTestRange("20190314", "datatype1\u0000234");
+        Range range2 = makeTestRange("20190314", "datatype1\u0000345");
+        Range range3 = makeTestRange("20190314", "datatype1\u0000123");
+        Set<Range> expectedRanges = Sets.newHashSet(range1, range2, range3);
+        for (QueryPlan queryPlan : new RangeStream(config, new ScannerFactory(config.getClient()), helper).streamPlans(script)) {
+            for (Range range : queryPlan.getRanges()) {
+                assertTrue("Tried to remove unexpected range " + range.toString() + " from expected ranges: " + expectedRanges.toString(),
+                                expectedRanges.remove(range));
+            }
+        }
+        assertTrue("Expected ranges not found in query plan: " + expectedRanges.toString(), expectedRanges.isEmpty());
+    }
+    
+    @Test
+    public void testBatchedTermLookupWithLimitedScanners() throws Exception {
+        String originalQuery = "FOO == 'bag' || FOO == 'ba' || FOO == 'barglegarglebarsh'";
+        ASTJexlScript script = JexlASTHelper.parseJexlQuery(originalQuery);
+        
+        config.setBeginDate(new Date(0));
+        config.setEndDate(new Date(System.currentTimeMillis()));
+        config.setTermBatchLookupThreshold(2);
+        
+        Multimap<String,Type<?>> dataTypes = HashMultimap.create();
+        dataTypes.putAll("FOO", Sets.newHashSet(new LcNoDiacriticsType()));
+        dataTypes.putAll("NUM", Sets.newHashSet(new NumberType()));
+        
+        config.setQueryFieldsDatatypes(dataTypes);
+        config.setIndexedFields(dataTypes);
+        
+        MockMetadataHelper helper = new MockMetadataHelper();
+        helper.setIndexedFields(dataTypes.keySet());
+        
+        ASTOrNode union = (ASTOrNode) script.jjtGetChild(0);
+        assertEquals(3, new RangeStream(config, new ScannerFactory(config.getClient()), helper).lookupTermsInBatches(union).size());
+        
+        // the terms are looked up through the range stream scanner, one per term, when the scanners are limited
+        RangeStream rangeStream = new RangeStream(config, new ScannerFactory(config.getClient(), 1), helper).setLimitScanners(true);
+        assertTrue(rangeStream.lookupTermsInBatches(union).isEmpty());
+        
+        Range range1 = makeTestRange("20190314", "datatype1\u0000234");
+        Range range2 = makeTestRange("20190314", "datatype1\u0000345");
+        Range range3 = makeTestRange("20190314", "datatype1\u0000123");
+        Set<Range> expectedRanges = Sets.newHashSet(range1, range2, range3);
+        for (QueryPlan queryPlan : rangeStream.streamPlans(script)) {
+            for (Range range : queryPlan.getRanges()) {
+                assertTrue("Tried to remove unexpected range " + range.toString() + " from expected ranges: " + expectedRanges.toString(),
+                                expectedRanges.remove(range));
+            }
+        }
+        assertTrue("Expected ranges not found in query plan: " + expectedRanges.toString(), expectedRanges.isEmpty());
+    }
+    
     @Test
     public void testBothIndexedPrune() throws Exception {
         String originalQuery = "(FOO == 'barter' || FOO == 'baggy')";
@@ -0,0 +1,268 @@
+package datawave.query.iterator;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.io.Input;
+import datawave.core.iterators.ResultCountingIterator;
+import datawave.core.iterators.ResultCountingIterator.ResultCountTuple;
+import datawave.query.attributes.Document;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.PartialKey;
+import org.apache.accumulo.core.data.Range;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.iterators.IteratorEnvironment;
+import org.apache.accumulo.core.iterators.SortedKeyValueIterator;
+import org.apache.accumulo.core.iterators.SortedMapIterator;
+import org.apache.accumulo.core.iterators.YieldCallback;
+import org.apache.accumulo.core.iterators.YieldingKeyValueIterator;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+public class FieldIndexCountingIteratorTest {
+    
+    @Test
+    public void testCount() {
+        Key first = new Key("20190101_0", "datatype\u00001", "", "A");
+        Key second = new Key("20190101_0", "datatype\u00002", "", "B");
+        Key third = new Key("20190101_0", "datatype\u00003", "", "A");
+        List<Key> documents = Arrays.asList(first, second, third);
+        
+        FieldIndexCountingIterator iterator = new FieldIndexCountingIterator(new ListNestedIterator(documents));
+        Assert.assertTrue(iterator.hasNext());
+        Map.Entry<Key,Value> entry = iterator.next();
+        Assert.assertFalse(iterator.hasNext());
+        
+        // the count is keyed by the last document so that a rebuilt scan resumes after it
+        Assert.assertEquals("datatype\u00003", entry.getKey().getColumnFamily().toString());
+        Assert.assertEquals(ResultCountingIterator.COUNTED_COLUMN_QUALIFIER, entry.getKey().getColumnQualifier().toString());
+        
+        ResultCountTuple tuple = new Kryo().readObject(new Input(entry.getValue().get()), ResultCountTuple.class);
+        Assert.assertEquals(3, tuple.getCount());
+        Assert.assertNotNull(tuple.getVisibility());
+    }
+    
+    @Test
+    public void testNoDocuments() {
+        FieldIndexCountingIterator iterator = new FieldIndexCountingIterator(new ListNestedIterator(Collections.emptyList()));
+        Assert.assertFalse(iterator.hasNext());
+    }
+    
+    @Test
+    public void testResultCountingIteratorAddsCount() throws IOException {
+        List<Key> documents = Arrays.asList(new Key("20190101_0", "datatype\u00001"), new Key("20190101_0", "datatype\u00002"));
+        Map.Entry<Key,Value> counted = new FieldIndexCountingIterator(new ListNestedIterator(documents)).next();
+        
+        // a counted entry from one shard alongside a document from another
+        TreeMap<Key,Value> data = new TreeMap<>();
+        data.put(counted.getKey(), counted.getValue());
+        data.put(new Key("20190101_1", "datatype\u00001", "document"), new Value());
+        
+        ResultCountingIterator resultCountingIterator = new ResultCountingIterator();
+        resultCountingIterator.init(new SortedMapIterator(data), Collections.emptyMap(), null);
+        resultCountingIterator.seek(new Range(), Collections.emptyList(), false);
+        
+        Assert.assertTrue(resultCountingIterator.hasTop());
+        ResultCountTuple tuple = new Kryo().readObject(new Input(resultCountingIterator.getTopValue().get()), ResultCountTuple.class);
+        Assert.assertEquals(3, tuple.getCount());
+    }
+    
+    @Test
+    public void testDocumentFilter() {
+        Key first = new Key("20190101_0", "datatype\u00001");
+        Key second = new Key("20190101_0", "datatype\u00002");
+        Key third = new Key("20190101_0", "datatype\u00003");
+        List<Key> documents = Arrays.asList(first, second, third);
+        
+        // the last document would not be returned, so the count is keyed by the one before it
+        FieldIndexCountingIterator iterator = new FieldIndexCountingIterator(new ListNestedIterator(documents), input -> !input.getKey().equals(third), null,
+                        Long.MAX_VALUE);
+        Map.Entry<Key,Value> entry = iterator.next();
+        Assert.assertFalse(iterator.hasNext());
+        
+        Assert.assertEquals("datatype\u00002", entry.getKey().getColumnFamily().toString());
+        ResultCountTuple tuple = new Kryo().readObject(new Input(entry.getValue().get()), ResultCountTuple.class);
+        Assert.assertEquals(2, tuple.getCount());
+    }
+    
+    @Test
+    public void testYield() {
+        List<Key> documents = Arrays.asList(new Key("20190101_0", "datatype\u00001"), new Key("20190101_0", "datatype\u00002"));
+        YieldCallback<Key> yield = new YieldCallback<>();
+        
+        // each document takes longer than the yield threshold, so the count is returned after the first
+        FieldIndexCountingIterator iterator = new FieldIndexCountingIterator(new ListNestedIterator(documents, 5), null, yield, 1);
+        Assert.assertTrue(iterator.hasNext());
+        Map.Entry<Key,Value> entry = iterator.next();
+        Assert.assertEquals("datatype\u00001", entry.getKey().getColumnFamily().toString());
+        ResultCountTuple tuple = new Kryo().readObject(new Input(entry.getValue().get()), ResultCountTuple.class);
+        Assert.assertEquals(1, tuple.getCount());
+        Assert.assertFalse(yield.hasYielded());
+        
+        // then the scan is yielded just after the count, within the document counted
+        Assert.assertFalse(iterator.hasNext());
+        Assert.assertTrue(yield.hasYielded());
+        Key position = yield.getPositionAndReset();
+        Assert.assertTrue(position.compareTo(entry.getKey()) > 0);
+        Assert.assertTrue(position.equals(entry.getKey(), PartialKey.ROW_COLFAM_COLQUAL));
+    }
+    
+    @Test
+    public void testYieldWithoutCount() {
+        Key first = new Key("20190101_0", "datatype\u00001");
+        List<Key> documents = Arrays.asList(first, new Key("20190101_0", "datatype\u00002"));
+        YieldCallback<Key> yield = new YieldCallback<>();
+        
+        // nothing is counted before the yield threshold, so the scan is yielded at the document dropped
+        FieldIndexCountingIterator iterator = new FieldIndexCountingIterator(new ListNestedIterator(documents, 5), input -> false, yield, 1);
+        Assert.assertFalse(iterator.hasNext());
+        Assert.assertTrue(yield.hasYielded());
+        Key position = yield.getPositionAndReset();
+        Assert.assertEquals(first.getColumnFamily(), position.getColumnFamily());
+        Assert.assertEquals(ResultCountingIterator.COUNTED_COLUMN_QUALIFIER, position.getColumnQualifier().toString());
+    }
+    
+    @Test
+    public void testResultCountingIteratorYields() throws IOException {
+        List<Key> documents = Arrays.asList(new Key("20190101_0", "datatype\u00001"), new Key("20190101_0", "datatype\u00002"));
+        Map.Entry<Key,Value> counted = new FieldIndexCountingIterator(new ListNestedIterator(documents)).next();
+        Key document = new Key("20190101_1", "datatype\u00001", "document");
+        
+        TreeMap<Key,Value> data = new TreeMap<>();
+        data.put(counted.getKey(), counted.getValue());
+        data.put(document, new Value());
+        data.put(new Key("20190101_2", "datatype\u00001", "document"), new Value());
+        
+        // the source yields at the last key it returned
+        ResultCountingIterator resultCountingIterator = new ResultCountingIterator();
+        resultCountingIterator.init(new YieldingMapIterator(data, document), Collections.emptyMap(), null);
+        YieldCallback<Key> yield = new YieldCallback<>();
+        resultCountingIterator.enableYielding(yield);
+        resultCountingIterator.seek(new Range(), Collections.emptyList(), false);
+        
+        // the count up to the yield is returned first
+        Assert.assertTrue(resultCountingIterator.hasTop());
+        Assert.assertEquals(document, resultCountingIterator.getTopKey());
+        ResultCountTuple tuple = new Kryo().readObject(new Input(resultCountingIterator.getTopValue().get()), ResultCountTuple.class);
+        Assert.assertEquals(3, tuple.getCount());
+        Assert.assertFalse(yield.hasYielded());
+        
+        // then the yield is passed on, following the key of the count
+        resultCountingIterator.next();
+        Assert.assertFalse(resultCountingIterator.hasTop());
+        Assert.assertTrue(yield.hasYielded());
+        Assert.assertEquals(document.followingKey(PartialKey.ROW_COLFAM_COLQUAL_COLVIS_TIME), yield.getPositionAndReset());
+    }
+    
+    private static class YieldingMapIterator extends SortedMapIterator implements YieldingKeyValueIterator<Key,Value> {
+        private final SortedMap<Key,Value> map;
+        private final Key yieldAt;
+        private YieldCallback<Key> yield = null;
+        
+        private YieldingMapIterator(SortedMap<Key,Value> map, Key yieldAt) {
+            super(map);
+            this.map = map;
+            this.yieldAt = yieldAt;
+        }
+        
+        @Override
+        public void enableYielding(YieldCallback<Key> yieldCallback) {
+            this.yield = yieldCallback;
+        }
+        
+        @Override
+        public boolean hasTop() {
+            return !(yield != null && yield.hasYielded()) && super.hasTop();
+        }
+        
+        @Override
+        public void next() throws IOException {
+            Key current = getTopKey();
+            super.next();
+            if (yield != null && current.equals(yieldAt)) {
+                yield.yield(current);
+            }
+        }
+        
+        @Override
+        public SortedKeyValueIterator<Key,Value> deepCopy(IteratorEnvironment env) {
+            return new YieldingMapIterator(map, yieldAt);
+        }
+    }
+    
+    private static class ListNestedIterator implements NestedIterator<Key> {
+        private final Iterator<Key> keys;
+        // how long each document takes to reach
+        private final long delayMs;
+        
+        private ListNestedIterator(List<Key> keys) {
+            this(keys, 0);
+        }
+        
+        private ListNestedIterator(List<Key> keys, long delayMs) {
+            this.keys = keys.iterator();
+            this.delayMs = delayMs;
+        }
+        
+        @Override
+        public void initialize() {}
+        
+        @Override
+        public boolean hasNext() {
+            return keys.hasNext();
+        }
+        
+        @Override
+        public Key next() {
+            if (delayMs > 0) {
+                try {
+                    Thread.sleep(delayMs);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return keys.next();
+        }
+        
+        @Override
+        public Key move(Key minimum) {
+            throw new UnsupportedOperationException();
+        }
+        
+        @Override
+        public Collection<NestedIterator<Key>> leaves() {
+            return Collections.singletonList(this);
+        }
+        
+        @Override
+        public Collection<NestedIterator<Key>> children() {
+            return Collections.emptyList();
+        }
+        
+        @Override
+        public Document document() {
+            return null;
+        }
+        
+        @Override
+        public boolean isContextRequired() {
+            return false;
+        }
+        
+        @Override
+        public void setContext(Key context) {}
+        
+        @Override
+        public Key peek() {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
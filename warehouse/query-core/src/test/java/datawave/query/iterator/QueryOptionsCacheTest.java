@@ -0,0 +1,156 @@
+package datawave.query.iterator;
+
+import datawave.query.jexl.JexlASTHelper;
+import datawave.query.jexl.visitors.JexlStringBuildingVisitor;
+import datawave.query.util.TypeMetadata;
+import org.apache.commons.jexl2.parser.ASTJexlScript;
+import org.apache.commons.jexl2.parser.ParseException;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class QueryOptionsCacheTest {
+    
+    private AtomicInteger parses = new AtomicInteger();
+    
+    @Before
+    public void setup() {
+        QueryOptionsCache.invalidateAll();
+        parses.set(0);
+    }
+    
+    private QueryOptionsCache.ParsedOptions parse(Map<String,String> options) {
+        parses.incrementAndGet();
+        try {
+            return new QueryOptionsCache.ParsedOptions(new HashSet<>(Collections.singleton("A")), null, null, new HashMap<>(),
+                            JexlASTHelper.parseJexlQuery(options.get(QueryOptions.QUERY)));
+        } catch (ParseException e) {
+            throw new RuntimeException(e);
+        }
+    }
+    
+    private Map<String,String> getOptions(String query) {
+        Map<String,String> options = new HashMap<>();
+        options.put(QueryOptions.QUERY, query);
+        options.put(QueryOptions.QUERY_ID, "123");
+        options.put(QueryOptions.TYPE_METADATA_AUTHS, "A");
+        return options;
+    }
+    
+    @Test
+    public void testParsedOnce() {
+        long hits = QueryOptionsCache.getStats().hitCount();
+        
+        QueryOptionsCache.ParsedOptions first = QueryOptionsCache.get(getOptions("FOO == 'bar'"), this::parse);
+        QueryOptionsCache.ParsedOptions second = QueryOptionsCache.get(getOptions("FOO == 'bar'"), this::parse);
+        
+        Assert.assertEquals(1, parses.get());
+        Assert.assertSame(first, second);
+        Assert.assertEquals(hits + 1, QueryOptionsCache.getStats().hitCount());
+    }
+    
+    @Test
+    public void testKeyIgnoresUnparsedOptions() {
+        Map<String,String> options = getOptions("FOO == 'bar'");
+        Map<String,String> other = getOptions("FOO == 'bar'");
+        other.put(QueryOptions.QUERY_ID, "456");
+        Assert.assertEquals(QueryOptionsCache.getKey(options), QueryOptionsCache.getKey(other));
+        
+        other.put(QueryOptions.TYPE_METADATA_AUTHS, "B");
+        Assert.assertNotEquals(QueryOptionsCache.getKey(options), QueryOptionsCache.getKey(other));
+        
+        other = getOptions("FOO == 'baz'");
+        Assert.assertNotEquals(QueryOptionsCache.getKey(options), QueryOptionsCache.getKey(other));
+        
+        // an absent option is distinct from an empty one
+        other = getOptions("FOO == 'bar'");
+        other.put(QueryOptions.TYPE_METADATA, "");
+        Assert.assertNotEquals(QueryOptionsCache.getKey(options), QueryOptionsCache.getKey(other));
+    }
+    
+    @Test
+    public void testScriptIsCopied() {
+        QueryOptionsCache.ParsedOptions parsed = QueryOptionsCache.get(getOptions("FOO == 'bar' && BAR == 'foo'"), this::parse);
+        
+        ASTJexlScript script = parsed.getScript();
+        Assert.assertNotSame(script, parsed.getScript());
+        
+        // modifying one copy must not affect the cached tree
+        script.jjtAddChild(script.jjtGetChild(0).jjtGetChild(1), 0);
+        Assert.assertEquals("BAR == 'foo'", JexlStringBuildingVisitor.buildQuery(script));
+        Assert.assertEquals("FOO == 'bar' && BAR == 'foo'", JexlStringBuildingVisitor.buildQuery(parsed.getScript()));
+    }
+    
+    @Test(expected = UnsupportedOperationException.class)
+    public void testParsedOptionsAreReadOnly() {
+        QueryOptionsCache.ParsedOptions parsed = QueryOptionsCache.get(getOptions("FOO == 'bar'"), this::parse);
+        parsed.getTypeMetadataAuthsKey().add("B");
+    }
+    
+    @Test
+    public void testWeightIsTheLengthOfTheParsedOptions() {
+        Map<String,String> options = getOptions("FOO == 'bar'");
+        Assert.assertEquals("FOO == 'bar'".length() + "A".length(), QueryOptionsCache.getWeight(options));
+        
+        // options which are not parsed do not add to the weight
+        options.put(QueryOptions.QUERY_ID, "a much longer query id");
+        Assert.assertEquals("FOO == 'bar'".length() + "A".length(), QueryOptionsCache.getWeight(options));
+        
+        options.put(QueryOptions.TYPE_METADATA, "FOO:[csv:datawave.data.type.LcNoDiacriticsType]");
+        Assert.assertEquals("FOO == 'bar'".length() + "A".length() + "FOO:[csv:datawave.data.type.LcNoDiacriticsType]".length(),
+                        QueryOptionsCache.getWeight(options));
+    }
+    
+    @Test
+    public void testQueryOptionsParsing() throws IOException {
+        TypeMetadata typeMetadata = new TypeMetadata();
+        typeMetadata.put("FOO", "csv", "datawave.data.type.LcNoDiacriticsType");
+        typeMetadata.put("BAR", "json", "datawave.data.type.NumberType");
+        
+        Map<String,String> options = new HashMap<>();
+        options.put(QueryOptions.QUERY, "FOO == 'bar' && BAR == '5'");
+        options.put(QueryOptions.QUERY_MAPPING_COMPRESS, "true");
+        options.put(QueryOptions.TYPE_METADATA, QueryOptions.compressOption(typeMetadata.toString(), QueryOptions.UTF8));
+        options.put(QueryOptions.TYPE_METADATA_AUTHS, QueryOptions.compressOption("A,B", QueryOptions.UTF8));
+        options.put(QueryOptions.NON_INDEXED_DATATYPES, QueryOptions.compressOption("BAZ:csv,json", QueryOptions.UTF8));
+        
+        QueryOptions queryOptions = new QueryOptions();
+        QueryOptionsCache.ParsedOptions parsed = QueryOptionsCache.get(options, queryOptions::parseOptions);
+        Assert.assertEquals(typeMetadata.toString(), parsed.getTypeMetadata().toString());
+        Assert.assertEquals(new HashSet<>(Arrays.asList("A", "B")), parsed.getTypeMetadataAuthsKey());
+        Set<String> bazTypes = parsed.getNonIndexedDataTypeMap().get("BAZ");
+        Assert.assertEquals(new HashSet<>(Arrays.asList("csv", "json")), bazTypes);
+        Assert.assertNull(parsed.getCompositeMetadata());
+        Assert.assertEquals("FOO == 'bar' && BAR == '5'", JexlStringBuildingVisitor.buildQuery(parsed.getScript()));
+        
+        // another iterator of the same query shares the parsed options, whatever its other options
+        Map<String,String> other = new HashMap<>(options);
+        other.put(QueryOptions.QUERY_ID, "456");
+        Assert.assertSame(parsed, QueryOptionsCache.get(other, new QueryOptions()::parseOptions));
+        
+        // while a different query is parsed on its own
+        other.put(QueryOptions.QUERY, "FOO == 'baz'");
+        QueryOptionsCache.ParsedOptions otherParsed = QueryOptionsCache.get(other, new QueryOptions()::parseOptions);
+        Assert.assertNotSame(parsed, otherParsed);
+        Assert.assertEquals("FOO == 'baz'", JexlStringBuildingVisitor.buildQuery(otherParsed.getScript()));
+        Assert.assertEquals(typeMetadata.toString(), otherParsed.getTypeMetadata().toString());
+    }
+    
+    @Test
+    public void testUnparseableQueryIsLeftForTheIterator() {
+        Map<String,String> options = getOptions("FOO == ");
+        QueryOptionsCache.ParsedOptions parsed = QueryOptionsCache.get(options, new QueryOptions()::parseOptions);
+        Assert.assertNull(parsed.getScript());
+        Assert.assertEquals(Collections.singleton("A"), parsed.getTypeMetadataAuthsKey());
+        Assert.assertNull(parsed.getTypeMetadata());
+    }
+}
@@ -0,0 +1,120 @@
+package datawave.query.iterator.logic;
+
+import com.google.common.collect.Lists;
+import datawave.query.iterator.NestedIterator;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+public class HeapOrIteratorTest {
+    
+    @Test
+    public void testMultiInclude() {
+        Set<NestedIterator<String>> includes = new HashSet<>();
+        includes.add(getItr(Lists.newArrayList("b", "d")));
+        includes.add(getItr(Lists.newArrayList("a", "b")));
+        includes.add(getItr(Lists.newArrayList("c", "d", "e")));
+        
+        HeapOrIterator iterator = new HeapOrIterator(includes);
+        iterator.initialize();
+        
+        Assert.assertFalse(iterator.isContextRequired());
+        Assert.assertEquals("a", iterator.peek());
+        List<String> results = new ArrayList<>();
+        while (iterator.hasNext()) {
+            results.add((String) iterator.next());
+        }
+        Assert.assertEquals(Lists.newArrayList("a", "b", "c", "d", "e"), results);
+    }
+    
+    @Test
+    public void testMove() {
+        Set<NestedIterator<String>> includes = new HashSet<>();
+        includes.add(getItr(Lists.newArrayList("a", "e", "g")));
+        includes.add(getItr(Lists.newArrayList("b", "c", "h")));
+        
+        HeapOrIterator iterator = new HeapOrIterator(includes);
+        iterator.initialize();
+        
+        Assert.assertTrue(iterator.hasNext());
+        Assert.assertEquals("a", iterator.next());
+        Assert.assertEquals("e", iterator.move("d"));
+        Assert.assertEquals("g", iterator.move("f"));
+        Assert.assertTrue(iterator.hasNext());
+        Assert.assertEquals("h", iterator.next());
+        Assert.assertNull(iterator.move("i"));
+    }
+    
+    @Test
+    public void testEmpty() {
+        HeapOrIterator iterator = new HeapOrIterator(new HashSet<NestedIterator<String>>());
+        iterator.initialize();
+        
+        Assert.assertNull(iterator.peek());
+        Assert.assertFalse(iterator.hasNext());
+    }
+    
+    @Test
+    public void testNotSupported() {
+        List<NestedIterator<String>> includes = new ArrayList<>();
+        includes.add(getItr(Lists.newArrayList("a", "b")));
+        List<NestedIterator<String>> excludes = new ArrayList<>();
+        excludes.add(getItr(Lists.newArrayList("b")));
+        
+        Assert.assertTrue(HeapOrIterator.isSupported(includes, null));
+        Assert.assertFalse(HeapOrIterator.isSupported(includes, excludes));
+        includes.add(new NegationFilterTest.Itr<>(Lists.newArrayList("c"), true));
+        Assert.assertFalse(HeapOrIterator.isSupported(includes, null));
+    }
+    
+    @Test
+    public void testMatchesOrIterator() {
+        Random random = new Random(7);
+        for (int round = 0; round < 500; round++) {
+            List<List<Integer>> includes = new ArrayList<>();
+            for (int i = 1 + random.nextInt(6); i > 0; i--) {
+                includes.add(LeapfrogAndIteratorTest.randomValues(random));
+            }
+            
+            OrIterator<Integer> expected = new OrIterator<>(LeapfrogAndIteratorTest.getItrs(includes));
+            HeapOrIterator<Integer> actual = new HeapOrIterator<>(LeapfrogAndIteratorTest.getItrs(includes));
+            expected.initialize();
+            actual.initialize();
+            
+            while (expected.hasNext()) {
+                Assert.assertTrue("round " + round, actual.hasNext());
+                Assert.assertEquals("round " + round, expected.next(), actual.next());
+            }
+            Assert.assertFalse("round " + round, actual.hasNext());
+        }
+    }
+    
+    @Test
+    public void testNestedInLeapfrogAnd() {
+        List<NestedIterator<String>> or = new ArrayList<>();
+        or.add(getItr(Lists.newArrayList("a", "d", "f")));
+        or.add(getItr(Lists.newArrayList("b", "c", "f")));
+        
+        List<NestedIterator<String>> includes = new ArrayList<>();
+        includes.add(new HeapOrIterator<>(or));
+        includes.add(getItr(Lists.newArrayList("b", "e", "f", "g")));
+        
+        LeapfrogAndIterator<String> iterator = new LeapfrogAndIterator<>(includes);
+        iterator.initialize();
+        
+        Assert.assertTrue(iterator.hasNext());
+        Assert.assertEquals("b", iterator.next());
+        Assert.assertTrue(iterator.hasNext());
+        Assert.assertEquals("f", iterator.next());
+        Assert.assertFalse(iterator.hasNext());
+    }
+    
+    private NegationFilterTest.Itr<String> getItr(List<String> source) {
+        return new NegationFilterTest.Itr<>(source, false);
+    }
+}
@@ -0,0 +1,213 @@
+package datawave.query.iterator.logic;
+
+import com.google.common.collect.Lists;
+import datawave.query.iterator.NestedIterator;
+import datawave.query.iterator.profile.QuerySpan;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+
+public class LeapfrogAndIteratorTest {
+    
+    @Test
+    public void testMultiInclude() {
+        Set<NestedIterator<String>> includes = new HashSet<>();
+        includes.add(getItr(Lists.newArrayList("a", "b", "e", "g")));
+        includes.add(getItr(Lists.newArrayList("a", "b", "c", "d", "e", "f")));
+        includes.add(getItr(Lists.newArrayList("b", "c", "e", "g")));
+        
+        LeapfrogAndIterator iterator = new LeapfrogAndIterator(includes);
+        iterator.initialize();
+        
+        Assert.assertFalse(iterator.isContextRequired());
+        Assert.assertEquals("b", iterator.peek());
+        Assert.assertTrue(iterator.hasNext());
+        Assert.assertEquals("b", iterator.next());
+        Assert.assertTrue(iterator.hasNext());
+        Assert.assertEquals("e", iterator.next());
+        Assert.assertFalse(iterator.hasNext());
+    }
+    
+    @Test
+    public void testExcludes() {
+        Set<NestedIterator<String>> includes = new HashSet<>();
+        includes.add(getItr(Lists.newArrayList("a", "b", "f")));
+        includes.add(getItr(Lists.newArrayList("a", "b", "c", "d", "e", "f")));
+        
+        Set<NestedIterator<String>> excludes = new HashSet<>();
+        excludes.add(getItr(Lists.newArrayList("a", "c")));
+        excludes.add(getItr(Lists.newArrayList("e", "f")));
+        
+        LeapfrogAndIterator iterator = new LeapfrogAndIterator(includes, excludes);
+        iterator.initialize();
+        
+        Assert.assertTrue(iterator.hasNext());
+        Assert.assertEquals("b", iterator.next());
+        Assert.assertFalse(iterator.hasNext());
+    }
+    
+    @Test
+    public void testMove() {
+        Set<NestedIterator<String>> includes = new HashSet<>();
+        includes.add(getItr(Lists.newArrayList("a", "c", "e", "g", "i")));
+        includes.add(getItr(Lists.newArrayList("a", "b", "c", "d", "e", "g", "h", "i")));
+        
+        LeapfrogAndIterator iterator = new LeapfrogAndIterator(includes);
+        iterator.initialize();
+        
+        Assert.assertEquals("c", iterator.move("b"));
+        Assert.assertEquals("g", iterator.move("f"));
+        Assert.assertTrue(iterator.hasNext());
+        Assert.assertEquals("i", iterator.move("h"));
+        Assert.assertNull(iterator.move("j"));
+    }
+    
+    @Test(expected = IllegalStateException.class)
+    public void testMoveBackwards() {
+        Set<NestedIterator<String>> includes = new HashSet<>();
+        includes.add(getItr(Lists.newArrayList("a", "c", "e")));
+        
+        LeapfrogAndIterator iterator = new LeapfrogAndIterator(includes);
+        iterator.initialize();
+        
+        Assert.assertEquals("c", iterator.move("b"));
+        iterator.move("c");
+    }
+    
+    @Test
+    public void testContextWhenNotRequiredShortCircuit() {
+        Set<NestedIterator<String>> includes = new HashSet<>();
+        includes.add(getItr(Lists.newArrayList("c", "s", "z")));
+        includes.add(getItr(Lists.newArrayList("c", "z")));
+        
+        LeapfrogAndIterator iterator = new LeapfrogAndIterator(includes);
+        iterator.initialize();
+        
+        Assert.assertTrue(iterator.hasNext());
+        iterator.setContext("d");
+        Assert.assertEquals("c", iterator.next());
+        Assert.assertFalse(iterator.hasNext());
+    }
+    
+    @Test
+    public void testContextWhenNotRequiredSkipLowestMoveLowest() {
+        Set<NestedIterator<String>> includes = new HashSet<>();
+        includes.add(getItr(Lists.newArrayList("c", "s", "z")));
+        includes.add(getItr(Lists.newArrayList("c", "z")));
+        
+        LeapfrogAndIterator iterator = new LeapfrogAndIterator(includes);
+        iterator.initialize();
+        
+        Assert.assertTrue(iterator.hasNext());
+        iterator.setContext("z");
+        Assert.assertEquals("c", iterator.next());
+        Assert.assertTrue(iterator.hasNext());
+        Assert.assertEquals("z", iterator.next());
+        Assert.assertFalse(iterator.hasNext());
+    }
+    
+    @Test
+    public void testContextRequiredNotSupported() {
+        List<NestedIterator<String>> includes = new ArrayList<>();
+        includes.add(getItr(Lists.newArrayList("a", "b")));
+        List<NestedIterator<String>> excludes = new ArrayList<>();
+        excludes.add(new NegationFilterTest.Itr<>(Lists.newArrayList("b"), true));
+        
+        Assert.assertTrue(LeapfrogAndIterator.isSupported(includes, null));
+        Assert.assertFalse(LeapfrogAndIterator.isSupported(includes, excludes));
+        Assert.assertFalse(LeapfrogAndIterator.isSupported(Collections.emptyList(), null));
+    }
+    
+    @Test
+    public void testMatchesAndIterator() {
+        assertMatchesAndIterator(false);
+    }
+    
+    @Test
+    public void testAdaptiveMatchesAndIterator() {
+        assertMatchesAndIterator(true);
+    }
+    
+    @Test
+    public void testAdaptiveLeader() {
+        List<Integer> dense = new ArrayList<>();
+        List<Integer> sparse = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            dense.add(i);
+            if (i % 50 == 0) {
+                sparse.add(i);
+            }
+        }
+        
+        QuerySpan querySpan = new QuerySpan(null);
+        LeapfrogAndIterator<Integer> iterator = new LeapfrogAndIterator<>(getItrs(Arrays.asList(dense, sparse)));
+        iterator.setAdaptive(true);
+        iterator.setQuerySpan(querySpan);
+        Assert.assertTrue(iterator.isAdaptive());
+        iterator.initialize();
+        
+        List<Integer> results = new ArrayList<>();
+        while (iterator.hasNext()) {
+            results.add(iterator.next());
+        }
+        Assert.assertEquals(sparse, results);
+        // the dense child leads initially, and the sparse child takes over once it has overshot the dense one
+        Assert.assertEquals(1, querySpan.getReorderCount());
+    }
+    
+    private void assertMatchesAndIterator(boolean adaptive) {
+        Random random = new Random(7);
+        for (int round = 0; round < 500; round++) {
+            List<List<Integer>> includes = new ArrayList<>();
+            List<List<Integer>> excludes = new ArrayList<>();
+            for (int i = 1 + random.nextInt(6); i > 0; i--) {
+                includes.add(randomValues(random));
+            }
+            for (int i = random.nextInt(3); i > 0; i--) {
+                excludes.add(randomValues(random));
+            }
+            
+            AndIterator<Integer> expected = new AndIterator<>(getItrs(includes), getItrs(excludes));
+            LeapfrogAndIterator<Integer> actual = new LeapfrogAndIterator<>(getItrs(includes), getItrs(excludes));
+            actual.setAdaptive(adaptive);
+            expected.initialize();
+            actual.initialize();
+            
+            int move = random.nextInt(40);
+            Assert.assertEquals("round " + round, expected.move(move), actual.move(move));
+            while (expected.hasNext()) {
+                Assert.assertTrue("round " + round, actual.hasNext());
+                Assert.assertEquals("round " + round, expected.next(), actual.next());
+            }
+            Assert.assertFalse("round " + round, actual.hasNext());
+        }
+    }
+    
+    static List<Integer> randomValues(Random random) {
+        TreeSet<Integer> values = new TreeSet<>();
+        for (int i = random.nextInt(40); i > 0; i--) {
+            values.add(random.nextInt(60));
+        }
+        return new ArrayList<>(values);
+    }
+    
+    static List<NestedIterator<Integer>> getItrs(List<List<Integer>> sources) {
+        List<NestedIterator<Integer>> itrs = new ArrayList<>();
+        for (List<Integer> source : sources) {
+            itrs.add(new NegationFilterTest.Itr<>(source, false));
+        }
+        return itrs;
+    }
+    
+    private NegationFilterTest.Itr<String> getItr(List<String> source) {
+        return new NegationFilterTest.Itr<>(source, false);
+    }
+}
@@ -45,6 +45,51 @@ public class QuerySpanTest {
         Assert.assertEquals(4, qs1.getSourceCount());
     }
     
+    @Test
+    public void testNodeProfileCollection() {
+        
+        QuerySpan qs1 = new QuerySpan(null);
+        qs1.addNodeEvaluation("FOO == 'bar'", true, 100);
+        qs1.addNodeEvaluation("FOO == 'bar'", false, 50);
+        QuerySpan qs2 = new QuerySpan(null);
+        qs2.addNodeEvaluation("FOO == 'bar'", true, 10);
+        qs2.addNodeEvaluation("BAR == 'foo'", false, 20);
+        
+        QuerySpanCollector qsc = new QuerySpanCollector();
+        qsc.addQuerySpan(qs1);
+        qsc.addQuerySpan(qs2);
+        Assert.assertTrue(qs1.getNodeProfiles().isEmpty());
+        
+        QuerySpan combined = qsc.getCombinedQuerySpan(null);
+        QueryNodeProfile foo = combined.getNodeProfiles().get("FOO == 'bar'");
+        Assert.assertEquals(3, foo.getInvocations());
+        Assert.assertEquals(2, foo.getTrueCount());
+        Assert.assertEquals(1, foo.getFalseCount());
+        Assert.assertEquals(160, foo.getNanos());
+        Assert.assertEquals(1, combined.getNodeProfiles().get("BAR == 'foo'").getInvocations());
+        Assert.assertFalse(qsc.hasEntries());
+    }
+    
+    @Test
+    public void testReorderCollection() {
+        
+        QuerySpan qs1 = new QuerySpan(null);
+        qs1.reorder(2);
+        QuerySpan qs2 = new QuerySpan(null);
+        qs2.createSource().reorder(3);
+        Assert.assertEquals(3, qs2.getReorderCount());
+        
+        QuerySpanCollector qsc = new QuerySpanCollector();
+        qsc.addQuerySpan(qs1);
+        qsc.addQuerySpan(qs2);
+        Assert.assertEquals(0, qs1.getReorderCount());
+        Assert.assertEquals(5, qsc.getReorderCount());
+        
+        QuerySpan combined = qsc.getCombinedQuerySpan(null);
+        Assert.assertEquals(5, combined.getReorderCount());
+        Assert.assertFalse(qsc.hasEntries());
+    }
+    
     @Test
     public void testMultiThreadedQuerySpanCollection() {
         
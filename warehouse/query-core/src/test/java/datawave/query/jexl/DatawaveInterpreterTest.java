@@ -1,11 +1,16 @@
 package datawave.query.jexl;
 
+import datawave.query.function.JexlEvaluation;
+import datawave.query.iterator.profile.QueryNodeProfile;
+import datawave.query.iterator.profile.QuerySpan;
 import org.apache.commons.jexl2.Script;
+import org.apache.commons.jexl2.parser.JexlNode;
 import org.junit.Assert;
 import org.junit.Test;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 public class DatawaveInterpreterTest {
@@ -38,4 +43,117 @@ public class DatawaveInterpreterTest {
         
         Assert.assertTrue(DatawaveInterpreter.isMatched(script.execute(context)));
     }
+    
+    @Test
+    public void preparedScriptTest() {
+        String[] queries = {"FOO == 'bar' && BAR == 'foo'", "FOO == 'bar' || BAR == 'bar'", "FOO =~ 'ba.*' && !(BAR == 'foo')",
+                "((BoundedRange = true) && (NUM >= '+aE1' && NUM <= '+aE5')) && FOO == 'bar'",
+                "((BoundedRange = true) && (NUM >= '+aE6' && NUM <= '+aE9')) || BAR == 'foo'", "FOO == 'bar' && FOO == 'bar'"};
+        
+        DatawaveJexlContext context = new DatawaveJexlContext();
+        context.set("FOO", "bar");
+        context.set("BAR", "foo");
+        context.set("NUM", "+aE3");
+        
+        DatawaveJexlEngine engine = ArithmeticJexlEngines.getEngine(new DefaultArithmetic());
+        for (String query : queries) {
+            PreparedJexlScript prepared = new PreparedJexlScript(engine.parse(query));
+            Assert.assertEquals(query, engine.createScript(query).execute(context), engine.execute(prepared, context));
+            // the prepared script is reusable
+            Assert.assertEquals(query, engine.createScript(query).execute(context), engine.execute(prepared, context));
+        }
+    }
+    
+    @Test
+    public void preparedScriptNodesTest() {
+        DatawaveJexlEngine engine = ArithmeticJexlEngines.getEngine(new DefaultArithmetic());
+        PreparedJexlScript prepared = new PreparedJexlScript(engine.parse("((BoundedRange = true) && (NUM >= '1' && NUM <= '5')) && FOO == 'bar'"));
+        
+        JexlNode and = prepared.getScript().jjtGetChild(0);
+        JexlNode range = JexlASTHelper.dereference(and.jjtGetChild(0));
+        JexlNode eq = and.jjtGetChild(1);
+        
+        Assert.assertTrue(prepared.hasRange(range));
+        Assert.assertEquals("NUM", prepared.getRange(range).getFieldName());
+        Assert.assertTrue(prepared.hasRange(and));
+        Assert.assertNull(prepared.getRange(and));
+        Assert.assertEquals("FOO == 'bar'", prepared.getNodeString(eq));
+        Assert.assertNull(prepared.getNodeString(and));
+    }
+    
+    @Test
+    public void scriptFromParsedTreeTest() {
+        DatawaveJexlContext context = new DatawaveJexlContext();
+        context.set("FOO", "bar");
+        context.set("BAR", "foo");
+        
+        DatawaveJexlEngine engine = ArithmeticJexlEngines.getEngine(new DefaultArithmetic());
+        for (String query : new String[] {"FOO == 'bar' && BAR == 'foo'", "FOO == 'baz' || BAR == 'bar'"}) {
+            Script script = engine.createScript(engine.parse(query), query);
+            Assert.assertEquals(query, engine.createScript(query).execute(context), script.execute(context));
+        }
+    }
+    
+    @Test
+    public void profilingInterpreterTest() {
+        String query = "FOO == 'bar' && (BAR == 'bar' || BAR == 'foo')";
+        
+        DatawaveJexlContext context = new DatawaveJexlContext();
+        context.set("FOO", "bar");
+        context.set("BAR", "foo");
+        
+        DatawaveJexlEngine engine = ArithmeticJexlEngines.getEngine(new DefaultArithmetic());
+        PreparedJexlScript prepared = new PreparedJexlScript(engine.parse(query));
+        QuerySpan querySpan = new QuerySpan(null);
+        for (int i = 0; i < 3; i++) {
+            Assert.assertTrue(DatawaveInterpreter.isMatched(engine.execute(prepared, context, querySpan)));
+        }
+        
+        Map<String,QueryNodeProfile> profiles = querySpan.getNodeProfiles();
+        Assert.assertEquals(3, profiles.get(query).getInvocations());
+        Assert.assertEquals(3, profiles.get(query).getTrueCount());
+        Assert.assertEquals(3, profiles.get("BAR == 'bar' || BAR == 'foo'").getTrueCount());
+        Assert.assertEquals(3, profiles.get("BAR == 'bar'").getInvocations());
+        Assert.assertEquals(0, profiles.get("BAR == 'bar'").getTrueCount());
+        Assert.assertEquals(3, profiles.get("BAR == 'foo'").getTrueCount());
+        // a parent's time includes its children
+        Assert.assertTrue(profiles.get(query).getNanos() >= profiles.get("FOO == 'bar'").getNanos());
+    }
+    
+    @Test
+    public void adaptiveAndOrderTest() {
+        String query = "FOO == 'bar' && BAR == 'foo'";
+        
+        DatawaveJexlContext context = new DatawaveJexlContext();
+        context.set("FOO", "bar");
+        context.set("BAR", "bar");
+        
+        DatawaveJexlEngine engine = ArithmeticJexlEngines.getEngine(new DefaultArithmetic());
+        PreparedJexlScript prepared = new PreparedJexlScript(engine.parse(query));
+        Assert.assertNull(prepared.getAndOrder(prepared.getScript().jjtGetChild(0)));
+        prepared.setAdaptive(true);
+        PreparedJexlScript.AndOrder andOrder = prepared.getAndOrder(prepared.getScript().jjtGetChild(0));
+        Assert.assertNotNull(andOrder);
+        
+        for (int i = 0; i < 200; i++) {
+            Assert.assertFalse(DatawaveInterpreter.isMatched(engine.execute(prepared, context)));
+        }
+        // the second term rejects every document, so it is evaluated first
+        Assert.assertEquals(1, andOrder.getFirst());
+        Assert.assertEquals(1, prepared.getReorderCount());
+        
+        context.set("BAR", "foo");
+        Assert.assertTrue(DatawaveInterpreter.isMatched(engine.execute(prepared, context)));
+    }
+    
+    @Test
+    public void adaptiveOrderingIgnoredForHitListTest() {
+        JexlEvaluation evaluation = new JexlEvaluation("FOO == 'bar' && BAR == 'foo'", new HitListArithmetic());
+        evaluation.setAdaptiveOrdering(true);
+        Assert.assertFalse(evaluation.isAdaptiveOrdering());
+        
+        evaluation = new JexlEvaluation("FOO == 'bar' && BAR == 'foo'", new DefaultArithmetic());
+        evaluation.setAdaptiveOrdering(true);
+        Assert.assertTrue(evaluation.isAdaptiveOrdering());
+    }
 }
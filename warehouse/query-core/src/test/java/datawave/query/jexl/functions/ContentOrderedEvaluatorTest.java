@@ -6,6 +6,7 @@ import org.junit.Before;
 import org.junit.Test;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -283,6 +284,58 @@ public class ContentOrderedEvaluatorTest {
         Assert.assertTrue(evaluator.evaluate(offsets));
     }
     
+    @Test
+    public void evaluate_zeroOffsetTest() {
+        List<List<TermWeightPosition>> offsets = new ArrayList<>();
+        offsets.add(asList(1, 7));
+        offsets.add(asList(1, 9));
+        offsets.add(asList(2, 12));
+        
+        evaluator = new WrappedContentOrderedEvaluator(null, 1, new HashMap<>(), "a", "b", "c");
+        
+        Assert.assertTrue(evaluator.evaluate(offsets));
+    }
+    
+    @Test
+    public void evaluate_zeroOffsetNotAllowedTest() {
+        List<List<TermWeightPosition>> offsets = new ArrayList<>();
+        offsets.add(asList(false, 1, 7));
+        offsets.add(asList(false, 1, 9));
+        offsets.add(asList(false, 2, 12));
+        
+        evaluator = new WrappedContentOrderedEvaluator(null, 1, new HashMap<>(), "a", "b", "c");
+        
+        Assert.assertFalse(evaluator.evaluate(offsets));
+    }
+    
+    @Test
+    public void evaluate_repeatedTermTest() {
+        // the same term can not follow itself at the same position
+        List<List<TermWeightPosition>> offsets = new ArrayList<>();
+        offsets.add(asList(5, 8));
+        offsets.add(asList(5, 8));
+        
+        evaluator = new WrappedContentOrderedEvaluator(null, 1, new HashMap<>(), "a", "a");
+        Assert.assertFalse(evaluator.evaluate(offsets));
+        
+        offsets.clear();
+        offsets.add(asList(5, 6));
+        offsets.add(asList(5, 6));
+        Assert.assertTrue(evaluator.evaluate(offsets));
+    }
+    
+    @Test
+    public void evaluate_skipsTest() {
+        List<List<TermWeightPosition>> offsets = new ArrayList<>();
+        offsets.add(asList(true, Arrays.asList(1, 20), Arrays.asList(0, 0)));
+        offsets.add(asList(true, Arrays.asList(5, 30), Arrays.asList(3, 0)));
+        offsets.add(asList(true, Arrays.asList(6, 40), Arrays.asList(0, 0)));
+        
+        evaluator = new WrappedContentOrderedEvaluator(null, 1, new HashMap<>(), "a", "b", "c");
+        
+        Assert.assertTrue(evaluator.evaluate(offsets));
+    }
+    
     private static class WrappedContentOrderedEvaluator extends ContentOrderedEvaluator {
         public WrappedContentOrderedEvaluator(Set<String> fields, int distance, Map<String,TermFrequencyList> termOffsetMap, String... terms) {
             super(fields, distance, Float.MIN_VALUE, termOffsetMap, terms);
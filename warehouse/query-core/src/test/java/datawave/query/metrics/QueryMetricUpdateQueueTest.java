@@ -0,0 +1,257 @@
+package datawave.query.metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import datawave.webservice.query.metric.BaseQueryMetric.PageMetric;
+import datawave.webservice.query.metric.QueryMetric;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class QueryMetricUpdateQueueTest {
+    
+    private ExecutorService executor;
+    
+    @Before
+    public void setup() {
+        executor = Executors.newCachedThreadPool();
+    }
+    
+    @After
+    public void teardown() {
+        executor.shutdownNow();
+    }
+    
+    @Test
+    public void testUpdatesWaitingForAWriteAreCoalesced() throws Exception {
+        QueryMetricUpdateQueue queue = new QueryMetricUpdateQueue(1);
+        List<QueryMetric> written = new CopyOnWriteArrayList<>();
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        
+        // the first update holds the claim on the query until released
+        Future<?> first = executor.submit(() -> {
+            queue.update(createMetric("query-1", 1), metric -> {
+                if (written.isEmpty()) {
+                    writing.countDown();
+                    release.await();
+                }
+                written.add(metric);
+            });
+            return null;
+        });
+        Assert.assertTrue(writing.await(10, TimeUnit.SECONDS));
+        
+        // the later updates can not be written until the first has been, and their callers wait for the coalesced write
+        List<Future<?>> later = new ArrayList<>();
+        for (int pages = 2; pages <= 5; pages++) {
+            QueryMetric metric = createMetric("query-1", pages);
+            later.add(executor.submit(() -> {
+                queue.update(metric, written::add);
+                return null;
+            }));
+        }
+        waitForPending(queue, 1);
+        for (Future<?> future : later) {
+            assertNotDone(future);
+        }
+        
+        release.countDown();
+        first.get(10, TimeUnit.SECONDS);
+        for (Future<?> future : later) {
+            future.get(10, TimeUnit.SECONDS);
+        }
+        
+        // the first update and one write of the coalesced later updates, with the page metrics of all of them
+        Assert.assertEquals(2, written.size());
+        Assert.assertEquals(1, written.get(0).getPageTimes().size());
+        Assert.assertEquals(5, written.get(1).getPageTimes().size());
+        Assert.assertEquals(0, queue.getPendingCount());
+    }
+    
+    @Test
+    public void testUpdatesOfDifferentQueriesAreNotBlocked() throws Exception {
+        QueryMetricUpdateQueue queue = new QueryMetricUpdateQueue(1);
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<?> blocked = executor.submit(() -> {
+            queue.update(createMetric("query-1", 1), metric -> {
+                writing.countDown();
+                release.await();
+            });
+            return null;
+        });
+        Assert.assertTrue(writing.await(10, TimeUnit.SECONDS));
+        
+        AtomicInteger writes = new AtomicInteger();
+        executor.submit(() -> {
+            queue.update(createMetric("query-2", 1), metric -> writes.incrementAndGet());
+            return null;
+        }).get(10, TimeUnit.SECONDS);
+        Assert.assertEquals(1, writes.get());
+        assertNotDone(blocked);
+        
+        release.countDown();
+        blocked.get(10, TimeUnit.SECONDS);
+    }
+    
+    @Test
+    public void testFailedWriteIsRetried() throws Exception {
+        QueryMetricUpdateQueue queue = new QueryMetricUpdateQueue(3);
+        AtomicInteger attempts = new AtomicInteger();
+        queue.update(createMetric("query-1", 1), metric -> {
+            if (attempts.incrementAndGet() < 3) {
+                throw new IllegalStateException("attempt " + attempts.get());
+            }
+        });
+        Assert.assertEquals(3, attempts.get());
+        Assert.assertEquals(0, queue.getPendingCount());
+    }
+    
+    @Test
+    public void testFailedWriteFailsItsCallers() throws Exception {
+        QueryMetricUpdateQueue queue = new QueryMetricUpdateQueue(2);
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger attempts = new AtomicInteger();
+        Future<?> first = executor.submit(() -> {
+            queue.update(createMetric("query-1", 1), metric -> {
+                writing.countDown();
+                release.await();
+                attempts.incrementAndGet();
+                throw new IllegalStateException("unavailable");
+            });
+            return null;
+        });
+        Assert.assertTrue(writing.await(10, TimeUnit.SECONDS));
+        
+        // the update coalesced behind the failing one is written by the same thread, and fails the same way
+        Future<?> second = executor.submit(() -> {
+            queue.update(createMetric("query-1", 2), metric -> Assert.fail("the thread holding the claim writes the update"));
+            return null;
+        });
+        waitForPending(queue, 1);
+        assertNotDone(second);
+        release.countDown();
+        
+        assertFailed(first, "unavailable");
+        assertFailed(second, "unavailable");
+        // two attempts for each of the two updates
+        Assert.assertEquals(4, attempts.get());
+        
+        // nothing is left behind for the query, and it can be updated again
+        Assert.assertEquals(0, queue.getPendingCount());
+        AtomicInteger writes = new AtomicInteger();
+        queue.update(createMetric("query-1", 3), metric -> writes.incrementAndGet());
+        Assert.assertEquals(1, writes.get());
+    }
+    
+    @Test
+    public void testUpdateQueuedBehindAFailureIsWritten() throws Exception {
+        QueryMetricUpdateQueue queue = new QueryMetricUpdateQueue(1);
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<QueryMetric> written = new CopyOnWriteArrayList<>();
+        Future<?> first = executor.submit(() -> {
+            queue.update(createMetric("query-1", 1), metric -> {
+                if (metric.getPageTimes().size() == 1) {
+                    writing.countDown();
+                    release.await();
+                    throw new IllegalStateException("unavailable");
+                }
+                written.add(metric);
+            });
+            return null;
+        });
+        Assert.assertTrue(writing.await(10, TimeUnit.SECONDS));
+        
+        Future<?> second = executor.submit(() -> {
+            queue.update(createMetric("query-1", 2), written::add);
+            return null;
+        });
+        waitForPending(queue, 1);
+        release.countDown();
+        
+        // only the caller of the failed update sees the failure, the queued update is still written
+        assertFailed(first, "unavailable");
+        second.get(10, TimeUnit.SECONDS);
+        Assert.assertEquals(1, written.size());
+        Assert.assertEquals(2, written.get(0).getPageTimes().size());
+        Assert.assertEquals(0, queue.getPendingCount());
+    }
+    
+    @Test
+    public void testConcurrentUpdatesAreAllWritten() throws Exception {
+        QueryMetricUpdateQueue queue = new QueryMetricUpdateQueue(1);
+        Set<String> inProgress = ConcurrentHashMap.newKeySet();
+        AtomicInteger maxPages = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 1; i <= 200; i++) {
+            QueryMetric metric = createMetric("query-" + (i % 4), i);
+            futures.add(executor.submit(() -> {
+                queue.update(metric, m -> {
+                    // the updates of a query are never written concurrently
+                    Assert.assertTrue(inProgress.add(m.getQueryId()));
+                    maxPages.accumulateAndGet(m.getPageTimes().size(), Math::max);
+                    inProgress.remove(m.getQueryId());
+                });
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(10, TimeUnit.SECONDS);
+        }
+        Assert.assertEquals(0, queue.getPendingCount());
+        Assert.assertTrue(maxPages.get() > 0);
+    }
+    
+    private static QueryMetric createMetric(String queryId, int pages) {
+        QueryMetric metric = new QueryMetric();
+        metric.setQueryId(queryId);
+        for (int i = 0; i < pages; i++) {
+            metric.addPageMetric(new PageMetric(10, 100, 0, 0));
+        }
+        return metric;
+    }
+    
+    private static void waitForPending(QueryMetricUpdateQueue queue, int count) throws InterruptedException {
+        long end = System.currentTimeMillis() + 10000;
+        while (queue.getPendingCount() != count && System.currentTimeMillis() < end) {
+            Thread.sleep(10);
+        }
+        Assert.assertEquals(count, queue.getPendingCount());
+    }
+    
+    private static void assertNotDone(Future<?> future) throws Exception {
+        try {
+            future.get(100, TimeUnit.MILLISECONDS);
+            Assert.fail("The update returned before it was written");
+        } catch (TimeoutException e) {
+            // expected
+        }
+    }
+    
+    private static void assertFailed(Future<?> future, String message) throws Exception {
+        try {
+            future.get(10, TimeUnit.SECONDS);
+            Assert.fail("The update did not fail");
+        } catch (ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof IllegalStateException);
+            Assert.assertEquals(message, e.getCause().getMessage());
+        }
+    }
+}
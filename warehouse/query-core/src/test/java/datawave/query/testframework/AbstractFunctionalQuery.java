@@ -428,6 +428,25 @@ public abstract class AbstractFunctionalQuery implements QueryLogicTestHarness.T
                             + ")");
         }
         
+        Collection<String> expect = getExpectedKeyResponse(query);
+        
+        // counting from the field index has to agree with counting the evaluated documents
+        Boolean countFromFieldIndex = this.countLogic.getCountFromFieldIndex();
+        try {
+            for (boolean fromFieldIndex : new boolean[] {true, false}) {
+                this.countLogic.setCountFromFieldIndex(fromFieldIndex);
+                String val = runCount(query, startEndDate);
+                if (log.isDebugEnabled()) {
+                    log.debug("expected count(" + expect.size() + ") actual count(" + val + ") from field index(" + fromFieldIndex + ")");
+                }
+                Assert.assertEquals("count from field index " + fromFieldIndex, "" + expect.size(), val);
+            }
+        } finally {
+            this.countLogic.setCountFromFieldIndex(countFromFieldIndex);
+        }
+    }
+    
+    private String runCount(String query, Date[] startEndDate) throws Exception {
         QueryImpl q = new QueryImpl();
         q.setBeginDate(startEndDate[0]);
         q.setEndDate(startEndDate[1]);
@@ -443,19 +462,13 @@ public abstract class AbstractFunctionalQuery implements QueryLogicTestHarness.T
         ShardQueryCountTableTransformer ctt = (ShardQueryCountTableTransformer) it.getTransformer();
         EventQueryResponseBase resp = (EventQueryResponseBase) ctt.createResponse(runner.next());
         
-        Collection<String> expect = getExpectedKeyResponse(query);
-        
         List<EventBase> events = resp.getEvents();
         Assert.assertEquals(1, events.size());
         EventBase<?,?> event = events.get(0);
         List<?> fields = event.getFields();
         Assert.assertEquals(1, fields.size());
         FieldBase<?> count = (FieldBase) fields.get(0);
-        String val = count.getValueString();
-        if (log.isDebugEnabled()) {
-            log.debug("expected count(" + expect.size() + ") actual count(" + val + ")");
-        }
-        Assert.assertEquals("" + expect.size(), val);
+        return count.getValueString();
     }
     
     /**
@@ -0,0 +1,251 @@
+package datawave.webservice.modification;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import datawave.accumulo.inmemory.InMemoryAccumuloClient;
+import datawave.accumulo.inmemory.InMemoryInstance;
+import datawave.data.type.LcNoDiacriticsType;
+import datawave.data.type.Type;
+import datawave.marking.MarkingFunctions;
+import datawave.query.util.MetadataHelper;
+import datawave.query.util.MetadataHelperFactory;
+import datawave.webservice.modification.ModificationRequestBase.MODE;
+
+import org.apache.accumulo.core.client.AccumuloClient;
+import org.apache.accumulo.core.client.BatchWriter;
+import org.apache.accumulo.core.client.BatchWriterConfig;
+import org.apache.accumulo.core.client.Scanner;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Mutation;
+import org.apache.accumulo.core.data.Range;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.security.Authorizations;
+import org.apache.accumulo.core.security.ColumnVisibility;
+import org.apache.hadoop.io.Text;
+import org.easymock.EasyMock;
+import org.junit.Before;
+import org.junit.Test;
+
+public class MutableMetadataHandlerTest {
+    
+    private static final String SHARD_TABLE = "shard";
+    private static final String SHARD = "20200101_0";
+    private static final String DATATYPE = "csv";
+    private static final long EVENT_TIMESTAMP = 1577880000000L;
+    private static final Authorizations AUTHS = new Authorizations("PRIVATE", "PUBLIC");
+    private static final Set<Authorizations> USER_AUTHS = Collections.singleton(AUTHS);
+    private static final String USER = "user";
+    
+    private AccumuloClient client;
+    private MutableMetadataHandler handler;
+    private Map<String,Set<String>> mutableFields;
+    
+    @Before
+    public void setup() throws Exception {
+        client = new InMemoryAccumuloClient("root", new InMemoryInstance());
+        client.securityOperations().changeUserAuthorizations("root", AUTHS);
+        for (String table : Arrays.asList(SHARD_TABLE, "shardIndex", "shardReverseIndex", "DatawaveMetadata")) {
+            client.tableOperations().create(table);
+        }
+        
+        Set<Type<?>> dataTypes = new HashSet<>();
+        dataTypes.add(new LcNoDiacriticsType());
+        MetadataHelper helper = EasyMock.createNiceMock(MetadataHelper.class);
+        EasyMock.expect(helper.isIndexed(EasyMock.anyString(), EasyMock.anyObject())).andReturn(false).anyTimes();
+        EasyMock.expect(helper.isReverseIndexed(EasyMock.anyString(), EasyMock.anyObject())).andReturn(false).anyTimes();
+        EasyMock.expect(helper.getIndexOnlyFields(EasyMock.anyObject())).andReturn(Collections.emptySet()).anyTimes();
+        EasyMock.expect(helper.getDatatypesForField(EasyMock.anyString(), EasyMock.anyObject())).andReturn(dataTypes).anyTimes();
+        MetadataHelperFactory helperFactory = EasyMock.createNiceMock(MetadataHelperFactory.class);
+        EasyMock.expect(helperFactory.createMetadataHelper(EasyMock.anyObject(), EasyMock.anyString(), EasyMock.anyObject())).andReturn(helper).anyTimes();
+        EasyMock.replay(helper, helperFactory);
+        
+        handler = new MutableMetadataHandler();
+        handler.setEventTableName(SHARD_TABLE);
+        handler.setIndexTableName("shardIndex");
+        handler.setReverseIndexTableName("shardReverseIndex");
+        handler.setMetadataTableName("DatawaveMetadata");
+        handler.setMarkingFunctions(new MarkingFunctions.Default());
+        handler.setMetadataHelperFactory(helperFactory);
+        
+        mutableFields = new HashMap<>();
+        mutableFields.put(DATATYPE, Collections.singleton("FIELD"));
+        
+        for (String uid : Arrays.asList("uid1", "uid2", "uid3", "uid4")) {
+            writeEvent(uid);
+        }
+    }
+    
+    @Test
+    public void testInsertBatch() throws Exception {
+        assertEquals(2, handler.processBatch(client, Arrays.asList(request(MODE.INSERT, "DEF", null, "uid1"), request(MODE.INSERT, "GHI", null, "uid2")),
+                        mutableFields, USER_AUTHS, USER));
+        
+        assertEquals(Arrays.asList("ABC", "DEF"), getValues("uid1"));
+        assertEquals(Arrays.asList("ABC", "GHI"), getValues("uid2"));
+        assertEquals(Arrays.asList("ABC"), getValues("uid3"));
+        assertEquals(Arrays.asList("DEF:insert"), getHistory("uid1"));
+    }
+    
+    @Test
+    public void testUpdateBatch() throws Exception {
+        assertEquals(2, handler.processBatch(client, Collections.singletonList(request(MODE.UPDATE, "XYZ", "ABC", "uid1", "uid2")), mutableFields,
+                        USER_AUTHS, USER));
+        
+        assertEquals(Arrays.asList("XYZ"), getValues("uid1"));
+        assertEquals(Arrays.asList("XYZ"), getValues("uid2"));
+        assertEquals(Arrays.asList("ABC"), getValues("uid3"));
+        assertEquals(Arrays.asList("ABC:update", "XYZ:update"), getHistory("uid1"));
+    }
+    
+    @Test
+    public void testDeleteBatch() throws Exception {
+        assertEquals(2, handler.processBatch(client, Arrays.asList(request(MODE.DELETE, "ABC", null, "uid1"), request(MODE.DELETE, "ABC", null, "uid3")),
+                        mutableFields, USER_AUTHS, USER));
+        
+        assertEquals(Collections.emptyList(), getValues("uid1"));
+        assertEquals(Arrays.asList("ABC"), getValues("uid2"));
+        assertEquals(Collections.emptyList(), getValues("uid3"));
+        assertEquals(Arrays.asList("ABC:delete"), getHistory("uid1"));
+    }
+    
+    @Test
+    public void testSameEventModifiedTwice() throws Exception {
+        // the second update matches the value written by the first, so the event has to be read again once the first is written
+        assertEquals(3, handler.processBatch(client, Arrays.asList(request(MODE.UPDATE, "XYZ", "ABC", "uid1"), request(MODE.UPDATE, "QRS", "XYZ", "uid1"),
+                        request(MODE.INSERT, "DEF", null, "uid1")), mutableFields, USER_AUTHS, USER));
+        
+        assertEquals(Arrays.asList("DEF", "QRS"), getValues("uid1"));
+        assertEquals(Arrays.asList("ABC:update", "DEF:insert", "QRS:update", "XYZ:update"), getHistory("uid1"));
+    }
+    
+    @Test
+    public void testMismatchedValueRejectsTheWholeBatch() throws Exception {
+        List<ModificationRequestBase> requests = Arrays.asList(request(MODE.UPDATE, "XYZ", "ABC", "uid1"), request(MODE.INSERT, "DEF", null, "uid2"),
+                        request(MODE.DELETE, "NOPE", null, "uid3"));
+        try {
+            handler.processBatch(client, requests, mutableFields, USER_AUTHS, USER);
+            fail("Expected the batch to be rejected");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        
+        // nothing was written, including the modifications of the requests before the mismatch
+        for (String uid : Arrays.asList("uid1", "uid2", "uid3")) {
+            assertEquals(Arrays.asList("ABC"), getValues(uid));
+            assertEquals(Collections.emptyList(), getHistory(uid));
+        }
+    }
+    
+    @Test
+    public void testValueRemovedEarlierInTheBatchIsRejected() throws Exception {
+        List<ModificationRequestBase> requests = Arrays.asList(request(MODE.DELETE, "ABC", null, "uid1"), request(MODE.UPDATE, "XYZ", "ABC", "uid1"));
+        try {
+            handler.processBatch(client, requests, mutableFields, USER_AUTHS, USER);
+            fail("Expected the batch to be rejected");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        assertEquals(Arrays.asList("ABC"), getValues("uid1"));
+    }
+    
+    @Test
+    public void testBatchAgreesWithSingleRequests() throws Exception {
+        List<DefaultModificationRequest> requests = Arrays.asList(request(MODE.INSERT, "DEF", null, "uid1"), request(MODE.UPDATE, "XYZ", "ABC", "uid1"),
+                        request(MODE.DELETE, "DEF", null, "uid1"), request(MODE.UPDATE, "QRS", "XYZ", "uid1"));
+        for (DefaultModificationRequest request : requests) {
+            handler.process(client, request, mutableFields, USER_AUTHS, USER);
+        }
+        
+        // the same requests against another event with the same entries
+        List<ModificationRequestBase> batch = new ArrayList<>();
+        for (DefaultModificationRequest request : requests) {
+            batch.add(request(request.getMode(), request.getFieldValue(), request.getOldFieldValue(), "uid2"));
+        }
+        assertEquals(4, handler.processBatch(client, batch, mutableFields, USER_AUTHS, USER));
+        
+        assertEquals(getEntries("uid1"), getEntries("uid2"));
+        assertEquals(Arrays.asList("QRS"), getValues("uid2"));
+    }
+    
+    private void writeEvent(String uid) throws Exception {
+        Mutation m = new Mutation(SHARD);
+        m.put(DATATYPE + "\0" + uid, "FIELD\0ABC", new ColumnVisibility("PUBLIC"), EVENT_TIMESTAMP, new Value(new byte[0]));
+        m.put(DATATYPE + "\0" + uid, "OTHER\0value", new ColumnVisibility("PUBLIC"), EVENT_TIMESTAMP, new Value(new byte[0]));
+        try (BatchWriter writer = client.createBatchWriter(SHARD_TABLE, new BatchWriterConfig())) {
+            writer.addMutation(m);
+        }
+    }
+    
+    private static DefaultModificationRequest request(MODE mode, String fieldValue, String oldFieldValue, String... uids) {
+        List<EventIdentifier> events = new ArrayList<>();
+        for (String uid : uids) {
+            EventIdentifier e = new EventIdentifier();
+            e.setShardId(SHARD);
+            e.setDatatype(DATATYPE);
+            e.setEventUid(uid);
+            events.add(e);
+        }
+        DefaultModificationRequest request = new DefaultModificationRequest();
+        request.setEvents(events);
+        request.setMode(mode);
+        request.setFieldName("FIELD");
+        request.setFieldValue(fieldValue);
+        request.setColumnVisibility("PUBLIC");
+        if (oldFieldValue != null) {
+            request.setOldFieldValue(oldFieldValue);
+            request.setOldColumnVisibility("PUBLIC");
+        }
+        return request;
+    }
+    
+    // the distinct entries of an event in order, with the time of the modification removed from the history values
+    private List<String> getEntries(String uid) throws Exception {
+        Set<String> entries = new TreeSet<>();
+        try (Scanner scanner = client.createScanner(SHARD_TABLE, AUTHS)) {
+            scanner.setRange(new Range(SHARD));
+            scanner.fetchColumnFamily(new Text(DATATYPE + "\0" + uid));
+            for (Map.Entry<Key,Value> entry : scanner) {
+                Key key = entry.getKey();
+                String cq = key.getColumnQualifier().toString();
+                if (cq.startsWith(MutableMetadataHandler.HISTORY_PREFIX)) {
+                    cq = cq.substring(0, cq.indexOf('\0') + 1) + cq.substring(cq.indexOf(':') + 1);
+                }
+                entries.add(cq + " " + key.getColumnVisibility() + " " + key.getTimestamp());
+            }
+        }
+        return new ArrayList<>(entries);
+    }
+    
+    private List<String> getValues(String uid) throws Exception {
+        List<String> values = new ArrayList<>();
+        for (String entry : getEntries(uid)) {
+            if (entry.startsWith("FIELD\0")) {
+                values.add(entry.substring("FIELD\0".length(), entry.indexOf(' ')));
+            }
+        }
+        return values;
+    }
+    
+    // the values and operations of the history of FIELD
+    private List<String> getHistory(String uid) throws Exception {
+        List<String> history = new ArrayList<>();
+        String prefix = MutableMetadataHandler.HISTORY_PREFIX + "FIELD\0" + USER + ":";
+        for (String entry : getEntries(uid)) {
+            if (entry.startsWith(prefix)) {
+                history.add(entry.substring(prefix.length(), entry.indexOf(' ')));
+            }
+        }
+        return history;
+    }
+}
@@ -0,0 +1,46 @@
+package datawave.webservice.modification;
+
+import java.io.Serializable;
+import java.util.List;
+
+import javax.xml.bind.annotation.XmlAccessOrder;
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorOrder;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlElementWrapper;
+import javax.xml.bind.annotation.XmlElements;
+import javax.xml.bind.annotation.XmlRootElement;
+
+import org.apache.commons.lang.builder.ToStringBuilder;
+
+/**
+ * A batch of modification requests for one of the services of the Modification Service, which are applied in order.
+ */
+@XmlRootElement(name = "ModificationRequestList")
+@XmlAccessorType(XmlAccessType.FIELD)
+@XmlAccessorOrder(XmlAccessOrder.ALPHABETICAL)
+public class ModificationRequestList implements Serializable {
+    
+    private static final long serialVersionUID = 1L;
+    
+    @XmlElementWrapper(name = "Requests", required = true)
+    @XmlElements({@XmlElement(name = "DefaultModificationRequest", type = DefaultModificationRequest.class),
+            @XmlElement(name = "DefaultUUIDModificationRequest", type = DefaultUUIDModificationRequest.class)})
+    protected List<ModificationRequestBase> requests = null;
+    
+    public List<ModificationRequestBase> getRequests() {
+        return requests;
+    }
+    
+    public void setRequests(List<ModificationRequestBase> requests) {
+        this.requests = requests;
+    }
+    
+    @Override
+    public String toString() {
+        ToStringBuilder tsb = new ToStringBuilder(this);
+        tsb.append("requests", requests);
+        return tsb.toString();
+    }
+}
@@ -507,6 +507,216 @@ public abstract class BaseQueryMetric implements HasMarkings, Serializable {
         
     }
     
+    @XmlAccessorType(XmlAccessType.NONE)
+    public static class NodeProfile implements Serializable, Comparable<NodeProfile>, Message<NodeProfile> {
+        
+        private static final long serialVersionUID = 1L;
+        
+        // The query string of the node
+        @XmlElement
+        private String node = null;
+        
+        // The number of times the node was evaluated
+        @XmlElement
+        private long invocations = 0;
+        
+        // The number of evaluations which were true
+        @XmlElement
+        private long trueCount = 0;
+        
+        // The time spent evaluating the node and its children
+        @XmlElement
+        private long nanos = 0;
+        
+        public NodeProfile() {
+            super();
+        }
+        
+        public NodeProfile(String node, long invocations, long trueCount, long nanos) {
+            super();
+            this.node = node;
+            this.invocations = invocations;
+            this.trueCount = trueCount;
+            this.nanos = nanos;
+        }
+        
+        public NodeProfile(NodeProfile o) {
+            super();
+            this.node = o.node;
+            this.invocations = o.invocations;
+            this.trueCount = o.trueCount;
+            this.nanos = o.nanos;
+        }
+        
+        public NodeProfile duplicate() {
+            return new NodeProfile(this);
+        }
+        
+        public void merge(NodeProfile o) {
+            this.invocations += o.invocations;
+            this.trueCount += o.trueCount;
+            this.nanos += o.nanos;
+        }
+        
+        public String getNode() {
+            return node;
+        }
+        
+        public void setNode(String node) {
+            this.node = node;
+        }
+        
+        public long getInvocations() {
+            return invocations;
+        }
+        
+        public void setInvocations(long invocations) {
+            this.invocations = invocations;
+        }
+        
+        public long getTrueCount() {
+            return trueCount;
+        }
+        
+        public void setTrueCount(long trueCount) {
+            this.trueCount = trueCount;
+        }
+        
+        public long getNanos() {
+            return nanos;
+        }
+        
+        public void setNanos(long nanos) {
+            this.nanos = nanos;
+        }
+        
+        @Override
+        public int hashCode() {
+            return new HashCodeBuilder(17, 37).append(node).append(invocations).append(trueCount).append(nanos).toHashCode();
+        }
+        
+        @Override
+        public boolean equals(Object o) {
+            if (null == o) {
+                return false;
+            }
+            if (this == o) {
+                return true;
+            }
+            if (o instanceof NodeProfile) {
+                NodeProfile other = (NodeProfile) o;
+                return new EqualsBuilder().append(this.node, other.node).append(this.invocations, other.invocations).append(this.trueCount, other.trueCount)
+                                .append(this.nanos, other.nanos).isEquals();
+            } else {
+                return false;
+            }
+        }
+        
+        @Override
+        public int compareTo(NodeProfile o) {
+            return new CompareToBuilder().append(node, o.node).append(invocations, o.invocations).append(trueCount, o.trueCount).append(nanos, o.nanos)
+                            .toComparison();
+        }
+        
+        @Override
+        public String toString() {
+            return new StringBuilder().append("Node: ").append(this.node).append(" Invocations: ").append(this.invocations).append(" True: ")
+                            .append(this.trueCount).append(" False: ").append(this.invocations - this.trueCount).append(" Time(ms): ")
+                            .append(this.nanos / 1000000.0).toString();
+        }
+        
+        public static Schema<NodeProfile> getSchema() {
+            return SCHEMA;
+        }
+        
+        @Override
+        public Schema<NodeProfile> cachedSchema() {
+            return SCHEMA;
+        }
+        
+        private static final Schema<NodeProfile> SCHEMA = new Schema<NodeProfile>() {
+            public NodeProfile newMessage() {
+                return new NodeProfile();
+            }
+            
+            public Class<NodeProfile> typeClass() {
+                return NodeProfile.class;
+            }
+            
+            public String messageName() {
+                return NodeProfile.class.getSimpleName();
+            }
+            
+            public String messageFullName() {
+                return NodeProfile.class.getName();
+            }
+            
+            public boolean isInitialized(NodeProfile message) {
+                return true;
+            }
+            
+            public void writeTo(Output output, NodeProfile message) throws IOException {
+                output.writeString(1, message.node, false);
+                output.writeUInt64(2, message.invocations, false);
+                output.writeUInt64(3, message.trueCount, false);
+                output.writeUInt64(4, message.nanos, false);
+            }
+            
+            public void mergeFrom(Input input, NodeProfile message) throws IOException {
+                int number;
+                while ((number = input.readFieldNumber(this)) != 0) {
+                    switch (number) {
+                        case 1:
+                            message.node = input.readString();
+                            break;
+                        case 2:
+                            message.invocations = input.readUInt64();
+                            break;
+                        case 3:
+                            message.trueCount = input.readUInt64();
+                            break;
+                        case 4:
+                            message.nanos = input.readUInt64();
+                            break;
+                        default:
+                            input.handleUnknownField(number, this);
+                            break;
+                    }
+                }
+            }
+            
+            public String getFieldName(int number) {
+                switch (number) {
+                    case 1:
+                        return "node";
+                    case 2:
+                        return "invocations";
+                    case 3:
+                        return "trueCount";
+                    case 4:
+                        return "nanos";
+                    default:
+                        return null;
+                }
+            }
+            
+            public int getFieldNumber(String name) {
+                final Integer number = fieldMap.get(name);
+                return number == null ? 0 : number.intValue();
+            }
+            
+            final java.util.HashMap<String,Integer> fieldMap = new java.util.HashMap<String,Integer>();
+            
+            {
+                fieldMap.put("node", 1);
+                fieldMap.put("invocations", 2);
+                fieldMap.put("trueCount", 3);
+                fieldMap.put("nanos", 4);
+            }
+        };
+        
+    }
+    
     @XmlElement
     protected String queryType = null;
     @XmlElement
@@ -581,6 +791,9 @@ public abstract class BaseQueryMetric implements HasMarkings, Serializable {
     @XmlElementWrapper(name = "predictions")
     @XmlElement(name = "prediction")
     protected Set<Prediction> predictions = new HashSet<Prediction>();
+    @XmlElementWrapper(name = "nodeProfiles")
+    @XmlElement(name = "nodeProfile")
+    protected List<NodeProfile> nodeProfiles = new ArrayList<NodeProfile>();
     protected int lastWrittenHash = 0;
     protected long numUpdates = 0;
     
@@ -785,6 +998,14 @@ public abstract class BaseQueryMetric implements HasMarkings, Serializable {
         this.predictions.add(prediction);
     }
     
+    public List<NodeProfile> getNodeProfiles() {
+        return this.nodeProfiles;
+    }
+    
+    public void setNodeProfiles(List<NodeProfile> nodeProfiles) {
+        this.nodeProfiles = nodeProfiles;
+    }
+    
     public void setError(Throwable t) {
         if (t.getCause() instanceof QueryException) {
             QueryException qe = (QueryException) t.getCause();
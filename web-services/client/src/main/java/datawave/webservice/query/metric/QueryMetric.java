@@ -104,6 +104,13 @@ public class QueryMetric extends BaseQueryMetric implements Serializable, Messag
                 this.predictions.add(p.duplicate());
             }
         }
+        
+        if (other.nodeProfiles != null) {
+            this.nodeProfiles = new ArrayList<NodeProfile>();
+            for (NodeProfile p : other.nodeProfiles) {
+                this.nodeProfiles.add(p.duplicate());
+            }
+        }
     }
     
     public BaseQueryMetric duplicate() {
@@ -119,7 +126,7 @@ public class QueryMetric extends BaseQueryMetric implements Serializable, Messag
                         .append(this.getErrorMessage()).append(this.getCreateCallTime()).append(this.getErrorCode()).append(this.getQueryName())
                         .append(this.getParameters()).append(this.getSourceCount()).append(this.getNextCount()).append(this.getSeekCount())
                         .append(this.getYieldCount()).append(this.getDocRanges()).append(this.getFiRanges()).append(this.getPlan()).append(this.getLoginTime())
-                        .append(this.getPredictions()).toHashCode();
+                        .append(this.getPredictions()).append(this.getNodeProfiles()).toHashCode();
     }
     
     @Override
@@ -146,7 +153,8 @@ public class QueryMetric extends BaseQueryMetric implements Serializable, Messag
                             .append(this.getNextCount(), other.getNextCount()).append(this.getSeekCount(), other.getSeekCount())
                             .append(this.getYieldCount(), other.getYieldCount()).append(this.getDocRanges(), other.getDocRanges())
                             .append(this.getFiRanges(), other.getFiRanges()).append(this.getPlan(), other.getPlan())
-                            .append(this.getLoginTime(), other.getLoginTime()).append(this.getPredictions(), other.getPredictions()).isEquals();
+                            .append(this.getLoginTime(), other.getLoginTime()).append(this.getPredictions(), other.getPredictions())
+                            .append(this.getNodeProfiles(), other.getNodeProfiles()).isEquals();
         } else {
             return false;
         }
@@ -186,6 +194,7 @@ public class QueryMetric extends BaseQueryMetric implements Serializable, Messag
         buf.append(" FI Ranges: ").append(this.getFiRanges());
         buf.append(" Login Time: ").append(this.getLoginTime());
         buf.append(" Predictions: ").append(this.getPredictions());
+        buf.append(" Node Profiles: ").append(this.getNodeProfiles());
         buf.append("\n");
         return buf.toString();
     }
@@ -369,6 +378,14 @@ public class QueryMetric extends BaseQueryMetric implements Serializable, Messag
                 }
             }
             
+            if (message.nodeProfiles != null) {
+                for (NodeProfile nodeProfile : message.nodeProfiles) {
+                    if (nodeProfile != null) {
+                        output.writeObject(37, nodeProfile, NodeProfile.getSchema(), true);
+                    }
+                }
+            }
+            
         }
         
         public void mergeFrom(Input input, QueryMetric message) throws IOException {
@@ -501,6 +518,12 @@ public class QueryMetric extends BaseQueryMetric implements Serializable, Messag
                         }
                         message.predictions.add(input.mergeObject(null, Prediction.getSchema()));
                         break;
+                    case 37:
+                        if (message.nodeProfiles == null) {
+                            message.nodeProfiles = new ArrayList<NodeProfile>();
+                        }
+                        message.nodeProfiles.add(input.mergeObject(null, NodeProfile.getSchema()));
+                        break;
                     default:
                         input.handleUnknownField(number, this);
                         break;
@@ -583,6 +606,8 @@ public class QueryMetric extends BaseQueryMetric implements Serializable, Messag
                     return "loginTime";
                 case 36:
                     return "predictions";
+                case 37:
+                    return "nodeProfiles";
                 default:
                     return null;
             }
@@ -632,6 +657,7 @@ public class QueryMetric extends BaseQueryMetric implements Serializable, Messag
             fieldMap.put("plan", 34);
             fieldMap.put("loginTime", 35);
             fieldMap.put("predictions", 36);
+            fieldMap.put("nodeProfiles", 37);
         }
     };
     
@@ -0,0 +1,595 @@
+package datawave.webservice.result;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import io.protostuff.LinkedBuffer;
+import io.protostuff.ProtobufIOUtil;
+
+import datawave.data.type.NoOpType;
+import datawave.data.type.Type;
+import datawave.webservice.query.result.event.DefaultEvent;
+import datawave.webservice.query.result.event.DefaultField;
+import datawave.webservice.query.result.event.EventBase;
+import datawave.webservice.query.result.event.FieldBase;
+import datawave.webservice.query.result.event.Metadata;
+import datawave.webservice.query.util.TypedValue;
+
+import org.apache.hadoop.io.WritableUtils;
+import org.apache.log4j.Logger;
+
+/**
+ * A page of events in the columnar binary form served as {@value #MEDIA_TYPE}. The field names, visibilities, markings and value types of a page are written
+ * once in a dictionary, and the fields of all of the events are written as columns of dictionary ids, timestamp deltas and values. This is much smaller than
+ * writing every field as a full object, and is decoded without building an object per field up front.
+ * <p>
+ * A page is laid out as follows, with all of the integers written as variable length longs:
+ * <ul>
+ * <li>the magic bytes {@code DWCR} and a version byte</li>
+ * <li>the length and protobuf bytes of a {@link DefaultEventQueryResponse} without its events, then the page number and the has results and partial results
+ * flags</li>
+ * <li>the string dictionary, and the markings dictionary with the string ids of each key and value</li>
+ * <li>for each event, the markings id, the metadata and the number of fields</li>
+ * <li>the name ids of all of the fields, then their visibility ids, their markings ids, their timestamp deltas and their value kinds, each as a column of
+ * its own</li>
+ * <li>for each field with a datawave type value, the id of the type class</li>
+ * <li>for each field, the length of the value, and then the bytes of all of the values</li>
+ * </ul>
+ * Ids are one based, with zero standing for null.
+ * <p>
+ * A decoded page keeps the value bytes and only builds a {@link DefaultEvent} when it is asked for, so that a client which reads a few fields of each event or
+ * skips through a page does not pay for the fields it never looks at.
+ */
+public class ColumnarEventQueryResponse {
+    
+    private static final Logger log = Logger.getLogger(ColumnarEventQueryResponse.class);
+    
+    public static final String MEDIA_TYPE = "application/x-datawave-columnar";
+    
+    private static final byte[] MAGIC = {'D', 'W', 'C', 'R'};
+    private static final byte VERSION = 2;
+    
+    private static final byte NULL_VALUE = 0;
+    private static final byte STRING_VALUE = 1;
+    private static final byte TYPE_VALUE = 2;
+    private static final byte BYTES_VALUE = 3;
+    // any other value is written with the protobuf schema of its TypedValue
+    private static final byte TYPED_VALUE = 4;
+    private static final byte VALUE_KIND_MASK = 0x7;
+    private static final byte NO_TIMESTAMP = 0x8;
+    
+    private final DefaultEventQueryResponse header;
+    private final String[] strings;
+    private final Map<String,String>[] markings;
+    
+    private final int[] eventMarkings;
+    private final Metadata[] eventMetadata;
+    // the index of the first field of each event, with one more entry for the end of the last event
+    private final int[] firstField;
+    
+    private final int[] fieldNames;
+    private final int[] fieldVisibilities;
+    private final int[] fieldMarkings;
+    private final long[] fieldTimestamps;
+    private final byte[] fieldFlags;
+    private final int[] fieldTypes;
+    private final int[] valueOffsets;
+    private final byte[] values;
+    
+    private final DefaultEvent[] events;
+    
+    @SuppressWarnings("unchecked")
+    private ColumnarEventQueryResponse(DataInputStream in) throws IOException {
+        byte[] magic = new byte[MAGIC.length];
+        in.readFully(magic);
+        for (int i = 0; i < MAGIC.length; i++) {
+            if (magic[i] != MAGIC[i]) {
+                throw new IOException("Not a columnar event query response");
+            }
+        }
+        byte version = in.readByte();
+        if (version != VERSION) {
+            throw new IOException("Unsupported columnar event query response version " + version);
+        }
+        
+        byte[] headerBytes = new byte[readLength(in)];
+        in.readFully(headerBytes);
+        header = new DefaultEventQueryResponse();
+        ProtobufIOUtil.mergeFrom(headerBytes, header, DefaultEventQueryResponse.getSchema());
+        header.setPageNumber(WritableUtils.readVLong(in));
+        header.setHasResults(in.readBoolean());
+        header.setPartialResults(in.readBoolean());
+        
+        strings = new String[readLength(in)];
+        for (int i = 0; i < strings.length; i++) {
+            strings[i] = WritableUtils.readString(in);
+        }
+        markings = new Map[readLength(in)];
+        for (int i = 0; i < markings.length; i++) {
+            int size = readLength(in);
+            Map<String,String> map = new HashMap<>(size * 2);
+            for (int j = 0; j < size; j++) {
+                map.put(getString(readId(in)), getString(readId(in)));
+            }
+            markings[i] = map;
+        }
+        
+        int eventCount = readLength(in);
+        eventMarkings = new int[eventCount];
+        eventMetadata = new Metadata[eventCount];
+        firstField = new int[eventCount + 1];
+        for (int i = 0; i < eventCount; i++) {
+            eventMarkings[i] = readId(in);
+            if (in.readBoolean()) {
+                Metadata metadata = new Metadata();
+                metadata.setDataType(getString(readId(in)));
+                metadata.setTable(getString(readId(in)));
+                metadata.setInternalId(WritableUtils.readString(in));
+                metadata.setRow(WritableUtils.readString(in));
+                eventMetadata[i] = metadata;
+            }
+            firstField[i + 1] = firstField[i] + readLength(in);
+        }
+        
+        int fieldCount = firstField[eventCount];
+        fieldNames = new int[fieldCount];
+        fieldVisibilities = new int[fieldCount];
+        fieldMarkings = new int[fieldCount];
+        fieldTimestamps = new long[fieldCount];
+        fieldFlags = new byte[fieldCount];
+        for (int i = 0; i < fieldCount; i++) {
+            fieldNames[i] = readId(in);
+        }
+        for (int i = 0; i < fieldCount; i++) {
+            fieldVisibilities[i] = readId(in);
+        }
+        for (int i = 0; i < fieldCount; i++) {
+            fieldMarkings[i] = readId(in);
+        }
+        long timestamp = 0;
+        for (int i = 0; i < fieldCount; i++) {
+            timestamp += WritableUtils.readVLong(in);
+            fieldTimestamps[i] = timestamp;
+        }
+        in.readFully(fieldFlags);
+        fieldTypes = new int[fieldCount];
+        for (int i = 0; i < fieldCount; i++) {
+            if ((fieldFlags[i] & VALUE_KIND_MASK) == TYPE_VALUE) {
+                fieldTypes[i] = readId(in);
+            }
+        }
+        valueOffsets = new int[fieldCount + 1];
+        for (int i = 0; i < fieldCount; i++) {
+            valueOffsets[i + 1] = valueOffsets[i] + readLength(in);
+        }
+        values = new byte[valueOffsets[fieldCount]];
+        in.readFully(values);
+        
+        events = new DefaultEvent[eventCount];
+    }
+    
+    /**
+     * Decode a page of events
+     *
+     * @param in
+     *            the stream holding the page, which is read to the end of the page but not closed
+     * @return the decoded page
+     * @throws IOException
+     *             if the stream does not hold a columnar page
+     */
+    public static ColumnarEventQueryResponse read(InputStream in) throws IOException {
+        return new ColumnarEventQueryResponse(in instanceof DataInputStream ? (DataInputStream) in : new DataInputStream(in));
+    }
+    
+    /**
+     * Encode a response as a page of events. Responses other than event query responses, such as the response for an error, are written as a page without
+     * events so that their query id, messages and exceptions still reach the client.
+     *
+     * @param response
+     *            the response to encode
+     * @param out
+     *            the stream to write the page to, which is flushed but not closed
+     * @throws IOException
+     *             if the page could not be written
+     */
+    public static void write(BaseResponse response, OutputStream out) throws IOException {
+        DefaultEventQueryResponse header = new DefaultEventQueryResponse();
+        header.setOperationTimeMS(response.getOperationTimeMS());
+        header.setMessages(response.getMessages());
+        header.setExceptions(response.getExceptions());
+        long pageNumber = 0;
+        boolean partialResults = false;
+        if (response instanceof BaseQueryResponse) {
+            BaseQueryResponse queryResponse = (BaseQueryResponse) response;
+            header.setQueryId(queryResponse.getQueryId());
+            header.setLogicName(queryResponse.getLogicName());
+            pageNumber = queryResponse.getPageNumber();
+            partialResults = queryResponse.isPartialResults();
+        }
+        List<EventBase> events = Collections.emptyList();
+        if (response instanceof EventQueryResponseBase) {
+            EventQueryResponseBase eventResponse = (EventQueryResponseBase) response;
+            header.setTotalEvents(eventResponse.getTotalEvents());
+            header.setReturnedEvents(eventResponse.getReturnedEvents());
+            header.setFields(eventResponse.getFields());
+            if (eventResponse.getEvents() != null) {
+                events = eventResponse.getEvents();
+            }
+        }
+        
+        Dictionary dictionary = new Dictionary();
+        // the columns are written to a buffer as the dictionary is filled, and the buffer follows the dictionary
+        ColumnBuffer columns = new ColumnBuffer();
+        DataOutputStream eventColumn = columns.next();
+        for (EventBase<?,?> event : events) {
+            writeId(eventColumn, dictionary.getMarkings(event.getMarkings()));
+            Metadata metadata = event.getMetadata();
+            eventColumn.writeBoolean(metadata != null);
+            if (metadata != null) {
+                writeId(eventColumn, dictionary.getString(metadata.getDataType()));
+                writeId(eventColumn, dictionary.getString(metadata.getTable()));
+                WritableUtils.writeString(eventColumn, metadata.getInternalId());
+                WritableUtils.writeString(eventColumn, metadata.getRow());
+            }
+            WritableUtils.writeVInt(eventColumn, (event.getFields() == null) ? 0 : event.getFields().size());
+        }
+        
+        DataOutputStream nameColumn = columns.next();
+        DataOutputStream visibilityColumn = columns.next();
+        DataOutputStream markingsColumn = columns.next();
+        DataOutputStream timestampColumn = columns.next();
+        DataOutputStream flagColumn = columns.next();
+        DataOutputStream typeColumn = columns.next();
+        DataOutputStream lengthColumn = columns.next();
+        DataOutputStream valueColumn = columns.next();
+        LinkedBuffer buffer = LinkedBuffer.allocate(256);
+        long lastTimestamp = 0;
+        int fieldCount = 0;
+        for (EventBase<?,?> event : events) {
+            if (event.getFields() == null) {
+                continue;
+            }
+            for (FieldBase<?> field : event.getFields()) {
+                fieldCount++;
+                writeId(nameColumn, dictionary.getString(field.getName()));
+                writeId(visibilityColumn, dictionary.getString(field.getColumnVisibility()));
+                writeId(markingsColumn, dictionary.getMarkings(field.getMarkings()));
+                Long timestamp = field.getTimestamp();
+                WritableUtils.writeVLong(timestampColumn, (timestamp == null) ? 0 : timestamp - lastTimestamp);
+                lastTimestamp = (timestamp == null) ? lastTimestamp : timestamp;
+                
+                byte[] value;
+                byte kind;
+                Object object = field.getValueOfTypedValue();
+                if (object == null) {
+                    kind = NULL_VALUE;
+                    value = new byte[0];
+                } else if (object instanceof String) {
+                    kind = STRING_VALUE;
+                    value = ((String) object).getBytes(StandardCharsets.UTF_8);
+                } else if (object instanceof Type<?>) {
+                    kind = TYPE_VALUE;
+                    writeId(typeColumn, dictionary.getString(object.getClass().getName()));
+                    value = ((Type<?>) object).getDelegateAsString().getBytes(StandardCharsets.UTF_8);
+                } else if (object instanceof byte[]) {
+                    kind = BYTES_VALUE;
+                    value = (byte[]) object;
+                } else {
+                    kind = TYPED_VALUE;
+                    try {
+                        value = ProtobufIOUtil.toByteArray(field.getTypedValue(), TypedValue.getSchema(), buffer);
+                    } finally {
+                        buffer.clear();
+                    }
+                }
+                flagColumn.writeByte((timestamp == null) ? (kind | NO_TIMESTAMP) : kind);
+                WritableUtils.writeVInt(lengthColumn, value.length);
+                valueColumn.write(value);
+            }
+        }
+        
+        DataOutputStream output = new DataOutputStream(out);
+        output.write(MAGIC);
+        output.writeByte(VERSION);
+        byte[] headerBytes;
+        try {
+            headerBytes = ProtobufIOUtil.toByteArray(header, DefaultEventQueryResponse.getSchema(), buffer);
+        } finally {
+            buffer.clear();
+        }
+        WritableUtils.writeVInt(output, headerBytes.length);
+        output.write(headerBytes);
+        WritableUtils.writeVLong(output, pageNumber);
+        output.writeBoolean(response.getHasResults());
+        output.writeBoolean(partialResults);
+        dictionary.write(output);
+        WritableUtils.writeVInt(output, events.size());
+        columns.writeTo(output);
+        output.flush();
+        
+        if (log.isTraceEnabled()) {
+            log.trace("Wrote " + events.size() + " events with " + fieldCount + " fields in " + output.size() + " bytes");
+        }
+    }
+    
+    /**
+     * @return the response for the page, without its events
+     */
+    public DefaultEventQueryResponse getHeader() {
+        return header;
+    }
+    
+    public int getEventCount() {
+        return events.length;
+    }
+    
+    public int getFieldCount(int event) {
+        return firstField[event + 1] - firstField[event];
+    }
+    
+    /**
+     * Get the name of a field without building the event
+     *
+     * @param event
+     *            the index of the event in the page
+     * @param field
+     *            the index of the field in the event
+     * @return the field name
+     */
+    public String getFieldName(int event, int field) {
+        return getString(fieldNames[getField(event, field)]);
+    }
+    
+    /**
+     * Get the value of a field as a string without building the event
+     *
+     * @param event
+     *            the index of the event in the page
+     * @param field
+     *            the index of the field in the event
+     * @return the value as it would be returned by {@link DefaultField#getValueString()}
+     */
+    public String getValueString(int event, int field) {
+        int index = getField(event, field);
+        switch (fieldFlags[index] & VALUE_KIND_MASK) {
+            case STRING_VALUE:
+            case TYPE_VALUE:
+                return new String(values, valueOffsets[index], valueOffsets[index + 1] - valueOffsets[index], StandardCharsets.UTF_8);
+            case NULL_VALUE:
+                return null;
+            default:
+                Object value = getValue(index);
+                return (value instanceof byte[]) ? new String((byte[]) value, StandardCharsets.UTF_8) : String.valueOf(value);
+        }
+    }
+    
+    /**
+     * Get an event of the page, which is built the first time that it is asked for
+     *
+     * @param event
+     *            the index of the event in the page
+     * @return the event
+     */
+    public DefaultEvent getEvent(int event) {
+        DefaultEvent result = events[event];
+        if (result == null) {
+            result = new DefaultEvent();
+            result.setMarkings(getMarkings(eventMarkings[event]));
+            result.setMetadata(eventMetadata[event]);
+            List<DefaultField> fields = new ArrayList<>(getFieldCount(event));
+            for (int i = firstField[event]; i < firstField[event + 1]; i++) {
+                DefaultField field = new DefaultField(getString(fieldNames[i]), getString(fieldVisibilities[i]),
+                                (fieldFlags[i] & NO_TIMESTAMP) == 0 ? fieldTimestamps[i] : null, getValue(i));
+                Map<String,String> fieldMarkings = getMarkings(this.fieldMarkings[i]);
+                if (fieldMarkings != null) {
+                    field.setMarkings(fieldMarkings);
+                }
+                fields.add(field);
+            }
+            result.setFields(fields);
+            events[event] = result;
+        }
+        return result;
+    }
+    
+    /**
+     * @return a view of the events of the page, which builds each event as it is read
+     */
+    public List<EventBase> getEvents() {
+        return new AbstractList<EventBase>() {
+            @Override
+            public EventBase get(int index) {
+                return getEvent(index);
+            }
+            
+            @Override
+            public int size() {
+                return events.length;
+            }
+        };
+    }
+    
+    /**
+     * Build every event of the page into a response, for callers that expect the same response as the other media types
+     *
+     * @return the response
+     */
+    public DefaultEventQueryResponse toResponse() {
+        DefaultEventQueryResponse response = new DefaultEventQueryResponse();
+        response.setQueryId(header.getQueryId());
+        response.setLogicName(header.getLogicName());
+        response.setPageNumber(header.getPageNumber());
+        response.setPartialResults(header.isPartialResults());
+        response.setHasResults(header.getHasResults());
+        response.setOperationTimeMS(header.getOperationTimeMS());
+        response.setMessages(header.getMessages());
+        response.setExceptions(header.getExceptions());
+        response.setTotalEvents(header.getTotalEvents());
+        response.setReturnedEvents(header.getReturnedEvents());
+        response.setFields(header.getFields());
+        if (events.length > 0) {
+            response.setEvents(getEvents());
+        }
+        return response;
+    }
+    
+    private int getField(int event, int field) {
+        if (field < 0 || field >= getFieldCount(event)) {
+            throw new IndexOutOfBoundsException("Field " + field + " of event " + event + " with " + getFieldCount(event) + " fields");
+        }
+        return firstField[event] + field;
+    }
+    
+    private Object getValue(int index) {
+        int offset = valueOffsets[index];
+        int length = valueOffsets[index + 1] - offset;
+        switch (fieldFlags[index] & VALUE_KIND_MASK) {
+            case NULL_VALUE:
+                return null;
+            case STRING_VALUE:
+                return new String(values, offset, length, StandardCharsets.UTF_8);
+            case TYPE_VALUE:
+                return getType(getString(fieldTypes[index]), new String(values, offset, length, StandardCharsets.UTF_8));
+            case BYTES_VALUE:
+                byte[] bytes = new byte[length];
+                System.arraycopy(values, offset, bytes, 0, length);
+                return bytes;
+            default:
+                TypedValue typedValue = TypedValue.getSchema().newMessage();
+                ProtobufIOUtil.mergeFrom(values, offset, length, typedValue, TypedValue.getSchema());
+                return typedValue.getValue();
+        }
+    }
+    
+    private static Type<?> getType(String typeClass, String delegate) {
+        Type<?> type;
+        try {
+            // the class name comes from the page, so do not initialize or construct anything that is not a type
+            Class<?> clazz = Class.forName(typeClass, false, ColumnarEventQueryResponse.class.getClassLoader());
+            if (!Type.class.isAssignableFrom(clazz)) {
+                throw new IllegalArgumentException(typeClass + " is not a " + Type.class.getName());
+            }
+            type = (Type<?>) clazz.newInstance();
+            type.setDelegateFromString(delegate);
+        } catch (Exception e) {
+            // the client may not have the type, so keep the value rather than failing the page
+            log.debug("Unable to make a " + typeClass + " from " + delegate + ", making a NoOpType instead", e);
+            type = new NoOpType();
+            type.setDelegateFromString(delegate);
+        }
+        return type;
+    }
+    
+    private String getString(int id) {
+        return (id == 0) ? null : strings[id - 1];
+    }
+    
+    private Map<String,String> getMarkings(int id) {
+        return (id == 0) ? null : markings[id - 1];
+    }
+    
+    private static int readId(DataInputStream in) throws IOException {
+        return readLength(in);
+    }
+    
+    private static int readLength(DataInputStream in) throws IOException {
+        int length = WritableUtils.readVInt(in);
+        if (length < 0) {
+            throw new EOFException("Invalid length " + length + " in columnar event query response");
+        }
+        return length;
+    }
+    
+    private static void writeId(DataOutputStream out, int id) throws IOException {
+        WritableUtils.writeVInt(out, id);
+    }
+    
+    /**
+     * The strings and markings of a page, each of which is given an id the first time that it is seen
+     */
+    private static class Dictionary {
+        private final Map<String,Integer> strings = new HashMap<>();
+        private final List<String> stringList = new ArrayList<>();
+        private final Map<Map<String,String>,Integer> markings = new HashMap<>();
+        private final List<Map<String,String>> markingsList = new ArrayList<>();
+        
+        private int getString(String string) {
+            if (string == null) {
+                return 0;
+            }
+            Integer id = strings.get(string);
+            if (id == null) {
+                stringList.add(string);
+                id = stringList.size();
+                strings.put(string, id);
+            }
+            return id;
+        }
+        
+        private int getMarkings(Map<String,String> map) {
+            if (map == null) {
+                return 0;
+            }
+            Integer id = markings.get(map);
+            if (id == null) {
+                Map<String,String> copy = new HashMap<>(map);
+                // the keys and values go in the string dictionary, which is written first
+                for (Entry<String,String> entry : copy.entrySet()) {
+                    getString(entry.getKey());
+                    getString(entry.getValue());
+                }
+                markingsList.add(copy);
+                id = markingsList.size();
+                markings.put(copy, id);
+            }
+            return id;
+        }
+        
+        private void write(DataOutputStream out) throws IOException {
+            WritableUtils.writeVInt(out, stringList.size());
+            for (String string : stringList) {
+                WritableUtils.writeString(out, string);
+            }
+            WritableUtils.writeVInt(out, markingsList.size());
+            for (Map<String,String> map : markingsList) {
+                WritableUtils.writeVInt(out, map.size());
+                for (Entry<String,String> entry : map.entrySet()) {
+                    writeId(out, getString(entry.getKey()));
+                    writeId(out, getString(entry.getValue()));
+                }
+            }
+        }
+    }
+    
+    /**
+     * The columns of a page, which are buffered separately and written one after the other
+     */
+    private static class ColumnBuffer {
+        private final List<ByteArrayOutputStream> columns = new ArrayList<>();
+        
+        private DataOutputStream next() {
+            ByteArrayOutputStream column = new ByteArrayOutputStream(4096);
+            columns.add(column);
+            return new DataOutputStream(column);
+        }
+        
+        private void writeTo(OutputStream out) throws IOException {
+            for (ByteArrayOutputStream column : columns) {
+                column.writeTo(out);
+            }
+        }
+    }
+}
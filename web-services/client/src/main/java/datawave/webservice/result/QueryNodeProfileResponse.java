@@ -0,0 +1,184 @@
+package datawave.webservice.result;
+
+import datawave.webservice.query.exception.QueryExceptionType;
+import datawave.webservice.query.metric.BaseQueryMetric.NodeProfile;
+import io.protostuff.Input;
+import io.protostuff.Message;
+import io.protostuff.Output;
+import io.protostuff.Schema;
+
+import javax.xml.bind.annotation.XmlAccessOrder;
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorOrder;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlElementWrapper;
+import javax.xml.bind.annotation.XmlRootElement;
+import javax.xml.bind.annotation.XmlTransient;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * The evaluation profile of the nodes of a query, with the most expensive nodes first
+ */
+@XmlRootElement(name = "QueryNodeProfileResponse")
+@XmlAccessorType(XmlAccessType.NONE)
+@XmlAccessorOrder(XmlAccessOrder.ALPHABETICAL)
+public class QueryNodeProfileResponse extends BaseResponse implements Message<QueryNodeProfileResponse> {
+    
+    private static final long serialVersionUID = 1L;
+    
+    @XmlElement
+    private String queryId = null;
+    @XmlElementWrapper(name = "NodeProfiles")
+    @XmlElement(name = "NodeProfile")
+    private List<NodeProfile> nodeProfiles = null;
+    
+    public String getQueryId() {
+        return queryId;
+    }
+    
+    public void setQueryId(String queryId) {
+        this.queryId = queryId;
+    }
+    
+    public List<NodeProfile> getNodeProfiles() {
+        return nodeProfiles;
+    }
+    
+    public void setNodeProfiles(List<NodeProfile> nodeProfiles) {
+        this.nodeProfiles = nodeProfiles;
+    }
+    
+    @Override
+    public Schema<QueryNodeProfileResponse> cachedSchema() {
+        return SCHEMA;
+    }
+    
+    @XmlTransient
+    public static final Schema<QueryNodeProfileResponse> SCHEMA = new Schema<QueryNodeProfileResponse>() {
+        public QueryNodeProfileResponse newMessage() {
+            return new QueryNodeProfileResponse();
+        }
+        
+        public Class<QueryNodeProfileResponse> typeClass() {
+            return QueryNodeProfileResponse.class;
+        }
+        
+        public String messageName() {
+            return QueryNodeProfileResponse.class.getSimpleName();
+        }
+        
+        public String messageFullName() {
+            return QueryNodeProfileResponse.class.getName();
+        }
+        
+        public boolean isInitialized(QueryNodeProfileResponse message) {
+            return true;
+        }
+        
+        public void writeTo(Output output, QueryNodeProfileResponse message) throws IOException {
+            if (message.queryId != null)
+                output.writeString(1, message.queryId, false);
+            
+            if (message.nodeProfiles != null) {
+                for (NodeProfile nodeProfile : message.nodeProfiles) {
+                    if (nodeProfile != null)
+                        output.writeObject(2, nodeProfile, NodeProfile.getSchema(), true);
+                }
+            }
+            
+            output.writeUInt64(3, message.getOperationTimeMS(), false);
+            
+            List<String> messages = message.getMessages();
+            if (messages != null) {
+                for (String msg : messages) {
+                    if (msg != null)
+                        output.writeString(4, msg, true);
+                }
+            }
+            
+            List<QueryExceptionType> exceptions = message.getExceptions();
+            if (exceptions != null) {
+                for (QueryExceptionType exception : exceptions) {
+                    if (exception != null)
+                        output.writeObject(5, exception, QueryExceptionType.getSchema(), true);
+                }
+            }
+        }
+        
+        public void mergeFrom(Input input, QueryNodeProfileResponse message) throws IOException {
+            LinkedList<QueryExceptionType> exceptions = null;
+            int number;
+            while ((number = input.readFieldNumber(this)) != 0) {
+                switch (number) {
+                    case 1:
+                        message.queryId = input.readString();
+                        break;
+                    case 2:
+                        if (message.nodeProfiles == null) {
+                            message.nodeProfiles = new ArrayList<NodeProfile>();
+                        }
+                        message.nodeProfiles.add(input.mergeObject(null, NodeProfile.getSchema()));
+                        break;
+                    case 3:
+                        message.setOperationTimeMS(input.readUInt64());
+                        break;
+                    case 4:
+                        message.addMessage(input.readString());
+                        break;
+                    case 5:
+                        if (exceptions == null)
+                            exceptions = new LinkedList<QueryExceptionType>();
+                        exceptions.add(input.mergeObject(null, QueryExceptionType.getSchema()));
+                        break;
+                    default:
+                        input.handleUnknownField(number, this);
+                }
+            }
+            if (exceptions != null)
+                message.setExceptions(exceptions);
+        }
+        
+        public String getFieldName(int number) {
+            switch (number) {
+                case 1:
+                    return "queryId";
+                case 2:
+                    return "nodeProfiles";
+                case 3:
+                    return "operationTimeMs";
+                case 4:
+                    return "messages";
+                case 5:
+                    return "exceptions";
+                default:
+                    return null;
+            }
+        }
+        
+        public int getFieldNumber(String name) {
+            final Integer number = fieldMap.get(name);
+            return number == null ? 0 : number.intValue();
+        }
+        
+        final java.util.HashMap<String,Integer> fieldMap = new java.util.HashMap<String,Integer>();
+        {
+            fieldMap.put("queryId", 1);
+            fieldMap.put("nodeProfiles", 2);
+            fieldMap.put("operationTimeMs", 3);
+            fieldMap.put("messages", 4);
+            fieldMap.put("exceptions", 5);
+        }
+    };
+    
+    @Override
+    public String toString() {
+        StringBuilder buf = new StringBuilder();
+        buf.append("queryId: ").append(queryId);
+        buf.append(", nodeProfiles: ").append(nodeProfiles);
+        return buf.toString();
+    }
+}
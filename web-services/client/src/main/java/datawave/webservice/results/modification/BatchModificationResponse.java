@@ -0,0 +1,68 @@
+package datawave.webservice.results.modification;
+
+import javax.xml.bind.annotation.XmlAccessOrder;
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorOrder;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlRootElement;
+
+import datawave.webservice.result.BaseResponse;
+
+/**
+ * The outcome of a batch of modification requests, with the throughput of the batch.
+ */
+@XmlRootElement(name = "BatchModificationResponse")
+@XmlAccessorType(XmlAccessType.NONE)
+@XmlAccessorOrder(XmlAccessOrder.ALPHABETICAL)
+public class BatchModificationResponse extends BaseResponse {
+    
+    private static final long serialVersionUID = 1L;
+    
+    @XmlElement(name = "RequestCount")
+    private int requestCount = 0;
+    
+    @XmlElement(name = "ModificationCount")
+    private long modificationCount = 0;
+    
+    @XmlElement(name = "ElapsedMillis")
+    private long elapsedMillis = 0;
+    
+    @XmlElement(name = "ModificationsPerSecond")
+    private double modificationsPerSecond = 0;
+    
+    public int getRequestCount() {
+        return requestCount;
+    }
+    
+    public void setRequestCount(int requestCount) {
+        this.requestCount = requestCount;
+    }
+    
+    /**
+     * @return the number of modifications made, which for event based services is the number of events modified by each request
+     */
+    public long getModificationCount() {
+        return modificationCount;
+    }
+    
+    public void setModificationCount(long modificationCount) {
+        this.modificationCount = modificationCount;
+    }
+    
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+    
+    public void setElapsedMillis(long elapsedMillis) {
+        this.elapsedMillis = elapsedMillis;
+    }
+    
+    public double getModificationsPerSecond() {
+        return modificationsPerSecond;
+    }
+    
+    public void setModificationsPerSecond(double modificationsPerSecond) {
+        this.modificationsPerSecond = modificationsPerSecond;
+    }
+}
@@ -0,0 +1,42 @@
+package datawave.webservice.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+
+import javax.ws.rs.Produces;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.ext.MessageBodyWriter;
+import javax.ws.rs.ext.Provider;
+
+import datawave.webservice.result.BaseResponse;
+import datawave.webservice.result.ColumnarEventQueryResponse;
+
+/**
+ * A message body writer for the columnar form of event query responses, see {@link ColumnarEventQueryResponse}. Any other response is written as a page
+ * without events, so that errors still reach a client which only accepts the columnar form.
+ */
+@Provider
+@Produces(ColumnarEventQueryResponse.MEDIA_TYPE)
+public class ColumnarMessageBodyWriter implements MessageBodyWriter<BaseResponse> {
+    
+    @Override
+    public long getSize(BaseResponse response, Class<?> clazz, Type type, Annotation[] annotations, MediaType media) {
+        // -1 means size unknown
+        return -1;
+    }
+    
+    @Override
+    public boolean isWriteable(Class<?> clazz, Type type, Annotation[] annotations, MediaType media) {
+        return BaseResponse.class.isAssignableFrom(clazz);
+    }
+    
+    @Override
+    public void writeTo(BaseResponse response, Class<?> clazz, Type type, Annotation[] annotations, MediaType media, MultivaluedMap<String,Object> httpHeaders,
+                    OutputStream out) throws IOException, WebApplicationException {
+        ColumnarEventQueryResponse.write(response, out);
+    }
+}
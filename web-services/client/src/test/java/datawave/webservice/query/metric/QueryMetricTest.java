@@ -12,8 +12,11 @@ import java.util.Map;
 import datawave.webservice.query.exception.BadRequestQueryException;
 import datawave.webservice.query.exception.DatawaveErrorCode;
 import datawave.webservice.query.metric.BaseQueryMetric.Lifecycle;
+import datawave.webservice.query.metric.BaseQueryMetric.NodeProfile;
 import datawave.webservice.query.metric.BaseQueryMetric.PageMetric;
 
+import io.protostuff.LinkedBuffer;
+import io.protostuff.ProtostuffIOUtil;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
@@ -119,4 +122,28 @@ public class QueryMetricTest {
         assertEquals(queryMetric.getUserDN(), "userDN");
         
     }
+    
+    @Test
+    public void testNodeProfiles() {
+        QueryMetric metric = new QueryMetric();
+        metric.setQueryId("queryId");
+        List<NodeProfile> nodeProfiles = new ArrayList<NodeProfile>();
+        nodeProfiles.add(new NodeProfile("FOO == 'bar' && BAR == 'foo'", 10, 2, 5000));
+        nodeProfiles.add(new NodeProfile("FOO == 'bar'", 10, 4, 2000));
+        metric.setNodeProfiles(nodeProfiles);
+        
+        QueryMetric copy = new QueryMetric(metric);
+        assertEquals(metric, copy);
+        
+        byte[] bytes = ProtostuffIOUtil.toByteArray(metric, QueryMetric.getSchema(), LinkedBuffer.allocate());
+        QueryMetric deserialized = new QueryMetric();
+        ProtostuffIOUtil.mergeFrom(bytes, deserialized, QueryMetric.getSchema());
+        assertEquals(nodeProfiles, deserialized.getNodeProfiles());
+        
+        NodeProfile merged = nodeProfiles.get(1).duplicate();
+        merged.merge(nodeProfiles.get(1));
+        assertEquals(20, merged.getInvocations());
+        assertEquals(8, merged.getTrueCount());
+        assertEquals(4000, merged.getNanos());
+    }
 }
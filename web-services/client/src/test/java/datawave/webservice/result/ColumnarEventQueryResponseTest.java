@@ -0,0 +1,206 @@
+package datawave.webservice.result;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import datawave.data.type.LcNoDiacriticsType;
+import datawave.data.type.NoOpType;
+import datawave.webservice.query.result.event.DefaultEvent;
+import datawave.webservice.query.result.event.DefaultField;
+import datawave.webservice.query.result.event.EventBase;
+import datawave.webservice.query.result.event.Metadata;
+import io.protostuff.LinkedBuffer;
+import io.protostuff.ProtobufIOUtil;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ColumnarEventQueryResponseTest {
+    
+    private static final Map<String,String> MARKINGS = Collections.singletonMap("columnVisibility", "PUBLIC");
+    
+    private static boolean notATypeInitialized = false;
+    
+    @Test
+    public void testRoundTrip() throws IOException {
+        DefaultEventQueryResponse response = new DefaultEventQueryResponse();
+        response.setQueryId("query-1");
+        response.setLogicName("EventQuery");
+        response.setPageNumber(3);
+        response.setHasResults(true);
+        response.setPartialResults(true);
+        response.setTotalEvents(2L);
+        response.setReturnedEvents(2L);
+        response.setFields(Arrays.asList("NAME", "AGE", "BODY"));
+        List<EventBase> events = new ArrayList<>();
+        events.add(createEvent("uid-1", new DefaultField("NAME", "PUBLIC", MARKINGS, 1000L, "alice"),
+                        new DefaultField("AGE", "PUBLIC", 1000L, 42L), new DefaultField("BODY", "PUBLIC", 1002L, new LcNoDiacriticsType("hello"))));
+        events.add(createEvent("uid-2", new DefaultField("NAME", "PRIVATE", MARKINGS, 500L, "bob"), new DefaultField("BODY", "PUBLIC", null, "text")));
+        response.setEvents(events);
+        
+        ColumnarEventQueryResponse page = roundTrip(response);
+        
+        DefaultEventQueryResponse header = page.getHeader();
+        Assert.assertEquals("query-1", header.getQueryId());
+        Assert.assertEquals("EventQuery", header.getLogicName());
+        Assert.assertEquals(3, header.getPageNumber());
+        Assert.assertTrue(header.getHasResults());
+        Assert.assertTrue(header.isPartialResults());
+        Assert.assertEquals(Long.valueOf(2), header.getReturnedEvents());
+        Assert.assertEquals(Arrays.asList("NAME", "AGE", "BODY"), header.getFields());
+        Assert.assertNull(header.getEvents());
+        
+        Assert.assertEquals(2, page.getEventCount());
+        Assert.assertEquals(3, page.getFieldCount(0));
+        Assert.assertEquals("AGE", page.getFieldName(0, 1));
+        Assert.assertEquals("42", page.getValueString(0, 1));
+        Assert.assertEquals("hello", page.getValueString(0, 2));
+        
+        DefaultEvent first = page.getEvent(0);
+        Assert.assertSame(first, page.getEvents().get(0));
+        Assert.assertEquals("uid-1", first.getMetadata().getInternalId());
+        Assert.assertEquals(MARKINGS, first.getMarkings());
+        DefaultField name = first.getFields().get(0);
+        Assert.assertEquals("NAME", name.getName());
+        Assert.assertEquals("PUBLIC", name.getColumnVisibility());
+        Assert.assertEquals(MARKINGS, name.getMarkings());
+        Assert.assertEquals(Long.valueOf(1000), name.getTimestamp());
+        Assert.assertEquals("alice", name.getValueOfTypedValue());
+        Assert.assertEquals(42L, first.getFields().get(1).getValueOfTypedValue());
+        DefaultField body = first.getFields().get(2);
+        Assert.assertEquals(Long.valueOf(1002), body.getTimestamp());
+        Assert.assertTrue(body.getValueOfTypedValue() instanceof LcNoDiacriticsType);
+        Assert.assertEquals("hello", body.getValueString());
+        
+        DefaultEvent second = page.getEvent(1);
+        Assert.assertEquals("PRIVATE", second.getFields().get(0).getColumnVisibility());
+        Assert.assertEquals(Long.valueOf(500), second.getFields().get(0).getTimestamp());
+        Assert.assertNull(second.getFields().get(1).getTimestamp());
+        Assert.assertEquals("text", second.getFields().get(1).getValueOfTypedValue());
+        
+        Assert.assertEquals(2, page.toResponse().getEvents().size());
+    }
+    
+    @Test
+    public void testResponseWithoutEvents() throws IOException {
+        DefaultEventQueryResponse response = new DefaultEventQueryResponse();
+        response.setQueryId("query-2");
+        response.addMessage("no results");
+        
+        ColumnarEventQueryResponse page = roundTrip(response);
+        Assert.assertEquals(0, page.getEventCount());
+        Assert.assertEquals("query-2", page.getHeader().getQueryId());
+        Assert.assertEquals(Collections.singletonList("no results"), page.getHeader().getMessages());
+        Assert.assertNull(page.toResponse().getEvents());
+    }
+    
+    @Test(expected = IOException.class)
+    public void testNotColumnar() throws IOException {
+        ColumnarEventQueryResponse.read(new ByteArrayInputStream(new byte[] {'<', 'x', 'm', 'l', '>'}));
+    }
+    
+    @Test
+    public void testTypeClassThatIsNotAType() throws IOException {
+        DefaultEventQueryResponse response = new DefaultEventQueryResponse();
+        List<EventBase> events = new ArrayList<>();
+        events.add(createEvent("uid-1", new DefaultField("BODY", "PUBLIC", 1000L, new LcNoDiacriticsType("hello"))));
+        response.setEvents(events);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ColumnarEventQueryResponse.write(response, out);
+        
+        // point the type of the value at a class that is not a type
+        byte[] bytes = replaceString(out.toByteArray(), LcNoDiacriticsType.class.getName(), NotAType.class.getName());
+        ColumnarEventQueryResponse page = ColumnarEventQueryResponse.read(new ByteArrayInputStream(bytes));
+        
+        Object value = page.getEvent(0).getFields().get(0).getValueOfTypedValue();
+        Assert.assertTrue(value instanceof NoOpType);
+        Assert.assertEquals("hello", ((NoOpType) value).getDelegateAsString());
+        Assert.assertFalse(notATypeInitialized);
+    }
+    
+    @Test
+    public void testLargePageIsSmallerThanProtobuf() throws IOException {
+        DefaultEventQueryResponse response = new DefaultEventQueryResponse();
+        response.setQueryId("query-3");
+        List<EventBase> events = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            DefaultField[] fields = new DefaultField[20];
+            for (int j = 0; j < fields.length; j++) {
+                fields[j] = new DefaultField("FIELD_" + j, (j % 2 == 0) ? "PUBLIC" : "PRIVATE", MARKINGS, 1000L * i, "value-" + i + "-" + j);
+            }
+            events.add(createEvent("uid-" + i, fields));
+        }
+        response.setEvents(events);
+        response.setReturnedEvents((long) events.size());
+        
+        byte[] protobuf = ProtobufIOUtil.toByteArray(response, DefaultEventQueryResponse.getSchema(), LinkedBuffer.allocate(4096));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ColumnarEventQueryResponse.write(response, out);
+        byte[] columnar = out.toByteArray();
+        
+        Assert.assertTrue("columnar page of " + columnar.length + " bytes is not less than half of the " + protobuf.length + " protobuf bytes",
+                        columnar.length * 2 < protobuf.length);
+        
+        ColumnarEventQueryResponse page = ColumnarEventQueryResponse.read(new ByteArrayInputStream(columnar));
+        Assert.assertEquals(1000, page.getEventCount());
+        Assert.assertEquals(20, page.getFieldCount(999));
+        Assert.assertEquals("FIELD_19", page.getFieldName(999, 19));
+        Assert.assertEquals("value-999-19", page.getValueString(999, 19));
+        DefaultField field = page.getEvent(999).getFields().get(19);
+        Assert.assertEquals("PRIVATE", field.getColumnVisibility());
+        Assert.assertEquals(MARKINGS, field.getMarkings());
+        Assert.assertEquals(Long.valueOf(999000), field.getTimestamp());
+    }
+    
+    private static ColumnarEventQueryResponse roundTrip(BaseResponse response) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ColumnarEventQueryResponse.write(response, out);
+        return ColumnarEventQueryResponse.read(new ByteArrayInputStream(out.toByteArray()));
+    }
+    
+    private static DefaultEvent createEvent(String uid, DefaultField... fields) {
+        Metadata metadata = new Metadata();
+        metadata.setDataType("csv");
+        metadata.setTable("shard");
+        metadata.setInternalId(uid);
+        metadata.setRow("20200101_0");
+        DefaultEvent event = new DefaultEvent();
+        event.setMarkings(MARKINGS);
+        event.setMetadata(metadata);
+        event.setFields(Arrays.asList(fields));
+        return event;
+    }
+    
+    // replaces a string of the dictionary, which is written as its length and bytes
+    private static byte[] replaceString(byte[] page, String from, String to) {
+        byte[] fromBytes = from.getBytes(StandardCharsets.UTF_8);
+        byte[] toBytes = to.getBytes(StandardCharsets.UTF_8);
+        for (int i = 4; i + fromBytes.length <= page.length; i++) {
+            if (Arrays.equals(fromBytes, Arrays.copyOfRange(page, i, i + fromBytes.length))) {
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                out.write(page, 0, i - 4);
+                out.write(toBytes.length >>> 24);
+                out.write(toBytes.length >>> 16);
+                out.write(toBytes.length >>> 8);
+                out.write(toBytes.length);
+                out.write(toBytes, 0, toBytes.length);
+                out.write(page, i + fromBytes.length, page.length - i - fromBytes.length);
+                return out.toByteArray();
+            }
+        }
+        throw new IllegalArgumentException(from + " is not in the page");
+    }
+    
+    public static class NotAType {
+        static {
+            notATypeInitialized = true;
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package datawave.webservice.result;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.xml.bind.JAXBContext;
+
+import datawave.webservice.query.metric.BaseQueryMetric.NodeProfile;
+
+import io.protostuff.LinkedBuffer;
+import io.protostuff.ProtostuffIOUtil;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class QueryNodeProfileResponseTest {
+    
+    private static QueryNodeProfileResponse createResponse() {
+        List<NodeProfile> nodeProfiles = Arrays.asList(new NodeProfile("FOO == 'bar' && BAR == 'foo'", 10, 2, 5000),
+                        new NodeProfile("FOO == 'bar'", 10, 4, 2000));
+        QueryNodeProfileResponse response = new QueryNodeProfileResponse();
+        response.setQueryId("query-1");
+        response.setNodeProfiles(nodeProfiles);
+        response.setOperationTimeMS(5);
+        response.addMessage("profiled");
+        return response;
+    }
+    
+    @Test
+    public void testProtostuffRoundTrip() {
+        QueryNodeProfileResponse response = createResponse();
+        byte[] bytes = ProtostuffIOUtil.toByteArray(response, QueryNodeProfileResponse.SCHEMA, LinkedBuffer.allocate());
+        QueryNodeProfileResponse deserialized = QueryNodeProfileResponse.SCHEMA.newMessage();
+        ProtostuffIOUtil.mergeFrom(bytes, deserialized, QueryNodeProfileResponse.SCHEMA);
+        
+        Assert.assertEquals("query-1", deserialized.getQueryId());
+        Assert.assertEquals(response.getNodeProfiles(), deserialized.getNodeProfiles());
+        Assert.assertEquals(5, deserialized.getOperationTimeMS());
+        Assert.assertEquals(response.getMessages(), deserialized.getMessages());
+    }
+    
+    @Test
+    public void testXmlRoundTrip() throws Exception {
+        QueryNodeProfileResponse response = createResponse();
+        JAXBContext context = JAXBContext.newInstance(QueryNodeProfileResponse.class);
+        StringWriter writer = new StringWriter();
+        context.createMarshaller().marshal(response, writer);
+        Assert.assertTrue(writer.toString(), writer.toString().contains("<NodeProfiles><NodeProfile>"));
+        
+        QueryNodeProfileResponse deserialized = (QueryNodeProfileResponse) context.createUnmarshaller().unmarshal(new StringReader(writer.toString()));
+        Assert.assertEquals("query-1", deserialized.getQueryId());
+        Assert.assertEquals(response.getNodeProfiles(), deserialized.getNodeProfiles());
+    }
+}
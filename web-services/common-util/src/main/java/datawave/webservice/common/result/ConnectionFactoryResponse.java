@@ -89,7 +89,8 @@ public class ConnectionFactoryResponse extends BaseResponse implements HtmlProvi
         builder.append("<h2>").append("Connection Pools").append("</h2>");
         builder.append("<br/>");
         builder.append("<table class=\"connectionPools\">");
-        builder.append("<tr><th>Pool Name</th><th>Priority</th><th>Num Active</th><th>Max Active</th><th>Num Idle</th><th>Max Idle</th><th>Num Waiting</th></tr>");
+        builder.append("<tr><th>Pool Name</th><th>Priority</th><th>Num Active</th><th>Max Active</th><th>Num Idle</th><th>Max Idle</th><th>Num Waiting</th>"
+                        + "<th>Num Borrowed</th><th>Wait Times (ms)</th></tr>");
         
         Set<ConnectionPool> poolSet = new TreeSet<>();
         poolSet.addAll(connectionPools);
@@ -103,6 +104,24 @@ public class ConnectionFactoryResponse extends BaseResponse implements HtmlProvi
             builder.append("<td>").append(f.getNumIdle()).append("</td>");
             builder.append("<td>").append(f.getMaxIdle()).append("</td>");
             builder.append("<td>").append(f.getNumWaiting()).append("</td>");
+            builder.append("<td>").append(f.getNumBorrowed() != null ? f.getNumBorrowed() : "").append("</td>");
+            builder.append("<td>");
+            if (f.getWaitTimes() != null) {
+                String separator = "";
+                Long previous = null;
+                for (ConnectionWaitTime waitTime : f.getWaitTimes()) {
+                    builder.append(separator);
+                    if (waitTime.getMaxMillis() != null) {
+                        builder.append("&lt;= ").append(waitTime.getMaxMillis());
+                    } else {
+                        builder.append("&gt; ").append(previous);
+                    }
+                    builder.append(": ").append(waitTime.getCount());
+                    previous = waitTime.getMaxMillis();
+                    separator = "<br/>";
+                }
+            }
+            builder.append("</td>");
             builder.append("</tr>");
         }
         builder.append("</table>");
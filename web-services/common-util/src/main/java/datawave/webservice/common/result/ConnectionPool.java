@@ -17,7 +17,7 @@ import org.apache.commons.lang.builder.HashCodeBuilder;
 @XmlAccessorType(XmlAccessType.NONE)
 public class ConnectionPool implements Serializable, Comparable<ConnectionPool> {
     
-    private static final long serialVersionUID = 2L;
+    private static final long serialVersionUID = 3L;
     
     public enum Priority {
         ADMIN, HIGH, NORMAL, LOW
@@ -44,6 +44,13 @@ public class ConnectionPool implements Serializable, Comparable<ConnectionPool>
     @XmlElement(name = "NumWaiting")
     private Integer numWaiting = null;
     
+    @XmlElement(name = "NumBorrowed")
+    private Integer numBorrowed = null;
+    
+    @XmlElementWrapper(name = "WaitTimes")
+    @XmlElement(name = "WaitTime")
+    private List<ConnectionWaitTime> waitTimes = null;
+    
     @XmlElementWrapper(name = "ConnectionRequests")
     @XmlElement(name = "Connection")
     private List<Connection> connectionRequests = null;
@@ -88,6 +95,22 @@ public class ConnectionPool implements Serializable, Comparable<ConnectionPool>
         this.numWaiting = numWaiting;
     }
     
+    public Integer getNumBorrowed() {
+        return numBorrowed;
+    }
+    
+    public void setNumBorrowed(Integer numBorrowed) {
+        this.numBorrowed = numBorrowed;
+    }
+    
+    public List<ConnectionWaitTime> getWaitTimes() {
+        return waitTimes;
+    }
+    
+    public void setWaitTimes(List<ConnectionWaitTime> waitTimes) {
+        this.waitTimes = waitTimes;
+    }
+    
     public List<Connection> getConnectionRequests() {
         return connectionRequests;
     }
@@ -0,0 +1,50 @@
+package datawave.webservice.common.result;
+
+import java.io.Serializable;
+
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlAttribute;
+import javax.xml.bind.annotation.XmlRootElement;
+
+/**
+ * A bucket of the histogram of the time spent waiting to borrow a connection from a pool
+ */
+@XmlRootElement
+@XmlAccessorType(XmlAccessType.NONE)
+public class ConnectionWaitTime implements Serializable {
+    
+    private static final long serialVersionUID = 1L;
+    
+    // the longest wait counted in the bucket, or null for the bucket of waits longer than all the others
+    @XmlAttribute
+    private Long maxMillis = null;
+    
+    @XmlAttribute
+    private Long count = null;
+    
+    public ConnectionWaitTime() {
+        
+    }
+    
+    public ConnectionWaitTime(Long maxMillis, Long count) {
+        this.maxMillis = maxMillis;
+        this.count = count;
+    }
+    
+    public Long getMaxMillis() {
+        return maxMillis;
+    }
+    
+    public void setMaxMillis(Long maxMillis) {
+        this.maxMillis = maxMillis;
+    }
+    
+    public Long getCount() {
+        return count;
+    }
+    
+    public void setCount(Long count) {
+        this.count = count;
+    }
+}
@@ -181,6 +181,16 @@ public class AccumuloTableCache {
         return this.instance;
     }
     
+    /**
+     * @param tableName
+     *            the name of a cached table
+     * @return the time the cached copy of the table was last loaded, or null if the table is not cached
+     */
+    public Date getLastRefresh(String tableName) {
+        TableCache detail = details.get(tableName);
+        return (null == detail) ? null : detail.getLastRefresh();
+    }
+    
     @Schedule(hour = "*", minute = "*", second = "1", persistent = false)
     public void submitReloadTasks() {
         if (!connectionFactoryProvided) {
@@ -1,6 +1,7 @@
 package datawave.webservice.common.cache;
 
 import org.apache.deltaspike.core.api.config.ConfigProperty;
+import org.apache.log4j.Logger;
 
 import javax.annotation.PostConstruct;
 import javax.inject.Inject;
@@ -11,6 +12,8 @@ import java.util.Map;
 
 public class AccumuloTableCacheConfiguration {
     
+    private static final Logger log = Logger.getLogger(AccumuloTableCacheConfiguration.class);
+    
     @Inject
     @ConfigProperty(name = "dw.warehouse.zookeepers")
     private String zookeepers = null;
@@ -21,19 +24,34 @@ public class AccumuloTableCacheConfiguration {
     @Inject
     @ConfigProperty(name = "dw.cache.pool", defaultValue = "WAREHOUSE")
     private String poolName;
+    // how often the cached tables are reloaded, which has to be lowered below the full reload interval for incremental refresh to be used
     @Inject
     @ConfigProperty(name = "dw.cache.reloadInterval", defaultValue = "86400000")
     private long reloadInterval;
+    // whether the reloads between full reloads only refresh the entries written since the last load
+    @Inject
+    @ConfigProperty(name = "dw.cache.incrementalRefresh", defaultValue = "false")
+    private boolean incrementalRefresh;
+    // how often an incrementally refreshed table is fully reloaded
+    @Inject
+    @ConfigProperty(name = "dw.cache.fullReloadInterval", defaultValue = "86400000")
+    private long fullReloadInterval;
     
     private Map<String,TableCache> caches = new HashMap<>();
     
     @PostConstruct
     private void initializeCaches() {
+        if (incrementalRefresh && reloadInterval >= fullReloadInterval) {
+            log.warn("dw.cache.incrementalRefresh is enabled, but dw.cache.reloadInterval (" + reloadInterval
+                            + ") is not less than dw.cache.fullReloadInterval (" + fullReloadInterval + "), so every reload will be a full reload");
+        }
         for (String tableName : tableNames) {
             BaseTableCache cache = new BaseTableCache();
             cache.setTableName(tableName);
             cache.setConnectionPoolName(poolName);
             cache.setReloadInterval(reloadInterval);
+            cache.setIncrementalRefresh(incrementalRefresh);
+            cache.setFullReloadInterval(fullReloadInterval);
             caches.put(tableName, cache);
         }
     }
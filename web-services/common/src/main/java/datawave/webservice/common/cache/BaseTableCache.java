@@ -31,6 +31,7 @@ import org.apache.accumulo.core.data.Mutation;
 import org.apache.accumulo.core.data.Range;
 import org.apache.accumulo.core.data.Value;
 import org.apache.accumulo.core.iterators.user.RegExFilter;
+import org.apache.accumulo.core.iterators.user.TimestampFilter;
 import org.apache.accumulo.core.security.Authorizations;
 import org.apache.accumulo.core.security.ColumnVisibility;
 import org.apache.log4j.Logger;
@@ -41,6 +42,9 @@ public class BaseTableCache implements Serializable, TableCache {
     
     private static final long serialVersionUID = 1L;
     
+    // how far before the start of the last load an incremental refresh starts, to cover writes in flight and clock skew
+    public static final long REFRESH_OVERLAP = TimeUnit.MINUTES.toMillis(5);
+    
     private final transient Logger log = Logger.getLogger(this.getClass());
     
     /** should be set by configuration **/
@@ -49,9 +53,13 @@ public class BaseTableCache implements Serializable, TableCache {
     private String auths = null;
     private long reloadInterval = 0;
     private long maxRows = Long.MAX_VALUE;
+    private boolean incrementalRefresh = false;
+    private long fullReloadInterval = 0;
     
     /** set programatically **/
     private Date lastRefresh = new Date(0);
+    private Date lastFullReload = new Date(0);
+    private long lastLoadStart = 0;
     private AccumuloConnectionFactory connectionFactory = null;
     private transient InMemoryInstance instance = null;
     private SharedCacheCoordinator watcher = null;
@@ -159,6 +167,36 @@ public class BaseTableCache implements Serializable, TableCache {
         this.maxRows = maxRows;
     }
     
+    @Override
+    public boolean isIncrementalRefresh() {
+        return incrementalRefresh;
+    }
+    
+    @Override
+    public void setIncrementalRefresh(boolean incrementalRefresh) {
+        this.incrementalRefresh = incrementalRefresh;
+    }
+    
+    @Override
+    public long getFullReloadInterval() {
+        return fullReloadInterval;
+    }
+    
+    @Override
+    public void setFullReloadInterval(long fullReloadInterval) {
+        this.fullReloadInterval = fullReloadInterval;
+    }
+    
+    /**
+     * Reload the cached table. A full reload copies the whole table into a new in-memory table which then replaces the cached one. When incremental refresh is
+     * enabled, the reloads between full reloads only scan the entries whose timestamps are no older than the start of the previous load, filtered on the tablet
+     * servers, and write them into the cached table. An incremental refresh does not see deleted entries or entries written with older timestamps, so a full
+     * reload is still done every full reload interval and whenever the reload is forced by setting the last refresh to 0, as a reload of the cache does.
+     * <p>
+     * The cache is reloaded every reload interval, so incremental refreshes only happen when the reload interval is shorter than the full reload interval. With
+     * the default of one day for both every reload is a full reload, and the reload interval has to be lowered, e.g. to a few minutes, for incremental refresh
+     * to have any effect.
+     */
     @Override
     public Boolean call() throws Exception {
         if (!lock.tryLock(0, TimeUnit.SECONDS))
@@ -187,23 +225,35 @@ public class BaseTableCache implements Serializable, TableCache {
             instanceClient.securityOperations().changeLocalUserPassword(AccumuloTableCache.MOCK_USERNAME, AccumuloTableCache.MOCK_PASSWORD);
             instanceClient.securityOperations().changeUserAuthorizations(AccumuloTableCache.MOCK_USERNAME, authorizations);
             
-            createNamespaceIfNecessary(instanceClient.namespaceOperations(), tempTableName);
-            
-            if (instanceClient.tableOperations().exists(tempTableName)) {
-                instanceClient.tableOperations().delete(tempTableName);
+            long loadStart = System.currentTimeMillis();
+            boolean fullReload = isFullReloadRequired(instanceClient, loadStart);
+            String loadTableName = tableName;
+            if (fullReload) {
+                loadTableName = tempTableName;
+                createNamespaceIfNecessary(instanceClient.namespaceOperations(), tempTableName);
+                
+                if (instanceClient.tableOperations().exists(tempTableName)) {
+                    instanceClient.tableOperations().delete(tempTableName);
+                }
+                
+                instanceClient.tableOperations().create(tempTableName);
             }
             
-            instanceClient.tableOperations().create(tempTableName);
-            
-            writer = instanceClient.createBatchWriter(tempTableName,
+            writer = instanceClient.createBatchWriter(loadTableName,
                             new BatchWriterConfig().setMaxMemory(10L * (1024L * 1024L)).setMaxLatency(100L, TimeUnit.MILLISECONDS).setMaxWriteThreads(1));
             setupScanner(scanner);
+            if (!fullReload) {
+                IteratorSetting settings = new IteratorSetting(101, "skipOlderEntries", TimestampFilter.class);
+                TimestampFilter.setStart(settings, lastLoadStart - REFRESH_OVERLAP, true);
+                scanner.addScanIterator(settings);
+            }
             
             Iterator<Entry<Key,Value>> iter = scanner.iterator();
             long count = 0;
             while (iter.hasNext()) {
                 
-                if (count > maxRows)
+                // the rows of an incremental refresh are not limited, as the entries left out would not be seen again until the next full reload
+                if (fullReload && count > maxRows)
                     break;
                 Entry<Key,Value> value = iter.next();
                 
@@ -215,14 +265,21 @@ public class BaseTableCache implements Serializable, TableCache {
                 writer.addMutation(m);
                 count++;
             }
+            writer.flush();
             this.lastRefresh = new Date();
-            try {
-                instanceClient.tableOperations().delete(tableName);
-            } catch (TableNotFoundException e) {
-                // the table will not exist the first time this is run
+            this.lastLoadStart = loadStart;
+            if (fullReload) {
+                try {
+                    instanceClient.tableOperations().delete(tableName);
+                } catch (TableNotFoundException e) {
+                    // the table will not exist the first time this is run
+                }
+                instanceClient.tableOperations().rename(tempTableName, tableName);
+                this.lastFullReload = this.lastRefresh;
+                log.info("Cached " + count + " k,v for table: " + tableName);
+            } else {
+                log.info("Refreshed " + count + " k,v for table: " + tableName);
             }
-            instanceClient.tableOperations().rename(tempTableName, tableName);
-            log.info("Cached " + count + " k,v for table: " + tableName);
         } catch (Exception e) {
             log.error(e.getMessage(), e);
             throw e;
@@ -246,6 +303,12 @@ public class BaseTableCache implements Serializable, TableCache {
         return true;
     }
     
+    private boolean isFullReloadRequired(AccumuloClient instanceClient, long now) {
+        // a forced reload resets the last refresh
+        return !incrementalRefresh || lastRefresh.getTime() == 0 || lastLoadStart == 0 || (now - lastFullReload.getTime()) > fullReloadInterval
+                        || !instanceClient.tableOperations().exists(tableName);
+    }
+    
     public void setupScanner(BatchScanner scanner) {
         scanner.setRanges(Lists.newArrayList(new Range()));
         Map<String,String> options = new HashMap<>();
@@ -6,7 +6,9 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
 
+import datawave.webservice.common.connection.AccumuloConnectionFactory.Priority;
 import org.apache.accumulo.core.client.AccumuloClient;
 import org.apache.commons.lang.mutable.MutableInt;
 import org.apache.commons.pool2.impl.GenericObjectPool;
@@ -15,15 +17,38 @@ import org.apache.log4j.Logger;
 public class AccumuloClientPool extends GenericObjectPool<AccumuloClient> {
     
     private static final Logger log = Logger.getLogger(AccumuloClientPool.class);
+    
+    // the upper bounds in milliseconds of the borrow wait time histogram buckets, which is followed by a bucket for longer waits
+    public static final long[] WAIT_TIME_BUCKETS = {1, 10, 100, 1000, 10000, 60000};
+    
     private final Map<Long,Map<String,String>> threadToTrackingMapMap = Collections.synchronizedMap(new HashMap<>());
     private final Map<AccumuloClient,Map<String,String>> connectorToTrackingMapMap = Collections.synchronizedMap(new HashMap<>());
+    private final AtomicLongArray waitTimes = new AtomicLongArray(WAIT_TIME_BUCKETS.length + 1);
     private AccumuloClientPoolFactory factory;
+    private SharedPoolCapacity sharedCapacity;
+    private Priority priority;
     
     public AccumuloClientPool(AccumuloClientPoolFactory factory) {
         super(factory);
         this.factory = factory;
     }
     
+    /**
+     * Create a pool whose clients are limited by the capacity it shares with the pools of the other priorities, rather than by its own maximum
+     *
+     * @param factory
+     *            the client factory
+     * @param sharedCapacity
+     *            the shared capacity
+     * @param priority
+     *            the priority of this pool
+     */
+    public AccumuloClientPool(AccumuloClientPoolFactory factory, SharedPoolCapacity sharedCapacity, Priority priority) {
+        this(factory);
+        this.sharedCapacity = sharedCapacity;
+        this.priority = priority;
+    }
+    
     @Override
     public String toString() {
         return " NumIdle: " + getNumIdle() + " NumActive: " + getNumActive() + " MaxIdle: " + getMaxIdle() + " MaxTotal: " + getMaxTotal();
@@ -38,7 +63,19 @@ public class AccumuloClientPool extends GenericObjectPool<AccumuloClient> {
             trackingMap.put("state", AccumuloConnectionFactory.State.WAITING.toString());
             trackingMap.put("thread.name", Thread.currentThread().getName());
             threadToTrackingMapMap.put(threadId, trackingMap);
-            o = super.borrowObject();
+            long waitStart = System.currentTimeMillis();
+            if (sharedCapacity != null) {
+                sharedCapacity.acquire(priority);
+                try {
+                    o = super.borrowObject();
+                } catch (Exception e) {
+                    sharedCapacity.release(priority);
+                    throw e;
+                }
+            } else {
+                o = super.borrowObject();
+            }
+            addWaitTime(System.currentTimeMillis() - waitStart);
             log.debug(System.currentTimeMillis() + " thread: " + threadId + " borrowed connector: " + o);
             if (log.isTraceEnabled()) {
                 log.trace(System.currentTimeMillis() + " " + Arrays.toString(Thread.currentThread().getStackTrace()));
@@ -65,8 +102,9 @@ public class AccumuloClientPool extends GenericObjectPool<AccumuloClient> {
     
     public void returnObject(AccumuloClient client) {
         if (client != null) {
+            boolean tracked;
             synchronized (connectorToTrackingMapMap) {
-                connectorToTrackingMapMap.remove(client);
+                tracked = (connectorToTrackingMapMap.remove(client) != null);
                 long threadId = Thread.currentThread().getId();
                 log.debug(System.currentTimeMillis() + " thread: " + threadId + " returned client: " + client);
                 if (log.isTraceEnabled()) {
@@ -74,10 +112,46 @@ public class AccumuloClientPool extends GenericObjectPool<AccumuloClient> {
                 }
             }
             
-            super.returnObject(client);
+            try {
+                super.returnObject(client);
+            } finally {
+                if (sharedCapacity != null && tracked) {
+                    sharedCapacity.release(priority);
+                }
+            }
         }
     }
     
+    private void addWaitTime(long waitTime) {
+        int bucket = 0;
+        while (bucket < WAIT_TIME_BUCKETS.length && waitTime > WAIT_TIME_BUCKETS[bucket]) {
+            bucket++;
+        }
+        waitTimes.incrementAndGet(bucket);
+    }
+    
+    /**
+     * @return the number of borrows which waited up to each of the {@link #WAIT_TIME_BUCKETS}, followed by the number which waited longer
+     */
+    public long[] getWaitTimeHistogram() {
+        long[] histogram = new long[waitTimes.length()];
+        for (int i = 0; i < histogram.length; i++) {
+            histogram[i] = waitTimes.get(i);
+        }
+        return histogram;
+    }
+    
+    /**
+     * @return the number of clients borrowed from the capacity of the lower priorities, or 0 if the capacity is not shared
+     */
+    public int getNumBorrowed() {
+        return (sharedCapacity != null) ? sharedCapacity.getNumBorrowed(priority) : 0;
+    }
+    
+    public boolean isSharedCapacity() {
+        return sharedCapacity != null;
+    }
+    
     public List<Map<String,String>> getConnectionPoolStats(MutableInt maxTotal, MutableInt numActive, MutableInt maxIdle, MutableInt numIdle,
                     MutableInt numWaiting) {
         
@@ -94,11 +168,17 @@ public class AccumuloClientPool extends GenericObjectPool<AccumuloClient> {
                     if (!connectorToTrackingMapMap.isEmpty()) {
                         t.addAll(Collections.unmodifiableCollection(connectorToTrackingMapMap.values()));
                     }
-                    maxTotal.setValue(getMaxTotal());
                     numActive.setValue(getNumActive());
                     maxIdle.setValue(getMaxIdle());
                     numIdle.setValue(getNumIdle());
-                    numWaiting.setValue(getNumWaiters());
+                    if (sharedCapacity != null) {
+                        // report the guaranteed capacity as the maximum, as the pool itself is only limited by the shared capacity
+                        maxTotal.setValue(sharedCapacity.getGuaranteed(priority));
+                        numWaiting.setValue(getNumWaiters() + sharedCapacity.getNumWaiting(priority));
+                    } else {
+                        maxTotal.setValue(getMaxTotal());
+                        numWaiting.setValue(getNumWaiters());
+                    }
                 }
             }
         }
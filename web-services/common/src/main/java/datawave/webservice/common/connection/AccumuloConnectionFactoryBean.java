@@ -9,6 +9,7 @@ import datawave.webservice.common.connection.config.ConnectionPoolsConfiguration
 import datawave.webservice.common.result.Connection;
 import datawave.webservice.common.result.ConnectionFactoryResponse;
 import datawave.webservice.common.result.ConnectionPool;
+import datawave.webservice.common.result.ConnectionWaitTime;
 import org.apache.accumulo.core.Constants;
 import org.apache.accumulo.core.client.AccumuloClient;
 import org.apache.accumulo.core.client.admin.SecurityOperations;
@@ -53,6 +54,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -113,10 +115,15 @@ public class AccumuloConnectionFactoryBean implements AccumuloConnectionFactory
         for (Entry<String,ConnectionPoolConfiguration> entry : connectionPoolsConfiguration.getPools().entrySet()) {
             Map<Priority,AccumuloClientPool> p = new HashMap<>();
             ConnectionPoolConfiguration conf = entry.getValue();
-            p.put(Priority.ADMIN, createConnectionPool(conf, conf.getAdminPriorityPoolSize()));
-            p.put(Priority.HIGH, createConnectionPool(conf, conf.getHighPriorityPoolSize()));
-            p.put(Priority.NORMAL, createConnectionPool(conf, conf.getNormalPriorityPoolSize()));
-            p.put(Priority.LOW, createConnectionPool(conf, conf.getLowPriorityPoolSize()));
+            Map<Priority,Integer> sizes = new EnumMap<>(Priority.class);
+            sizes.put(Priority.ADMIN, conf.getAdminPriorityPoolSize());
+            sizes.put(Priority.HIGH, conf.getHighPriorityPoolSize());
+            sizes.put(Priority.NORMAL, conf.getNormalPriorityPoolSize());
+            sizes.put(Priority.LOW, conf.getLowPriorityPoolSize());
+            SharedPoolCapacity sharedCapacity = conf.isSharedCapacity() ? new SharedPoolCapacity(sizes) : null;
+            for (Entry<Priority,Integer> size : sizes.entrySet()) {
+                p.put(size.getKey(), createConnectionPool(conf, size.getKey(), size.getValue(), sharedCapacity));
+            }
             this.pools.put(entry.getKey(), Collections.unmodifiableMap(p));
             try {
                 setupMockAccumuloUser(conf, p.get(Priority.NORMAL), instances);
@@ -149,13 +156,22 @@ public class AccumuloConnectionFactoryBean implements AccumuloConnectionFactory
         cache.setConnectionFactory(this);
     }
     
-    private AccumuloClientPool createConnectionPool(ConnectionPoolConfiguration conf, int limit) {
+    private AccumuloClientPool createConnectionPool(ConnectionPoolConfiguration conf, Priority priority, int limit, SharedPoolCapacity sharedCapacity) {
         AccumuloClientPoolFactory factory = new AccumuloClientPoolFactory(conf.getUsername(), conf.getPassword(), conf.getZookeepers(), conf.getInstance());
-        AccumuloClientPool pool = new AccumuloClientPool(factory);
+        AccumuloClientPool pool;
+        if (sharedCapacity != null) {
+            // the shared capacity limits the clients in use by each priority, and only the priority's own capacity is kept idle so that the clients
+            // borrowed beyond it are closed on return rather than held open by each of the pools
+            pool = new AccumuloClientPool(factory, sharedCapacity, priority);
+            pool.setMaxTotal(sharedCapacity.getTotal());
+            pool.setMaxIdle(limit);
+        } else {
+            pool = new AccumuloClientPool(factory);
+            pool.setMaxTotal(limit);
+            pool.setMaxIdle(-1);
+        }
         pool.setTestOnBorrow(true);
         pool.setTestOnReturn(true);
-        pool.setMaxTotal(limit);
-        pool.setMaxIdle(-1);
         
         try {
             pool.addObject();
@@ -365,6 +381,17 @@ public class AccumuloConnectionFactoryBean implements AccumuloConnectionFactory
                 poolInfo.setMaxIdle(maxIdle.toInteger());
                 poolInfo.setNumIdle(numIdle.toInteger());
                 poolInfo.setPoolName(poolName);
+                if (p.isSharedCapacity()) {
+                    poolInfo.setNumBorrowed(p.getNumBorrowed());
+                }
+                
+                List<ConnectionWaitTime> waitTimes = new ArrayList<>();
+                long[] waitTimeHistogram = p.getWaitTimeHistogram();
+                for (int i = 0; i < waitTimeHistogram.length; i++) {
+                    Long maxMillis = (i < AccumuloClientPool.WAIT_TIME_BUCKETS.length) ? AccumuloClientPool.WAIT_TIME_BUCKETS[i] : null;
+                    waitTimes.add(new ConnectionWaitTime(maxMillis, waitTimeHistogram[i]));
+                }
+                poolInfo.setWaitTimes(waitTimes);
                 
                 List<Connection> requestingConnections = new ArrayList<>();
                 for (Map<String,String> m : requestingConnectionsMap) {
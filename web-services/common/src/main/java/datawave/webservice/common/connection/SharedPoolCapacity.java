@@ -0,0 +1,175 @@
+package datawave.webservice.common.connection;
+
+import datawave.webservice.common.connection.AccumuloConnectionFactory.Priority;
+
+import java.util.Map;
+
+/**
+ * The capacity shared by the priority pools of a connection pool. Each priority is guaranteed the number of clients it is configured with, and once those are
+ * in use it may borrow the unused capacity of the lower priorities, up to the fraction of it given by its borrowing weight. The capacity of a priority is never
+ * borrowed by a lower priority, so LOW does not borrow at all and the capacity of ADMIN is only used by ADMIN.
+ * <p>
+ * A priority may not borrow while a higher priority, or a priority which has not used its own capacity, is waiting. Clients are not taken back from those
+ * using them, instead the capacity borrowed from a priority is reclaimed by its waiters as the clients are returned.
+ */
+public class SharedPoolCapacity {
+    
+    private final int[] guaranteed = new int[Priority.values().length];
+    private final int[] used = new int[Priority.values().length];
+    private final int[] waiting = new int[Priority.values().length];
+    private final int total;
+    
+    /**
+     * @param sizes
+     *            the number of clients guaranteed to each priority, which together make up the shared capacity
+     */
+    public SharedPoolCapacity(Map<Priority,Integer> sizes) {
+        int total = 0;
+        for (Map.Entry<Priority,Integer> entry : sizes.entrySet()) {
+            guaranteed[entry.getKey().ordinal()] = entry.getValue();
+            total += entry.getValue();
+        }
+        this.total = total;
+    }
+    
+    /**
+     * Get the fraction of the unused capacity of the lower priorities a priority may borrow
+     *
+     * @param priority
+     *            the priority
+     * @return the borrowing weight
+     */
+    public static double getBorrowingWeight(Priority priority) {
+        switch (priority) {
+            case ADMIN:
+                return 1.0d;
+            case HIGH:
+                return 0.75d;
+            case NORMAL:
+                return 0.5d;
+            default:
+                return 0.25d;
+        }
+    }
+    
+    /**
+     * Acquire capacity for a client, waiting until it is available
+     *
+     * @param priority
+     *            the priority of the client
+     * @throws InterruptedException
+     *             if interrupted while waiting
+     */
+    public synchronized void acquire(Priority priority) throws InterruptedException {
+        int p = priority.ordinal();
+        if (!canAcquire(p)) {
+            waiting[p]++;
+            try {
+                do {
+                    wait();
+                } while (!canAcquire(p));
+            } catch (InterruptedException e) {
+                // others may have been held back by this waiter
+                notifyAll();
+                throw e;
+            } finally {
+                waiting[p]--;
+            }
+        }
+        used[p]++;
+    }
+    
+    /**
+     * Acquire capacity for a client if it is available without waiting
+     *
+     * @param priority
+     *            the priority of the client
+     * @return true if the capacity was acquired
+     */
+    public synchronized boolean tryAcquire(Priority priority) {
+        int p = priority.ordinal();
+        if (canAcquire(p)) {
+            used[p]++;
+            return true;
+        }
+        return false;
+    }
+    
+    /**
+     * Release the capacity of a returned client
+     *
+     * @param priority
+     *            the priority of the client
+     */
+    public synchronized void release(Priority priority) {
+        int p = priority.ordinal();
+        if (used[p] > 0) {
+            used[p]--;
+            notifyAll();
+        }
+    }
+    
+    private boolean canAcquire(int p) {
+        if (getAvailable(p) <= 0) {
+            return false;
+        }
+        if (used[p] < guaranteed[p]) {
+            return true;
+        }
+        for (int q = 0; q < waiting.length; q++) {
+            if (q != p && waiting[q] > 0 && (q > p || used[q] < guaranteed[q])) {
+                return false;
+            }
+        }
+        int borrowed = used[p] - guaranteed[p];
+        return borrowed < getBorrowingWeight(Priority.values()[p]) * (getAvailable(p) + borrowed);
+    }
+    
+    /**
+     * Get the capacity available to a priority, which is its own and that of the lower priorities less what is in use by them. The clients in use by each
+     * priority and those below it may not exceed their capacity, so that a priority's capacity is left for it and the priorities above it.
+     *
+     * @param p
+     *            the ordinal of the priority
+     * @return the number of clients the priority may acquire
+     */
+    private int getAvailable(int p) {
+        int available = Integer.MAX_VALUE;
+        int capacity = 0;
+        int inUse = 0;
+        for (int q = 0; q < guaranteed.length; q++) {
+            capacity += guaranteed[q];
+            inUse += used[q];
+            if (q >= p) {
+                available = Math.min(available, capacity - inUse);
+            }
+        }
+        return available;
+    }
+    
+    public int getTotal() {
+        return total;
+    }
+    
+    public int getGuaranteed(Priority priority) {
+        return guaranteed[priority.ordinal()];
+    }
+    
+    public synchronized int getNumUsed(Priority priority) {
+        return used[priority.ordinal()];
+    }
+    
+    /**
+     * @param priority
+     *            the priority
+     * @return the number of clients in use beyond those guaranteed to the priority
+     */
+    public synchronized int getNumBorrowed(Priority priority) {
+        int p = priority.ordinal();
+        return Math.max(0, used[p] - guaranteed[p]);
+    }
+    
+    public synchronized int getNumWaiting(Priority priority) {
+        return waiting[priority.ordinal()];
+    }
+}
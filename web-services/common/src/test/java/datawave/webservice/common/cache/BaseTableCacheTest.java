@@ -0,0 +1,158 @@
+package datawave.webservice.common.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Date;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import datawave.accumulo.inmemory.InMemoryAccumuloClient;
+import datawave.accumulo.inmemory.InMemoryInstance;
+import datawave.webservice.common.connection.AccumuloConnectionFactory;
+
+import org.apache.accumulo.core.client.AccumuloClient;
+import org.apache.accumulo.core.client.BatchWriter;
+import org.apache.accumulo.core.client.BatchWriterConfig;
+import org.apache.accumulo.core.client.Scanner;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Mutation;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.security.Authorizations;
+import org.easymock.EasyMock;
+import org.junit.Before;
+import org.junit.Test;
+
+public class BaseTableCacheTest {
+    
+    private static final String TABLE_NAME = "DatawaveMetadata";
+    private static final long DAY = 86400000L;
+    
+    private AccumuloClient warehouseClient;
+    private InMemoryInstance cacheInstance;
+    private BaseTableCache cache;
+    
+    @Before
+    public void setup() throws Exception {
+        warehouseClient = new InMemoryAccumuloClient("root", new InMemoryInstance());
+        warehouseClient.tableOperations().create(TABLE_NAME);
+        
+        AccumuloConnectionFactory connectionFactory = EasyMock.createNiceMock(AccumuloConnectionFactory.class);
+        EasyMock.expect(connectionFactory.getClient(EasyMock.anyString(), EasyMock.anyObject(), EasyMock.anyObject())).andReturn(warehouseClient).anyTimes();
+        EasyMock.replay(connectionFactory);
+        
+        cacheInstance = new InMemoryInstance();
+        cache = new BaseTableCache();
+        cache.setTableName(TABLE_NAME);
+        cache.setConnectionPoolName("WAREHOUSE");
+        cache.setConnectionFactory(connectionFactory);
+        cache.setInstance(cacheInstance);
+        cache.setReloadInterval(DAY);
+        cache.setFullReloadInterval(DAY);
+        
+        write("FIELD_A", "e", System.currentTimeMillis());
+        write("FIELD_B", "e", System.currentTimeMillis());
+        // the f columns are not cached
+        write("FIELD_B", "f", System.currentTimeMillis());
+    }
+    
+    @Test
+    public void testFirstLoad() throws Exception {
+        cache.setIncrementalRefresh(true);
+        assertTrue(cache.call());
+        
+        assertEquals(set("FIELD_A:e", "FIELD_B:e"), getCached());
+        assertTrue(cache.getLastRefresh().getTime() > 0);
+        assertFalse(new InMemoryAccumuloClient(AccumuloTableCache.MOCK_USERNAME, cacheInstance).tableOperations().exists(TABLE_NAME + "Temp"));
+    }
+    
+    @Test
+    public void testIncrementalRefresh() throws Exception {
+        cache.setIncrementalRefresh(true);
+        assertTrue(cache.call());
+        
+        write("FIELD_C", "e", System.currentTimeMillis());
+        delete("FIELD_A", "e");
+        // written with a timestamp before the last load
+        write("FIELD_D", "e", 1000L);
+        assertTrue(cache.call());
+        
+        // only the new entry is seen, the deleted entry and the entry with the old timestamp wait for the next full reload
+        assertEquals(set("FIELD_A:e", "FIELD_B:e", "FIELD_C:e"), getCached());
+    }
+    
+    @Test
+    public void testForcedReload() throws Exception {
+        cache.setIncrementalRefresh(true);
+        assertTrue(cache.call());
+        
+        delete("FIELD_A", "e");
+        write("FIELD_D", "e", 1000L);
+        // as done when the cache is reloaded through the shared eviction counter
+        cache.setLastRefresh(new Date(0));
+        assertTrue(cache.call());
+        
+        assertEquals(set("FIELD_B:e", "FIELD_D:e"), getCached());
+    }
+    
+    @Test
+    public void testFullReloadInterval() throws Exception {
+        cache.setIncrementalRefresh(true);
+        cache.setFullReloadInterval(1);
+        assertTrue(cache.call());
+        
+        delete("FIELD_A", "e");
+        Thread.sleep(10);
+        assertTrue(cache.call());
+        
+        assertEquals(set("FIELD_B:e"), getCached());
+    }
+    
+    @Test
+    public void testFullReloadWithoutIncrementalRefresh() throws Exception {
+        assertTrue(cache.call());
+        
+        delete("FIELD_A", "e");
+        write("FIELD_D", "e", 1000L);
+        assertTrue(cache.call());
+        
+        assertEquals(set("FIELD_B:e", "FIELD_D:e"), getCached());
+    }
+    
+    private void write(String row, String columnFamily, long timestamp) throws Exception {
+        Mutation m = new Mutation(row);
+        m.put(columnFamily, "datatype", timestamp, new Value(new byte[0]));
+        try (BatchWriter writer = warehouseClient.createBatchWriter(TABLE_NAME, new BatchWriterConfig())) {
+            writer.addMutation(m);
+        }
+    }
+    
+    private void delete(String row, String columnFamily) throws Exception {
+        Mutation m = new Mutation(row);
+        m.putDelete(columnFamily, "datatype");
+        try (BatchWriter writer = warehouseClient.createBatchWriter(TABLE_NAME, new BatchWriterConfig())) {
+            writer.addMutation(m);
+        }
+    }
+    
+    private Set<String> getCached() throws Exception {
+        Set<String> cached = new TreeSet<>();
+        AccumuloClient cacheClient = new InMemoryAccumuloClient(AccumuloTableCache.MOCK_USERNAME, cacheInstance);
+        try (Scanner scanner = cacheClient.createScanner(TABLE_NAME, new Authorizations())) {
+            for (Map.Entry<Key,Value> entry : scanner) {
+                cached.add(entry.getKey().getRow() + ":" + entry.getKey().getColumnFamily());
+            }
+        }
+        return cached;
+    }
+    
+    private static Set<String> set(String... values) {
+        Set<String> set = new TreeSet<>();
+        for (String value : values) {
+            set.add(value);
+        }
+        return set;
+    }
+}
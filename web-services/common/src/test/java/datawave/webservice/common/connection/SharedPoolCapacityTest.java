@@ -0,0 +1,127 @@
+package datawave.webservice.common.connection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import datawave.webservice.common.connection.AccumuloConnectionFactory.Priority;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SharedPoolCapacityTest {
+    
+    private SharedPoolCapacity capacity;
+    
+    @Before
+    public void setup() {
+        Map<Priority,Integer> sizes = new EnumMap<>(Priority.class);
+        sizes.put(Priority.ADMIN, 4);
+        sizes.put(Priority.HIGH, 4);
+        sizes.put(Priority.NORMAL, 4);
+        sizes.put(Priority.LOW, 4);
+        capacity = new SharedPoolCapacity(sizes);
+    }
+    
+    private int acquireAll(Priority priority) {
+        int acquired = 0;
+        while (capacity.tryAcquire(priority)) {
+            acquired++;
+        }
+        return acquired;
+    }
+    
+    @Test
+    public void testWeightedBorrowing() {
+        assertEquals(16, capacity.getTotal());
+        
+        // the guaranteed 4, then half of the 4 unused by LOW
+        assertEquals(6, acquireAll(Priority.NORMAL));
+        assertEquals(2, capacity.getNumBorrowed(Priority.NORMAL));
+        
+        // only what NORMAL has not borrowed of its own capacity
+        assertEquals(2, acquireAll(Priority.LOW));
+        assertEquals(0, capacity.getNumBorrowed(Priority.LOW));
+        
+        // nothing is left to borrow below HIGH or ADMIN
+        assertEquals(4, acquireAll(Priority.HIGH));
+        assertEquals(4, acquireAll(Priority.ADMIN));
+        assertEquals(0, capacity.getNumBorrowed(Priority.ADMIN));
+        for (Priority priority : Priority.values()) {
+            assertFalse(capacity.tryAcquire(priority));
+        }
+    }
+    
+    @Test
+    public void testLowDoesNotBorrow() {
+        assertEquals(4, acquireAll(Priority.LOW));
+        assertEquals(0, capacity.getNumBorrowed(Priority.LOW));
+        
+        // ADMIN borrows all of the capacity above LOW
+        assertEquals(12, acquireAll(Priority.ADMIN));
+        assertEquals(8, capacity.getNumBorrowed(Priority.ADMIN));
+    }
+    
+    @Test
+    public void testHigherCapacityIsNotBorrowed() {
+        // three quarters of the 8 unused by LOW and NORMAL
+        assertEquals(10, acquireAll(Priority.HIGH));
+        assertEquals(6, capacity.getNumBorrowed(Priority.HIGH));
+        assertEquals(2, acquireAll(Priority.NORMAL));
+        assertEquals(0, acquireAll(Priority.LOW));
+        
+        // the capacity of ADMIN is left for it
+        assertEquals(4, acquireAll(Priority.ADMIN));
+        assertEquals(0, capacity.getNumBorrowed(Priority.ADMIN));
+    }
+    
+    @Test
+    public void testReclaimOnRelease() {
+        assertEquals(10, acquireAll(Priority.HIGH));
+        
+        // HIGH has borrowed all but 2 of the capacity of LOW
+        assertEquals(2, acquireAll(Priority.LOW));
+        assertEquals(4, acquireAll(Priority.ADMIN));
+        
+        // the capacity borrowed from LOW is available to it again once a borrowed client is released
+        assertFalse(capacity.tryAcquire(Priority.LOW));
+        capacity.release(Priority.HIGH);
+        assertTrue(capacity.tryAcquire(Priority.LOW));
+        assertFalse(capacity.tryAcquire(Priority.LOW));
+    }
+    
+    @Test
+    public void testReclaimByWaiter() throws Exception {
+        for (int i = 0; i < 4; i++) {
+            assertTrue(capacity.tryAcquire(Priority.HIGH));
+        }
+        assertEquals(12, acquireAll(Priority.ADMIN));
+        
+        CountDownLatch acquired = new CountDownLatch(1);
+        Thread waiter = new Thread(() -> {
+            try {
+                capacity.acquire(Priority.NORMAL);
+                acquired.countDown();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        waiter.start();
+        while (capacity.getNumWaiting(Priority.NORMAL) == 0) {
+            Thread.sleep(10);
+        }
+        
+        // HIGH may not borrow the released capacity while NORMAL is waiting for its own
+        capacity.release(Priority.ADMIN);
+        assertFalse(capacity.tryAcquire(Priority.HIGH));
+        assertTrue(acquired.await(10, TimeUnit.SECONDS));
+        waiter.join();
+        
+        assertEquals(1, capacity.getNumUsed(Priority.NORMAL));
+        assertEquals(0, capacity.getNumWaiting(Priority.NORMAL));
+    }
+}
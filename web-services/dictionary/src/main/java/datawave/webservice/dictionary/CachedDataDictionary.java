@@ -0,0 +1,120 @@
+package datawave.webservice.dictionary;
+
+import datawave.accumulo.inmemory.InMemoryAccumuloClient;
+import datawave.webservice.common.cache.AccumuloTableCache;
+import org.apache.accumulo.core.client.AccumuloClient;
+import org.apache.accumulo.core.client.Scanner;
+import org.apache.accumulo.core.client.TableNotFoundException;
+import org.apache.accumulo.core.security.Authorizations;
+import org.apache.deltaspike.core.api.config.ConfigProperty;
+import org.apache.log4j.Logger;
+
+import javax.ejb.EJB;
+import javax.ejb.LocalBean;
+import javax.ejb.Lock;
+import javax.ejb.LockType;
+import javax.ejb.Singleton;
+import javax.inject.Inject;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Serves the data dictionary from the copy of the metadata table held by the {@link AccumuloTableCache}. The metadata table is summarized into a
+ * {@link MetadataDictionary} the first time the dictionary is requested, and summarized again from memory whenever the cached table has been reloaded since,
+ * so that a request for the dictionary does not need to go to Accumulo or to the external dictionary service.
+ */
+@Singleton
+@LocalBean
+@Lock(LockType.READ)
+public class CachedDataDictionary {
+    
+    private final Logger log = Logger.getLogger(this.getClass());
+    
+    @EJB
+    private AccumuloTableCache cache;
+    
+    @Inject
+    @ConfigProperty(name = "dw.dataDictionary.metadataTableName", defaultValue = "DatawaveMetadata")
+    private String metadataTableName;
+    
+    private final ReentrantLock loadLock = new ReentrantLock();
+    
+    private volatile MetadataDictionary dictionary = null;
+    private volatile Date dictionaryRefresh = new Date(0);
+    
+    /**
+     * @return the name of the cached metadata table that the dictionary is read from
+     */
+    public String getMetadataTableName() {
+        return metadataTableName;
+    }
+    
+    /**
+     * Get the data dictionary fields visible to a caller
+     *
+     * @param authorizations
+     *            the authorizations of each entity in the call
+     * @param dataTypes
+     *            the datatypes to return the fields of, or an empty collection for all of them
+     * @return the fields
+     * @throws TableNotFoundException
+     *             if the metadata table has not been cached
+     */
+    public DataDictionaryFieldList getDataDictionary(Collection<Authorizations> authorizations, Collection<String> dataTypes) throws TableNotFoundException {
+        MetadataDictionary current = getDictionary();
+        DataDictionaryFieldList response = new DataDictionaryFieldList();
+        response.setMetadataTableName(metadataTableName);
+        response.setLastRefresh(dictionaryRefresh);
+        response.setFields(current.getFields(authorizations, dataTypes == null ? Collections.emptySet() : dataTypes));
+        return response;
+    }
+    
+    private MetadataDictionary getDictionary() throws TableNotFoundException {
+        Date lastRefresh = cache.getLastRefresh(metadataTableName);
+        if (null == lastRefresh) {
+            throw new TableNotFoundException(null, metadataTableName, "The metadata table is not cached");
+        }
+        MetadataDictionary current = dictionary;
+        // a reload request sets the refresh time back to the epoch until the reload completes, so only a later time means the cached table changed
+        if (current != null && !lastRefresh.after(dictionaryRefresh)) {
+            return current;
+        }
+        // callers that find a summary being rebuilt keep using the previous one rather than waiting on the rebuild
+        if (current != null && !loadLock.tryLock()) {
+            return current;
+        }
+        if (current == null) {
+            loadLock.lock();
+        }
+        try {
+            lastRefresh = cache.getLastRefresh(metadataTableName);
+            if (dictionary == null || lastRefresh.after(dictionaryRefresh)) {
+                dictionary = load();
+                dictionaryRefresh = lastRefresh;
+            }
+            return dictionary;
+        } finally {
+            loadLock.unlock();
+        }
+    }
+    
+    private MetadataDictionary load() throws TableNotFoundException {
+        long start = System.currentTimeMillis();
+        try {
+            AccumuloClient client = new InMemoryAccumuloClient(AccumuloTableCache.MOCK_USERNAME, cache.getInstance());
+            Authorizations auths = client.securityOperations().getUserAuthorizations(AccumuloTableCache.MOCK_USERNAME);
+            try (Scanner scanner = client.createScanner(metadataTableName, auths)) {
+                MetadataDictionary loaded = MetadataDictionary.load(scanner);
+                log.info("Loaded " + loaded.size() + " data dictionary fields from the cached " + metadataTableName + " table in "
+                                + (System.currentTimeMillis() - start) + "ms");
+                return loaded;
+            }
+        } catch (TableNotFoundException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalStateException("Unable to load the data dictionary from the cached " + metadataTableName + " table", e);
+        }
+    }
+}
@@ -1,7 +1,13 @@
 package datawave.webservice.dictionary;
 
+import datawave.security.authorization.DatawavePrincipal;
+import datawave.security.system.CallerPrincipal;
 import datawave.webservice.datadictionary.RemoteDataDictionary;
+import org.apache.accumulo.core.client.TableNotFoundException;
+import org.apache.accumulo.core.security.Authorizations;
+import org.apache.deltaspike.core.api.config.ConfigProperty;
 import org.apache.http.client.utils.URIBuilder;
+import org.apache.log4j.Logger;
 import org.xbill.DNS.TextParseException;
 
 import javax.annotation.security.PermitAll;
@@ -12,13 +18,25 @@ import javax.ws.rs.GET;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.core.Context;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.UriInfo;
 import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 
 /**
  * A simple proxy that redirects GET requests for the DataDictionary to the external dictionary service that is configured in the {@link RemoteDataDictionary}.
  * This allows existing documentation URLs to continue to work.
+ * <p>
+ * When {@code dw.dataDictionary.embedded} is set, requests for the dictionary itself are instead answered from the cached metadata table by the
+ * {@link CachedDataDictionary}, unless they ask for a model or tables the embedded dictionary does not serve. Requests for any sub-path are always redirected.
  */
 @Path("/DataDictionary")
 @LocalBean
@@ -26,15 +44,38 @@ import java.net.URISyntaxException;
 @PermitAll
 public class DataDictionaryBean {
     
+    private static final Set<String> REMOTE_ONLY_PARAMETERS = new HashSet<>(Arrays.asList("modelName", "modelTableName", "metadataTableName"));
+    
+    private final Logger log = Logger.getLogger(this.getClass());
+    
     @Inject
     private RemoteDataDictionary remoteDataDictionary;
     
+    @Inject
+    private CachedDataDictionary cachedDataDictionary;
+    
+    @Inject
+    @ConfigProperty(name = "dw.dataDictionary.embedded", defaultValue = "false")
+    private boolean embedded;
+    
+    @Inject
+    @CallerPrincipal
+    private DatawavePrincipal callerPrincipal;
+    
     /**
-     * Capture and redirect GET requests to the root path for the data dictionary.
+     * Capture GET requests to the root path for the data dictionary, answering them from the cached metadata table when the embedded dictionary is enabled and
+     * redirecting them otherwise.
      */
     @GET
     @Path("/")
-    public Response getDataDictionary(@Context UriInfo uriInfo) throws TextParseException, URISyntaxException {
+    public Response getDataDictionary(@Context UriInfo uriInfo, @Context HttpHeaders headers) throws TextParseException, URISyntaxException {
+        if (embedded && isEmbeddedRequest(uriInfo.getQueryParameters())) {
+            try {
+                return getEmbeddedDataDictionary(uriInfo.getQueryParameters(), headers);
+            } catch (TableNotFoundException e) {
+                log.warn("Unable to serve the data dictionary from the table cache, redirecting to the dictionary service", e);
+            }
+        }
         return sendRedirect("", uriInfo);
     }
     
@@ -47,6 +88,60 @@ public class DataDictionaryBean {
         return sendRedirect(suffix, uriInfo);
     }
     
+    private boolean isEmbeddedRequest(MultivaluedMap<String,String> parameters) {
+        for (String parameter : REMOTE_ONLY_PARAMETERS) {
+            List<String> values = parameters.get(parameter);
+            if (values != null && !values.isEmpty()) {
+                // the metadata table may be named as long as it is the cached one
+                if (!parameter.equals("metadataTableName") || !values.stream().allMatch(cachedDataDictionary.getMetadataTableName()::equals)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+    
+    private Response getEmbeddedDataDictionary(MultivaluedMap<String,String> parameters, HttpHeaders headers) throws TableNotFoundException {
+        // the fields are limited to the requested auths, which can only narrow those of each entity in the call
+        Set<String> requestedAuths = split(parameters.get("auths"));
+        List<Authorizations> authorizations = new ArrayList<>();
+        for (Collection<String> auths : callerPrincipal.getAuthorizations()) {
+            Set<String> effective = new HashSet<>(auths);
+            if (!requestedAuths.isEmpty()) {
+                effective.retainAll(requestedAuths);
+            }
+            authorizations.add(new Authorizations(effective.toArray(new String[0])));
+        }
+        
+        DataDictionaryFieldList response = cachedDataDictionary.getDataDictionary(authorizations, split(parameters.get("dataTypeFilters")));
+        return Response.ok(response, getMediaType(headers)).build();
+    }
+    
+    private static MediaType getMediaType(HttpHeaders headers) {
+        for (MediaType accepted : headers.getAcceptableMediaTypes()) {
+            if (accepted.isCompatible(MediaType.APPLICATION_JSON_TYPE) && !accepted.isWildcardType()) {
+                return MediaType.APPLICATION_JSON_TYPE;
+            } else if (accepted.isCompatible(MediaType.APPLICATION_XML_TYPE) || accepted.isCompatible(MediaType.TEXT_XML_TYPE)) {
+                return MediaType.APPLICATION_XML_TYPE;
+            }
+        }
+        return MediaType.APPLICATION_XML_TYPE;
+    }
+    
+    private static Set<String> split(List<String> values) {
+        Set<String> split = new HashSet<>();
+        if (values != null) {
+            for (String value : values) {
+                for (String item : value.split(",")) {
+                    if (!item.trim().isEmpty()) {
+                        split.add(item.trim());
+                    }
+                }
+            }
+        }
+        return split;
+    }
+    
     private Response sendRedirect(String suffix, UriInfo uriInfo) throws TextParseException, URISyntaxException {
         URIBuilder builder = remoteDataDictionary.buildURI(suffix);
         uriInfo.getQueryParameters().forEach((pname, valueList) -> valueList.forEach(pvalue -> builder.addParameter(pname, pvalue)));
@@ -0,0 +1,141 @@
+package datawave.webservice.dictionary;
+
+import java.io.Serializable;
+import java.util.List;
+
+import javax.xml.bind.annotation.XmlAccessOrder;
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorOrder;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlAttribute;
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlElementWrapper;
+
+@XmlAccessorType(XmlAccessType.NONE)
+@XmlAccessorOrder(XmlAccessOrder.ALPHABETICAL)
+public class DataDictionaryField implements Serializable {
+    
+    private static final long serialVersionUID = 1L;
+    
+    @XmlAttribute(name = "fieldName", required = true)
+    private String fieldName = null;
+    
+    @XmlAttribute(name = "dataType", required = true)
+    private String dataType = null;
+    
+    @XmlAttribute(name = "forwardIndexed")
+    private boolean forwardIndexed = false;
+    
+    @XmlAttribute(name = "reverseIndexed")
+    private boolean reverseIndexed = false;
+    
+    @XmlAttribute(name = "indexOnly")
+    private boolean indexOnly = false;
+    
+    @XmlAttribute(name = "tokenized")
+    private boolean tokenized = false;
+    
+    @XmlAttribute(name = "count")
+    private long count = 0;
+    
+    @XmlAttribute(name = "lastUpdated")
+    private String lastUpdated = null;
+    
+    @XmlElementWrapper(name = "Types")
+    @XmlElement(name = "Type")
+    private List<String> types = null;
+    
+    @XmlElementWrapper(name = "Descriptions")
+    @XmlElement(name = "Description")
+    private List<String> descriptions = null;
+    
+    public String getFieldName() {
+        return fieldName;
+    }
+    
+    public void setFieldName(String fieldName) {
+        this.fieldName = fieldName;
+    }
+    
+    public String getDataType() {
+        return dataType;
+    }
+    
+    public void setDataType(String dataType) {
+        this.dataType = dataType;
+    }
+    
+    public boolean isForwardIndexed() {
+        return forwardIndexed;
+    }
+    
+    public void setForwardIndexed(boolean forwardIndexed) {
+        this.forwardIndexed = forwardIndexed;
+    }
+    
+    public boolean isReverseIndexed() {
+        return reverseIndexed;
+    }
+    
+    public void setReverseIndexed(boolean reverseIndexed) {
+        this.reverseIndexed = reverseIndexed;
+    }
+    
+    public boolean isIndexOnly() {
+        return indexOnly;
+    }
+    
+    public void setIndexOnly(boolean indexOnly) {
+        this.indexOnly = indexOnly;
+    }
+    
+    public boolean isTokenized() {
+        return tokenized;
+    }
+    
+    public void setTokenized(boolean tokenized) {
+        this.tokenized = tokenized;
+    }
+    
+    /**
+     * @return the total of the frequency counts of the field
+     */
+    public long getCount() {
+        return count;
+    }
+    
+    public void setCount(long count) {
+        this.count = count;
+    }
+    
+    /**
+     * @return the date, as yyyyMMdd, of the most recent frequency count of the field
+     */
+    public String getLastUpdated() {
+        return lastUpdated;
+    }
+    
+    public void setLastUpdated(String lastUpdated) {
+        this.lastUpdated = lastUpdated;
+    }
+    
+    public List<String> getTypes() {
+        return types;
+    }
+    
+    public void setTypes(List<String> types) {
+        this.types = types;
+    }
+    
+    /**
+     * @return the descriptions of the field that are visible to the caller
+     */
+    public List<String> getDescriptions() {
+        return descriptions;
+    }
+    
+    public void setDescriptions(List<String> descriptions) {
+        this.descriptions = descriptions;
+    }
+    
+}
@@ -0,0 +1,71 @@
+package datawave.webservice.dictionary;
+
+import java.io.Serializable;
+import java.util.Date;
+import java.util.List;
+
+import javax.xml.bind.annotation.XmlAccessOrder;
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorOrder;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlAttribute;
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlElementWrapper;
+import javax.xml.bind.annotation.XmlRootElement;
+
+/**
+ * The data dictionary as served by the {@link DataDictionaryBean} from the cached metadata table.
+ */
+@XmlRootElement(name = "DataDictionary")
+@XmlAccessorType(XmlAccessType.NONE)
+@XmlAccessorOrder(XmlAccessOrder.ALPHABETICAL)
+public class DataDictionaryFieldList implements Serializable {
+    
+    private static final long serialVersionUID = 1L;
+    
+    @XmlAttribute(name = "metadataTableName")
+    private String metadataTableName = null;
+    
+    @XmlAttribute(name = "lastRefresh")
+    private Date lastRefresh = null;
+    
+    @XmlAttribute(name = "totalResults")
+    private long totalResults = 0;
+    
+    @XmlElementWrapper(name = "Fields")
+    @XmlElement(name = "Field")
+    private List<DataDictionaryField> fields = null;
+    
+    public String getMetadataTableName() {
+        return metadataTableName;
+    }
+    
+    public void setMetadataTableName(String metadataTableName) {
+        this.metadataTableName = metadataTableName;
+    }
+    
+    /**
+     * @return the time the cached metadata table the fields were read from was refreshed
+     */
+    public Date getLastRefresh() {
+        return lastRefresh;
+    }
+    
+    public void setLastRefresh(Date lastRefresh) {
+        this.lastRefresh = lastRefresh;
+    }
+    
+    public long getTotalResults() {
+        return totalResults;
+    }
+    
+    public List<DataDictionaryField> getFields() {
+        return fields;
+    }
+    
+    public void setFields(List<DataDictionaryField> fields) {
+        this.fields = fields;
+        this.totalResults = (fields == null) ? 0 : fields.size();
+    }
+    
+}
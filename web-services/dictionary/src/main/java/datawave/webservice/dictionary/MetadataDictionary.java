@@ -0,0 +1,211 @@
+package datawave.webservice.dictionary;
+
+import datawave.data.ColumnFamilyConstants;
+import org.apache.accumulo.core.data.ByteSequence;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.iterators.LongCombiner;
+import org.apache.accumulo.core.iterators.ValueFormatException;
+import org.apache.accumulo.core.security.Authorizations;
+import org.apache.accumulo.core.security.ColumnVisibility;
+import org.apache.accumulo.core.security.VisibilityEvaluator;
+import org.apache.accumulo.core.security.VisibilityParseException;
+import org.apache.hadoop.io.Text;
+import org.apache.log4j.Logger;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * An in-memory summary of the metadata table, holding for each field and datatype the index flags, the normalizer types, the total of the frequency columns and
+ * the descriptions. The summary is kept apart for each column visibility found in the table, so that the fields returned for a caller only reflect the entries
+ * the caller is allowed to see. A summary is immutable once loaded, and is replaced as a whole when the metadata table changes.
+ */
+public class MetadataDictionary {
+    
+    private static final Logger log = Logger.getLogger(MetadataDictionary.class);
+    
+    private static final String NULL_BYTE = "\0";
+    
+    // descriptions are written to the metadata table by the dictionary service, with the datatype as the qualifier and the description as the value
+    private static final Text COLF_DESC = new Text("desc");
+    
+    private static final int EVENT = 1;
+    private static final int INDEXED = 2;
+    private static final int REVERSE_INDEXED = 4;
+    private static final int TOKENIZED = 8;
+    
+    // field name, then datatype, then the summary of the entries with each visibility
+    private final Map<String,Map<String,Map<ByteSequence,Summary>>> fields;
+    
+    private MetadataDictionary(Map<String,Map<String,Map<ByteSequence,Summary>>> fields) {
+        this.fields = fields;
+    }
+    
+    /**
+     * Summarize the entries of a metadata table
+     *
+     * @param entries
+     *            the metadata table entries
+     * @return the summary
+     */
+    public static MetadataDictionary load(Iterable<Entry<Key,Value>> entries) {
+        Map<String,Map<String,Map<ByteSequence,Summary>>> fields = new TreeMap<>();
+        Text colf = new Text();
+        for (Entry<Key,Value> entry : entries) {
+            Key key = entry.getKey();
+            key.getColumnFamily(colf);
+            String fieldName = key.getRow().toString();
+            String cq = key.getColumnQualifier().toString();
+            String datatype = cq;
+            int separator = cq.indexOf(NULL_BYTE);
+            if (separator >= 0) {
+                datatype = cq.substring(0, separator);
+            }
+            
+            Summary summary;
+            if (colf.equals(ColumnFamilyConstants.COLF_E)) {
+                summary = getSummary(fields, fieldName, datatype, key);
+                summary.flags |= EVENT;
+            } else if (colf.equals(ColumnFamilyConstants.COLF_I)) {
+                summary = getSummary(fields, fieldName, datatype, key);
+                summary.flags |= INDEXED;
+            } else if (colf.equals(ColumnFamilyConstants.COLF_RI)) {
+                summary = getSummary(fields, fieldName, datatype, key);
+                summary.flags |= REVERSE_INDEXED;
+            } else if (colf.equals(ColumnFamilyConstants.COLF_TF)) {
+                summary = getSummary(fields, fieldName, datatype, key);
+                summary.flags |= TOKENIZED;
+            } else if (colf.equals(ColumnFamilyConstants.COLF_T) && separator >= 0) {
+                summary = getSummary(fields, fieldName, datatype, key);
+                summary.types.add(cq.substring(separator + 1));
+            } else if (colf.equals(ColumnFamilyConstants.COLF_F) && separator >= 0) {
+                try {
+                    long count = LongCombiner.VAR_LEN_ENCODER.decode(entry.getValue().get());
+                    summary = getSummary(fields, fieldName, datatype, key);
+                    summary.count += count;
+                    String date = cq.substring(separator + 1);
+                    if (summary.lastUpdated == null || date.compareTo(summary.lastUpdated) > 0) {
+                        summary.lastUpdated = date;
+                    }
+                } catch (ValueFormatException e) {
+                    log.debug("Ignoring unreadable frequency for " + key, e);
+                }
+            } else if (colf.equals(COLF_DESC)) {
+                String description = new String(entry.getValue().get(), StandardCharsets.UTF_8);
+                if (!description.isEmpty()) {
+                    summary = getSummary(fields, fieldName, datatype, key);
+                    summary.descriptions.add(description);
+                }
+            }
+        }
+        return new MetadataDictionary(fields);
+    }
+    
+    private static Summary getSummary(Map<String,Map<String,Map<ByteSequence,Summary>>> fields, String fieldName, String datatype, Key key) {
+        return fields.computeIfAbsent(fieldName, k -> new TreeMap<>()).computeIfAbsent(datatype, k -> new HashMap<>(4))
+                        .computeIfAbsent(key.getColumnVisibilityData(), k -> new Summary());
+    }
+    
+    /**
+     * Get the fields that are visible with every one of a set of authorizations, as there is one set for each entity in a proxied call
+     *
+     * @param authorizations
+     *            the authorizations of the caller
+     * @param dataTypes
+     *            the datatypes to return the fields of, or an empty collection for all of them
+     * @return the fields, ordered by name and then datatype
+     */
+    public List<DataDictionaryField> getFields(Collection<Authorizations> authorizations, Collection<String> dataTypes) {
+        List<VisibilityEvaluator> evaluators = new ArrayList<>(authorizations.size());
+        for (Authorizations auths : authorizations) {
+            evaluators.add(new VisibilityEvaluator(auths));
+        }
+        // there are few distinct visibilities in a metadata table, so evaluate each of them once
+        Map<ByteSequence,Boolean> visible = new HashMap<>();
+        
+        List<DataDictionaryField> result = new ArrayList<>();
+        for (Entry<String,Map<String,Map<ByteSequence,Summary>>> field : fields.entrySet()) {
+            for (Entry<String,Map<ByteSequence,Summary>> datatype : field.getValue().entrySet()) {
+                if (!dataTypes.isEmpty() && !dataTypes.contains(datatype.getKey())) {
+                    continue;
+                }
+                Summary merged = null;
+                for (Entry<ByteSequence,Summary> summary : datatype.getValue().entrySet()) {
+                    if (visible.computeIfAbsent(summary.getKey(), v -> isVisible(v, evaluators))) {
+                        merged = (merged == null) ? new Summary() : merged;
+                        merged.add(summary.getValue());
+                    }
+                }
+                if (merged != null) {
+                    result.add(merged.toField(field.getKey(), datatype.getKey()));
+                }
+            }
+        }
+        return result;
+    }
+    
+    private static boolean isVisible(ByteSequence visibility, List<VisibilityEvaluator> evaluators) {
+        ColumnVisibility columnVisibility = new ColumnVisibility(visibility.toArray());
+        try {
+            for (VisibilityEvaluator evaluator : evaluators) {
+                if (!evaluator.evaluate(columnVisibility)) {
+                    return false;
+                }
+            }
+            return true;
+        } catch (VisibilityParseException e) {
+            log.warn("Unable to evaluate metadata visibility " + visibility, e);
+            return false;
+        }
+    }
+    
+    /**
+     * @return the number of fields in the summary
+     */
+    public int size() {
+        return fields.size();
+    }
+    
+    private static class Summary {
+        private int flags;
+        private final TreeSet<String> types = new TreeSet<>();
+        private final TreeSet<String> descriptions = new TreeSet<>();
+        private long count;
+        private String lastUpdated;
+        
+        private void add(Summary other) {
+            flags |= other.flags;
+            types.addAll(other.types);
+            descriptions.addAll(other.descriptions);
+            count += other.count;
+            if (lastUpdated == null || (other.lastUpdated != null && other.lastUpdated.compareTo(lastUpdated) > 0)) {
+                lastUpdated = other.lastUpdated;
+            }
+        }
+        
+        private DataDictionaryField toField(String fieldName, String datatype) {
+            DataDictionaryField field = new DataDictionaryField();
+            field.setFieldName(fieldName);
+            field.setDataType(datatype);
+            field.setForwardIndexed((flags & INDEXED) != 0);
+            field.setReverseIndexed((flags & REVERSE_INDEXED) != 0);
+            field.setTokenized((flags & TOKENIZED) != 0);
+            // fields that are indexed but never written to the event are index only
+            field.setIndexOnly((flags & EVENT) == 0 && (flags & (INDEXED | REVERSE_INDEXED)) != 0);
+            field.setTypes(types.isEmpty() ? Collections.emptyList() : new ArrayList<>(types));
+            field.setDescriptions(descriptions.isEmpty() ? Collections.emptyList() : new ArrayList<>(descriptions));
+            field.setCount(count);
+            field.setLastUpdated(lastUpdated);
+            return field;
+        }
+    }
+}
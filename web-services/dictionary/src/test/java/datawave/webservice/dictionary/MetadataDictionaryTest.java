@@ -0,0 +1,109 @@
+package datawave.webservice.dictionary;
+
+import datawave.data.ColumnFamilyConstants;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.iterators.LongCombiner;
+import org.apache.accumulo.core.security.Authorizations;
+import org.apache.hadoop.io.Text;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map.Entry;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class MetadataDictionaryTest {
+    
+    private static final String NULL = "\0";
+    private static final Value EMPTY_VALUE = new Value(new byte[0]);
+    private static final Text DESC = new Text("desc");
+    
+    private MetadataDictionary dictionary;
+    
+    @Before
+    public void setup() {
+        List<Entry<Key,Value>> entries = new ArrayList<>();
+        add(entries, "NAME", ColumnFamilyConstants.COLF_E, "csv", "", EMPTY_VALUE);
+        add(entries, "NAME", ColumnFamilyConstants.COLF_I, "csv", "", EMPTY_VALUE);
+        add(entries, "NAME", ColumnFamilyConstants.COLF_RI, "csv", "", EMPTY_VALUE);
+        add(entries, "NAME", ColumnFamilyConstants.COLF_T, "csv" + NULL + "datawave.data.type.LcNoDiacriticsType", "", EMPTY_VALUE);
+        add(entries, "NAME", ColumnFamilyConstants.COLF_F, "csv" + NULL + "20200101", "", count(10));
+        add(entries, "NAME", ColumnFamilyConstants.COLF_F, "csv" + NULL + "20200102", "", count(5));
+        add(entries, "NAME", ColumnFamilyConstants.COLF_F, "csv" + NULL + "20200103", "PRIVATE", count(100));
+        add(entries, "NAME", ColumnFamilyConstants.COLF_E, "json", "", EMPTY_VALUE);
+        add(entries, "BODY", ColumnFamilyConstants.COLF_I, "csv", "", EMPTY_VALUE);
+        add(entries, "BODY", ColumnFamilyConstants.COLF_TF, "csv", "", EMPTY_VALUE);
+        add(entries, "NAME", DESC, "csv", "", new Value("The name of the person".getBytes(StandardCharsets.UTF_8)));
+        add(entries, "NAME", DESC, "csv", "PRIVATE", new Value("The legal name of the person".getBytes(StandardCharsets.UTF_8)));
+        add(entries, "SECRET", ColumnFamilyConstants.COLF_E, "csv", "PRIVATE", EMPTY_VALUE);
+        dictionary = MetadataDictionary.load(entries);
+    }
+    
+    @Test
+    public void testFields() {
+        List<DataDictionaryField> fields = dictionary.getFields(Collections.singleton(new Authorizations()), Collections.emptySet());
+        assertEquals(3, fields.size());
+        
+        DataDictionaryField body = fields.get(0);
+        assertEquals("BODY", body.getFieldName());
+        assertEquals("csv", body.getDataType());
+        assertTrue(body.isForwardIndexed());
+        assertTrue(body.isIndexOnly());
+        assertTrue(body.isTokenized());
+        
+        DataDictionaryField name = fields.get(1);
+        assertEquals("NAME", name.getFieldName());
+        assertEquals("csv", name.getDataType());
+        assertTrue(name.isForwardIndexed());
+        assertTrue(name.isReverseIndexed());
+        assertFalse(name.isIndexOnly());
+        assertEquals(Collections.singletonList("datawave.data.type.LcNoDiacriticsType"), name.getTypes());
+        assertEquals(15, name.getCount());
+        assertEquals("20200102", name.getLastUpdated());
+        assertEquals(Collections.singletonList("The name of the person"), name.getDescriptions());
+        
+        assertEquals("json", fields.get(2).getDataType());
+        assertFalse(fields.get(2).isForwardIndexed());
+        assertEquals(Collections.emptyList(), fields.get(2).getDescriptions());
+    }
+    
+    @Test
+    public void testVisibility() {
+        List<DataDictionaryField> fields = dictionary.getFields(Collections.singleton(new Authorizations("PRIVATE")), Collections.emptySet());
+        assertEquals(4, fields.size());
+        assertEquals(115, fields.get(1).getCount());
+        assertEquals("20200103", fields.get(1).getLastUpdated());
+        assertEquals(Arrays.asList("The legal name of the person", "The name of the person"), fields.get(1).getDescriptions());
+        assertEquals("SECRET", fields.get(3).getFieldName());
+        
+        // a proxied call only sees what every entity in the chain can see
+        fields = dictionary.getFields(Arrays.asList(new Authorizations("PRIVATE"), new Authorizations()), Collections.emptySet());
+        assertEquals(3, fields.size());
+        assertEquals(15, fields.get(1).getCount());
+    }
+    
+    @Test
+    public void testDataTypeFilter() {
+        List<DataDictionaryField> fields = dictionary.getFields(Collections.singleton(new Authorizations()), Collections.singleton("json"));
+        assertEquals(1, fields.size());
+        assertEquals("NAME", fields.get(0).getFieldName());
+        assertEquals("json", fields.get(0).getDataType());
+    }
+    
+    private static Value count(long count) {
+        return new Value(LongCombiner.VAR_LEN_ENCODER.encode(count));
+    }
+    
+    private static void add(List<Entry<Key,Value>> entries, String row, Text cf, String cq, String visibility, Value value) {
+        entries.add(new AbstractMap.SimpleEntry<>(new Key(new Text(row), cf, new Text(cq), new Text(visibility)), value));
+    }
+}
@@ -0,0 +1,69 @@
+package datawave.webservice.mr.bulkresults.map;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import datawave.webservice.mr.bulkresults.map.BulkResultsBlockOutputFormat.Block;
+
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Value;
+import org.apache.hadoop.fs.BlockLocation;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.mapreduce.InputSplit;
+import org.apache.hadoop.mapreduce.JobContext;
+import org.apache.hadoop.mapreduce.lib.input.SequenceFileInputFormat;
+import org.apache.log4j.Logger;
+
+/**
+ * Reads the blocks of bulk results written by the {@link BulkResultsBlockOutputFormat}. The files are split on the blocks listed in their index, so that each
+ * split starts at the sync marker of a block and holds whole blocks up to the split size, without reading the files to find the blocks. Files without an
+ * index are read as a single split. Each value is a block of results, which are read with {@link BulkResultsBlockOutputFormat#getResults(Value)}.
+ */
+public class BulkResultsBlockInputFormat extends SequenceFileInputFormat<Key,Value> {
+    
+    private static final Logger log = Logger.getLogger(BulkResultsBlockInputFormat.class);
+    
+    @Override
+    public List<InputSplit> getSplits(JobContext job) throws IOException {
+        long minSize = Math.max(getFormatMinSplitSize(), getMinSplitSize(job));
+        long maxSize = getMaxSplitSize(job);
+        
+        List<InputSplit> splits = new ArrayList<>();
+        for (FileStatus status : listStatus(job)) {
+            Path file = status.getPath();
+            long length = status.getLen();
+            if (length == 0) {
+                continue;
+            }
+            FileSystem fs = file.getFileSystem(job.getConfiguration());
+            BlockLocation[] locations = fs.getFileBlockLocations(status, 0, length);
+            List<Block> blocks = BulkResultsBlockOutputFormat.readIndex(fs, file);
+            if (blocks == null) {
+                log.warn("No bulk results index for " + file + ", reading it as a single split");
+                splits.add(makeSplit(file, 0, length, locations[0].getHosts()));
+                continue;
+            }
+            if (blocks.isEmpty()) {
+                continue;
+            }
+            
+            long splitSize = computeSplitSize(status.getBlockSize(), minSize, maxSize);
+            long start = blocks.get(0).getOffset();
+            for (Block block : blocks) {
+                if (block.getOffset() - start >= splitSize) {
+                    splits.add(makeSplit(file, start, block.getOffset() - start, locations[getBlockIndex(locations, start)].getHosts()));
+                    start = block.getOffset();
+                }
+            }
+            splits.add(makeSplit(file, start, length - start, locations[getBlockIndex(locations, start)].getHosts()));
+        }
+        
+        if (log.isDebugEnabled()) {
+            log.debug("Total # of bulk results splits: " + splits.size());
+        }
+        return splits;
+    }
+}
@@ -0,0 +1,199 @@
+package datawave.webservice.mr.bulkresults.map;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Value;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.SequenceFile;
+import org.apache.hadoop.io.SequenceFile.CompressionType;
+import org.apache.hadoop.io.WritableUtils;
+import org.apache.hadoop.mapreduce.RecordWriter;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.hadoop.mapreduce.lib.output.SequenceFileOutputFormat;
+
+/**
+ * Writes blocks of bulk results, as built by the {@link BulkResultsFileOutputMapper} when {@link BulkResultsFileOutputMapper#RESULTS_PER_BLOCK} is set, to a
+ * SequenceFile. Each value holds the serialized responses of a block of results, each preceded by its length as a variable length int, and is written in a
+ * SequenceFile block of its own so that a block can be read without reading the ones before it.
+ * <p>
+ * A sidecar index is written next to each SequenceFile, named after it with a leading underscore so that input formats skip it. The index has a line for each
+ * block with the offset of the sync marker preceding the block and the number of results it holds, separated by a tab. A block is read by calling
+ * {@link SequenceFile.Reader#sync(long)} with its offset followed by a single {@link SequenceFile.Reader#next}, and the output is split on the blocks by the
+ * {@link BulkResultsBlockInputFormat}.
+ * <p>
+ * The output must be block compressed, so that each block starts at the sync marker written before it.
+ */
+public class BulkResultsBlockOutputFormat extends SequenceFileOutputFormat<Key,Value> {
+    
+    public static final String INDEX_EXTENSION = ".index";
+    
+    /**
+     * A block of results, as listed in the index
+     */
+    public static class Block {
+        private final long offset;
+        private final int results;
+        
+        public Block(long offset, int results) {
+            this.offset = offset;
+            this.results = results;
+        }
+        
+        /**
+         * @return the offset of the sync marker preceding the block
+         */
+        public long getOffset() {
+            return offset;
+        }
+        
+        /**
+         * @return the number of results in the block
+         */
+        public int getResults() {
+            return results;
+        }
+    }
+    
+    @Override
+    public RecordWriter<Key,Value> getRecordWriter(TaskAttemptContext context) throws IOException, InterruptedException {
+        if (!getCompressOutput(context) || getOutputCompressionType(context) != CompressionType.BLOCK) {
+            throw new IOException("Blocks of bulk results must be written with block compression");
+        }
+        final SequenceFile.Writer out = getSequenceWriter(context, Key.class, Value.class);
+        
+        Path file = getDefaultWorkFile(context, "");
+        Path indexFile = getIndexPath(file);
+        final PrintWriter index = new PrintWriter(new OutputStreamWriter(indexFile.getFileSystem(context.getConfiguration()).create(indexFile, false),
+                        StandardCharsets.UTF_8));
+        
+        return new RecordWriter<Key,Value>() {
+            @Override
+            public void write(Key key, Value value) throws IOException {
+                // flush the previous block, so this one starts after a sync marker of its own
+                out.sync();
+                long offset = out.getLength();
+                out.append(key, value);
+                index.print(offset);
+                index.print('\t');
+                index.println(countResults(value));
+            }
+            
+            @Override
+            public void close(TaskAttemptContext context) throws IOException {
+                try {
+                    out.close();
+                } finally {
+                    index.close();
+                }
+                if (index.checkError()) {
+                    throw new IOException("Unable to write the bulk results index " + indexFile);
+                }
+            }
+        };
+    }
+    
+    /**
+     * @param file
+     *            a SequenceFile of blocks of results
+     * @return the path of the index of the file
+     */
+    public static Path getIndexPath(Path file) {
+        return new Path(file.getParent(), "_" + file.getName() + INDEX_EXTENSION);
+    }
+    
+    /**
+     * Read the index of a SequenceFile of blocks of results
+     *
+     * @param fs
+     *            the file system holding the file
+     * @param file
+     *            the SequenceFile
+     * @return the blocks of the file, in order, or null if the file has no index
+     * @throws IOException
+     *             if the index could not be read or is malformed
+     */
+    public static List<Block> readIndex(FileSystem fs, Path file) throws IOException {
+        Path indexFile = getIndexPath(file);
+        if (!fs.exists(indexFile)) {
+            return null;
+        }
+        List<Block> blocks = new ArrayList<>();
+        try (BufferedReader index = new BufferedReader(new InputStreamReader(fs.open(indexFile), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = index.readLine()) != null) {
+                int tab = line.indexOf('\t');
+                try {
+                    blocks.add(new Block(Long.parseLong(line.substring(0, tab)), Integer.parseInt(line.substring(tab + 1))));
+                } catch (IndexOutOfBoundsException | NumberFormatException e) {
+                    throw new IOException("Malformed line in the bulk results index " + indexFile + ": " + line, e);
+                }
+            }
+        }
+        return blocks;
+    }
+    
+    /**
+     * Append a serialized result to a block
+     *
+     * @param block
+     *            the block
+     * @param result
+     *            the serialized result
+     * @throws IOException
+     *             if the result could not be written
+     */
+    public static void appendResult(DataOutput block, Value result) throws IOException {
+        WritableUtils.writeVInt(block, result.getSize());
+        block.write(result.get(), 0, result.getSize());
+    }
+    
+    /**
+     * @param block
+     *            a block of results
+     * @return the number of results in the block
+     * @throws IOException
+     *             if the block is malformed
+     */
+    public static int countResults(Value block) throws IOException {
+        int count = 0;
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(block.get(), 0, block.getSize()));
+        while (in.available() > 0) {
+            int length = WritableUtils.readVInt(in);
+            if (in.skipBytes(length) != length) {
+                throw new IOException("Truncated bulk results block");
+            }
+            count++;
+        }
+        return count;
+    }
+    
+    /**
+     * @param block
+     *            a block of results
+     * @return the serialized results in the block, in the format the job was run with
+     * @throws IOException
+     *             if the block is malformed
+     */
+    public static List<byte[]> getResults(Value block) throws IOException {
+        List<byte[]> results = new ArrayList<>();
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(block.get(), 0, block.getSize()));
+        while (in.available() > 0) {
+            byte[] result = new byte[WritableUtils.readVInt(in)];
+            in.readFully(result);
+            results.add(result);
+        }
+        return results;
+    }
+}
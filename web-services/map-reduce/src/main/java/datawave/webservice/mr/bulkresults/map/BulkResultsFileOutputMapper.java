@@ -1,6 +1,7 @@
 package datawave.webservice.mr.bulkresults.map;
 
 import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.StringReader;
 import java.io.StringWriter;
@@ -57,11 +58,21 @@ public class BulkResultsFileOutputMapper extends ApplicationContextAwareMapper<K
      */
     public static final String RESULT_SERIALIZATION_FORMAT = "bulk.results.serial.format";
     
+    /**
+     * Parameter to store the number of results to write in each block for the {@link BulkResultsBlockOutputFormat}, results are written one per record if unset
+     */
+    public static final String RESULTS_PER_BLOCK = "bulk.results.per.block";
+    
     private QueryLogicTransformer t = null;
     private Map<Key,Value> entries = new HashMap<>();
     private Map<String,Class<? extends BaseQueryResponse>> responseClassMap = new HashMap<>();
     private SerializationFormat format = SerializationFormat.XML;
     private Weld weld;
+    private int resultsPerBlock = 0;
+    private ByteArrayOutputStream block = new ByteArrayOutputStream(1024);
+    private DataOutputStream blockOutput = new DataOutputStream(block);
+    private int blockResults = 0;
+    private Key blockKey = null;
     
     @Override
     protected void setup(org.apache.hadoop.mapreduce.Mapper<Key,Value,Key,Value>.Context context) throws IOException, InterruptedException {
@@ -93,10 +104,12 @@ public class BulkResultsFileOutputMapper extends ApplicationContextAwareMapper<K
         Assert.notNull(logic.getMarkingFunctions());
         Assert.notNull(logic.getResponseObjectFactory());
         this.format = SerializationFormat.valueOf(context.getConfiguration().get(RESULT_SERIALIZATION_FORMAT));
+        this.resultsPerBlock = context.getConfiguration().getInt(RESULTS_PER_BLOCK, 0);
     }
     
     @Override
     protected void cleanup(Context context) throws IOException, InterruptedException {
+        writeBlock(context);
         super.cleanup(context);
         
         if (weld != null) {
@@ -121,14 +134,18 @@ public class BulkResultsFileOutputMapper extends ApplicationContextAwareMapper<K
                 
                 try {
                     Value val = serializeResponse(responseClass, response, this.format);
-                    // Write out the original key and the new value.
-                    if (context.getOutputKeyClass() == null || context.getOutputKeyClass().equals(NullWritable.class)) {
-                        // don't write the key in this case, write only the value
-                        key = null;
+                    if (this.resultsPerBlock > 0) {
+                        appendToBlock(key, val, context);
                     } else {
-                        key = new Key(key); // to preserve whatever the reason was for this wrapping of the key in the original code
+                        // Write out the original key and the new value.
+                        if (context.getOutputKeyClass() == null || context.getOutputKeyClass().equals(NullWritable.class)) {
+                            // don't write the key in this case, write only the value
+                            key = null;
+                        } else {
+                            key = new Key(key); // to preserve whatever the reason was for this wrapping of the key in the original code
+                        }
+                        context.write(key, val);
                     }
-                    context.write(key, val);
                 } catch (Exception e) {
                     throw new RuntimeException("Unable to serialize response of class: " + response.getClass().getName(), e);
                 }
@@ -139,6 +156,27 @@ public class BulkResultsFileOutputMapper extends ApplicationContextAwareMapper<K
         }
     }
     
+    private void appendToBlock(Key key, Value val, Context context) throws IOException, InterruptedException {
+        if (this.blockResults == 0) {
+            // the block is keyed by its first result
+            this.blockKey = new Key(key);
+        }
+        BulkResultsBlockOutputFormat.appendResult(this.blockOutput, val);
+        if (++this.blockResults >= this.resultsPerBlock) {
+            writeBlock(context);
+        }
+    }
+    
+    private void writeBlock(Context context) throws IOException, InterruptedException {
+        if (this.blockResults > 0) {
+            this.blockOutput.flush();
+            context.write(this.blockKey, new Value(this.block.toByteArray()));
+            this.block.reset();
+            this.blockResults = 0;
+            this.blockKey = null;
+        }
+    }
+    
     private Class<? extends BaseQueryResponse> getResponseClass(String className) throws ClassNotFoundException {
         if (responseClassMap.containsKey(className))
             return responseClassMap.get(className);
@@ -15,6 +15,7 @@ import datawave.webservice.query.logic.QueryLogic;
 import datawave.webservice.query.logic.QueryLogicTransformer;
 import datawave.webservice.result.BaseQueryResponse;
 
+import org.apache.accumulo.core.data.ArrayByteSequence;
 import org.apache.accumulo.core.data.Key;
 import org.apache.accumulo.core.data.Mutation;
 import org.apache.accumulo.core.data.Value;
@@ -26,11 +27,17 @@ public class BulkResultsTableOutputMapper extends ApplicationContextAwareMapper<
     public static final String TABLE_NAME = "bulk.results.output.table";
     public static final String QUERY_LOGIC_NAME = "query.logic.name";
     
+    // keep the mutations for a row well under the memory of the batch writer
+    static final long MAX_MUTATION_BYTES = 1048576L;
+    
     private Text tableName = null;
     private QueryLogicTransformer t = null;
     private Map<Key,Value> entries = new HashMap<>();
     private Map<String,Class<? extends BaseQueryResponse>> responseClassMap = new HashMap<>();
     private SerializationFormat format = SerializationFormat.XML;
+    // the results are read in key order, so the columns of a row are collected into a single mutation
+    private Mutation mutation = null;
+    private long mutationBytes = 0;
     
     @Override
     protected void setup(org.apache.hadoop.mapreduce.Mapper<Key,Value,Text,Mutation>.Context context) throws IOException, InterruptedException {
@@ -73,10 +80,8 @@ public class BulkResultsTableOutputMapper extends ApplicationContextAwareMapper<
                 
                 try {
                     Value val = BulkResultsFileOutputMapper.serializeResponse(responseClass, response, this.format);
-                    // Write out the original key and the new value.
-                    Mutation m = new Mutation(key.getRow());
-                    m.put(key.getColumnFamily(), key.getColumnQualifier(), new ColumnVisibility(key.getColumnVisibility()), key.getTimestamp(), val);
-                    context.write(this.tableName, m);
+                    // Write out the original key and the new value
+                    addColumn(key, val, context);
                 } catch (Exception e) {
                     throw new RuntimeException("Unable to serialize response of class: " + response.getClass().getName(), e);
                 }
@@ -87,6 +92,49 @@ public class BulkResultsTableOutputMapper extends ApplicationContextAwareMapper<
         }
     }
     
+    @Override
+    protected void cleanup(org.apache.hadoop.mapreduce.Mapper<Key,Value,Text,Mutation>.Context context) throws IOException, InterruptedException {
+        writeMutation(context);
+        super.cleanup(context);
+    }
+    
+    /**
+     * Add a column to the mutation of its row, writing the mutation of the previous row once the key moves past it, or the mutation of this row once it
+     * grows past {@link #MAX_MUTATION_BYTES}.
+     *
+     * @param key
+     *            the key of the column
+     * @param val
+     *            the value of the column
+     * @param context
+     *            the context the mutations are written to
+     * @throws IOException
+     *             if a mutation could not be written
+     * @throws InterruptedException
+     *             if interrupted writing a mutation
+     */
+    void addColumn(Key key, Value val, org.apache.hadoop.mapreduce.Mapper<Key,Value,Text,Mutation>.Context context) throws IOException, InterruptedException {
+        if (this.mutation != null && !key.getRowData().equals(new ArrayByteSequence(this.mutation.getRow()))) {
+            writeMutation(context);
+        }
+        if (this.mutation == null) {
+            this.mutation = new Mutation(key.getRow());
+        }
+        this.mutation.put(key.getColumnFamily(), key.getColumnQualifier(), new ColumnVisibility(key.getColumnVisibility()), key.getTimestamp(), val);
+        this.mutationBytes += key.getSize() + val.getSize();
+        if (this.mutationBytes >= MAX_MUTATION_BYTES) {
+            writeMutation(context);
+        }
+    }
+    
+    void writeMutation(org.apache.hadoop.mapreduce.Mapper<Key,Value,Text,Mutation>.Context context) throws IOException, InterruptedException {
+        if (this.mutation != null) {
+            context.write(this.tableName, this.mutation);
+            this.mutation = null;
+            this.mutationBytes = 0;
+        }
+    }
+    
     private Class<? extends BaseQueryResponse> getResponseClass(String className) throws ClassNotFoundException {
         if (responseClassMap.containsKey(className))
             return responseClassMap.get(className);
@@ -6,6 +6,7 @@ import datawave.security.iterator.ConfigurableVisibilityFilter;
 import datawave.security.util.AuthorizationsUtil;
 import datawave.webservice.common.connection.AccumuloConnectionFactory;
 import datawave.webservice.common.exception.NoResultsException;
+import datawave.webservice.mr.bulkresults.map.BulkResultsBlockOutputFormat;
 import datawave.webservice.mr.bulkresults.map.BulkResultsFileOutputMapper;
 import datawave.webservice.mr.bulkresults.map.BulkResultsTableOutputMapper;
 import datawave.webservice.mr.bulkresults.map.SerializationFormat;
@@ -119,6 +120,8 @@ public class BulkResultsJobConfiguration extends MapReduceJobConfiguration imple
     private String sid;
     private Principal principal;
     
+    private static final int DEFAULT_RESULTS_PER_BLOCK = 1000;
+    
     private String tableName = null;
     private Class<? extends OutputFormat> outputFormatClass = SequenceFileOutputFormat.class;
     
@@ -131,6 +134,19 @@ public class BulkResultsJobConfiguration extends MapReduceJobConfiguration imple
         String outputFormatParameter = runtimeParameters.get("outputFormat");
         if (outputFormatParameter != null && outputFormatParameter.equalsIgnoreCase("TEXT")) {
             this.outputFormatClass = TextOutputFormat.class;
+        } else if (outputFormatParameter != null && outputFormatParameter.equalsIgnoreCase("BLOCK")) {
+            this.outputFormatClass = BulkResultsBlockOutputFormat.class;
+        }
+        int resultsPerBlock = DEFAULT_RESULTS_PER_BLOCK;
+        if (runtimeParameters.containsKey("resultsPerBlock")) {
+            try {
+                resultsPerBlock = Integer.parseInt(runtimeParameters.get("resultsPerBlock"));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid resultsPerBlock: " + runtimeParameters.get("resultsPerBlock"), e);
+            }
+            if (resultsPerBlock < 1) {
+                throw new IllegalArgumentException("resultsPerBlock must be positive: " + resultsPerBlock);
+            }
         }
         if (runtimeParameters.containsKey("outputTableName"))
             this.tableName = runtimeParameters.get("outputTableName");
@@ -173,6 +189,11 @@ public class BulkResultsJobConfiguration extends MapReduceJobConfiguration imple
                 job.setOutputValueClass(Value.class);
                 if (this.outputFormatClass.equals(SequenceFileOutputFormat.class)) {
                     SequenceFileOutputFormat.setOutputCompressionType(job, CompressionType.BLOCK);
+                } else if (this.outputFormatClass.equals(BulkResultsBlockOutputFormat.class)) {
+                    // write blocks of results, each compressed in a SequenceFile block of its own
+                    job.getConfiguration().setInt(BulkResultsFileOutputMapper.RESULTS_PER_BLOCK, resultsPerBlock);
+                    SequenceFileOutputFormat.setCompressOutput(job, true);
+                    SequenceFileOutputFormat.setOutputCompressionType(job, CompressionType.BLOCK);
                 } else if (this.outputFormatClass.equals(TextOutputFormat.class)) {
                     // if we are writing Text output to hdfs, we don't want to write key-tab-value, we want just the value
                     // this property gets fetched in the Mapper to skip writing the key
@@ -201,7 +222,7 @@ public class BulkResultsJobConfiguration extends MapReduceJobConfiguration imple
                                 .setMaxMemory(10485760)
                                 .setMaxWriteThreads(2))
                         .build();
-
+                
                 AccumuloOutputFormat.configure()
                         .clientProperties(clientProps)
                         .createTables(true)
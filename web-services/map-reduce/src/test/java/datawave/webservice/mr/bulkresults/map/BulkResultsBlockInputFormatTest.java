@@ -0,0 +1,92 @@
+package datawave.webservice.mr.bulkresults.map;
+
+import static datawave.webservice.mr.bulkresults.map.BulkResultsBlockOutputFormatTest.BLOCK_SIZES;
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Value;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.SequenceFile.CompressionType;
+import org.apache.hadoop.mapreduce.InputSplit;
+import org.apache.hadoop.mapreduce.Job;
+import org.apache.hadoop.mapreduce.RecordReader;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.hadoop.mapreduce.TaskAttemptID;
+import org.apache.hadoop.mapreduce.lib.input.FileInputFormat;
+import org.apache.hadoop.mapreduce.task.TaskAttemptContextImpl;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class BulkResultsBlockInputFormatTest {
+    
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+    
+    private Path file;
+    private Job job;
+    
+    @Before
+    public void setup() throws Exception {
+        file = BulkResultsBlockOutputFormatTest.writeBlocks(folder.newFolder(), CompressionType.BLOCK, BLOCK_SIZES);
+        job = Job.getInstance(new Configuration());
+        FileInputFormat.addInputPath(job, file.getParent());
+    }
+    
+    @Test
+    public void testSplitPerBlock() throws Exception {
+        FileInputFormat.setMaxInputSplitSize(job, 1);
+        
+        List<InputSplit> splits = new BulkResultsBlockInputFormat().getSplits(job);
+        assertEquals(BLOCK_SIZES.length, splits.size());
+        for (int i = 0; i < splits.size(); i++) {
+            List<String> blocks = read(splits.get(i));
+            assertEquals(1, blocks.size());
+            assertEquals("block" + i + ":" + BLOCK_SIZES[i], blocks.get(0));
+        }
+    }
+    
+    @Test
+    public void testSplitOfAllBlocks() throws Exception {
+        List<InputSplit> splits = new BulkResultsBlockInputFormat().getSplits(job);
+        assertEquals(1, splits.size());
+        assertEquals(expectedBlocks(), read(splits.get(0)));
+    }
+    
+    @Test
+    public void testFileWithoutIndex() throws Exception {
+        FileSystem.getLocal(job.getConfiguration()).delete(BulkResultsBlockOutputFormat.getIndexPath(file), false);
+        FileInputFormat.setMaxInputSplitSize(job, 1);
+        
+        List<InputSplit> splits = new BulkResultsBlockInputFormat().getSplits(job);
+        assertEquals(1, splits.size());
+        assertEquals(expectedBlocks(), read(splits.get(0)));
+    }
+    
+    private static List<String> expectedBlocks() {
+        List<String> blocks = new ArrayList<>();
+        for (int i = 0; i < BLOCK_SIZES.length; i++) {
+            blocks.add("block" + i + ":" + BLOCK_SIZES[i]);
+        }
+        return blocks;
+    }
+    
+    // reads the row and the number of results of each block in a split
+    private List<String> read(InputSplit split) throws Exception {
+        TaskAttemptContext context = new TaskAttemptContextImpl(job.getConfiguration(), new TaskAttemptID());
+        List<String> blocks = new ArrayList<>();
+        try (RecordReader<Key,Value> reader = new BulkResultsBlockInputFormat().createRecordReader(split, context)) {
+            reader.initialize(split, context);
+            while (reader.nextKeyValue()) {
+                blocks.add(reader.getCurrentKey().getRow() + ":" + BulkResultsBlockOutputFormat.countResults(reader.getCurrentValue()));
+            }
+        }
+        return blocks;
+    }
+}
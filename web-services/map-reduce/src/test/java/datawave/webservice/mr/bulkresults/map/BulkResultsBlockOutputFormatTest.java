@@ -0,0 +1,136 @@
+package datawave.webservice.mr.bulkresults.map;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import datawave.webservice.mr.bulkresults.map.BulkResultsBlockOutputFormat.Block;
+
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Value;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.SequenceFile;
+import org.apache.hadoop.io.SequenceFile.CompressionType;
+import org.apache.hadoop.mapreduce.Job;
+import org.apache.hadoop.mapreduce.RecordWriter;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.hadoop.mapreduce.TaskAttemptID;
+import org.apache.hadoop.mapreduce.TaskType;
+import org.apache.hadoop.mapreduce.lib.output.FileOutputFormat;
+import org.apache.hadoop.mapreduce.lib.output.SequenceFileOutputFormat;
+import org.apache.hadoop.mapreduce.task.TaskAttemptContextImpl;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class BulkResultsBlockOutputFormatTest {
+    
+    static final int[] BLOCK_SIZES = {2, 5, 1};
+    
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+    
+    @Test
+    public void testEachBlockIsReadFromItsIndexedOffset() throws Exception {
+        Configuration conf = new Configuration();
+        Path file = writeBlocks(folder.newFolder(), CompressionType.BLOCK, BLOCK_SIZES);
+        
+        List<Block> blocks = BulkResultsBlockOutputFormat.readIndex(file.getFileSystem(conf), file);
+        assertEquals(BLOCK_SIZES.length, blocks.size());
+        try (SequenceFile.Reader reader = new SequenceFile.Reader(conf, SequenceFile.Reader.file(file))) {
+            // seek to the blocks out of order, since a block does not depend on the ones before it
+            for (int i = blocks.size() - 1; i >= 0; i--) {
+                assertEquals(BLOCK_SIZES[i], blocks.get(i).getResults());
+                
+                reader.sync(blocks.get(i).getOffset());
+                Key key = new Key();
+                Value value = new Value();
+                assertTrue(reader.next(key, value));
+                assertEquals("block" + i, key.getRow().toString());
+                assertEquals(BLOCK_SIZES[i], BulkResultsBlockOutputFormat.countResults(value));
+                List<byte[]> results = BulkResultsBlockOutputFormat.getResults(value);
+                for (int j = 0; j < results.size(); j++) {
+                    assertArrayEquals(result(i, j), results.get(j));
+                }
+            }
+        }
+    }
+    
+    @Test(expected = IOException.class)
+    public void testBlockCompressionIsRequired() throws Exception {
+        writeBlocks(folder.newFolder(), CompressionType.RECORD, BLOCK_SIZES);
+    }
+    
+    @Test
+    public void testBlockResults() throws IOException {
+        byte[] first = "<DefaultEventQueryResponse/>".getBytes(StandardCharsets.UTF_8);
+        byte[] second = new byte[300];
+        byte[] third = new byte[0];
+        
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(baos);
+        BulkResultsBlockOutputFormat.appendResult(out, new Value(first));
+        BulkResultsBlockOutputFormat.appendResult(out, new Value(second));
+        BulkResultsBlockOutputFormat.appendResult(out, new Value(third));
+        out.flush();
+        Value block = new Value(baos.toByteArray());
+        
+        assertEquals(3, BulkResultsBlockOutputFormat.countResults(block));
+        List<byte[]> results = BulkResultsBlockOutputFormat.getResults(block);
+        assertEquals(3, results.size());
+        assertArrayEquals(first, results.get(0));
+        assertArrayEquals(second, results.get(1));
+        assertArrayEquals(third, results.get(2));
+    }
+    
+    @Test(expected = IOException.class)
+    public void testTruncatedBlock() throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(baos);
+        BulkResultsBlockOutputFormat.appendResult(out, new Value(new byte[10]));
+        out.flush();
+        byte[] truncated = new byte[baos.size() - 1];
+        System.arraycopy(baos.toByteArray(), 0, truncated, 0, truncated.length);
+        
+        BulkResultsBlockOutputFormat.countResults(new Value(truncated));
+    }
+    
+    // writes blocks holding the given number of results through the output format, returning the file written
+    static Path writeBlocks(File dir, CompressionType compressionType, int... sizes) throws Exception {
+        Job job = Job.getInstance(new Configuration());
+        FileOutputFormat.setOutputPath(job, new Path(dir.toURI().toString(), "output"));
+        SequenceFileOutputFormat.setCompressOutput(job, true);
+        SequenceFileOutputFormat.setOutputCompressionType(job, compressionType);
+        TaskAttemptContext context = new TaskAttemptContextImpl(job.getConfiguration(), new TaskAttemptID("test", 1, TaskType.MAP, 0, 0));
+        
+        BulkResultsBlockOutputFormat format = new BulkResultsBlockOutputFormat();
+        RecordWriter<Key,Value> writer = format.getRecordWriter(context);
+        for (int i = 0; i < sizes.length; i++) {
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(baos);
+            for (int j = 0; j < sizes[i]; j++) {
+                BulkResultsBlockOutputFormat.appendResult(out, new Value(result(i, j)));
+            }
+            out.flush();
+            writer.write(new Key("block" + i), new Value(baos.toByteArray()));
+        }
+        writer.close(context);
+        
+        Path file = format.getDefaultWorkFile(context, "");
+        assertTrue(FileSystem.getLocal(job.getConfiguration()).exists(BulkResultsBlockOutputFormat.getIndexPath(file)));
+        return file;
+    }
+    
+    static byte[] result(int block, int result) {
+        return ("<DefaultEventQueryResponse>" + block + "-" + result + "</DefaultEventQueryResponse>").getBytes(StandardCharsets.UTF_8);
+    }
+}
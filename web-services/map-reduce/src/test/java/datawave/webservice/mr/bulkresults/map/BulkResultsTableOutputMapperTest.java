@@ -0,0 +1,85 @@
+package datawave.webservice.mr.bulkresults.map;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.apache.accumulo.core.data.ColumnUpdate;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Mutation;
+import org.apache.accumulo.core.data.Value;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapreduce.Mapper;
+import org.easymock.Capture;
+import org.easymock.CaptureType;
+import org.easymock.EasyMock;
+import org.junit.Before;
+import org.junit.Test;
+
+public class BulkResultsTableOutputMapperTest {
+    
+    private BulkResultsTableOutputMapper mapper;
+    private Mapper<Key,Value,Text,Mutation>.Context context;
+    private Capture<Mutation> written;
+    
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setup() throws Exception {
+        mapper = new BulkResultsTableOutputMapper();
+        written = Capture.newInstance(CaptureType.ALL);
+        context = EasyMock.createMock(Mapper.Context.class);
+        context.write(EasyMock.anyObject(), EasyMock.capture(written));
+        EasyMock.expectLastCall().anyTimes();
+        EasyMock.replay(context);
+    }
+    
+    @Test
+    public void testColumnsOfARowAreWrittenInOneMutation() throws Exception {
+        mapper.addColumn(new Key("row1", "cf", "a"), value("1"), context);
+        mapper.addColumn(new Key("row1", "cf", "b"), value("2"), context);
+        mapper.addColumn(new Key("row1", "cf2", "a"), value("3"), context);
+        // the previous row is written once the key moves past it
+        assertEquals(0, written.getValues().size());
+        mapper.addColumn(new Key("row2", "cf", "a"), value("4"), context);
+        assertEquals(1, written.getValues().size());
+        mapper.writeMutation(context);
+        
+        List<Mutation> mutations = written.getValues();
+        assertEquals(2, mutations.size());
+        assertEquals("row1", new String(mutations.get(0).getRow(), StandardCharsets.UTF_8));
+        List<ColumnUpdate> updates = mutations.get(0).getUpdates();
+        assertEquals(3, updates.size());
+        assertArrayEquals("a".getBytes(StandardCharsets.UTF_8), updates.get(0).getColumnQualifier());
+        assertArrayEquals("2".getBytes(StandardCharsets.UTF_8), updates.get(1).getValue());
+        assertArrayEquals("cf2".getBytes(StandardCharsets.UTF_8), updates.get(2).getColumnFamily());
+        assertEquals("row2", new String(mutations.get(1).getRow(), StandardCharsets.UTF_8));
+        assertEquals(1, mutations.get(1).getUpdates().size());
+    }
+    
+    @Test
+    public void testLargeRowIsSplitAcrossMutations() throws Exception {
+        Value large = new Value(new byte[(int) (BulkResultsTableOutputMapper.MAX_MUTATION_BYTES / 2)]);
+        mapper.addColumn(new Key("row1", "cf", "a"), large, context);
+        mapper.addColumn(new Key("row1", "cf", "b"), large, context);
+        mapper.addColumn(new Key("row1", "cf", "c"), value("3"), context);
+        mapper.writeMutation(context);
+        
+        List<Mutation> mutations = written.getValues();
+        assertEquals(2, mutations.size());
+        assertEquals(2, mutations.get(0).getUpdates().size());
+        assertEquals(1, mutations.get(1).getUpdates().size());
+        assertEquals("row1", new String(mutations.get(1).getRow(), StandardCharsets.UTF_8));
+    }
+    
+    @Test
+    public void testNothingToWrite() throws Exception {
+        mapper.writeMutation(context);
+        assertEquals(0, written.getValues().size());
+    }
+    
+    private static Value value(String value) {
+        return new Value(value.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -18,7 +18,9 @@ import datawave.webservice.query.exception.DatawaveErrorCode;
 import datawave.webservice.query.exception.QueryException;
 import datawave.webservice.query.exception.UnauthorizedQueryException;
 import datawave.webservice.query.runner.QueryExecutorBean;
+import datawave.webservice.result.BaseResponse;
 import datawave.webservice.result.VoidResponse;
+import datawave.webservice.results.modification.BatchModificationResponse;
 import datawave.webservice.results.modification.ModificationConfigurationResponse;
 import org.apache.accumulo.core.client.AccumuloClient;
 import org.apache.accumulo.core.security.Authorizations;
@@ -161,43 +163,105 @@ public class ModificationBean {
         try {
             // Get the Modification Service from the configuration
             ModificationServiceConfiguration service = modificationConfiguration.getConfiguration(modificationServiceName);
-            if (!request.getClass().equals(service.getRequestClass())) {
-                BadRequestQueryException qe = new BadRequestQueryException(DatawaveErrorCode.INVALID_REQUEST_CLASS, MessageFormat.format("Requires: {0}",
-                                service.getRequestClass().getName()));
-                response.addException(qe);
-                throw new BadRequestException(qe, response);
-            }
+            checkRequest(service, request, userRoles, response);
             
             priority = service.getPriority();
             
-            // Ensure that the user is in the list of authorized roles
-            if (null != service.getAuthorizedRoles()) {
-                boolean authorized = !Collections.disjoint(userRoles, service.getAuthorizedRoles());
-                if (!authorized) {
-                    // Then the user does not have any of the authorized roles
-                    UnauthorizedQueryException qe = new UnauthorizedQueryException(DatawaveErrorCode.JOB_EXECUTION_UNAUTHORIZED, MessageFormat.format(
-                                    "Requires one of: {0}", service.getAuthorizedRoles()));
-                    response.addException(qe);
-                    throw new UnauthorizedException(qe, response);
-                }
-            }
-            
-            if (service.getRequiresAudit()) {
+            // Process the modification
+            Map<String,String> trackingMap = connectionFactory.getTrackingMap(Thread.currentThread().getStackTrace());
+            client = connectionFactory.getClient(modificationConfiguration.getPoolName(), priority, trackingMap);
+            service.setQueryService(queryService);
+            log.info("Processing modification request from user=" + user + ": \n" + request);
+            service.process(client, request, cache.getCachedMutableFieldList(), cbAuths, user);
+            return response;
+        } catch (DatawaveWebApplicationException e) {
+            throw e;
+        } catch (Exception e) {
+            QueryException qe = new QueryException(DatawaveErrorCode.MODIFICATION_ERROR, e);
+            log.error(qe);
+            response.addException(qe.getBottomQueryException());
+            throw new DatawaveWebApplicationException(e, response);
+        } finally {
+            if (null != client)
                 try {
-                    auditParameterBuilder.convertAndValidate(request.toMap());
+                    connectionFactory.returnClient(client);
                 } catch (Exception e) {
-                    QueryException qe = new QueryException(DatawaveErrorCode.QUERY_AUDITING_ERROR, e);
-                    log.error(qe);
-                    response.addException(qe.getBottomQueryException());
+                    log.error("Error returning connection", e);
                 }
+        }
+    }
+    
+    /**
+     * Execute a Modification service with the given name for a batch of requests. Services that support it share their lookups and writes across the
+     * requests of the batch, which makes large corrections much faster than submitting each request on its own.
+     *
+     * @param modificationServiceName
+     *            Name of the modification service configuration
+     * @param requests
+     *            the requests, of the object type specified in listConfigurations response, in the order they are to be applied
+     * @return datawave.webservice.results.modification.BatchModificationResponse
+     * @RequestHeader X-ProxiedEntitiesChain use when proxying request for user
+     * @RequestHeader X-ProxiedIssuersChain required when using X-ProxiedEntitiesChain, specify one issuer DN per subject DN listed in X-ProxiedEntitiesChain
+     * @ResponseHeader X-OperationTimeInMS time spent on the server performing the operation, does not account for network or result serialization
+     * @HTTP 200 success
+     * @HTTP 400 if jobName is invalid
+     * @HTTP 401 if user does not have correct roles
+     * @HTTP 500 error starting the job
+     */
+    @PUT
+    @Consumes({"application/xml", "text/xml", "application/json"})
+    @Produces({"application/xml", "text/xml", "application/json", "text/yaml", "text/x-yaml", "application/x-yaml"})
+    @Path("/{serviceName}/submitBatch")
+    @GZIP
+    @Interceptors({RequiredInterceptor.class, ResponseInterceptor.class})
+    public BatchModificationResponse submitBatch(@Required("modificationServiceName") @PathParam("serviceName") String modificationServiceName,
+                    @Required("requests") ModificationRequestList requests) {
+        BatchModificationResponse response = new BatchModificationResponse();
+        
+        // Find out who/what called this method
+        Principal p = ctx.getCallerPrincipal();
+        String user;
+        Set<Authorizations> cbAuths = new HashSet<>();
+        Collection<String> userRoles = Collections.emptySet();
+        if (p instanceof DatawavePrincipal) {
+            DatawavePrincipal dp = (DatawavePrincipal) p;
+            user = dp.getShortName();
+            userRoles = dp.getPrimaryUser().getRoles();
+            for (Collection<String> c : dp.getAuthorizations())
+                cbAuths.add(new Authorizations(c.toArray(new String[c.size()])));
+        } else {
+            QueryException qe = new QueryException(DatawaveErrorCode.UNEXPECTED_PRINCIPAL_ERROR, MessageFormat.format("Class: {0}", p.getClass().getName()));
+            response.addException(qe);
+            throw new DatawaveWebApplicationException(qe, response);
+        }
+        
+        if (null == requests.getRequests() || requests.getRequests().isEmpty()) {
+            BadRequestQueryException qe = new BadRequestQueryException(DatawaveErrorCode.MISSING_REQUIRED_PARAMETER, "No modification requests specified");
+            response.addException(qe);
+            throw new BadRequestException(qe, response);
+        }
+        
+        AccumuloClient client = null;
+        try {
+            // Get the Modification Service from the configuration
+            ModificationServiceConfiguration service = modificationConfiguration.getConfiguration(modificationServiceName);
+            for (ModificationRequestBase request : requests.getRequests()) {
+                checkRequest(service, request, userRoles, response);
             }
             
-            // Process the modification
+            // Process the modifications
             Map<String,String> trackingMap = connectionFactory.getTrackingMap(Thread.currentThread().getStackTrace());
-            client = connectionFactory.getClient(modificationConfiguration.getPoolName(), priority, trackingMap);
+            client = connectionFactory.getClient(modificationConfiguration.getPoolName(), service.getPriority(), trackingMap);
             service.setQueryService(queryService);
-            log.info("Processing modification request from user=" + user + ": \n" + request);
-            service.process(client, request, cache.getCachedMutableFieldList(), cbAuths, user);
+            log.info("Processing batch of " + requests.getRequests().size() + " modification requests from user=" + user);
+            long start = System.currentTimeMillis();
+            long modifications = service.processBatch(client, requests.getRequests(), cache.getCachedMutableFieldList(), cbAuths, user);
+            long elapsed = System.currentTimeMillis() - start;
+            
+            response.setRequestCount(requests.getRequests().size());
+            response.setModificationCount(modifications);
+            response.setElapsedMillis(elapsed);
+            response.setModificationsPerSecond(modifications * 1000.0 / Math.max(1, elapsed));
             return response;
         } catch (DatawaveWebApplicationException e) {
             throw e;
@@ -216,4 +280,38 @@ public class ModificationBean {
         }
     }
     
+    /**
+     * Ensure that a request is of the class the service requires and that the user has one of the roles the service is authorized for, and audit it if the
+     * service requires that.
+     */
+    private void checkRequest(ModificationServiceConfiguration service, ModificationRequestBase request, Collection<String> userRoles, BaseResponse response) {
+        if (!request.getClass().equals(service.getRequestClass())) {
+            BadRequestQueryException qe = new BadRequestQueryException(DatawaveErrorCode.INVALID_REQUEST_CLASS, MessageFormat.format("Requires: {0}",
+                            service.getRequestClass().getName()));
+            response.addException(qe);
+            throw new BadRequestException(qe, response);
+        }
+        
+        // Ensure that the user is in the list of authorized roles
+        if (null != service.getAuthorizedRoles()) {
+            boolean authorized = !Collections.disjoint(userRoles, service.getAuthorizedRoles());
+            if (!authorized) {
+                // Then the user does not have any of the authorized roles
+                UnauthorizedQueryException qe = new UnauthorizedQueryException(DatawaveErrorCode.JOB_EXECUTION_UNAUTHORIZED, MessageFormat.format(
+                                "Requires one of: {0}", service.getAuthorizedRoles()));
+                response.addException(qe);
+                throw new UnauthorizedException(qe, response);
+            }
+        }
+        
+        if (service.getRequiresAudit()) {
+            try {
+                auditParameterBuilder.convertAndValidate(request.toMap());
+            } catch (Exception e) {
+                QueryException qe = new QueryException(DatawaveErrorCode.QUERY_AUDITING_ERROR, e);
+                log.error(qe);
+                response.addException(qe.getBottomQueryException());
+            }
+        }
+    }
 }
@@ -3,6 +3,9 @@ package datawave.webservice.websocket;
 import static datawave.webservice.metrics.Constants.REQUEST_LOGIN_TIME_HEADER;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.concurrent.Future;
 
 import javax.inject.Inject;
@@ -20,15 +23,21 @@ import datawave.webservice.query.exception.QueryException;
 import datawave.webservice.query.runner.AsyncQueryStatusObserver;
 import datawave.webservice.query.runner.QueryExecutorBean;
 import datawave.webservice.result.BaseQueryResponse;
+import datawave.webservice.result.EventQueryResponseBase;
 import datawave.webservice.result.GenericResponse;
 import datawave.webservice.result.VoidResponse;
+import datawave.webservice.websocket.codec.BinaryResultFrame;
+import datawave.webservice.websocket.codec.BinaryResultFrame.FrameType;
 import datawave.webservice.websocket.codec.JsonQueryMessageDecoder;
 import datawave.webservice.websocket.codec.QueryResponseMessageJsonEncoder;
 import datawave.webservice.websocket.messages.CancelMessage;
 import datawave.webservice.websocket.messages.CreateQueryMessage;
+import datawave.webservice.websocket.messages.CreditMessage;
 import datawave.webservice.websocket.messages.QueryMessage;
 import datawave.webservice.websocket.messages.QueryResponseMessage;
 import datawave.webservice.websocket.messages.QueryResponseMessage.ResponseType;
+import io.protostuff.LinkedBuffer;
+import io.protostuff.Message;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -39,6 +48,12 @@ import org.slf4j.LoggerFactory;
  * {@link CancelMessage} while the query is in progress in order to cancel execution of the query. Note that if there is a problem creating the query, a
  * creation failure message is sent and the websocket is closed.
  * <p>
+ * If the query request includes {@value #STREAM_PARAMETER} set to true, the results are instead streamed as binary websocket messages, one per event, each
+ * a {@link BinaryResultFrame} holding the id of the query and the protocol buffer encoding of the event. Pages of results which are not events are sent whole
+ * in the same way, with a frame type which tells them apart from events. The server only sends as many results as the client has granted, starting with
+ * {@value #CREDITS_PARAMETER} from the query request, and the client grants more by sending a {@link CreditMessage}. The query is paused rather than buffering
+ * results while the client has granted no more results, so at most a page of results is held by the server.
+ * <p>
  * Per the JSR-356 specification (section 2.1.1), since we have not configured the endpoint otherwise, there shall be one instance of this class per endpoint,
  * per peer.
  * <p>
@@ -54,6 +69,10 @@ public class QueryWebsocket {
     private static final String LOGIC_NAME = "logicName";
     private static final String ACTIVE_QUERY_FUTURE = "activeQueryFuture";
     private static final String ACTIVE_QUERY_ID = "activeQueryId";
+    static final String ACTIVE_QUERY_OBSERVER = "activeQueryObserver";
+    
+    public static final String STREAM_PARAMETER = "websocket.stream";
+    public static final String CREDITS_PARAMETER = "websocket.credits";
     
     private Logger log = LoggerFactory.getLogger(getClass());
     
@@ -80,7 +99,26 @@ public class QueryWebsocket {
                 } else {
                     CreateQueryMessage cqm = (CreateQueryMessage) message;
                     String logicName = (String) session.getUserProperties().get(LOGIC_NAME);
-                    QueryObserver observer = new QueryObserver(log, session);
+                    QueryObserver observer;
+                    if (Boolean.parseBoolean(cqm.getParameters().getFirst(STREAM_PARAMETER))) {
+                        long credits = 0;
+                        String creditsParameter = cqm.getParameters().getFirst(CREDITS_PARAMETER);
+                        try {
+                            if (creditsParameter != null) {
+                                credits = Long.parseLong(creditsParameter);
+                            }
+                        } catch (NumberFormatException e) {
+                            session.getAsyncRemote().sendObject(
+                                            new QueryResponseMessage(ResponseType.CREATION_FAILURE, "Invalid " + CREDITS_PARAMETER + ": " + creditsParameter));
+                            break;
+                        }
+                        observer = new StreamingQueryObserver(log, session, credits);
+                    } else {
+                        observer = new QueryObserver(log, session);
+                    }
+                    cqm.getParameters().remove(STREAM_PARAMETER);
+                    cqm.getParameters().remove(CREDITS_PARAMETER);
+                    session.getUserProperties().put(ACTIVE_QUERY_OBSERVER, observer);
                     
                     Long startTime = System.nanoTime();
                     Long loginTime = null;
@@ -99,10 +137,22 @@ public class QueryWebsocket {
                 cancelActiveQuery(session);
             }
                 break;
+            case CREDIT: {
+                Object observer = session.getUserProperties().get(ACTIVE_QUERY_OBSERVER);
+                if (observer instanceof StreamingQueryObserver) {
+                    ((StreamingQueryObserver) observer).grantCredits(((CreditMessage) message).getCredits());
+                }
+            }
+                break;
         }
     }
     
     protected void cancelActiveQuery(Session session) {
+        Object observer = session.getUserProperties().get(ACTIVE_QUERY_OBSERVER);
+        if (observer instanceof StreamingQueryObserver) {
+            // release a query waiting for credits
+            ((StreamingQueryObserver) observer).stop();
+        }
         Future<?> activeQuery = (Future<?>) session.getUserProperties().get(ACTIVE_QUERY_FUTURE);
         if (activeQuery != null && !activeQuery.isDone()) {
             // Attempt to cancel the async query call. This will cause the async call to return when it is between next calls.
@@ -119,9 +169,9 @@ public class QueryWebsocket {
         }
     }
     
-    private static class QueryObserver implements AsyncQueryStatusObserver {
-        private Logger log;
-        private Session session;
+    static class QueryObserver implements AsyncQueryStatusObserver {
+        protected Logger log;
+        protected Session session;
         
         public QueryObserver(Logger log, Session session) {
             this.log = log;
@@ -176,4 +226,82 @@ public class QueryWebsocket {
             }
         }
     }
+    
+    /**
+     * An observer which sends each result as a binary message once the client has granted it, pausing the query until the results of the last page have been
+     * sent and the client has granted more.
+     */
+    static class StreamingQueryObserver extends QueryObserver {
+        private final Deque<Object> pending = new ArrayDeque<>();
+        private final LinkedBuffer buffer = LinkedBuffer.allocate(4096);
+        private long credits;
+        private boolean stopped = false;
+        private String queryId = null;
+        
+        public StreamingQueryObserver(Logger log, Session session, long credits) {
+            super(log, session);
+            this.credits = credits;
+        }
+        
+        @Override
+        public synchronized void queryCreated(GenericResponse<String> createQueryResponse) {
+            queryId = createQueryResponse.getResult();
+            super.queryCreated(createQueryResponse);
+        }
+        
+        @Override
+        public synchronized void queryResultsAvailable(BaseQueryResponse results) {
+            if (results instanceof EventQueryResponseBase && ((EventQueryResponseBase) results).getEvents() != null) {
+                pending.addAll(((EventQueryResponseBase) results).getEvents());
+            } else {
+                pending.add(results);
+            }
+            sendPending();
+        }
+        
+        @Override
+        public synchronized void awaitResultsRequested() throws InterruptedException {
+            while (!stopped && session.isOpen() && (credits <= 0 || !pending.isEmpty())) {
+                // wake periodically in case the session closed without the query being cancelled
+                wait(1000);
+            }
+        }
+        
+        public synchronized void grantCredits(long granted) {
+            credits += granted;
+            sendPending();
+            notifyAll();
+        }
+        
+        public synchronized void stop() {
+            stopped = true;
+            notifyAll();
+        }
+        
+        synchronized long getCredits() {
+            return credits;
+        }
+        
+        @SuppressWarnings("unchecked")
+        private void sendPending() {
+            while (credits > 0 && !pending.isEmpty()) {
+                Object result = pending.removeFirst();
+                if (result instanceof Message) {
+                    FrameType type = (result instanceof BaseQueryResponse) ? FrameType.PAGE : FrameType.EVENT;
+                    ByteBuffer frame;
+                    try {
+                        frame = BinaryResultFrame.encode(type, queryId, result, ((Message<Object>) result).cachedSchema(), buffer);
+                    } catch (IOException e) {
+                        log.error("Unable to encode a result of query " + queryId, e);
+                        throw new RuntimeException(e);
+                    }
+                    session.getAsyncRemote().sendBinary(frame);
+                } else {
+                    // results without a protocol buffer schema are sent as they would be otherwise
+                    session.getAsyncRemote().sendObject(new QueryResponseMessage(ResponseType.RESULTS, (BaseQueryResponse) result));
+                }
+                credits--;
+            }
+        }
+    }
 }
@@ -0,0 +1,148 @@
+package datawave.webservice.websocket.codec;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import io.protostuff.LinkedBuffer;
+import io.protostuff.ProtobufIOUtil;
+import io.protostuff.Schema;
+
+/**
+ * A binary websocket message holding a result of a streamed query. Each frame starts with a single byte giving the {@link FrameType} of the result, followed by
+ * the id of the query as a two byte big-endian length and the UTF-8 bytes of the id (as written by {@link DataOutputStream#writeUTF(String)}), followed by the
+ * protocol buffer encoding of the result.
+ */
+public class BinaryResultFrame {
+    
+    /**
+     * The type of the result held by a frame
+     */
+    public enum FrameType {
+        /** a single event of an event query */
+        EVENT((byte) 1),
+        /** a whole page of results of a query whose results are not events */
+        PAGE((byte) 2);
+        
+        private final byte id;
+        
+        FrameType(byte id) {
+            this.id = id;
+        }
+        
+        public byte getId() {
+            return id;
+        }
+        
+        public static FrameType fromId(byte id) {
+            for (FrameType type : values()) {
+                if (type.id == id) {
+                    return type;
+                }
+            }
+            throw new IllegalArgumentException("Unknown frame type: " + id);
+        }
+    }
+    
+    private final FrameType type;
+    private final String queryId;
+    private final byte[] payload;
+    
+    private BinaryResultFrame(FrameType type, String queryId, byte[] payload) {
+        this.type = type;
+        this.queryId = queryId;
+        this.payload = payload;
+    }
+    
+    public FrameType getType() {
+        return type;
+    }
+    
+    public String getQueryId() {
+        return queryId;
+    }
+    
+    /**
+     * @return the protocol buffer encoding of the result
+     */
+    public byte[] getPayload() {
+        return payload;
+    }
+    
+    /**
+     * Merge the result of this frame into a message
+     *
+     * @param message
+     *            the message
+     * @param schema
+     *            the schema of the message
+     * @param <T>
+     *            the type of the message
+     * @return the message
+     */
+    public <T> T mergeInto(T message, Schema<T> schema) {
+        ProtobufIOUtil.mergeFrom(payload, message, schema);
+        return message;
+    }
+    
+    /**
+     * Encode a result as a frame
+     *
+     * @param type
+     *            the type of the result
+     * @param queryId
+     *            the id of the query
+     * @param result
+     *            the result
+     * @param schema
+     *            the schema of the result
+     * @param buffer
+     *            the buffer used to encode the result, which is cleared afterwards
+     * @param <T>
+     *            the type of the result
+     * @return the frame
+     * @throws IOException
+     *             if the result cannot be encoded
+     */
+    public static <T> ByteBuffer encode(FrameType type, String queryId, T result, Schema<T> schema, LinkedBuffer buffer) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(type.getId());
+        out.writeUTF(queryId == null ? "" : queryId);
+        try {
+            ProtobufIOUtil.writeTo(out, result, schema, buffer);
+        } finally {
+            buffer.clear();
+        }
+        out.flush();
+        return ByteBuffer.wrap(bytes.toByteArray());
+    }
+    
+    /**
+     * Decode a frame
+     *
+     * @param frame
+     *            the frame
+     * @return the decoded frame
+     * @throws IOException
+     *             if the frame is truncated or has an unknown type
+     */
+    public static BinaryResultFrame decode(ByteBuffer frame) throws IOException {
+        byte[] bytes = new byte[frame.remaining()];
+        frame.get(bytes);
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+        FrameType type;
+        try {
+            type = FrameType.fromId(in.readByte());
+        } catch (IllegalArgumentException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+        String queryId = in.readUTF();
+        byte[] payload = new byte[in.available()];
+        in.readFully(payload);
+        return new BinaryResultFrame(type, queryId, payload);
+    }
+}
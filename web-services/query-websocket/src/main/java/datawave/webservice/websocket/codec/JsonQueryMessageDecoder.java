@@ -13,6 +13,7 @@ import javax.ws.rs.core.MultivaluedMap;
 
 import datawave.webservice.websocket.messages.CancelMessage;
 import datawave.webservice.websocket.messages.CreateQueryMessage;
+import datawave.webservice.websocket.messages.CreditMessage;
 import datawave.webservice.websocket.messages.QueryMessage;
 import org.jboss.resteasy.specimpl.MultivaluedMapImpl;
 
@@ -33,10 +34,20 @@ public class JsonQueryMessageDecoder implements Decoder.Text<QueryMessage> {
         }
         if (map.size() == 1 && map.containsKey("cancel"))
             return new CancelMessage();
+        else if (map.size() == 1 && map.containsKey("credits"))
+            return new CreditMessage(parseCredits(s, map.getFirst("credits")));
         else
             return new CreateQueryMessage(map);
     }
     
+    private long parseCredits(String s, String credits) throws DecodeException {
+        try {
+            return Long.parseLong(credits);
+        } catch (NumberFormatException e) {
+            throw new DecodeException(s, "Invalid credits: " + credits, e);
+        }
+    }
+    
     private void addValueToMap(String key, JsonParser parser, MultivaluedMap<String,String> map) {
         boolean done = true; // By default we expect only a single value, but we could see an array.
         do {
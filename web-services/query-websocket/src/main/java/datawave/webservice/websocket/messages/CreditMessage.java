@@ -0,0 +1,28 @@
+package datawave.webservice.websocket.messages;
+
+/**
+ * A query message for clients streaming the results of a query to grant the server the number of further results it may send. The client should send a JSON
+ * message with a single property "credits" set to the number of results. For example,
+ * 
+ * <pre>
+ * <code>
+ * { "credits": 100 }
+ * </code>
+ * </pre>
+ */
+public class CreditMessage implements QueryMessage {
+    private long credits;
+    
+    public CreditMessage(long credits) {
+        this.credits = credits;
+    }
+    
+    public long getCredits() {
+        return credits;
+    }
+    
+    @Override
+    public Type getType() {
+        return Type.CREDIT;
+    }
+}
@@ -0,0 +1,187 @@
+package datawave.webservice.websocket;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import javax.websocket.RemoteEndpoint;
+import javax.websocket.Session;
+
+import datawave.webservice.query.result.event.DefaultEvent;
+import datawave.webservice.query.result.event.EventBase;
+import datawave.webservice.query.result.event.Metadata;
+import datawave.webservice.result.DefaultEventQueryResponse;
+import datawave.webservice.result.GenericResponse;
+import datawave.webservice.websocket.QueryWebsocket.StreamingQueryObserver;
+import datawave.webservice.websocket.codec.BinaryResultFrame;
+import datawave.webservice.websocket.codec.BinaryResultFrame.FrameType;
+
+import org.easymock.EasyMock;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.LoggerFactory;
+
+public class QueryWebsocketTest {
+    
+    private final Map<String,Object> userProperties = new HashMap<>();
+    private final List<ByteBuffer> frames = new ArrayList<>();
+    private Session session;
+    private int nextUid = 0;
+    
+    @Before
+    public void setup() {
+        RemoteEndpoint.Async remote = EasyMock.createNiceMock(RemoteEndpoint.Async.class);
+        EasyMock.expect(remote.sendBinary(EasyMock.anyObject(ByteBuffer.class))).andAnswer(() -> {
+            synchronized (frames) {
+                frames.add((ByteBuffer) EasyMock.getCurrentArguments()[0]);
+            }
+            return null;
+        }).anyTimes();
+        
+        session = EasyMock.createNiceMock(Session.class);
+        EasyMock.expect(session.getAsyncRemote()).andReturn(remote).anyTimes();
+        EasyMock.expect(session.getUserProperties()).andReturn(userProperties).anyTimes();
+        EasyMock.expect(session.isOpen()).andReturn(true).anyTimes();
+        EasyMock.replay(remote, session);
+    }
+    
+    @Test
+    public void testResultsAreSentUpToTheCredits() throws Exception {
+        StreamingQueryObserver observer = createObserver(2);
+        observer.queryResultsAvailable(createPage(5));
+        
+        assertFrames(0, 1);
+        assertEquals(0, observer.getCredits());
+        
+        observer.grantCredits(2);
+        assertFrames(0, 1, 2, 3);
+        assertEquals(0, observer.getCredits());
+        
+        // credits left over after the pending results are sent are kept for the next page
+        observer.grantCredits(5);
+        assertFrames(0, 1, 2, 3, 4);
+        assertEquals(4, observer.getCredits());
+        
+        observer.queryResultsAvailable(createPage(2));
+        assertEquals(7, frames.size());
+        assertEquals(2, observer.getCredits());
+    }
+    
+    @Test
+    public void testPageWithoutEventsIsSentWhole() throws Exception {
+        StreamingQueryObserver observer = createObserver(1);
+        DefaultEventQueryResponse page = new DefaultEventQueryResponse();
+        page.setQueryId("query-1");
+        observer.queryResultsAvailable(page);
+        
+        assertEquals(1, frames.size());
+        BinaryResultFrame frame = BinaryResultFrame.decode(frames.get(0).duplicate());
+        assertEquals(FrameType.PAGE, frame.getType());
+        assertEquals("query-1", frame.getQueryId());
+        assertEquals(0, observer.getCredits());
+    }
+    
+    @Test
+    public void testAwaitResultsRequestedPausesUntilThePageIsSentAndMoreAreGranted() throws Exception {
+        StreamingQueryObserver observer = createObserver(1);
+        observer.queryResultsAvailable(createPage(2));
+        
+        CountDownLatch resumed = awaitInBackground(observer);
+        assertFalse(resumed.await(200, TimeUnit.MILLISECONDS));
+        
+        // the page is sent, but there are no credits left for the next one
+        observer.grantCredits(1);
+        assertEquals(2, frames.size());
+        assertFalse(resumed.await(200, TimeUnit.MILLISECONDS));
+        
+        observer.grantCredits(1);
+        assertTrue(resumed.await(10, TimeUnit.SECONDS));
+    }
+    
+    @Test
+    public void testCancelReleasesAPausedQuery() throws Exception {
+        StreamingQueryObserver observer = createObserver(0);
+        userProperties.put(QueryWebsocket.ACTIVE_QUERY_OBSERVER, observer);
+        
+        CountDownLatch resumed = awaitInBackground(observer);
+        assertFalse(resumed.await(200, TimeUnit.MILLISECONDS));
+        
+        new QueryWebsocket().cancelActiveQuery(session);
+        assertTrue(resumed.await(10, TimeUnit.SECONDS));
+        assertEquals(0, frames.size());
+    }
+    
+    @Test
+    public void testCloseReleasesAPausedQuery() throws Exception {
+        StreamingQueryObserver observer = createObserver(1);
+        userProperties.put(QueryWebsocket.ACTIVE_QUERY_OBSERVER, observer);
+        observer.queryResultsAvailable(createPage(3));
+        
+        CountDownLatch resumed = awaitInBackground(observer);
+        assertFalse(resumed.await(200, TimeUnit.MILLISECONDS));
+        
+        new QueryWebsocket().closeConnection(session);
+        assertTrue(resumed.await(10, TimeUnit.SECONDS));
+        // once stopped, the query does not wait again
+        observer.awaitResultsRequested();
+    }
+    
+    private StreamingQueryObserver createObserver(long credits) {
+        StreamingQueryObserver observer = new StreamingQueryObserver(LoggerFactory.getLogger(getClass()), session, credits);
+        GenericResponse<String> created = new GenericResponse<>();
+        created.setResult("query-1");
+        observer.queryCreated(created);
+        return observer;
+    }
+    
+    private static CountDownLatch awaitInBackground(StreamingQueryObserver observer) {
+        CountDownLatch resumed = new CountDownLatch(1);
+        Thread thread = new Thread(() -> {
+            try {
+                observer.awaitResultsRequested();
+                resumed.countDown();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        thread.setDaemon(true);
+        thread.start();
+        return resumed;
+    }
+    
+    private void assertFrames(int... uids) throws Exception {
+        assertEquals(uids.length, frames.size());
+        for (int i = 0; i < uids.length; i++) {
+            BinaryResultFrame frame = BinaryResultFrame.decode(frames.get(i).duplicate());
+            assertEquals(FrameType.EVENT, frame.getType());
+            assertEquals("query-1", frame.getQueryId());
+            DefaultEvent event = frame.mergeInto(new DefaultEvent(), new DefaultEvent().cachedSchema());
+            assertEquals("uid-" + uids[i], event.getMetadata().getInternalId());
+        }
+    }
+    
+    private DefaultEventQueryResponse createPage(int size) {
+        List<EventBase> events = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            Metadata metadata = new Metadata();
+            metadata.setDataType("csv");
+            metadata.setInternalId("uid-" + nextUid++);
+            metadata.setRow("20200101_0");
+            metadata.setTable("shard");
+            DefaultEvent event = new DefaultEvent();
+            event.setMetadata(metadata);
+            events.add(event);
+        }
+        DefaultEventQueryResponse page = new DefaultEventQueryResponse();
+        page.setEvents(events);
+        return page;
+    }
+}
@@ -0,0 +1,71 @@
+package datawave.webservice.websocket.codec;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import datawave.webservice.query.result.event.DefaultEvent;
+import datawave.webservice.query.result.event.Metadata;
+import datawave.webservice.result.DefaultEventQueryResponse;
+import datawave.webservice.websocket.codec.BinaryResultFrame.FrameType;
+import io.protostuff.LinkedBuffer;
+
+import org.junit.Test;
+
+public class BinaryResultFrameTest {
+    
+    private final LinkedBuffer buffer = LinkedBuffer.allocate(4096);
+    
+    @Test
+    public void testEventRoundTrip() throws IOException {
+        DefaultEvent event = new DefaultEvent();
+        Metadata metadata = new Metadata();
+        metadata.setDataType("csv");
+        metadata.setInternalId("uid-1");
+        metadata.setRow("20200101_0");
+        metadata.setTable("shard");
+        event.setMetadata(metadata);
+        
+        BinaryResultFrame frame = BinaryResultFrame.decode(BinaryResultFrame.encode(FrameType.EVENT, "query-1", event, event.cachedSchema(), buffer));
+        
+        assertEquals(FrameType.EVENT, frame.getType());
+        assertEquals("query-1", frame.getQueryId());
+        DefaultEvent decoded = frame.mergeInto(new DefaultEvent(), event.cachedSchema());
+        assertEquals("uid-1", decoded.getMetadata().getInternalId());
+        assertEquals("20200101_0", decoded.getMetadata().getRow());
+    }
+    
+    @Test
+    public void testPageRoundTrip() throws IOException {
+        DefaultEventQueryResponse page = new DefaultEventQueryResponse();
+        page.setQueryId("query-2");
+        page.setReturnedEvents(0L);
+        
+        BinaryResultFrame frame = BinaryResultFrame.decode(BinaryResultFrame.encode(FrameType.PAGE, "query-2", page, page.cachedSchema(), buffer));
+        
+        assertEquals(FrameType.PAGE, frame.getType());
+        assertEquals("query-2", frame.getQueryId());
+        DefaultEventQueryResponse decoded = frame.mergeInto(new DefaultEventQueryResponse(), page.cachedSchema());
+        assertEquals("query-2", decoded.getQueryId());
+        assertNull(decoded.getEvents());
+    }
+    
+    @Test
+    public void testMissingQueryId() throws IOException {
+        DefaultEvent event = new DefaultEvent();
+        BinaryResultFrame frame = BinaryResultFrame.decode(BinaryResultFrame.encode(FrameType.EVENT, null, event, event.cachedSchema(), buffer));
+        assertEquals("", frame.getQueryId());
+    }
+    
+    @Test(expected = IOException.class)
+    public void testUnknownFrameType() throws IOException {
+        BinaryResultFrame.decode(ByteBuffer.wrap(new byte[] {9, 0, 0}));
+    }
+    
+    @Test(expected = IOException.class)
+    public void testTruncatedFrame() throws IOException {
+        BinaryResultFrame.decode(ByteBuffer.wrap(new byte[] {1, 0, 10, 'q'}));
+    }
+}
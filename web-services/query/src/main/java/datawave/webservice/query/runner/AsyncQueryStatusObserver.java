@@ -12,6 +12,14 @@ public interface AsyncQueryStatusObserver {
     
     void queryResultsAvailable(BaseQueryResponse results);
     
+    /**
+     * Called before each page of results is requested, so an observer can hold off the query until it is ready for more results
+     *
+     * @throws InterruptedException
+     *             if interrupted while waiting
+     */
+    default void awaitResultsRequested() throws InterruptedException {}
+    
     void queryCreateException(QueryException ex);
     
     void queryException(QueryException ex);
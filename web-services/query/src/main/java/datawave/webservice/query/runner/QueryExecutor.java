@@ -12,6 +12,7 @@ import datawave.webservice.result.BaseQueryResponse;
 import datawave.webservice.result.GenericResponse;
 import datawave.webservice.result.QueryImplListResponse;
 import datawave.webservice.result.QueryLogicResponse;
+import datawave.webservice.result.QueryNodeProfileResponse;
 import datawave.webservice.result.VoidResponse;
 
 public interface QueryExecutor {
@@ -160,6 +161,15 @@ public interface QueryExecutor {
      */
     GenericResponse<String> predictions(String id);
     
+    /**
+     * Gets the evaluation profile of the query nodes from the query object. If the object is no longer alive, meaning that the current session has expired,
+     * then this will fail.
+     *
+     * @param id
+     * @return the evaluation profile
+     */
+    QueryNodeProfileResponse profile(String id);
+    
     /**
      * Gets the next page of results from the query object. If the object is no longer alive, meaning that the current session has expired, then this will fail.
      * 
@@ -60,9 +60,11 @@ import datawave.webservice.query.logic.QueryLogicFactory;
 import datawave.webservice.query.logic.QueryLogicTransformer;
 import datawave.webservice.query.metric.BaseQueryMetric;
 import datawave.webservice.query.metric.BaseQueryMetric.PageMetric;
+import datawave.webservice.query.metric.BaseQueryMetric.NodeProfile;
 import datawave.webservice.query.metric.BaseQueryMetric.Prediction;
 import datawave.webservice.query.metric.QueryMetric;
 import datawave.webservice.query.metric.QueryMetricsBean;
+import datawave.webservice.query.result.event.EventBase;
 import datawave.webservice.query.result.event.ResponseObjectFactory;
 import datawave.webservice.query.result.logic.QueryLogicDescription;
 import datawave.webservice.query.util.GetUUIDCriteria;
@@ -74,9 +76,11 @@ import datawave.webservice.query.util.QueryUtil;
 import datawave.webservice.query.util.UIDQueryCriteria;
 import datawave.webservice.result.BaseQueryResponse;
 import datawave.webservice.result.BaseResponse;
+import datawave.webservice.result.EventQueryResponseBase;
 import datawave.webservice.result.GenericResponse;
 import datawave.webservice.result.QueryImplListResponse;
 import datawave.webservice.result.QueryLogicResponse;
+import datawave.webservice.result.QueryNodeProfileResponse;
 import datawave.webservice.result.VoidResponse;
 import io.protostuff.LinkedBuffer;
 import io.protostuff.Message;
@@ -138,11 +142,14 @@ import javax.ws.rs.core.MultivaluedMap;
 import javax.ws.rs.core.StreamingOutput;
 import javax.ws.rs.core.UriInfo;
 import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBElement;
 import javax.xml.bind.JAXBException;
 import javax.xml.bind.Marshaller;
+import javax.xml.namespace.QName;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
 import java.security.Principal;
 import java.text.MessageFormat;
 import java.util.ArrayList;
@@ -157,6 +164,7 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Future;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
@@ -183,8 +191,27 @@ public class QueryExecutorBean implements QueryExecutor {
     public static final String EXPAND_VALUES = "expand.values";
     public static final String EXPAND_FIELDS = "expand.fields";
     
+    /**
+     * Used by execute to write the events of an event query individually rather than page by page
+     */
+    public static final String STREAM_EVENTS = "stream.events";
+    
     private final Logger log = Logger.getLogger(QueryExecutorBean.class);
     
+    // the number of pages produced ahead of the page being written by a streamed response
+    private static final int STREAMING_PAGE_QUEUE_SIZE = 2;
+    
+    // how long to wait for the page being produced for a streamed response which is stopped before its last page
+    private static final long STREAMING_PRODUCER_STOP_TIMEOUT_MS = 5000;
+    
+    private static final QName STREAMED_EVENT_NAME = new QName("Event");
+    private static final byte[] STREAMED_EVENTS_START = "<Events>".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] STREAMED_EVENTS_END = "</Events>".getBytes(StandardCharsets.UTF_8);
+    
+    // the JAXB contexts and JSON mapper used by streamed responses, which are thread safe and shared across requests
+    private static final Map<Class<?>,JAXBContext> streamingJaxbContexts = new ConcurrentHashMap<>();
+    private static final ObjectMapper streamingJsonMapper = createStreamingJsonMapper();
+    
     @Inject
     private QueryCache queryCache;
     
@@ -1311,7 +1338,7 @@ public class QueryExecutorBean implements QueryExecutor {
      */
     @POST
     @Produces({"application/xml", "text/xml", "application/json", "text/yaml", "text/x-yaml", "application/x-yaml", "application/x-protobuf",
-            "application/x-protostuff"})
+            "application/x-protostuff", "application/x-datawave-columnar"})
     @Path("/{logicName}/createAndNext")
     @GZIP
     @GenerateQuerySessionId(cookieBasePath = "/DataWave/Query/")
@@ -1331,7 +1358,7 @@ public class QueryExecutorBean implements QueryExecutor {
     
     @POST
     @Produces({"application/xml", "text/xml", "application/json", "text/yaml", "text/x-yaml", "application/x-yaml", "application/x-protobuf",
-            "application/x-protostuff"})
+            "application/x-protostuff", "application/x-datawave-columnar"})
     @Path("/{logicName}/async/createAndNext")
     @GZIP
     @GenerateQuerySessionId(cookieBasePath = "/DataWave/Query/")
@@ -1417,7 +1444,7 @@ public class QueryExecutorBean implements QueryExecutor {
     @GET
     @Path("/lookupContentUUID/{uuidType}/{uuid}")
     @Produces({"application/xml", "text/xml", "application/json", "text/yaml", "text/x-yaml", "application/x-yaml", "application/x-protobuf",
-            "application/x-protostuff"})
+            "application/x-protostuff", "application/x-datawave-columnar"})
     @Interceptors({RequiredInterceptor.class, ResponseInterceptor.class})
     @Override
     @Timed(name = "dw.query.lookupContentUUID", absolute = true)
@@ -1485,7 +1512,7 @@ public class QueryExecutorBean implements QueryExecutor {
     @POST
     @Path("/lookupContentUUID")
     @Produces({"application/xml", "text/xml", "application/json", "text/yaml", "text/x-yaml", "application/x-yaml", "application/x-protobuf",
-            "application/x-protostuff"})
+            "application/x-protostuff", "application/x-datawave-columnar"})
     @GZIP
     @GenerateQuerySessionId(cookieBasePath = "/DataWave/Query/")
     @Interceptors({ResponseInterceptor.class, RequiredInterceptor.class})
@@ -1547,7 +1574,7 @@ public class QueryExecutorBean implements QueryExecutor {
      */
     @GET
     @Produces({"application/xml", "text/xml", "application/json", "text/yaml", "text/x-yaml", "application/x-yaml", "application/x-protobuf",
-            "application/x-protostuff"})
+            "application/x-protostuff", "application/x-datawave-columnar"})
     @Path("/lookupUUID/{uuidType}/{uuid}")
     @Interceptors({RequiredInterceptor.class, ResponseInterceptor.class})
     @Override
@@ -1616,7 +1643,7 @@ public class QueryExecutorBean implements QueryExecutor {
     @POST
     @Path("/lookupUUID")
     @Produces({"application/xml", "text/xml", "application/json", "text/yaml", "text/x-yaml", "application/x-yaml", "application/x-protobuf",
-            "application/x-protostuff"})
+            "application/x-protostuff", "application/x-datawave-columnar"})
     @GZIP
     @GenerateQuerySessionId(cookieBasePath = "/DataWave/Query/")
     @Interceptors({ResponseInterceptor.class, RequiredInterceptor.class})
@@ -1822,6 +1849,94 @@ public class QueryExecutorBean implements QueryExecutor {
         return response;
     }
     
+    /**
+     * Pulls back the evaluation profile of the query nodes for a query, with the most expensive nodes first. The profile is only collected when the query is
+     * created with the collect.evaluation.profile parameter set to true.
+     *
+     * @param id
+     *            - (@Required)
+     *
+     * @return datawave.webservice.result.QueryNodeProfileResponse
+     * @RequestHeader X-ProxiedEntitiesChain use when proxying request for user, by specifying a chain of DNs of the identities to proxy
+     * @RequestHeader X-ProxiedIssuersChain required when using X-ProxiedEntitiesChain, specify one issuer DN per subject DN listed in X-ProxiedEntitiesChain
+     * @RequestHeader query-session-id session id value used for load balancing purposes. query-session-id can be placed in the request in a Cookie header or as
+     *                a query parameter
+     * @ResponseHeader X-OperationTimeInMS time spent on the server performing the operation, does not account for network or result serialization
+     *
+     * @HTTP 200 success
+     * @HTTP 204 success and no results
+     * @HTTP 404 if id not found
+     * @HTTP 412 if the query is no longer alive, client should call {@link #reset(String)} and try again
+     * @HTTP 500 internal server error
+     */
+    @GET
+    @Path("/{id}/profile")
+    @Produces({"application/xml", "text/xml", "application/json", "text/yaml", "text/x-yaml", "application/x-yaml", "application/x-protobuf",
+            "application/x-protostuff"})
+    @GZIP
+    @Interceptors({ResponseInterceptor.class, RequiredInterceptor.class})
+    @Override
+    @Timed(name = "dw.query.profile", absolute = true)
+    public QueryNodeProfileResponse profile(@Required("id") @PathParam("id") String id) {
+        // in case we don't make it to creating the response from the QueryLogic
+        QueryNodeProfileResponse response = new QueryNodeProfileResponse();
+        response.setQueryId(id);
+        
+        Principal p = ctx.getCallerPrincipal();
+        String userid = p.getName();
+        if (p instanceof DatawavePrincipal) {
+            DatawavePrincipal dp = (DatawavePrincipal) p;
+            userid = dp.getShortName();
+        }
+        
+        try {
+            // Not calling getQueryById() here. We don't want to pull the persisted definition.
+            RunningQuery query = queryCache.get(id);
+            
+            // When we pulled the query from the cache, we told it not to allocate a connection.
+            // So if the connection is null here, then either the query wasn't in the cache
+            // at all, or it was but only because of a call to list. In either case, it's
+            // an error.
+            if (null == query || null == query.getClient()) {
+                // If the query just wasn't in the cache, then check the persister to see if the
+                // ID exists at all. If it doesn't, then we need to return a 404 rather than 412
+                // status code.
+                if (null == query) {
+                    List<Query> queries = persister.findById(id);
+                    if (queries == null || queries.size() != 1) {
+                        throw new NotFoundQueryException(DatawaveErrorCode.NO_QUERY_OBJECT_MATCH, MessageFormat.format("{0}", id));
+                    }
+                }
+                
+                throw new PreConditionFailedQueryException(DatawaveErrorCode.QUERY_TIMEOUT_OR_SERVER_ERROR, MessageFormat.format("id = {0}", id));
+            } else {
+                // Validate the query belongs to the caller
+                if (!query.getSettings().getOwner().equals(userid)) {
+                    throw new UnauthorizedQueryException(DatawaveErrorCode.QUERY_OWNER_MISMATCH, MessageFormat.format("{0} != {1}", userid, query.getSettings()
+                                    .getOwner()));
+                }
+                
+                // pull the evaluation profile out of the query metric
+                List<NodeProfile> nodeProfiles = query.getMetric().getNodeProfiles();
+                if (nodeProfiles != null && !nodeProfiles.isEmpty()) {
+                    List<NodeProfile> sorted = new ArrayList<>(nodeProfiles);
+                    sorted.sort(Comparator.comparingLong(NodeProfile::getNanos).reversed());
+                    response.setNodeProfiles(sorted);
+                }
+            }
+        } catch (Exception e) {
+            log.error("Failed to get query evaluation profile", e);
+            
+            QueryException qe = new QueryException(DatawaveErrorCode.QUERY_GET_ERROR, e, MessageFormat.format("query id: {0}", id));
+            log.error(qe, e);
+            response.addException(qe.getBottomQueryException());
+            int statusCode = qe.getBottomQueryException().getStatusCode();
+            throw new DatawaveWebApplicationException(qe, response, statusCode);
+        }
+        
+        return response;
+    }
+    
     /**
      * Attempt to async close a query using the executor. If the executor can't accommodate the close then the query will be closed in-line
      * 
@@ -1853,7 +1968,7 @@ public class QueryExecutorBean implements QueryExecutor {
     @GET
     @Path("/{id}/async/next")
     @Produces({"application/xml", "text/xml", "application/json", "text/yaml", "text/x-yaml", "application/x-yaml", "application/x-protobuf",
-            "application/x-protostuff"})
+            "application/x-protostuff", "application/x-datawave-columnar"})
     @GZIP
     @EnrichQueryMetrics(methodType = MethodType.NEXT)
     @Interceptors({ResponseInterceptor.class, RequiredInterceptor.class})
@@ -1896,7 +2011,7 @@ public class QueryExecutorBean implements QueryExecutor {
     @GET
     @Path("/{id}/next")
     @Produces({"application/xml", "text/xml", "application/json", "text/yaml", "text/x-yaml", "application/x-yaml", "application/x-protobuf",
-            "application/x-protostuff"})
+            "application/x-protostuff", "application/x-datawave-columnar"})
     @GZIP
     @EnrichQueryMetrics(methodType = MethodType.NEXT)
     @Interceptors({ResponseInterceptor.class, RequiredInterceptor.class})
@@ -3168,6 +3283,9 @@ public class QueryExecutorBean implements QueryExecutor {
     }
     
     /**
+     * Create a query and stream all of its pages. With the {@value #STREAM_EVENTS} parameter set to true, the events of an event query are streamed
+     * individually rather than page by page: length delimited for protobuf, and in a single Events array or element for JSON or XML.
+     *
      * @param logicName
      * @param queryParameters
      *
@@ -3251,6 +3369,13 @@ public class QueryExecutorBean implements QueryExecutor {
             throw new DatawaveWebApplicationException(qe, response, statusCode);
         }
         
+        boolean streamEvents = Boolean.parseBoolean(queryParameters.getFirst(STREAM_EVENTS));
+        if (streamEvents && !EventQueryResponseBase.class.isAssignableFrom(responseClass)) {
+            QueryException qe = new QueryException(DatawaveErrorCode.BAD_RESPONSE_CLASS, MessageFormat.format("Response  class: {0}", responseClass));
+            response.addException(qe);
+            throw new DatawaveWebApplicationException(qe, response);
+        }
+        
         SerializationType s;
         if (responseType.equals(MediaType.APPLICATION_XML_TYPE)) {
             s = SerializationType.XML;
@@ -3290,7 +3415,7 @@ public class QueryExecutorBean implements QueryExecutor {
         final SerializationType serializationType = s;
         final Class<?> queryResponseClass = responseClass;
         
-        return new ExecuteStreamingOutputResponse(queryId, queryResponseClass, response, rq, serializationType, proxies);
+        return new ExecuteStreamingOutputResponse(queryId, queryResponseClass, response, rq, serializationType, proxies, streamEvents);
     }
     
     /**
@@ -3364,6 +3489,17 @@ public class QueryExecutorBean implements QueryExecutor {
             // Loop over each page of query results, and notify the observer about each page.
             // If we get any exception, then break out of the loop and notify the observer about the problem.
             do {
+                // The query is paused until the observer is ready for more results
+                try {
+                    observer.awaitResultsRequested();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+                if (sessionContext.wasCancelCalled()) {
+                    break;
+                }
+                
                 long callStart = System.nanoTime();
                 rq.setActiveCall(true);
                 try {
@@ -3426,6 +3562,37 @@ public class QueryExecutorBean implements QueryExecutor {
         JSON, XML, PB, YAML;
     }
     
+    /**
+     * Get the JAXB context for a streamed response class, which is created once per class as they are thread safe and expensive to create
+     *
+     * @param responseClass
+     *            the response class
+     * @return the JAXB context
+     * @throws JAXBException
+     *             if the context cannot be created
+     */
+    private static JAXBContext getStreamingJaxbContext(Class<?> responseClass) throws JAXBException {
+        JAXBContext jaxbContext = streamingJaxbContexts.get(responseClass);
+        if (jaxbContext == null) {
+            jaxbContext = JAXBContext.newInstance(responseClass);
+            JAXBContext existing = streamingJaxbContexts.putIfAbsent(responseClass, jaxbContext);
+            if (existing != null) {
+                jaxbContext = existing;
+            }
+        }
+        return jaxbContext;
+    }
+    
+    private static ObjectMapper createStreamingJsonMapper() {
+        ObjectMapper jsonSerializer = new ObjectMapper();
+        jsonSerializer.enable(MapperFeature.USE_WRAPPER_NAME_AS_PROPERTY_NAME);
+        jsonSerializer.setAnnotationIntrospector(AnnotationIntrospector.pair(new JacksonAnnotationIntrospector(),
+                        new JaxbAnnotationIntrospector(jsonSerializer.getTypeFactory())));
+        // Don't close the output stream
+        jsonSerializer.configure(JsonGenerator.Feature.AUTO_CLOSE_TARGET, false);
+        return jsonSerializer;
+    }
+    
     public class ExecuteStreamingOutputResponse implements StreamingOutput {
         private String queryId = null;
         private Class<?> queryResponseClass = null;
@@ -3433,9 +3600,20 @@ public class QueryExecutorBean implements QueryExecutor {
         private RunningQuery rq = null;
         private SerializationType serializationType = SerializationType.XML;
         private Collection<String> proxies = null;
+        private boolean streamEvents = false;
+        private Marshaller eventSerializer = null;
         
         public ExecuteStreamingOutputResponse(String queryId, Class<?> queryResponseClass, VoidResponse errorResponse, RunningQuery rq,
                         SerializationType serializationType, Collection<String> proxies) {
+            this(queryId, queryResponseClass, errorResponse, rq, serializationType, proxies, false);
+        }
+        
+        /**
+         * @param streamEvents
+         *            true to write each event of the pages individually rather than whole pages, for event query responses only
+         */
+        public ExecuteStreamingOutputResponse(String queryId, Class<?> queryResponseClass, VoidResponse errorResponse, RunningQuery rq,
+                        SerializationType serializationType, Collection<String> proxies, boolean streamEvents) {
             super();
             this.queryId = queryId;
             this.queryResponseClass = queryResponseClass;
@@ -3443,6 +3621,7 @@ public class QueryExecutorBean implements QueryExecutor {
             this.rq = rq;
             this.serializationType = serializationType;
             this.proxies = proxies;
+            this.streamEvents = streamEvents;
         }
         
         public String getQueryId() {
@@ -3452,90 +3631,82 @@ public class QueryExecutorBean implements QueryExecutor {
         @Override
         public void write(OutputStream out) throws IOException, WebApplicationException {
             
+            StreamedPageProducer producer = null;
+            boolean complete = false;
             try {
                 LinkedBuffer buffer = LinkedBuffer.allocate(4096);
                 Marshaller xmlSerializer;
                 try {
-                    JAXBContext jaxbContext = JAXBContext.newInstance(queryResponseClass);
-                    xmlSerializer = jaxbContext.createMarshaller();
+                    xmlSerializer = getStreamingJaxbContext(queryResponseClass).createMarshaller();
                 } catch (JAXBException e1) {
                     QueryException qe = new QueryException(DatawaveErrorCode.JAXB_CONTEXT_ERROR, e1, MessageFormat.format("class: {0}", queryResponseClass));
                     log.error(qe, e1);
                     errorResponse.addException(qe.getBottomQueryException());
                     throw new DatawaveWebApplicationException(qe, errorResponse);
                 }
-                ObjectMapper jsonSerializer = new ObjectMapper();
-                jsonSerializer.enable(MapperFeature.USE_WRAPPER_NAME_AS_PROPERTY_NAME);
-                jsonSerializer.setAnnotationIntrospector(AnnotationIntrospector.pair(new JacksonAnnotationIntrospector(), new JaxbAnnotationIntrospector(
-                                jsonSerializer.getTypeFactory())));
-                // Don't close the output stream
-                jsonSerializer.configure(JsonGenerator.Feature.AUTO_CLOSE_TARGET, false);
-                try (JsonGenerator jsonGenerator = jsonSerializer.getFactory().createGenerator(out, JsonEncoding.UTF8)) {
+                
+                // Wrap the output stream so that we can get a byte count
+                CountingOutputStream countingStream = new CountingOutputStream(out);
+                try (JsonGenerator jsonGenerator = streamingJsonMapper.getFactory().createGenerator(countingStream, JsonEncoding.UTF8)) {
                     jsonGenerator.enable(JsonGenerator.Feature.FLUSH_PASSED_TO_STREAM);
                     
-                    boolean sentResults = false;
-                    boolean done = false;
-                    TraceScope span = null;
-                    List<PageMetric> pageMetrics = rq.getMetric().getPageTimes();
+                    // produce the following pages while the current one is written, falling back to producing them in-line
+                    producer = startPageProducer();
                     
-                    do {
-                        try {
-                            long callStart = System.nanoTime();
-                            BaseQueryResponse page = _next(rq, queryId, proxies, span);
-                            PageMetric pm = pageMetrics.get(pageMetrics.size() - 1);
-                            
-                            // Wrap the output stream so that we can get a byte count
-                            CountingOutputStream countingStream = new CountingOutputStream(out);
-                            
-                            long serializationStart = System.nanoTime();
+                    boolean sentResults = false;
+                    while (true) {
+                        StreamedPage streamed = (producer != null ? producer.take() : nextPage());
+                        if (streamed.exception != null) {
+                            throw streamed.exception;
+                        } else if (streamed.page == null) {
+                            // No more results, break out of loop
+                            complete = true;
+                            break;
+                        }
+                        
+                        long bytesWritten = countingStream.getCount();
+                        long serializationStart = System.nanoTime();
+                        if (streamEvents) {
+                            writeEvents((EventQueryResponseBase) streamed.page, countingStream, jsonGenerator, buffer, !sentResults);
+                        } else {
                             switch (serializationType) {
                                 case XML:
-                                    xmlSerializer.marshal(page, countingStream);
+                                    xmlSerializer.marshal(streamed.page, countingStream);
                                     break;
                                 case JSON:
                                     // First page!
                                     if (!sentResults) {
                                         jsonGenerator.writeStartObject();
                                         jsonGenerator.writeArrayFieldStart("Pages");
-                                        jsonGenerator.flush();
-                                    } else {
-                                        // Delimiter for subsequent pages...
-                                        countingStream.write(',');
                                     }
-                                    jsonSerializer.writeValue(countingStream, page);
+                                    // the generator delimits the pages within the array
+                                    streamingJsonMapper.writeValue(jsonGenerator, streamed.page);
                                     break;
                                 case PB:
                                     @SuppressWarnings("unchecked")
-                                    Message<Object> pb = (Message<Object>) page;
+                                    Message<Object> pb = (Message<Object>) streamed.page;
                                     Schema<Object> pbSchema = pb.cachedSchema();
-                                    ProtobufIOUtil.writeTo(countingStream, page, pbSchema, buffer);
+                                    ProtobufIOUtil.writeTo(countingStream, streamed.page, pbSchema, buffer);
                                     buffer.clear();
                                     break;
                                 case YAML:
                                     @SuppressWarnings("unchecked")
-                                    Message<Object> yaml = (Message<Object>) page;
+                                    Message<Object> yaml = (Message<Object>) streamed.page;
                                     Schema<Object> yamlSchema = yaml.cachedSchema();
-                                    YamlIOUtil.writeTo(countingStream, page, yamlSchema, buffer);
+                                    YamlIOUtil.writeTo(countingStream, streamed.page, yamlSchema, buffer);
                                     buffer.clear();
                                     break;
                             }
-                            countingStream.flush();
-                            long serializationTime = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - serializationStart);
-                            pm.setSerializationTime(serializationTime);
-                            long pageCallTime = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - callStart);
-                            pm.setCallTime(pageCallTime);
-                            pm.setBytesWritten(countingStream.getCount());
-                            sentResults = true;
-                        } catch (Exception e) {
-                            if (e instanceof NoResultsException || e.getCause() instanceof NoResultsException) {
-                                // No more results, break out of loop
-                                done = true;
-                                break; // probably redundant
-                            } else {
-                                throw e;
-                            }
                         }
-                    } while (!done);
+                        jsonGenerator.flush();
+                        countingStream.flush();
+                        long serializationTime = System.nanoTime() - serializationStart;
+                        PageMetric pm = streamed.pageMetric;
+                        pm.setSerializationTime(TimeUnit.NANOSECONDS.toMillis(serializationTime));
+                        pm.setCallTime(TimeUnit.NANOSECONDS.toMillis(streamed.nextTime + serializationTime));
+                        pm.setBytesWritten(countingStream.getCount() - bytesWritten);
+                        sentResults = true;
+                    }
                     
                     if (!sentResults)
                         throw new NoResultsQueryException(DatawaveErrorCode.RESULTS_NOT_SENT);
@@ -3543,6 +3714,9 @@ public class QueryExecutorBean implements QueryExecutor {
                         jsonGenerator.writeEndArray();
                         jsonGenerator.writeEndObject();
                         jsonGenerator.flush();
+                    } else if (streamEvents && serializationType == SerializationType.XML) {
+                        countingStream.write(STREAMED_EVENTS_END);
+                        countingStream.flush();
                     }
                 }
             } catch (DatawaveWebApplicationException e) {
@@ -3555,17 +3729,114 @@ public class QueryExecutorBean implements QueryExecutor {
                 int statusCode = qe.getBottomQueryException().getStatusCode();
                 throw new DatawaveWebApplicationException(qe, errorResponse, statusCode);
             } finally {
-                try {
-                    close(rq);
-                } catch (Exception e) {
-                    log.error("Error returning connection on failed create", e);
-                    QueryException qe = new QueryException(DatawaveErrorCode.CONNECTION_RETURN_ERROR, e);
-                    log.error(qe, e);
-                    errorResponse.addException(qe.getBottomQueryException());
+                // the producer has to be done with the query before it can be closed, and closes it itself if it had to be abandoned
+                if (producer == null || producer.stop(complete)) {
+                    try {
+                        close(rq);
+                    } catch (Exception e) {
+                        log.error("Error returning connection on failed create", e);
+                        QueryException qe = new QueryException(DatawaveErrorCode.CONNECTION_RETURN_ERROR, e);
+                        log.error(qe, e);
+                        errorResponse.addException(qe.getBottomQueryException());
+                    }
+                }
+            }
+        }
+        
+        /**
+         * Write the events of a page individually, so that a client can process each event as it is read rather than parsing whole pages. Protobuf events are
+         * length delimited, JSON events are written to a single Events array, XML events to a single Events element, and YAML events one after another.
+         *
+         * @param page
+         *            the page
+         * @param out
+         *            the output stream
+         * @param jsonGenerator
+         *            the generator used for JSON
+         * @param buffer
+         *            the buffer used for protobuf and YAML
+         * @param first
+         *            true if this is the first page of the stream
+         * @throws IOException
+         *             if the events cannot be written
+         * @throws JAXBException
+         *             if an XML event cannot be marshalled
+         */
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        private void writeEvents(EventQueryResponseBase page, OutputStream out, JsonGenerator jsonGenerator, LinkedBuffer buffer, boolean first)
+                        throws IOException, JAXBException {
+            if (first) {
+                if (serializationType == SerializationType.JSON) {
+                    jsonGenerator.writeStartObject();
+                    jsonGenerator.writeArrayFieldStart("Events");
+                } else if (serializationType == SerializationType.XML) {
+                    out.write(STREAMED_EVENTS_START);
+                }
+            }
+            if (page.getEvents() == null) {
+                return;
+            }
+            for (EventBase event : page.getEvents()) {
+                switch (serializationType) {
+                    case XML:
+                        if (eventSerializer == null) {
+                            eventSerializer = getStreamingJaxbContext(event.getClass()).createMarshaller();
+                            eventSerializer.setProperty(Marshaller.JAXB_FRAGMENT, Boolean.TRUE);
+                        }
+                        eventSerializer.marshal(new JAXBElement(STREAMED_EVENT_NAME, event.getClass(), event), out);
+                        break;
+                    case JSON:
+                        // the generator delimits the events within the array
+                        streamingJsonMapper.writeValue(jsonGenerator, event);
+                        break;
+                    case PB:
+                        ProtobufIOUtil.writeDelimitedTo(out, event, ((Message<Object>) event).cachedSchema(), buffer);
+                        buffer.clear();
+                        break;
+                    case YAML:
+                        YamlIOUtil.writeTo(out, event, ((Message<Object>) event).cachedSchema(), buffer);
+                        buffer.clear();
+                        break;
+                }
+            }
+        }
+        
+        /**
+         * Get the next page of the query
+         *
+         * @return the page, the last page if there are no more results, or a page holding the exception thrown getting it
+         */
+        private StreamedPage nextPage() {
+            long callStart = System.nanoTime();
+            try {
+                BaseQueryResponse page = _next(rq, queryId, proxies, null);
+                List<PageMetric> pageMetrics = rq.getMetric().getPageTimes();
+                return new StreamedPage(page, pageMetrics.get(pageMetrics.size() - 1), System.nanoTime() - callStart, null);
+            } catch (Exception e) {
+                if (e instanceof NoResultsException || e.getCause() instanceof NoResultsException) {
+                    return StreamedPage.LAST;
                 }
+                return StreamedPage.failed(e);
+            }
+        }
+        
+        private void closeQuery() {
+            try {
+                close(rq);
+            } catch (Exception e) {
+                log.error("Error returning connection after the page producer finished id=" + queryId, e);
             }
         }
         
+        private StreamedPageProducer startPageProducer() {
+            if (executor == null) {
+                return null;
+            }
+            // a stream stopped before its last page cancels the page being produced, so that the query can be closed without waiting for it
+            StreamedPageProducer producer = new StreamedPageProducer(queryId, STREAMING_PAGE_QUEUE_SIZE, this::nextPage, rq::cancel, this::closeQuery,
+                            STREAMING_PRODUCER_STOP_TIMEOUT_MS);
+            return producer.start(executor) ? producer : null;
+        }
     }
     
     private void testForUncaughtException(Query settings, ResultsPage resultList) throws QueryException {
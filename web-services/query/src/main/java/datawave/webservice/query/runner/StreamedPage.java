@@ -0,0 +1,27 @@
+package datawave.webservice.query.runner;
+
+import datawave.webservice.query.metric.BaseQueryMetric.PageMetric;
+import datawave.webservice.result.BaseQueryResponse;
+
+/**
+ * A page of a streamed response, along with its page metric. The last page of a stream has neither a response nor an exception.
+ */
+class StreamedPage {
+    static final StreamedPage LAST = new StreamedPage(null, null, 0, null);
+    
+    final BaseQueryResponse page;
+    final PageMetric pageMetric;
+    final long nextTime;
+    final Exception exception;
+    
+    StreamedPage(BaseQueryResponse page, PageMetric pageMetric, long nextTime, Exception exception) {
+        this.page = page;
+        this.pageMetric = pageMetric;
+        this.nextTime = nextTime;
+        this.exception = exception;
+    }
+    
+    static StreamedPage failed(Exception exception) {
+        return new StreamedPage(null, null, 0, exception);
+    }
+}
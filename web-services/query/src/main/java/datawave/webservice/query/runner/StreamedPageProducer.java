@@ -0,0 +1,171 @@
+package datawave.webservice.query.runner;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Produces the pages of a streamed response ahead of them being written. Only {@code queueSize} pages are held at a time, so the memory used by a streamed
+ * response does not grow with the number of pages.
+ * <p>
+ * The query may only be closed once the producer is done with it. If the producer has to be abandoned because it did not stop in time, it closes the query
+ * itself when it finally finishes.
+ */
+class StreamedPageProducer implements Runnable {
+    private static final Logger log = Logger.getLogger(StreamedPageProducer.class);
+    
+    private final String queryId;
+    private final BlockingQueue<StreamedPage> pages;
+    private final Supplier<StreamedPage> nextPage;
+    private final Runnable cancel;
+    private final Runnable close;
+    private final long stopTimeoutMs;
+    
+    private static final int NEW = 0;
+    private static final int RUNNING = 1;
+    private static final int FINISHED = 2;
+    private static final int ABANDONED = 3;
+    // decides whether the query is closed by stop's caller, or by the producer once it finishes after being abandoned
+    private final AtomicInteger state = new AtomicInteger(NEW);
+    
+    private volatile boolean stopped = false;
+    // set once the last page, or the page holding an exception, has been produced
+    private volatile boolean produced = false;
+    private Future<?> future;
+    
+    /**
+     * @param queryId
+     *            the id of the query, for logging
+     * @param queueSize
+     *            the number of pages produced ahead of the page being written
+     * @param nextPage
+     *            gets the next page of the query, returning {@link StreamedPage#LAST} when there are no more
+     * @param cancel
+     *            cancels the page being produced when the stream is stopped before the last page
+     * @param close
+     *            closes the query, run by the producer when it finishes after {@link #stop(boolean)} gave up waiting for it
+     * @param stopTimeoutMs
+     *            how long to wait for the page being produced when stopped, before interrupting it
+     */
+    StreamedPageProducer(String queryId, int queueSize, Supplier<StreamedPage> nextPage, Runnable cancel, Runnable close, long stopTimeoutMs) {
+        this.queryId = queryId;
+        this.pages = new ArrayBlockingQueue<>(queueSize);
+        this.nextPage = nextPage;
+        this.cancel = cancel;
+        this.close = close;
+        this.stopTimeoutMs = stopTimeoutMs;
+    }
+    
+    /**
+     * Start producing pages
+     *
+     * @param executor
+     *            the executor to produce the pages on
+     * @return true if started, false if the executor rejected the producer and the pages have to be produced in-line
+     */
+    boolean start(ExecutorService executor) {
+        try {
+            future = executor.submit(this);
+            return true;
+        } catch (RejectedExecutionException e) {
+            log.warn("page producer rejected by executor id=" + queryId + ", producing pages in-line", e);
+            return false;
+        }
+    }
+    
+    @Override
+    public void run() {
+        if (!state.compareAndSet(NEW, RUNNING)) {
+            // stopped before starting
+            return;
+        }
+        try {
+            produce();
+        } finally {
+            if (!state.compareAndSet(RUNNING, FINISHED)) {
+                log.info("Abandoned page producer finished, closing the query id=" + queryId);
+                close.run();
+            }
+        }
+    }
+    
+    private void produce() {
+        StreamedPage streamed;
+        do {
+            streamed = nextPage.get();
+            produced = (streamed.page == null);
+            try {
+                while (!pages.offer(streamed, 1, TimeUnit.SECONDS)) {
+                    if (stopped) {
+                        return;
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        } while (!stopped && streamed.page != null);
+    }
+    
+    /**
+     * Take the next page, waiting for it to be produced
+     *
+     * @return the next page
+     * @throws InterruptedException
+     *             if interrupted while waiting
+     * @throws IllegalStateException
+     *             if the producer stopped before producing the last page
+     */
+    StreamedPage take() throws InterruptedException {
+        StreamedPage streamed;
+        while ((streamed = pages.poll(1, TimeUnit.SECONDS)) == null) {
+            if (future.isDone() && pages.isEmpty()) {
+                throw new IllegalStateException("Page producer stopped before the last page id=" + queryId);
+            }
+        }
+        return streamed;
+    }
+    
+    /**
+     * Stop producing pages and wait for the producer to finish, so that the query can be closed. If the stream ended before the last page, e.g. because the
+     * client went away, the page being produced is cancelled rather than waited for. If the producer has not finished within the stop timeout it is interrupted
+     * and abandoned, and closes the query itself once it finishes.
+     *
+     * @param complete
+     *            true if the last page was taken
+     * @return true if the producer is done with the query and the caller has to close it, false if the producer will close it
+     */
+    boolean stop(boolean complete) {
+        stopped = true;
+        pages.clear();
+        if (!complete && !produced && !future.isDone()) {
+            cancel.run();
+        }
+        try {
+            future.get(stopTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            log.warn("Page producer did not stop within " + stopTimeoutMs + "ms, interrupting it id=" + queryId);
+            future.cancel(true);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Interrupted waiting for the page producer id=" + queryId, e);
+        } catch (ExecutionException | CancellationException e) {
+            log.warn("Page producer failed id=" + queryId, e);
+        }
+        // a producer which has not started never will, and one still running closes the query when it finishes
+        if (state.compareAndSet(NEW, FINISHED)) {
+            return true;
+        }
+        return !state.compareAndSet(RUNNING, ABANDONED);
+    }
+}
@@ -11,6 +11,8 @@ import java.util.Map;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedList;
+import java.util.SortedSet;
+import java.util.TreeSet;
 import javax.ejb.EJBContext;
 import javax.ejb.EJBException;
 import javax.ws.rs.core.HttpHeaders;
@@ -65,6 +67,7 @@ public class LookupUUIDUtil {
     protected static final String QUOTE = "\"";
     private static final String REGEX_GROUPING_CHARS = "[()]";
     private static final String REGEX_NONWORD_CHARS = "[\\W&&[^:_\\.\\s-]]";
+    private static final String OR_OPERATOR = "OR";
     private static final String REGEX_OR_OPERATOR = "[\\s][oO][rR][\\s]";
     private static final String REGEX_WHITESPACE_CHARS = "\\s";
     private static final String SPACE = " ";
@@ -311,7 +314,7 @@ public class LookupUUIDUtil {
             MultivaluedMap<String,String> queryParameters = new MultivaluedMapImpl<>();
             queryParameters.putAll(this.defaultOptionalParams);
             queryParameters.putAll(validatedCriteria.getQueryParameters());
-            queryParameters.putSingle(QueryParameters.QUERY_STRING, validatedCriteria.getRawQueryString());
+            queryParameters.putSingle(QueryParameters.QUERY_STRING, this.normalizeUUIDTerms(validatedCriteria.getRawQueryString()));
             // Override the extraneous query details
             
             String userAuths;
@@ -857,6 +860,42 @@ public class LookupUUIDUtil {
         return criteria;
     }
     
+    /*
+     * Sort and remove duplicates from a query made up of nothing but UUID terms joined by OR operators, as is POSTed for a batch lookup, so that the terms are
+     * looked up in the global index in order and only once. Any other query is returned as is.
+     * 
+     * @param rawQueryString the validated UUID query
+     * 
+     * @return the sorted, distinct UUID terms joined by OR operators, or the original query
+     */
+    private String normalizeUUIDTerms(final String rawQueryString) {
+        // Leave quoted, escaped, and grouped terms alone rather than attempt to tokenize them
+        if ((null == rawQueryString) || rawQueryString.contains(QUOTE) || rawQueryString.contains("\\") || rawQueryString.contains("(")
+                        || rawQueryString.contains(")")) {
+            return rawQueryString;
+        }
+        
+        final String[] tokens = rawQueryString.trim().split(REGEX_WHITESPACE_CHARS + '+');
+        final SortedSet<String> uuidTerms = new TreeSet<>();
+        for (int i = 0; i < tokens.length; i++) {
+            // Expect alternating UUID terms and OR operators
+            if ((i % 2) == 1) {
+                if (!OR_OPERATOR.equals(tokens[i])) {
+                    return rawQueryString;
+                }
+            } else if (tokens[i].contains(UUID_TERM_DELIMITER)) {
+                uuidTerms.add(tokens[i]);
+            } else {
+                return rawQueryString;
+            }
+        }
+        if ((tokens.length % 2) == 0) {
+            return rawQueryString;
+        }
+        
+        return String.join(SPACE + OR_OPERATOR + SPACE, uuidTerms);
+    }
+    
     private EventQueryResponseBase validatePagedResponse(final BaseQueryResponse response) {
         final EventQueryResponseBase pagedResponse;
         if (response instanceof EventQueryResponseBase) {
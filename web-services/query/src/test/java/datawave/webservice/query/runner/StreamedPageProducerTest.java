@@ -0,0 +1,177 @@
+package datawave.webservice.query.runner;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import datawave.webservice.query.metric.BaseQueryMetric.PageMetric;
+import datawave.webservice.result.DefaultEventQueryResponse;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class StreamedPageProducerTest {
+    
+    private static final int QUEUE_SIZE = 2;
+    
+    private ExecutorService executor;
+    
+    @Before
+    public void setup() {
+        executor = Executors.newCachedThreadPool();
+    }
+    
+    @After
+    public void teardown() {
+        executor.shutdownNow();
+    }
+    
+    @Test
+    public void testPagesAreHandedOffInOrder() throws Exception {
+        List<StreamedPage> produced = new ArrayList<>();
+        AtomicInteger taken = new AtomicInteger();
+        AtomicInteger maxAhead = new AtomicInteger();
+        AtomicBoolean cancelled = new AtomicBoolean();
+        StreamedPageProducer producer = new StreamedPageProducer("query-1", QUEUE_SIZE, () -> {
+            // the producer only gets ahead of the consumer by the queued pages and the one being produced
+            maxAhead.accumulateAndGet(produced.size() - taken.get(), Math::max);
+            StreamedPage page = produced.size() < 10 ? createPage() : StreamedPage.LAST;
+            produced.add(page);
+            return page;
+        }, () -> cancelled.set(true), () -> fail("The producer finished, the caller closes the query"), 5000);
+        assertTrue(producer.start(executor));
+        
+        for (int i = 0; i < 10; i++) {
+            // a slow consumer
+            Thread.sleep(5);
+            StreamedPage page = producer.take();
+            assertSame(produced.get(i), page);
+            taken.incrementAndGet();
+        }
+        assertSame(StreamedPage.LAST, producer.take());
+        assertTrue(producer.stop(true));
+        
+        assertEquals(11, produced.size());
+        assertTrue(maxAhead.get() <= QUEUE_SIZE + 1);
+        assertFalse(cancelled.get());
+    }
+    
+    @Test
+    public void testFailedPageEndsTheStream() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        Exception failure = new IllegalStateException("failed");
+        StreamedPageProducer producer = new StreamedPageProducer("query-1", QUEUE_SIZE, () -> {
+            return calls.incrementAndGet() == 1 ? createPage() : StreamedPage.failed(failure);
+        }, () -> fail("The producer finished, there is nothing to cancel"), () -> {}, 5000);
+        assertTrue(producer.start(executor));
+        
+        assertTrue(producer.take().page != null);
+        StreamedPage failed = producer.take();
+        assertNull(failed.page);
+        assertSame(failure, failed.exception);
+        assertTrue(producer.stop(false));
+        assertEquals(2, calls.get());
+    }
+    
+    @Test
+    public void testProducerWhichDiesFailsTheConsumer() throws Exception {
+        StreamedPageProducer producer = new StreamedPageProducer("query-1", QUEUE_SIZE, () -> {
+            throw new IllegalStateException("unexpected");
+        }, () -> {}, () -> {}, 5000);
+        assertTrue(producer.start(executor));
+        try {
+            producer.take();
+            fail("Expected the consumer to fail");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+        producer.stop(false);
+    }
+    
+    @Test
+    public void testStopBeforeTheLastPageCancelsThePageBeingProduced() throws Exception {
+        CountDownLatch producing = new CountDownLatch(2);
+        CountDownLatch cancelled = new CountDownLatch(1);
+        StreamedPageProducer producer = new StreamedPageProducer("query-1", QUEUE_SIZE, () -> {
+            producing.countDown();
+            if (producing.getCount() == 0) {
+                // the second page does not return until cancelled, like a long running next call
+                try {
+                    cancelled.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return StreamedPage.LAST;
+            }
+            return createPage();
+        }, cancelled::countDown, () -> {}, 60000);
+        assertTrue(producer.start(executor));
+        assertTrue(producer.take().page != null);
+        assertTrue(producing.await(10, TimeUnit.SECONDS));
+        
+        // e.g. the client went away
+        long start = System.currentTimeMillis();
+        assertTrue(producer.stop(false));
+        assertEquals(0, cancelled.getCount());
+        assertTrue(System.currentTimeMillis() - start < 10000);
+    }
+    
+    @Test
+    public void testStopIsBoundedWhenThePageCannotBeCancelled() throws Exception {
+        CountDownLatch producing = new CountDownLatch(1);
+        CountDownLatch interrupted = new CountDownLatch(1);
+        CountDownLatch closed = new CountDownLatch(1);
+        AtomicBoolean cancelled = new AtomicBoolean();
+        StreamedPageProducer producer = new StreamedPageProducer("query-1", QUEUE_SIZE, () -> {
+            producing.countDown();
+            // ignores the cancel, so the producer has to be interrupted
+            try {
+                Thread.sleep(60000);
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+                // still busy with the query after the interrupt
+                try {
+                    Thread.sleep(200);
+                } catch (InterruptedException e2) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return StreamedPage.LAST;
+        }, () -> cancelled.set(true), closed::countDown, 100);
+        assertTrue(producer.start(executor));
+        assertTrue(producing.await(10, TimeUnit.SECONDS));
+        
+        long start = System.currentTimeMillis();
+        // the producer is abandoned, so it closes the query rather than the caller
+        assertFalse(producer.stop(false));
+        assertTrue(System.currentTimeMillis() - start < 10000);
+        assertTrue(cancelled.get());
+        assertTrue(interrupted.await(10, TimeUnit.SECONDS));
+        assertTrue(closed.await(10, TimeUnit.SECONDS));
+    }
+    
+    @Test
+    public void testRejectedProducerIsNotStarted() {
+        ExecutorService rejecting = Executors.newSingleThreadExecutor();
+        rejecting.shutdown();
+        StreamedPageProducer producer = new StreamedPageProducer("query-1", QUEUE_SIZE, () -> StreamedPage.LAST, () -> {}, () -> {}, 5000);
+        assertFalse(producer.start(rejecting));
+    }
+    
+    private static StreamedPage createPage() {
+        return new StreamedPage(new DefaultEventQueryResponse(), new PageMetric(), 1, null);
+    }
+}